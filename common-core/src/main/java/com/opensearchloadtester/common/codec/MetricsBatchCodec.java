@@ -0,0 +1,316 @@
+package com.opensearchloadtester.common.codec;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary encoding of a metrics batch, an alternative to a JSON list of {@link MetricsDto}.
+ *
+ * <p>
+ * The load generator id is written once in the header and query types and stages once in a string
+ * dictionary, records refer to them by index. Numeric fields are written as zigzag varints of the
+ * difference to the same field of the previous record, so unchanged status codes take one byte and
+ * similar durations one or two; start times of consecutive records usually differ by a few ms only.
+ * A presence bit mask per record keeps null fields apart from zero.
+ * The whole batch is gzip-compressed.
+ * </p>
+ *
+ * <pre>
+ * gzip(magic "OSLM", version, string loadGeneratorId, varint dictionarySize, string[dictionarySize],
+ *      varint recordCount, record[recordCount])
+ * record: varint presence, [varint queryType], [varint stage], zigzag httpStatusCodeDelta, [zigzag delta]*
+ * string: varint (length + 1, 0 for null), UTF-8 bytes
+ * </pre>
+ */
+public final class MetricsBatchCodec {
+
+    /**
+     * Content type of an encoded batch.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.opensearch-load-tester.metrics-batch";
+
+    private static final byte[] MAGIC = {'O', 'S', 'L', 'M'};
+    // Version 2 added the start time; version 1 batches never set its presence bit and decode unchanged
+    private static final int VERSION = 2;
+    private static final int MIN_VERSION = 1;
+    private static final int MAX_STRING_BYTES = 64 * 1024;
+    private static final int MAX_DECOMPRESSED_BYTES = 256 * 1024 * 1024;
+
+    private static final int QUERY_TYPE_PRESENT = 1;
+    private static final int STAGE_PRESENT = 1 << 1;
+    // Bits of the numeric fields follow, in the order of NUMERIC_FIELDS
+    private static final int FIRST_NUMERIC_FIELD_BIT = 2;
+
+    private static final List<NumericField> NUMERIC_FIELDS = List.of(
+            new NumericField(MetricsDto::getRequestDurationMillis, MetricsDto::setRequestDurationMillis),
+            new NumericField(MetricsDto::getCorrectedRequestDurationMillis,
+                    MetricsDto::setCorrectedRequestDurationMillis),
+            new NumericField(MetricsDto::getQueryDurationMillis, MetricsDto::setQueryDurationMillis),
+            new NumericField(metrics -> metrics.getTotalHits() == null ? null : metrics.getTotalHits().longValue(),
+                    (metrics, value) -> metrics.setTotalHits(Math.toIntExact(value))),
+            new NumericField(MetricsDto::getRequestBytes, MetricsDto::setRequestBytes),
+            new NumericField(MetricsDto::getResponseBytes, MetricsDto::setResponseBytes),
+            new NumericField(MetricsDto::getTimeToFirstByteMillis, MetricsDto::setTimeToFirstByteMillis),
+            new NumericField(MetricsDto::getTransferTimeMillis, MetricsDto::setTransferTimeMillis),
+            new NumericField(MetricsDto::getOverheadMillis, MetricsDto::setOverheadMillis),
+            new NumericField(MetricsDto::getStartTimeEpochMillis, MetricsDto::setStartTimeEpochMillis)
+    );
+
+    private MetricsBatchCodec() {
+    }
+
+    /**
+     * Encodes a batch of metrics.
+     *
+     * @throws IllegalArgumentException if the metrics stem from more than one load generator
+     */
+    public static byte[] encode(List<MetricsDto> metricsList) {
+        Objects.requireNonNull(metricsList, "metricsList must not be null");
+
+        String loadGeneratorId = metricsList.isEmpty() ? null : metricsList.getFirst().getLoadGeneratorId();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (MetricsDto metrics : metricsList) {
+            if (!Objects.equals(loadGeneratorId, metrics.getLoadGeneratorId())) {
+                throw new IllegalArgumentException(String.format(
+                        "A metrics batch must stem from one load generator, found '%s' and '%s'",
+                        loadGeneratorId, metrics.getLoadGeneratorId()));
+            }
+            addToDictionary(metrics.getQueryType(), dictionary, strings);
+            addToDictionary(metrics.getStage(), dictionary, strings);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + metricsList.size() * 4);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(bytes, 8192)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeString(out, loadGeneratorId);
+            writeVarint(out, strings.size());
+            for (String string : strings) {
+                writeString(out, string);
+            }
+
+            writeVarint(out, metricsList.size());
+            long previousStatus = 0;
+            long[] previous = new long[NUMERIC_FIELDS.size()];
+            for (MetricsDto metrics : metricsList) {
+                int presence = 0;
+                if (metrics.getQueryType() != null) presence |= QUERY_TYPE_PRESENT;
+                if (metrics.getStage() != null) presence |= STAGE_PRESENT;
+                for (int i = 0; i < NUMERIC_FIELDS.size(); i++) {
+                    if (NUMERIC_FIELDS.get(i).getter().apply(metrics) != null) {
+                        presence |= 1 << (FIRST_NUMERIC_FIELD_BIT + i);
+                    }
+                }
+                writeVarint(out, presence);
+
+                if (metrics.getQueryType() != null) writeVarint(out, dictionary.get(metrics.getQueryType()));
+                if (metrics.getStage() != null) writeVarint(out, dictionary.get(metrics.getStage()));
+
+                writeVarint(out, zigzag(metrics.getHttpStatusCode() - previousStatus));
+                previousStatus = metrics.getHttpStatusCode();
+
+                for (int i = 0; i < NUMERIC_FIELDS.size(); i++) {
+                    Long value = NUMERIC_FIELDS.get(i).getter().apply(metrics);
+                    if (value != null) {
+                        writeVarint(out, zigzag(value - previous[i]));
+                        previous[i] = value;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Writing to a byte array never fails
+            throw new IllegalStateException("Failed to encode metrics batch", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a batch of metrics.
+     *
+     * @throws IOException if the data is not a valid encoded batch
+     */
+    public static List<MetricsDto> decode(byte[] encoded) throws IOException {
+        return decode(new ByteArrayInputStream(encoded));
+    }
+
+    /**
+     * Decodes a batch of metrics from a stream; does not close the stream.
+     *
+     * @throws IOException if the stream cannot be read or is not a valid encoded batch
+     */
+    public static List<MetricsDto> decode(InputStream encoded) throws IOException {
+        // Inflate in one go, parsing from an array is much cheaper than reading byte by byte from the stream
+        byte[] data = new GZIPInputStream(encoded, 8192).readNBytes(MAX_DECOMPRESSED_BYTES + 1);
+        if (data.length > MAX_DECOMPRESSED_BYTES) {
+            throw new IOException("Invalid metrics batch: more than " + MAX_DECOMPRESSED_BYTES + " bytes");
+        }
+        Reader in = new Reader(data);
+
+        if (data.length < MAGIC.length || !Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Invalid metrics batch: unknown format");
+        }
+        in.position = MAGIC.length;
+        int version = in.readByte();
+        if (version < MIN_VERSION || version > VERSION) {
+            throw new IOException("Invalid metrics batch: unsupported version " + version);
+        }
+
+        String loadGeneratorId = readString(in);
+        int dictionarySize = readCount(in);
+        String[] strings = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            strings[i] = readString(in);
+        }
+
+        int recordCount = readCount(in);
+        List<MetricsDto> metricsList = new ArrayList<>(Math.min(recordCount, 1024));
+        long previousStatus = 0;
+        long[] previous = new long[NUMERIC_FIELDS.size()];
+        for (int record = 0; record < recordCount; record++) {
+            int presence = (int) readVarint(in);
+            MetricsDto metrics = new MetricsDto();
+            metrics.setLoadGeneratorId(loadGeneratorId);
+
+            if ((presence & QUERY_TYPE_PRESENT) != 0) metrics.setQueryType(lookup(strings, readVarint(in)));
+            if ((presence & STAGE_PRESENT) != 0) metrics.setStage(lookup(strings, readVarint(in)));
+
+            try {
+                previousStatus += unzigzag(readVarint(in));
+                metrics.setHttpStatusCode(Math.toIntExact(previousStatus));
+
+                for (int i = 0; i < NUMERIC_FIELDS.size(); i++) {
+                    if ((presence & (1 << (FIRST_NUMERIC_FIELD_BIT + i))) != 0) {
+                        previous[i] += unzigzag(readVarint(in));
+                        NUMERIC_FIELDS.get(i).setter().accept(metrics, previous[i]);
+                    }
+                }
+            } catch (ArithmeticException e) {
+                throw new IOException("Invalid metrics batch: value out of range in record " + record, e);
+            }
+            metricsList.add(metrics);
+        }
+        return metricsList;
+    }
+
+    private static void addToDictionary(String string, Map<String, Integer> dictionary, List<String> strings) {
+        if (string != null && !dictionary.containsKey(string)) {
+            dictionary.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static String lookup(String[] strings, long index) throws IOException {
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("Invalid metrics batch: dictionary index " + index + " out of range");
+        }
+        return strings[(int) index];
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String too long for a metrics batch: " + utf8.length + " bytes");
+        }
+        writeVarint(out, utf8.length + 1L);
+        out.write(utf8);
+    }
+
+    private static String readString(Reader in) throws IOException {
+        long length = readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > MAX_STRING_BYTES) {
+            throw new IOException("Invalid metrics batch: string of " + (length - 1) + " bytes");
+        }
+        return in.readUtf8((int) length - 1);
+    }
+
+    private static int readCount(Reader in) throws IOException {
+        long count = readVarint(in);
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Invalid metrics batch: count " + count);
+        }
+        return (int) count;
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(Reader in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid metrics batch: varint too long");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() throws EOFException {
+            if (position >= data.length) {
+                throw new EOFException("Invalid metrics batch: truncated");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        String readUtf8(int length) throws EOFException {
+            if (length > data.length - position) {
+                throw new EOFException("Invalid metrics batch: truncated");
+            }
+            String string = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return string;
+        }
+    }
+
+    private record NumericField(Function<MetricsDto, Long> getter, BiConsumer<MetricsDto, Long> setter) {
+    }
+}
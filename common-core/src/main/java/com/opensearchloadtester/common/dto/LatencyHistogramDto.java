@@ -0,0 +1,28 @@
+package com.opensearchloadtester.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Latency distribution of the queries of one group within a reporting interval.
+ * Durations are recorded in ms into HdrHistograms, each shipped in their compressed encoding
+ * ({@code Histogram#encodeIntoCompressedByteBuffer}), null if no value was recorded.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyHistogramDto {
+
+    // Name of the load profile stage, null for constant-rate scenarios
+    private String stage;
+    private String queryType;
+    // HTTP status class of the responses, e.g. "2xx" or "5xx"
+    private String statusClass;
+    private long count;
+    private byte[] requestDuration;
+    private byte[] correctedRequestDuration;
+    private byte[] queryDuration;
+}
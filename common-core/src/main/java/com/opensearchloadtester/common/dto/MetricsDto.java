@@ -13,8 +13,31 @@ public class MetricsDto {
 
     private String loadGeneratorId;
     private String queryType;
+    // Name of the load profile stage the query was scheduled in, null for constant-rate scenarios
+    private String stage;
+    // Service time: measured from the moment the request is actually sent
     private Long requestDurationMillis;
+    // Response time measured from the intended start of the arrival (coordinated-omission corrected),
+    // includes any delay the scheduler or the worker pool added before the request was sent
+    private Long correctedRequestDurationMillis;
     private Long queryDurationMillis;
     private Integer totalHits;
     private int httpStatusCode;
+    // Size of the request body and of the (possibly filtered) response body
+    private Long requestBytes;
+    private Long responseBytes;
+    // Split of the service time at the arrival of the response head: waiting for the first byte
+    // (connection, request upload, server processing) and receiving the body
+    private Long timeToFirstByteMillis;
+    private Long transferTimeMillis;
+    // Client/network overhead: service time minus the server-side 'took'
+    private Long overheadMillis;
+    // Wall-clock time the request was sent, in milliseconds since the epoch
+    private Long startTimeEpochMillis;
+
+    public MetricsDto(String loadGeneratorId, String queryType, Long requestDurationMillis,
+                      Long queryDurationMillis, Integer totalHits, int httpStatusCode) {
+        this(loadGeneratorId, queryType, null, requestDurationMillis, null, queryDurationMillis, totalHits,
+                httpStatusCode, null, null, null, null, null, null);
+    }
 }
@@ -0,0 +1,26 @@
+package com.opensearchloadtester.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Aggregated metrics of one load generator for one reporting interval, sent instead of (or in addition to)
+ * one {@link MetricsDto} per query.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsIntervalDto {
+
+    private String loadGeneratorId;
+    // Epoch millis, aligned to multiples of the interval length so intervals of all load generators line up
+    private long intervalStartMillis;
+    private long intervalEndMillis;
+    // One entry per stage, query type and status class that had queries in the interval
+    private List<LatencyHistogramDto> histograms;
+}
@@ -0,0 +1,30 @@
+package com.opensearchloadtester.common.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Describes what a run measured, sent by each Load Generator before its run so the Metrics Reporter can keep it
+ * in the run history next to the results.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunMetadataDto {
+
+    @NotBlank
+    private String loadGeneratorId;
+    private String scenarioName;
+    // Scenario file as written, null if it could not be read
+    private String scenarioConfig;
+    // Cluster under test, e.g. cluster_name, version, number_of_nodes; empty if it could not be queried
+    private Map<String, String> cluster;
+    // Settings of the queried index in flat form, e.g. index.number_of_replicas
+    private Map<String, String> indexSettings;
+}
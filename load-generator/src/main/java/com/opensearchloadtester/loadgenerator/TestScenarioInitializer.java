@@ -4,20 +4,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opensearchloadtester.loadgenerator.client.LoadTestStartSyncClient;
 import com.opensearchloadtester.loadgenerator.client.MetricsReporterClient;
 import com.opensearchloadtester.loadgenerator.exception.MetricsReporterAccessException;
-import com.opensearchloadtester.loadgenerator.model.QueryType;
 import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
+import com.opensearchloadtester.loadgenerator.queries.QueryTemplateRegistry;
 import com.opensearchloadtester.loadgenerator.service.LoadRunner;
 import com.opensearchloadtester.loadgenerator.service.MetricsCollector;
+import com.opensearchloadtester.loadgenerator.service.QueryCorpus;
 import com.opensearchloadtester.loadgenerator.service.QueryExecutionTask;
 import com.opensearchloadtester.loadgenerator.service.QueryPoolBuilder;
+import com.opensearchloadtester.loadgenerator.service.QuerySampler;
+import com.opensearchloadtester.loadgenerator.service.RunMetadataCollector;
 import lombok.extern.slf4j.Slf4j;
 import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 @Slf4j
 @Component
 public class TestScenarioInitializer implements CommandLineRunner {
@@ -27,30 +28,39 @@ public class TestScenarioInitializer implements CommandLineRunner {
 
     private final String loadGeneratorId;
     private final int numberLoadGenerators;
+    private final int queryCorpusSize;
+    private final boolean queryCorpusOffHeap;
     private final ScenarioConfig scenarioConfig;
     private final LoadRunner loadRunner;
     private final OpenSearchGenericClient openSearchClient;
     private final LoadTestStartSyncClient loadTestStartSyncClient;
     private final MetricsReporterClient metricsReporterClient;
+    private final RunMetadataCollector runMetadataCollector;
     private final ObjectMapper objectMapper;
 
     public TestScenarioInitializer(
             @Value("${HOSTNAME}") String loadGeneratorId,
             @Value("${load.generator.replicas}") int numberLoadGenerators,
+            @Value("${load.generator.query.corpus.size}") int queryCorpusSize,
+            @Value("${load.generator.query.corpus.off.heap}") boolean queryCorpusOffHeap,
             ScenarioConfig scenarioConfig,
             LoadRunner loadRunner,
             OpenSearchGenericClient openSearchClient,
             LoadTestStartSyncClient loadTestStartSyncClient,
             MetricsReporterClient metricsReporterClient,
+            RunMetadataCollector runMetadataCollector,
             ObjectMapper objectMapper
     ) {
         this.loadGeneratorId = loadGeneratorId;
         this.numberLoadGenerators = numberLoadGenerators;
+        this.queryCorpusSize = queryCorpusSize;
+        this.queryCorpusOffHeap = queryCorpusOffHeap;
         this.scenarioConfig = scenarioConfig;
         this.loadRunner = loadRunner;
         this.openSearchClient = openSearchClient;
         this.loadTestStartSyncClient = loadTestStartSyncClient;
         this.metricsReporterClient = metricsReporterClient;
+        this.runMetadataCollector = runMetadataCollector;
         this.objectMapper = objectMapper;
     }
 
@@ -59,8 +69,15 @@ public class TestScenarioInitializer implements CommandLineRunner {
         log.info("Initializing load test with scenario {}", scenarioConfig.getName());
 
         try {
+            log.info("Loaded {} query templates", QueryTemplateRegistry.getInstance().size());
+
+            reportRunMetadata();
+
+            // Render all request bodies before the barrier, so no generator spends the measured phase on it
+            QueryCorpus queryCorpus = queryCorpusSize > 0 ? generateQueryCorpus() : null;
+
             if (scenarioConfig.getWarmUpEnabled()) {
-                runWarmUp();
+                runWarmUp(queryCorpus);
             }
 
             if (numberLoadGenerators > 1) {
@@ -68,7 +85,7 @@ public class TestScenarioInitializer implements CommandLineRunner {
             }
 
             log.info("Starting load test");
-            loadRunner.executeScenario(scenarioConfig);
+            loadRunner.executeScenario(scenarioConfig, queryCorpus);
             log.info("Finished load test successfully");
 
             metricsReporterClient.finish(loadGeneratorId, true, null);
@@ -86,22 +103,51 @@ public class TestScenarioInitializer implements CommandLineRunner {
         }
     }
 
-    private void runWarmUp() {
+    // Before the measured phase, so the cluster is queried while it is idle
+    private void reportRunMetadata() {
+        try {
+            metricsReporterClient.sendRunMetadata(runMetadataCollector.collect(loadGeneratorId));
+        } catch (RuntimeException e) {
+            log.warn("Failed to send run metadata to Metrics Reporter, the run history will lack it: {}",
+                    e.getMessage());
+        }
+    }
+
+    private QueryCorpus generateQueryCorpus() {
+        log.info("Generating query corpus ({} bodies per query type, {})",
+                queryCorpusSize, queryCorpusOffHeap ? "off-heap" : "heap");
+
+        QueryCorpus queryCorpus = QueryCorpus.generate(
+                QueryPoolBuilder.build(scenarioConfig).getQueryTypes(), queryCorpusSize, queryCorpusOffHeap);
+
+        log.info("Generated query corpus in {} ms: {} bodies for {} query types, {} KiB {}",
+                queryCorpus.getGenerationTimeMillis(),
+                queryCorpus.getBodyCount(),
+                queryCorpus.getQueryTypeCount(),
+                queryCorpus.getFootprintBytes() / 1024,
+                queryCorpus.isOffHeap() ? "off-heap" : "on heap");
+
+        return queryCorpus;
+    }
+
+    private void runWarmUp(QueryCorpus queryCorpus) {
         log.info("Running warm-up until at least {} requests executed AND at least {} ms elapsed",
                 WARMUP_REQUEST_COUNT, MIN_WARMUP_DURATION_MS);
 
         long warmupStart = System.currentTimeMillis();
 
         MetricsCollector warmupCollector = new MetricsCollector(metricsReporterClient, false);
-        List<QueryType> queryPool = QueryPoolBuilder.build(scenarioConfig);
+        QuerySampler querySampler = QueryPoolBuilder.build(scenarioConfig);
 
         QueryExecutionTask warmupTask = new QueryExecutionTask(
                 loadGeneratorId,
                 scenarioConfig.getDocumentType().getIndex(),
-                queryPool,
+                querySampler,
                 openSearchClient,
                 warmupCollector,// warm-up metrics are ignored
-                objectMapper
+                objectMapper,
+                queryCorpus,
+                scenarioConfig.getFilterPath()
         );
 
         boolean atLeastOneSuccessful = false;
@@ -2,42 +2,76 @@ package com.opensearchloadtester.loadgenerator.client;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.codec.MetricsBatchCodec;
 import com.opensearchloadtester.common.dto.FinishLoadTestDto;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
 import com.opensearchloadtester.loadgenerator.exception.MetricsReporterAccessException;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterBackpressureException;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterRejectedException;
+import com.opensearchloadtester.loadgenerator.model.MetricsWireFormat;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 @Slf4j
 @Component
 public class MetricsReporterClient {
 
+    private static final ContentType METRICS_BATCH_CONTENT_TYPE = ContentType.create(MetricsBatchCodec.MEDIA_TYPE);
+
     private final String metricsEndpointUrl;
     private final CloseableHttpClient httpClient;
     private final ObjectMapper objectMapper;
     private final String finishEndpointUrl;
+    private final String histogramsEndpointUrl;
+    private final String runMetadataEndpointUrl;
+    // Cleared once the Metrics Reporter rejects the binary format, all further batches are sent as JSON
+    private volatile boolean binaryFormatAccepted;
 
+    @Autowired
     public MetricsReporterClient(@Value("${metrics-reporter.url}") String metricsReporterBaseUrl,
+                                 @Value("${metrics.wire.format:BINARY}") MetricsWireFormat wireFormat,
                                  ObjectMapper objectMapper, CloseableHttpClient httpClient) {
         this.metricsEndpointUrl = metricsReporterBaseUrl + "/metrics";
         this.finishEndpointUrl = metricsReporterBaseUrl + "/finish";
+        this.histogramsEndpointUrl = metricsReporterBaseUrl + "/metrics/histograms";
+        this.runMetadataEndpointUrl = metricsReporterBaseUrl + "/run-metadata";
         this.objectMapper = objectMapper;
         this.httpClient = httpClient;
+        this.binaryFormatAccepted = wireFormat == MetricsWireFormat.BINARY;
+    }
+
+    // JSON wire format only
+    public MetricsReporterClient(String metricsReporterBaseUrl, ObjectMapper objectMapper,
+                                 CloseableHttpClient httpClient) {
+        this(metricsReporterBaseUrl, MetricsWireFormat.JSON, objectMapper, httpClient);
     }
 
     /**
-     * Sends the given metrics as JSON to the configured Metrics Reporter service.
+     * Sends the given metrics to the configured Metrics Reporter service, in the binary batch format
+     * if configured and accepted by the Metrics Reporter, as JSON otherwise.
      */
     public void sendMetrics(List<MetricsDto> metricsList) {
+        if (binaryFormatAccepted && sendMetricsBatch(metricsList)) {
+            return;
+        }
+
         String jsonBody;
 
         try {
@@ -51,41 +85,149 @@ public class MetricsReporterClient {
 
         log.info("Sending metrics to Metrics Reporter at '{}'", metricsEndpointUrl);
 
+        executeWithRetries(postRequest, "metrics", false);
+    }
+
+    // Returns false if the Metrics Reporter does not support the binary format (HTTP 415)
+    private boolean sendMetricsBatch(List<MetricsDto> metricsList) {
+        byte[] body;
+
+        try {
+            body = MetricsBatchCodec.encode(metricsList);
+        } catch (IllegalArgumentException e) {
+            throw new MetricsReporterAccessException("Failed to encode metrics batch", e);
+        }
+
+        HttpPost postRequest = new HttpPost(metricsEndpointUrl);
+        postRequest.setEntity(new ByteArrayEntity(body, METRICS_BATCH_CONTENT_TYPE));
+
+        log.info("Sending metrics batch ({} bytes) to Metrics Reporter at '{}'", body.length, metricsEndpointUrl);
+
+        if (executeWithRetries(postRequest, "metrics", true) == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE) {
+            log.warn("Metrics Reporter does not accept binary metrics batches, falling back to JSON");
+            binaryFormatAccepted = false;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends the latency histograms of one reporting interval as JSON to the configured Metrics Reporter service.
+     */
+    public void sendHistograms(MetricsIntervalDto metricsInterval) {
+        String jsonBody;
+
+        try {
+            jsonBody = objectMapper.writeValueAsString(metricsInterval);
+        } catch (JsonProcessingException e) {
+            throw new MetricsReporterAccessException("Failed to serialize metrics interval to JSON", e);
+        }
+
+        HttpPost postRequest = new HttpPost(histogramsEndpointUrl);
+        postRequest.setEntity(new StringEntity(jsonBody, ContentType.APPLICATION_JSON));
+
+        log.info("Sending {} histograms to Metrics Reporter at '{}'",
+                metricsInterval.getHistograms().size(), histogramsEndpointUrl);
+
+        executeWithRetries(postRequest, "histograms", false);
+    }
+
+    // Returns the HTTP status of the successful attempt, or 415 without retrying if negotiating the content type.
+    // Throws MetricsReporterBackpressureException without retrying if the Metrics Reporter is overloaded (429),
+    // MetricsReporterRejectedException without retrying if it rejects the payload for good (any other 4xx).
+    private int executeWithRetries(HttpPost postRequest, String payloadName, boolean negotiatingContentType) {
         int maxAttempts = 3;
 
         for (int attempt = 1; attempt <= maxAttempts; attempt++) {
             try {
-                int status = httpClient.execute(postRequest, HttpResponse::getCode);
+                PostResult result = httpClient.execute(postRequest,
+                        response -> new PostResult(response.getCode(), retryAfter(response)));
+                int status = result.status();
 
                 if (status >= 200 && status < 300) {
-                    log.info("Sent metrics successfully");
-                    return;
+                    log.info("Sent {} successfully", payloadName);
+                    return status;
+                }
+                if (negotiatingContentType && status == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE) {
+                    return status;
+                }
+                if (status == HttpStatus.SC_TOO_MANY_REQUESTS) {
+                    log.warn("Metrics Reporter is overloaded, not sending {} (Retry-After: {})",
+                            payloadName, result.retryAfter());
+                    throw new MetricsReporterBackpressureException(
+                            "Metrics Reporter asked to retry " + payloadName + " later", result.retryAfter());
+                }
+                if (status >= 400 && status < 500) {
+                    throw new MetricsReporterRejectedException(
+                            String.format("Metrics Reporter rejected %s (HTTP: %s)", payloadName, status), status);
                 }
 
-                log.warn("Failed to send metrics (attempt: {}/{}, HTTP: {})",
-                        attempt, maxAttempts, status);
+                log.warn("Failed to send {} (attempt: {}/{}, HTTP: {})",
+                        payloadName, attempt, maxAttempts, status);
 
                 if (attempt == maxAttempts) {
                     throw new MetricsReporterAccessException(
                             String.format(
-                                    "Stopped sending metrics after %s failed attempts (last HTTP: %s)",
-                                    maxAttempts, status)
+                                    "Stopped sending %s after %s failed attempts (last HTTP: %s)",
+                                    payloadName, maxAttempts, status)
                     );
                 }
             } catch (IOException e) {
-                log.warn("I/O error while sending metrics (attempt: {}/{})",
-                        attempt, maxAttempts, e);
+                log.warn("I/O error while sending {} (attempt: {}/{})",
+                        payloadName, attempt, maxAttempts, e);
 
                 if (attempt == maxAttempts) {
                     throw new MetricsReporterAccessException(
                             String.format(
-                                    "Stopped sending metrics after %s failed attempts due to I/O errors",
-                                    maxAttempts),
+                                    "Stopped sending %s after %s failed attempts due to I/O errors",
+                                    payloadName, maxAttempts),
                             e
                     );
                 }
             }
         }
+        // Not reached: the last attempt either returns or throws
+        throw new IllegalStateException("No attempt made to send " + payloadName);
+    }
+
+    // Delay of a Retry-After header in delta-seconds, null if missing or given as HTTP date
+    private static Duration retryAfter(HttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(header.getValue().trim())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record PostResult(int status, Duration retryAfter) {
+    }
+
+    /**
+     * Sends what this run measures (scenario, cluster and index settings) for the run history.
+     */
+    public void sendRunMetadata(RunMetadataDto runMetadata) {
+        String jsonBody;
+        try {
+            jsonBody = objectMapper.writeValueAsString(runMetadata);
+        } catch (JsonProcessingException e) {
+            throw new MetricsReporterAccessException("Failed to serialize run metadata to JSON", e);
+        }
+
+        HttpPost postRequest = new HttpPost(runMetadataEndpointUrl);
+        postRequest.setEntity(new StringEntity(jsonBody, ContentType.APPLICATION_JSON));
+
+        try {
+            int status = httpClient.execute(postRequest, HttpResponse::getCode);
+            if (status >= 400) {
+                throw new MetricsReporterAccessException("Run metadata call failed (HTTP: " + status + ")");
+            }
+        } catch (IOException e) {
+            throw new MetricsReporterAccessException("I/O error while sending run metadata", e);
+        }
     }
 
     public void finish(String loadGeneratorId, boolean success, String errorMessage) {
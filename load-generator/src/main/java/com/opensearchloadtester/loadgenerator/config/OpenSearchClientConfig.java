@@ -11,6 +11,7 @@ import org.apache.hc.core5.util.Timeout;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
 import org.opensearch.client.transport.OpenSearchTransport;
+import org.opensearch.client.transport.httpclient5.ApacheHttpClient5Options;
 import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -24,12 +25,15 @@ public class OpenSearchClientConfig {
 
     private final String openSearchUrl;
     private final ScenarioConfig scenarioConfig;
+    private final int maxInFlightRequests;
 
     public OpenSearchClientConfig(
             @NotNull @Value("${opensearch.url}") String openSearchUrl,
-            @NotNull ScenarioConfig scenarioConfig) {
+            @NotNull ScenarioConfig scenarioConfig,
+            @Value("${load.generator.max.in.flight}") int maxInFlightRequests) {
         this.openSearchUrl = openSearchUrl;
         this.scenarioConfig = scenarioConfig;
+        this.maxInFlightRequests = maxInFlightRequests;
     }
 
     @Bean
@@ -40,17 +44,26 @@ public class OpenSearchClientConfig {
 
         final long TIMEOUT_SECONDS = scenarioConfig.getQueryResponseTimeout().toSeconds();
 
+        // Records the arrival of the response head, see ResponseTimings
+        ApacheHttpClient5Options.Builder transportOptions = ApacheHttpClient5Options.DEFAULT.toBuilder();
+        transportOptions.setHttpAsyncResponseConsumerFactory(ResponseTimings.consumerFactory());
+
         OpenSearchTransport transport = ApacheHttpClient5TransportBuilder
                 .builder(host)
+                .setOptions(transportOptions.build())
                 .setHttpClientConfigCallback(httpClientBuilder -> {
                     ConnectionConfig connectionConfig = ConnectionConfig.custom()
                             .setSocketTimeout(Timeout.ofSeconds(TIMEOUT_SECONDS))
                             .setConnectTimeout(Timeout.ofSeconds(TIMEOUT_SECONDS))
                             .build();
 
+                    // One connection per in-flight request, otherwise requests queue up in the pool
+                    // (default: 5 per route) and the pool wait ends up in the measured durations
                     PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder
                             .create()
                             .setDefaultConnectionConfig(connectionConfig)
+                            .setMaxConnTotal(maxInFlightRequests)
+                            .setMaxConnPerRoute(maxInFlightRequests)
                             .build();
 
                     RequestConfig requestConfig = RequestConfig.custom()
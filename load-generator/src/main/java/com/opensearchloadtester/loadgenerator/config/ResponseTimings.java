@@ -0,0 +1,135 @@
+package com.opensearchloadtester.loadgenerator.config;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.opensearch.client.transport.httpclient5.HttpAsyncResponseConsumerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Records the time the response head of a query arrived (time to first byte).
+ *
+ * <p>
+ * The OpenSearch client only completes a request once the whole response body was buffered, and the
+ * transport ignores per-request headers, so the arrival of the response head is neither visible to the
+ * caller nor can it be correlated on the HTTP client. Instead, the transport creates its response consumer
+ * on the thread submitting the request: a caller registers a {@link ResponseTiming} with {@link #track()},
+ * submits the request, and calls {@link #untrack()}. The consumer created in between stamps the
+ * {@link System#nanoTime()} of the response head into that timing on the I/O thread.
+ * </p>
+ */
+public final class ResponseTimings {
+
+    private static final ThreadLocal<ResponseTiming> CURRENT = new ThreadLocal<>();
+
+    private static final HttpAsyncResponseConsumerFactory CONSUMER_FACTORY = () -> {
+        AsyncResponseConsumer<ClassicHttpResponse> delegate =
+                HttpAsyncResponseConsumerFactory.DEFAULT.createHttpAsyncResponseConsumer();
+        ResponseTiming timing = CURRENT.get();
+        return timing != null ? new TimingResponseConsumer(delegate, timing) : delegate;
+    };
+
+    private ResponseTimings() {
+    }
+
+    /**
+     * Returns the response consumer factory to configure on the OpenSearch transport.
+     */
+    public static HttpAsyncResponseConsumerFactory consumerFactory() {
+        return CONSUMER_FACTORY;
+    }
+
+    /**
+     * Registers a new timing for the next request submitted on the current thread.
+     * Must be followed by {@link #untrack()} once the request was submitted.
+     */
+    public static ResponseTiming track() {
+        ResponseTiming timing = new ResponseTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static void untrack() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Arrival time of the response head of one request.
+     */
+    public static final class ResponseTiming {
+
+        private volatile long firstByteNanos;
+        private volatile boolean received;
+
+        /**
+         * Returns the time the response head arrived on the {@link System#nanoTime()} clock,
+         * null if no response head was received (or the transport is not configured with the consumer factory).
+         */
+        public Long firstByteNanos() {
+            return received ? firstByteNanos : null;
+        }
+
+        void stamp(long nanos) {
+            if (!received) {
+                firstByteNanos = nanos;
+                received = true;
+            }
+        }
+    }
+
+    private record TimingResponseConsumer(
+            AsyncResponseConsumer<ClassicHttpResponse> delegate,
+            ResponseTiming timing
+    ) implements AsyncResponseConsumer<ClassicHttpResponse> {
+
+        @Override
+        public void consumeResponse(
+                HttpResponse response,
+                EntityDetails entityDetails,
+                HttpContext context,
+                FutureCallback<ClassicHttpResponse> resultCallback
+        ) throws HttpException, IOException {
+            timing.stamp(System.nanoTime());
+            delegate.consumeResponse(response, entityDetails, context, resultCallback);
+        }
+
+        @Override
+        public void informationResponse(HttpResponse response, HttpContext context) throws HttpException, IOException {
+            delegate.informationResponse(response, context);
+        }
+
+        @Override
+        public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+            delegate.updateCapacity(capacityChannel);
+        }
+
+        @Override
+        public void consume(ByteBuffer src) throws IOException {
+            delegate.consume(src);
+        }
+
+        @Override
+        public void streamEnd(List<? extends Header> trailers) throws HttpException, IOException {
+            delegate.streamEnd(trailers);
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            delegate.failed(cause);
+        }
+
+        @Override
+        public void releaseResources() {
+            delegate.releaseResources();
+        }
+    }
+}
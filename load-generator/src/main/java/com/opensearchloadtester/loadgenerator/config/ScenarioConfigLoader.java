@@ -2,6 +2,8 @@ package com.opensearchloadtester.loadgenerator.config;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.loadgenerator.model.LoadStage;
+import com.opensearchloadtester.loadgenerator.model.LoadStageType;
 import com.opensearchloadtester.loadgenerator.model.QueryType;
 import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
 import jakarta.validation.constraints.NotBlank;
@@ -14,7 +16,11 @@ import org.springframework.context.annotation.Configuration;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 @Slf4j
 @Configuration
@@ -48,8 +54,12 @@ public class ScenarioConfigLoader {
             ScenarioConfig config = yamlMapper.readValue(path.toFile(), ScenarioConfig.class);
 
             validateQueryMix(config);
+            normalizeFilterPath(config);
 
-            if (config.getQueriesPerSecond() < numberLoadGenerators) {
+            if (config.hasStages()) {
+                validateStages(config);
+                deriveScheduleFromStages(config);
+            } else if (config.getQueriesPerSecond() < numberLoadGenerators) {
                 throw new IllegalStateException(
                         "Invalid scenario configuration: queriesPerSecond must be >= load generator replicas."
                 );
@@ -62,6 +72,106 @@ public class ScenarioConfigLoader {
         }
     }
 
+    /**
+     * Makes sure a configured filter_path still returns the fields reported per query.
+     */
+    private void normalizeFilterPath(ScenarioConfig config) {
+        String filterPath = config.getFilterPath();
+        if (filterPath == null || filterPath.isBlank()) {
+            config.setFilterPath(null);
+            return;
+        }
+
+        List<String> filters = new ArrayList<>(Arrays.stream(filterPath.split(","))
+                .map(String::trim)
+                .filter(filter -> !filter.isEmpty())
+                .toList());
+
+        boolean keepsAll = filters.contains("*") || filters.contains("**");
+        if (!keepsAll && !filters.contains("took")) {
+            filters.add("took");
+        }
+        if (!keepsAll && filters.stream().noneMatch(filter -> filter.equals("hits")
+                || filter.equals("hits.*") || filter.startsWith("hits.total"))) {
+            filters.add("hits.total");
+        }
+
+        String normalized = String.join(",", filters);
+        if (!normalized.equals(filterPath)) {
+            log.info("Using filter_path '{}' (took and hits.total are always required)", normalized);
+        }
+        config.setFilterPath(normalized);
+    }
+
+    private void validateStages(ScenarioConfig config) {
+        double peakRate = 0;
+        for (int i = 0; i < config.getStages().size(); i++) {
+            LoadStage stage = config.getStages().get(i);
+            String prefix = "stages[" + i + "]: ";
+
+            if (stage.getType() == null) {
+                throw new IllegalArgumentException(prefix + "missing field 'type' " +
+                        "(one of " + Arrays.toString(LoadStageType.values()) + ")");
+            }
+            if (stage.getDuration() == null || stage.getDuration().isZero() || stage.getDuration().isNegative()) {
+                throw new IllegalArgumentException(prefix + "'duration' must be a positive duration (e.g. PT30S)");
+            }
+
+            switch (stage.getType()) {
+                case HOLD -> requireRate(prefix, "qps", stage.getQps());
+                case RAMP, TIME_OF_DAY -> {
+                    requireRate(prefix, "from_qps", stage.getFromQps());
+                    requireRate(prefix, "to_qps", stage.getToQps());
+                }
+                case STEP -> {
+                    requireRate(prefix, "from_qps", stage.getFromQps());
+                    requireRate(prefix, "to_qps", stage.getToQps());
+                    if (stage.getSteps() == null || stage.getSteps() < 2) {
+                        throw new IllegalArgumentException(prefix + "'steps' must be >= 2 for STEP stages");
+                    }
+                }
+                case SPIKE -> {
+                    requireRate(prefix, "qps", stage.getQps());
+                    requireRate(prefix, "spike_qps", stage.getSpikeQps());
+                    if (stage.getSpikeDuration() == null || stage.getSpikeDuration().isNegative()
+                            || stage.getSpikeDuration().compareTo(stage.getDuration()) > 0) {
+                        throw new IllegalArgumentException(
+                                prefix + "'spike_duration' must be between 0 and 'duration'");
+                    }
+                }
+            }
+            peakRate = Math.max(peakRate, stage.peakRate());
+        }
+
+        // Single stages may pause at 0 qps; rates are split across replicas as fractions, so any positive peak works
+        if (peakRate <= 0) {
+            throw new IllegalStateException("Invalid scenario configuration: at least one stage needs a rate > 0.");
+        }
+    }
+
+    private void requireRate(String prefix, String field, Double rate) {
+        if (rate == null || rate < 0) {
+            throw new IllegalArgumentException(prefix + "'" + field + "' must be a rate >= 0");
+        }
+    }
+
+    // The stages replace schedule_duration and queries_per_second
+    private void deriveScheduleFromStages(ScenarioConfig config) {
+        Duration totalDuration = Duration.ZERO;
+        double peakRate = 0;
+        for (LoadStage stage : config.getStages()) {
+            totalDuration = totalDuration.plus(stage.getDuration());
+            peakRate = Math.max(peakRate, stage.peakRate());
+        }
+
+        if (config.getScheduleDuration() != null || config.getQueriesPerSecond() != null) {
+            log.warn("Scenario '{}' defines stages; schedule_duration and queries_per_second are ignored",
+                    config.getName());
+        }
+        config.setScheduleDuration(totalDuration);
+        config.setQueriesPerSecond((int) Math.ceil(peakRate));
+    }
+
     private void validateQueryMix(ScenarioConfig config) {
         JsonNode mix = config.getQueryMix();
 
@@ -73,11 +183,11 @@ public class ScenarioConfigLoader {
         }
 
         HashSet<QueryType> seen = new HashSet<>();
-        int totalWeight = 0;
+        double totalWeight = 0;
 
         for (JsonNode entry : mix) {
             QueryType type;
-            int weight;
+            double weight;
 
             if (entry.isTextual()) {
                 // short form: "query_mix:- ANO_PAYROLL_RANGE"
@@ -91,7 +201,7 @@ public class ScenarioConfigLoader {
                 }
 
             } else if (entry.isObject()) {
-                // long form: "query_mix: - type: ANO_MULTI_REGEX percent: 80"
+                // long form: "query_mix: - type: ANO_MULTI_REGEX percent: 80", percents may be fractional (0.25)
 
                 JsonNode typeNode = entry.get("type");
                 JsonNode percentNode = entry.get("percent");
@@ -99,12 +209,12 @@ public class ScenarioConfigLoader {
                 if (typeNode == null || !typeNode.isTextual()) {
                     throw new IllegalArgumentException("query_mix entry missing string field 'type'");
                 }
-                if (percentNode == null || !percentNode.canConvertToInt()) {
-                    throw new IllegalArgumentException("query_mix entry missing integer field 'percent'");
+                if (percentNode == null || !percentNode.isNumber()) {
+                    throw new IllegalArgumentException("query_mix entry missing numeric field 'percent'");
                 }
 
                 type = QueryType.valueOf(typeNode.asText());
-                weight = percentNode.asInt();
+                weight = percentNode.asDouble();
 
                 if (weight <= 0 || weight >= 100) {
                     throw new IllegalArgumentException("query_mix weights must be between " +
@@ -112,7 +222,8 @@ public class ScenarioConfigLoader {
                 }
 
                 totalWeight += weight;
-                if (totalWeight > 100) {
+                // Tolerate rounding errors of fractional percents (e.g. 33.3 + 33.3 + 33.4)
+                if (totalWeight > 100 + 1e-9) {
                     throw new IllegalArgumentException(
                             "query_mix weights sum too large (" + totalWeight + "). " +
                                     "Please use smaller ratios (e.g. 20:50:30)."
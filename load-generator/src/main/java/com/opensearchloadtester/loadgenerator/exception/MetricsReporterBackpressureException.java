@@ -0,0 +1,21 @@
+package com.opensearchloadtester.loadgenerator.exception;
+
+import java.time.Duration;
+
+/**
+ * The Metrics Reporter is overloaded and asked to retry later (HTTP 429).
+ */
+public class MetricsReporterBackpressureException extends MetricsReporterAccessException {
+
+    // Delay requested by the Retry-After header, null if none was given
+    private final Duration retryAfter;
+
+    public MetricsReporterBackpressureException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,19 @@
+package com.opensearchloadtester.loadgenerator.exception;
+
+/**
+ * The Metrics Reporter permanently rejected a payload (HTTP 4xx other than 429), e.g. because it is invalid (400)
+ * or the run was already finalized (409). Sending the same payload again fails the same way.
+ */
+public class MetricsReporterRejectedException extends MetricsReporterAccessException {
+
+    private final int status;
+
+    public MetricsReporterRejectedException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,72 @@
+package com.opensearchloadtester.loadgenerator.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * One stage of a multi-stage load profile (see {@link LoadStageType} for the supported shapes).
+ * Rates are total queries per second over all Load Generator replicas.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class LoadStage {
+
+    // Optional, defaults to '<position>-<type>' (e.g. '2-ramp')
+    private String name;
+    private LoadStageType type;
+    private Duration duration;
+
+    private Double qps;
+    private Double fromQps;
+    private Double toQps;
+    private Integer steps;
+    private Double spikeQps;
+    private Duration spikeDuration;
+
+    public LoadStage(String name, LoadStageType type, Duration duration) {
+        this.name = name;
+        this.type = type;
+        this.duration = duration;
+    }
+
+    /**
+     * Returns the target rate of this stage at the given offset from the stage start.
+     *
+     * @param offsetNanos offset from the stage start, between 0 and the stage duration
+     * @return target rate in queries per second
+     */
+    public double rateAt(long offsetNanos) {
+        long durationNanos = duration.toNanos();
+        double progress = Math.min(1.0, Math.max(0.0, offsetNanos / (double) durationNanos));
+
+        return switch (type) {
+            case HOLD -> qps;
+            case RAMP -> fromQps + (toQps - fromQps) * progress;
+            case STEP -> {
+                int step = Math.min(steps - 1, (int) (progress * steps));
+                yield fromQps + (toQps - fromQps) * step / (steps - 1);
+            }
+            case SPIKE -> {
+                long spikeStart = (durationNanos - spikeDuration.toNanos()) / 2;
+                boolean inSpike = offsetNanos >= spikeStart && offsetNanos < spikeStart + spikeDuration.toNanos();
+                yield inSpike ? spikeQps : qps;
+            }
+            case TIME_OF_DAY -> fromQps + (toQps - fromQps) * (1 - Math.cos(2 * Math.PI * progress)) / 2;
+        };
+    }
+
+    /**
+     * Returns the highest target rate of this stage.
+     */
+    public double peakRate() {
+        return switch (type) {
+            case HOLD -> qps;
+            case RAMP, STEP, TIME_OF_DAY -> Math.max(fromQps, toQps);
+            case SPIKE -> Math.max(qps, spikeQps);
+        };
+    }
+}
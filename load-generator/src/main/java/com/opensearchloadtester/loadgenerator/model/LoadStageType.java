@@ -0,0 +1,14 @@
+package com.opensearchloadtester.loadgenerator.model;
+
+public enum LoadStageType {
+    // Constant rate 'qps' for the whole stage
+    HOLD,
+    // Linear ramp from 'from_qps' to 'to_qps'
+    RAMP,
+    // 'steps' equally sized plateaus from 'from_qps' to 'to_qps'
+    STEP,
+    // Constant rate 'qps' with a burst of 'spike_qps' for 'spike_duration' in the middle of the stage
+    SPIKE,
+    // One full day compressed into the stage: 'from_qps' at midnight, 'to_qps' at noon (cosine curve)
+    TIME_OF_DAY
+}
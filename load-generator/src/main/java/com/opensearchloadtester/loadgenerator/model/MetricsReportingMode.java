@@ -0,0 +1,18 @@
+package com.opensearchloadtester.loadgenerator.model;
+
+public enum MetricsReportingMode {
+    // One MetricsDto per query
+    RAW,
+    // Latency histograms per stage, query type and status class, one set per reporting interval
+    AGGREGATE,
+    // Both, e.g. to keep the raw records for later analysis while already using the histograms
+    BOTH;
+
+    public boolean sendsRaw() {
+        return this != AGGREGATE;
+    }
+
+    public boolean sendsHistograms() {
+        return this != RAW;
+    }
+}
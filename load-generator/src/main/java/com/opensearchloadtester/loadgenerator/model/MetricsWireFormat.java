@@ -0,0 +1,8 @@
+package com.opensearchloadtester.loadgenerator.model;
+
+public enum MetricsWireFormat {
+    // JSON list of MetricsDto
+    JSON,
+    // Gzip-compressed MetricsBatchCodec encoding, falls back to JSON if the Metrics Reporter does not accept it
+    BINARY
+}
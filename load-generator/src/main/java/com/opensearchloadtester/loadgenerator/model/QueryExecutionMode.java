@@ -0,0 +1,8 @@
+package com.opensearchloadtester.loadgenerator.model;
+
+public enum QueryExecutionMode {
+    // One (virtual) thread per in-flight request, blocked until the response arrived
+    BLOCKING,
+    // Requests are submitted through the async transport, metrics are recorded in a completion callback
+    ASYNC
+}
@@ -48,6 +48,6 @@ public enum QueryType {
     }
 
     public AbstractQuery createRandomQuery() {
-        return supplier.get();
+        return AbstractQuery.withPooledFaker(supplier);
     }
 }
@@ -5,28 +5,29 @@ import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Duration;
+import java.util.List;
 
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class ScenarioConfig {
 
     @NotBlank(message = "please provide a name for the scenario")
     private String name;
     @NotNull(message = "documentType must be ANO or DUO")
     private DocumentType documentType;
+    // Derived from the stages if stages are configured
     @NotNull
     private Duration scheduleDuration;
     @NotNull
     private Duration queryResponseTimeout;
 
+    // Derived from the stages (peak rate) if stages are configured
     @NotNull
     @Min(1)
     private Integer queriesPerSecond;
@@ -38,4 +39,26 @@ public class ScenarioConfig {
     @NotNull(message = "please specify query_mix")
     @JsonProperty("query_mix")
     private JsonNode queryMix;
+
+    // Optional OpenSearch response filter, e.g. 'took,hits.total' to skip transferring the hits
+    private String filterPath;
+
+    // Optional multi-stage load profile, replaces the constant queries_per_second for schedule_duration
+    private List<LoadStage> stages;
+
+    public ScenarioConfig(String name, DocumentType documentType, Duration scheduleDuration,
+                          Duration queryResponseTimeout, Integer queriesPerSecond, Boolean warmUpEnabled,
+                          JsonNode queryMix) {
+        this.name = name;
+        this.documentType = documentType;
+        this.scheduleDuration = scheduleDuration;
+        this.queryResponseTimeout = queryResponseTimeout;
+        this.queriesPerSecond = queriesPerSecond;
+        this.warmUpEnabled = warmUpEnabled;
+        this.queryMix = queryMix;
+    }
+
+    public boolean hasStages() {
+        return stages != null && !stages.isEmpty();
+    }
 }
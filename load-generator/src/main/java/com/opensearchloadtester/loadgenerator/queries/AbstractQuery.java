@@ -1,22 +1,26 @@
 package com.opensearchloadtester.loadgenerator.queries;
 
-import lombok.extern.slf4j.Slf4j;
 import net.datafaker.Faker;
-import org.springframework.core.io.ClassPathResource;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
-@Slf4j
 public abstract class AbstractQuery {
 
+    // Building a Faker loads its locale data. Queries run on a new virtual thread each, so instead of one Faker per
+    // thread, idle instances are pooled and lent to the thread creating a query (see withPooledFaker)
+    private static final BlockingQueue<Faker> IDLE_FAKERS =
+            new ArrayBlockingQueue<>(Math.max(8, 2 * Runtime.getRuntime().availableProcessors()));
+
+    // Queries created outside withPooledFaker, e.g. in tests, keep a Faker per thread
     protected static final ThreadLocal<Faker> FAKER =
             ThreadLocal.withInitial(() -> new Faker(Locale.GERMAN));
 
@@ -28,45 +32,45 @@ public abstract class AbstractQuery {
         this.queryTemplatePath = queryTemplatePath;
     }
 
+    /**
+     * Renders this query with its compiled template.
+     *
+     * @return the rendered query as UTF-8 bytes
+     */
+    public byte[] toJsonBytes() {
+        return getQueryTemplate().render(queryParams);
+    }
+
     public String toJsonString() {
-        return applyQueryParams(getQueryTemplate(), queryParams);
+        return new String(toJsonBytes(), StandardCharsets.UTF_8);
     }
 
-    // Cache the loaded template to avoid repeated I/O
-    private volatile String cachedTemplate;
+    protected QueryTemplate getQueryTemplate() {
+        return QueryTemplateRegistry.getInstance().get(queryTemplatePath);
+    }
 
-    protected String getQueryTemplate() {
-        if (cachedTemplate == null) {
-            cachedTemplate = loadQueryTemplate(queryTemplatePath);
-        }
-        return cachedTemplate;
+    protected static Faker faker() {
+        return FAKER.get();
     }
 
-    protected String loadQueryTemplate(String path) {
-        ClassPathResource resource = new ClassPathResource(path);
-        if (!resource.exists()) {
-            throw new IllegalStateException(String.format("Query template '%s' not found", path));
+    /**
+     * Creates a query with a Faker taken from the pool, creating one only if all are in use.
+     */
+    public static <T extends AbstractQuery> T withPooledFaker(Supplier<T> factory) {
+        Faker faker = IDLE_FAKERS.poll();
+        if (faker == null) {
+            faker = new Faker(Locale.GERMAN);
         }
+        FAKER.set(faker);
         try {
-            return resource.getContentAsString(StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            log.error("Failed to read query template '{}': {}", path, e.getMessage());
-            throw new UncheckedIOException(String.format("Failed to read query template '%s'", path), e);
+            return factory.get();
+        } finally {
+            FAKER.remove();
+            // Dropped if the pool is full
+            IDLE_FAKERS.offer(faker);
         }
     }
 
-    protected String applyQueryParams(String template, Map<String, String> params) {
-        String result = template;
-        for (Map.Entry<String, String> entry : params.entrySet()) {
-            result = result.replace("{{" + entry.getKey() + "}}", entry.getValue());
-        }
-        return result;
-    }
-
-    protected static Faker faker() {
-        return FAKER.get();
-    }
-
     // Generate a random year within the last 10 years
     protected static String getRandomYear() {
         Instant i = Date.from(faker().timeAndDate().past(3650, TimeUnit.DAYS)).toInstant();
@@ -0,0 +1,194 @@
+package com.opensearchloadtester.loadgenerator.queries;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query template compiled into literal and placeholder segments.
+ *
+ * <p>
+ * Templates are whitespace-minified once when compiled (whitespace inside JSON strings is kept), and each
+ * {@code {{name}}} placeholder becomes its own segment. Rendering first sums the length of the literal bytes and
+ * the UTF-8 encoded parameter values, then encodes them straight into a result array of exactly that size, so the
+ * only allocation per query is the resulting byte array. No per-thread buffer is kept, as queries run on a new
+ * virtual thread each. Placeholders without a matching parameter are rendered unchanged.
+ * </p>
+ */
+public final class QueryTemplate {
+
+    private static final String PLACEHOLDER_START = "{{";
+    private static final String PLACEHOLDER_END = "}}";
+
+    private final String path;
+    // literals[i] is written before placeholders[i]; literals has one more element than placeholders
+    private final byte[][] literals;
+    private final String[] placeholders;
+    private final byte[][] unresolvedPlaceholders;
+    private final int literalLength;
+
+    private QueryTemplate(String path, byte[][] literals, String[] placeholders) {
+        this.path = path;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.unresolvedPlaceholders = new byte[placeholders.length][];
+        for (int i = 0; i < placeholders.length; i++) {
+            unresolvedPlaceholders[i] = (PLACEHOLDER_START + placeholders[i] + PLACEHOLDER_END)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        int length = 0;
+        for (byte[] literal : literals) {
+            length += literal.length;
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param path   classpath location of the template, used in error messages
+     * @param source template content
+     * @return the compiled template
+     */
+    public static QueryTemplate compile(String path, String source) {
+        String minified = minify(source);
+
+        List<byte[]> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+
+        int literalStart = 0;
+        int placeholderStart = minified.indexOf(PLACEHOLDER_START);
+        while (placeholderStart >= 0) {
+            int placeholderEnd = minified.indexOf(PLACEHOLDER_END, placeholderStart + PLACEHOLDER_START.length());
+            if (placeholderEnd < 0) {
+                throw new IllegalStateException(String.format("Unclosed placeholder in query template '%s'", path));
+            }
+
+            literals.add(minified.substring(literalStart, placeholderStart).getBytes(StandardCharsets.UTF_8));
+            placeholders.add(minified.substring(placeholderStart + PLACEHOLDER_START.length(), placeholderEnd));
+
+            literalStart = placeholderEnd + PLACEHOLDER_END.length();
+            placeholderStart = minified.indexOf(PLACEHOLDER_START, literalStart);
+        }
+        literals.add(minified.substring(literalStart).getBytes(StandardCharsets.UTF_8));
+
+        return new QueryTemplate(path, literals.toArray(byte[][]::new), placeholders.toArray(String[]::new));
+    }
+
+    /**
+     * Renders the template with the given parameters.
+     *
+     * @param params placeholder values, inserted as they are
+     * @return the rendered query as UTF-8 bytes
+     */
+    public byte[] render(Map<String, String> params) {
+        int length = literalLength;
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = params.get(placeholders[i]);
+            length += value != null ? utf8Length(value) : unresolvedPlaceholders[i].length;
+        }
+
+        byte[] rendered = new byte[length];
+        int position = 0;
+        for (int i = 0; i < placeholders.length; i++) {
+            position = write(literals[i], rendered, position);
+            String value = params.get(placeholders[i]);
+            position = value != null
+                    ? writeUtf8(value, rendered, position)
+                    : write(unresolvedPlaceholders[i], rendered, position);
+        }
+        write(literals[placeholders.length], rendered, position);
+        return rendered;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public List<String> getPlaceholders() {
+        return List.of(placeholders);
+    }
+
+    /**
+     * Removes all whitespace outside of JSON strings.
+     */
+    static String minify(String json) {
+        StringBuilder minified = new StringBuilder(json.length());
+        boolean inString = false;
+        boolean escaped = false;
+
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                minified.append(c);
+            } else if (c == '"') {
+                inString = true;
+                minified.append(c);
+            } else if (!Character.isWhitespace(c)) {
+                minified.append(c);
+            }
+        }
+        return minified.toString();
+    }
+
+    private static int write(byte[] source, byte[] target, int position) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+
+    // Like String.getBytes(UTF_8), which encodes an unpaired surrogate as '?'
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                length += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // Two chars, four bytes
+                length += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
+    private static int writeUtf8(String value, byte[] target, int position) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                target[position++] = (byte) c;
+            } else if (c < 0x800) {
+                target[position++] = (byte) (0xC0 | (c >> 6));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                target[position++] = (byte) (0xF0 | (codePoint >> 18));
+                target[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                target[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                target[position++] = '?';
+            } else {
+                target[position++] = (byte) (0xE0 | (c >> 12));
+                target[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,89 @@
+package com.opensearchloadtester.loadgenerator.queries;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of all compiled query templates under {@code query-templates/} (and the compound query
+ * templates under {@code queries/}).
+ *
+ * <p>
+ * All templates are read from the classpath and compiled once when the registry is first used, so
+ * rendering a query never touches the classpath again. Templates outside of these directories
+ * are compiled on first use and cached as well.
+ * </p>
+ */
+@Slf4j
+public final class QueryTemplateRegistry {
+
+    private static final List<String> TEMPLATE_DIRECTORIES = List.of("query-templates/", "queries/");
+
+    private static final QueryTemplateRegistry INSTANCE = new QueryTemplateRegistry();
+
+    private final Map<String, QueryTemplate> templates = new ConcurrentHashMap<>();
+
+    private QueryTemplateRegistry() {
+        long start = System.nanoTime();
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        try {
+            for (String directory : TEMPLATE_DIRECTORIES) {
+                for (Resource resource : resolver.getResources("classpath*:" + directory + "**/*.json")) {
+                    String url = resource.getURL().toString();
+                    String path = url.substring(url.lastIndexOf(directory));
+                    templates.putIfAbsent(path, QueryTemplate.compile(path, read(resource, path)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list query templates", e);
+        }
+        log.debug("Compiled {} query templates in {} ms", templates.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public static QueryTemplateRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled template at the given classpath location.
+     *
+     * @param path classpath location, e.g. {@code query-templates/q1_ano_payroll_range.json}
+     * @throws IllegalStateException if no template exists at the location
+     */
+    public QueryTemplate get(String path) {
+        QueryTemplate template = templates.get(path);
+        if (template != null) {
+            return template;
+        }
+        return templates.computeIfAbsent(path, QueryTemplateRegistry::load);
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    private static QueryTemplate load(String path) {
+        ClassPathResource resource = new ClassPathResource(path);
+        if (!resource.exists()) {
+            throw new IllegalStateException(String.format("Query template '%s' not found", path));
+        }
+        return QueryTemplate.compile(path, read(resource, path));
+    }
+
+    private static String read(Resource resource, String path) {
+        try {
+            return resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Failed to read query template '{}': {}", path, e.getMessage());
+            throw new UncheckedIOException(String.format("Failed to read query template '%s'", path), e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intended start times of the arrivals of a {@link LoadProfile}, as offsets from the scenario start.
+ *
+ * <p>
+ * The target rate is integrated over time: an arrival is due whenever the expected number of arrivals since the
+ * previous one reaches one. The rate is read again at least every {@link #RATE_STEP_NANOS} and at every stage
+ * boundary, so arrivals follow ramps starting near 0 qps, short spikes and stage changes instead of jumping ahead
+ * by the interval of the rate at the previous arrival. Stages with a rate of zero produce no arrivals.
+ * </p>
+ */
+public final class ArrivalSchedule {
+
+    /**
+     * Returned by {@link #next()} once the profile has ended.
+     */
+    public static final long END = -1;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    // Longest stretch over which the rate is taken as constant
+    private static final long RATE_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LoadProfile loadProfile;
+    private final long durationNanos;
+    private long offsetNanos;
+    // Expected arrivals since the previous one; starting at one half centers the arrivals in their intervals
+    private double expectedArrivals = 0.5;
+
+    public ArrivalSchedule(LoadProfile loadProfile) {
+        this.loadProfile = loadProfile;
+        this.durationNanos = loadProfile.getTotalDuration().toNanos();
+    }
+
+    /**
+     * Returns the offset of the next arrival from the scenario start, or {@link #END} if the profile has ended.
+     */
+    public long next() {
+        while (offsetNanos < durationNanos) {
+            int stageIndex = loadProfile.stageIndexAt(offsetNanos);
+            double ratePerNano = loadProfile.rateAt(stageIndex, offsetNanos) / NANOS_PER_SECOND;
+            long stepNanos = Math.max(1,
+                    Math.min(RATE_STEP_NANOS, loadProfile.stageEndNanos(stageIndex) - offsetNanos));
+            if (ratePerNano > 0) {
+                double untilArrivalNanos = (1 - expectedArrivals) / ratePerNano;
+                if (untilArrivalNanos <= stepNanos) {
+                    offsetNanos += (long) Math.ceil(untilArrivalNanos);
+                    expectedArrivals = 0;
+                    return offsetNanos;
+                }
+                expectedArrivals += ratePerNano * stepNanos;
+            }
+            offsetNanos += stepNanos;
+        }
+        return END;
+    }
+}
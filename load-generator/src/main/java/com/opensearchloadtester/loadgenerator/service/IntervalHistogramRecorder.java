@@ -0,0 +1,123 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import com.opensearchloadtester.common.dto.LatencyHistogramDto;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records query latencies into HdrHistograms per stage, query type and HTTP status class.
+ *
+ * <p>
+ * Recording is wait-free, so query threads can record concurrently. {@link #snapshot} swaps in fresh
+ * histograms and returns the ones recorded since the previous snapshot as one interval, in the compressed
+ * encoding of HdrHistogram; the reporter decodes and merges them.
+ * </p>
+ */
+public final class IntervalHistogramRecorder {
+
+    // Values are ms, 3 significant digits keep them exact up to 2048 ms and within 0.1 % above
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<GroupKey, GroupRecorder> groups = new ConcurrentHashMap<>();
+
+    /**
+     * Records the durations of one query. Safe to call from any number of threads.
+     */
+    public void record(MetricsDto metrics) {
+        GroupKey key = new GroupKey(metrics.getStage(), metrics.getQueryType(),
+                statusClass(metrics.getHttpStatusCode()));
+        GroupRecorder group = groups.get(key);
+        if (group == null) {
+            group = groups.computeIfAbsent(key, k -> new GroupRecorder());
+        }
+        group.record(metrics);
+    }
+
+    /**
+     * Returns the histograms recorded since the previous snapshot and starts a new interval.
+     * Groups without queries in the interval are left out.
+     */
+    public MetricsIntervalDto snapshot(String loadGeneratorId, long intervalStartMillis, long intervalEndMillis) {
+        List<LatencyHistogramDto> histograms = new ArrayList<>();
+        groups.forEach((key, group) -> {
+            LatencyHistogramDto histogram = group.snapshot(key);
+            if (histogram != null) {
+                histograms.add(histogram);
+            }
+        });
+        return new MetricsIntervalDto(loadGeneratorId, intervalStartMillis, intervalEndMillis, histograms);
+    }
+
+    /**
+     * Returns the status class of an HTTP status code, e.g. "2xx" for 200.
+     */
+    public static String statusClass(int httpStatusCode) {
+        return httpStatusCode / 100 + "xx";
+    }
+
+    private record GroupKey(String stage, String queryType, String statusClass) {
+    }
+
+    private static final class GroupRecorder {
+        private final Recorder requestDuration = new Recorder(SIGNIFICANT_DIGITS);
+        private final Recorder correctedRequestDuration = new Recorder(SIGNIFICANT_DIGITS);
+        private final Recorder queryDuration = new Recorder(SIGNIFICANT_DIGITS);
+        // Interval histograms handed back to the recorders, so snapshots do not allocate new ones
+        private Histogram requestDurationRecycle;
+        private Histogram correctedRequestDurationRecycle;
+        private Histogram queryDurationRecycle;
+
+        void record(MetricsDto metrics) {
+            recordIfPresent(requestDuration, metrics.getRequestDurationMillis());
+            recordIfPresent(correctedRequestDuration, metrics.getCorrectedRequestDurationMillis());
+            recordIfPresent(queryDuration, metrics.getQueryDurationMillis());
+        }
+
+        // Snapshots are taken by the sender thread only
+        LatencyHistogramDto snapshot(GroupKey key) {
+            requestDurationRecycle = requestDuration.getIntervalHistogram(requestDurationRecycle);
+            correctedRequestDurationRecycle =
+                    correctedRequestDuration.getIntervalHistogram(correctedRequestDurationRecycle);
+            queryDurationRecycle = queryDuration.getIntervalHistogram(queryDurationRecycle);
+
+            long count = requestDurationRecycle.getTotalCount();
+            if (count == 0) {
+                return null;
+            }
+            return new LatencyHistogramDto(
+                    key.stage(),
+                    key.queryType(),
+                    key.statusClass(),
+                    count,
+                    encode(requestDurationRecycle),
+                    encode(correctedRequestDurationRecycle),
+                    encode(queryDurationRecycle)
+            );
+        }
+
+        private static void recordIfPresent(Recorder recorder, Long valueMillis) {
+            // Query duration is -1 if the response had no 'took'
+            if (valueMillis != null && valueMillis >= 0) {
+                recorder.recordValue(valueMillis);
+            }
+        }
+
+        private static byte[] encode(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            return Arrays.copyOf(buffer.array(), length);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import com.opensearchloadtester.loadgenerator.model.LoadStage;
+import com.opensearchloadtester.loadgenerator.model.LoadStageType;
+import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Arrival rate of a single Load Generator over the course of a scenario.
+ *
+ * <p>
+ * Scenarios without stages run one constant stage with {@code queries_per_second} for {@code schedule_duration}.
+ * Rates are split evenly across all Load Generator replicas.
+ * </p>
+ */
+public final class LoadProfile {
+
+    private final List<LoadStage> stages;
+    private final List<String> stageNames;
+    private final long[] stageStartNanos;
+    private final long totalDurationNanos;
+    private final int numberLoadGenerators;
+
+    private LoadProfile(List<LoadStage> stages, List<String> stageNames, int numberLoadGenerators) {
+        this.stages = stages;
+        this.stageNames = stageNames;
+        this.numberLoadGenerators = numberLoadGenerators;
+        this.stageStartNanos = new long[stages.size()];
+
+        long offset = 0;
+        for (int i = 0; i < stages.size(); i++) {
+            stageStartNanos[i] = offset;
+            offset += stages.get(i).getDuration().toNanos();
+        }
+        this.totalDurationNanos = offset;
+    }
+
+    public static LoadProfile from(ScenarioConfig config, int numberLoadGenerators) {
+        Objects.requireNonNull(config, "ScenarioConfig must not be null");
+
+        if (!config.hasStages()) {
+            LoadStage constant = new LoadStage(null, LoadStageType.HOLD, config.getScheduleDuration());
+            constant.setQps(config.getQueriesPerSecond().doubleValue());
+            // Unnamed: samples of a constant scenario are not attributed to a stage
+            List<String> names = new ArrayList<>();
+            names.add(null);
+            return new LoadProfile(List.of(constant), names, numberLoadGenerators);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < config.getStages().size(); i++) {
+            LoadStage stage = config.getStages().get(i);
+            names.add(stage.getName() != null
+                    ? stage.getName()
+                    : (i + 1) + "-" + stage.getType().name().toLowerCase().replace('_', '-'));
+        }
+        return new LoadProfile(List.copyOf(config.getStages()), names, numberLoadGenerators);
+    }
+
+    public Duration getTotalDuration() {
+        return Duration.ofNanos(totalDurationNanos);
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    /**
+     * Returns the index of the stage active at the given offset from the scenario start.
+     */
+    public int stageIndexAt(long offsetNanos) {
+        for (int i = stages.size() - 1; i > 0; i--) {
+            if (offsetNanos >= stageStartNanos[i]) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the offset from the scenario start at which the given stage ends.
+     */
+    public long stageEndNanos(int stageIndex) {
+        return stageStartNanos[stageIndex] + stages.get(stageIndex).getDuration().toNanos();
+    }
+
+    public String getStageName(int stageIndex) {
+        return stageNames.get(stageIndex);
+    }
+
+    public LoadStage getStage(int stageIndex) {
+        return stages.get(stageIndex);
+    }
+
+    /**
+     * Returns the target rate of this Load Generator at the given offset from the scenario start.
+     *
+     * @param stageIndex  index of the stage active at the offset (see {@link #stageIndexAt(long)})
+     * @param offsetNanos offset from the scenario start
+     * @return target rate in queries per second for this Load Generator
+     */
+    public double rateAt(int stageIndex, long offsetNanos) {
+        return stages.get(stageIndex).rateAt(offsetNanos - stageStartNanos[stageIndex]) / numberLoadGenerators;
+    }
+}
@@ -2,22 +2,33 @@ package com.opensearchloadtester.loadgenerator.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opensearchloadtester.loadgenerator.client.MetricsReporterClient;
-import com.opensearchloadtester.loadgenerator.model.QueryType;
+import com.opensearchloadtester.loadgenerator.model.LoadStage;
+import com.opensearchloadtester.loadgenerator.model.QueryExecutionMode;
 import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 @Slf4j
 @Component
 public class LoadRunner {
 
+    // In-flight requests are bounded by the connection request and response timeouts of the client,
+    // so draining never needs longer than twice the query response timeout plus some slack.
+    private static final Duration DRAIN_GRACE_PERIOD = Duration.ofSeconds(10);
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final int COMPLETION_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
     private final String loadGeneratorId;
     private final int numberLoadGenerators;
+    private final int maxInFlightRequests;
+    private final QueryExecutionMode executionMode;
     private final OpenSearchGenericClient openSearchClient;
     private final MetricsReporterClient metricsReporterClient;
     private final MetricsCollector metricsCollector;
@@ -26,6 +37,8 @@ public class LoadRunner {
     public LoadRunner(
             @Value("${HOSTNAME}") String loadGeneratorId,
             @Value("${load.generator.replicas}") int numberLoadGenerators,
+            @Value("${load.generator.max.in.flight}") int maxInFlightRequests,
+            @Value("${load.generator.execution.mode}") QueryExecutionMode executionMode,
             OpenSearchGenericClient openSearchClient,
             MetricsReporterClient metricsReporterClient,
             MetricsCollector metricsCollector,
@@ -33,6 +46,8 @@ public class LoadRunner {
     ) {
         this.loadGeneratorId = loadGeneratorId;
         this.numberLoadGenerators = numberLoadGenerators;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.executionMode = executionMode;
         this.openSearchClient = openSearchClient;
         this.metricsReporterClient = metricsReporterClient;
         this.metricsCollector = metricsCollector;
@@ -40,15 +55,31 @@ public class LoadRunner {
     }
 
     /**
-     * Executes queries according to the ScenarioConfig
+     * Executes queries according to the ScenarioConfig.
+     * Arrivals follow an open model: they are dispatched at the configured rate regardless of how many
+     * requests are still in flight, up to the configured in-flight limit. In {@link QueryExecutionMode#ASYNC}
+     * mode, requests are submitted through the async transport instead of blocking a thread each.
      *
      * @param scenarioConfig scenario configuration
      */
     public void executeScenario(ScenarioConfig scenarioConfig) {
-        log.info("Executing '{}' (expected duration: {} sec)",
-                scenarioConfig.getName(), scenarioConfig.getScheduleDuration().getSeconds());
+        executeScenario(scenarioConfig, null);
+    }
+
+    /**
+     * Executes queries according to the ScenarioConfig, picking request bodies from a pre-rendered corpus.
+     *
+     * @param scenarioConfig scenario configuration
+     * @param queryCorpus    pre-rendered request bodies, null to render a new query per arrival
+     */
+    public void executeScenario(ScenarioConfig scenarioConfig, QueryCorpus queryCorpus) {
+        LoadProfile loadProfile = LoadProfile.from(scenarioConfig, numberLoadGenerators);
+
+        log.info("Executing '{}' (expected duration: {} sec, stages: {})",
+                scenarioConfig.getName(), loadProfile.getTotalDuration().getSeconds(), loadProfile.getStageCount());
 
-        log.info("Timeout {}s", scenarioConfig.getQueryResponseTimeout().toSeconds());
+        log.info("Timeout {}s, max in-flight requests {}, execution mode {}",
+                scenarioConfig.getQueryResponseTimeout().toSeconds(), maxInFlightRequests, executionMode);
 
         QueryExecutionTask query = new QueryExecutionTask(
                 loadGeneratorId,
@@ -56,97 +87,194 @@ public class LoadRunner {
                 QueryPoolBuilder.build(scenarioConfig),
                 openSearchClient,
                 metricsCollector,
-                objectMapper
+                objectMapper,
+                queryCorpus,
+                scenarioConfig.getFilterPath()
         );
 
         // Track overall test start time
         long testStartTime = System.currentTimeMillis();
 
-        ScheduledExecutorService scheduler = Executors
-                .newSingleThreadScheduledExecutor();
-        ExecutorService workers = Executors.newCachedThreadPool();
+        // Dedicated platform thread for pacing arrivals, so it never competes with the query threads
+        ExecutorService scheduler = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "arrival-scheduler");
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
+        OpenModelExecutor executor = new OpenModelExecutor(maxInFlightRequests);
+        // Records metrics of async queries, so neither the I/O threads nor the scheduler parse responses
+        ExecutorService completionExecutor = executionMode == QueryExecutionMode.ASYNC
+                ? Executors.newFixedThreadPool(COMPLETION_THREADS, completionThreadFactory())
+                : null;
 
-        ScheduledFuture<?> scheduledTaskForCleanup = null;
+        Future<?> arrivalsForCleanup = null;
 
         try {
-            long durationNs = scenarioConfig.getScheduleDuration().toNanos();
-            int qpsTotal = scenarioConfig.getQueriesPerSecond();
-            int qpsPerLoadGen = qpsTotal / numberLoadGenerators;
-            long durationPerQuery = 1_000_000_000L / qpsPerLoadGen;
-            AtomicInteger queryCounter = new AtomicInteger();
-            log.debug("Schedule delay:  {} ns  ", durationPerQuery);
-
-            // Start scheduled query execution
-            final ScheduledFuture<?> scheduledTask = scheduler.scheduleAtFixedRate(() -> {
-                        try {
-                            workers.submit(query);
-                            queryCounter.getAndIncrement();
-                        } catch (RejectedExecutionException | OutOfMemoryError e) {
-                            log.warn("Failed to create a new thread. QPS cannot be reached...", e);
-                            log.warn("Please increase REPLICAS amount!");
-                        }
-                    },
-                    durationPerQuery / 2,
-                    durationPerQuery,
-                    TimeUnit.NANOSECONDS);
-            scheduledTaskForCleanup = scheduledTask;
-            // After the scenario duration, stop the periodic scheduling (already submitted tasks may still run).
-            scheduler.schedule(() -> {
-                scheduledTask.cancel(false);
-                scheduler.shutdown();
-            }, durationNs, TimeUnit.NANOSECONDS);
-
-            boolean schedulerStopped;
+            long durationNs = loadProfile.getTotalDuration().toNanos();
+
+            // Start paced query execution
+            Future<?> arrivals = scheduler.submit(
+                    () -> generateArrivals(loadProfile, query, executor, completionExecutor));
+            arrivalsForCleanup = arrivals;
+
             try {
-                // Wait for the scheduler to stop because it populates worker threads
-                schedulerStopped = scheduler.awaitTermination(
-                        durationNs + TimeUnit.SECONDS.toNanos(10),
-                        TimeUnit.NANOSECONDS);
-                if (!schedulerStopped) {
-                    log.warn("Scheduler did not stop in time; proceeding with worker shutdown");
-                }
+                // Wait for the scheduler to stop because it dispatches the arrivals
+                arrivals.get(durationNs + TimeUnit.SECONDS.toNanos(10), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Scheduler did not stop in time; proceeding with draining in-flight requests");
+                arrivals.cancel(true);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.warn("Interrupted while waiting for scheduler to stop", e);
             }
 
-            // Now stop workers
-            workers.shutdown();
-            boolean workersStopped = awaitExecutorServiceTermination(workers);
+            // Now wait for in-flight requests, but never longer than the drain deadline
+            Duration drainDeadline = scenarioConfig.getQueryResponseTimeout().multipliedBy(2).plus(DRAIN_GRACE_PERIOD);
+            boolean drained = executor.drain(drainDeadline);
 
-            // Check if QPS fulfilled
-            if (queryCounter.get() < qpsPerLoadGen * scenarioConfig.getScheduleDuration().toSeconds()) {
-                log.warn("Load Generator can't keep up with QPS... please increase REPLICA amount!");
-            }
+            logArrivalSummary(executor);
 
             long testEndTime = System.currentTimeMillis();
             long actualDurationMs = testEndTime - testStartTime;
             double actualDurationSeconds = actualDurationMs / 1000.0;
 
-            if (workersStopped) {
-                log.info("Calling MetricsReporterClient");
+            log.info("Calling MetricsReporterClient");
 
-                try {
-                    metricsCollector.flush();
-                } catch (Exception e) {
-                    log.warn("Failed to flush metrics for {}", loadGeneratorId, e);
-                }
+            try {
+                metricsCollector.flush();
+            } catch (Exception e) {
+                log.warn("Failed to flush metrics for {}", loadGeneratorId, e);
+            }
+            logMetricsBufferSummary();
 
-                log.info("Scenario '{}' completed successfully. All threads finished.", scenarioConfig.getName());
+            if (drained) {
+                log.info("Scenario '{}' completed successfully. All requests finished.", scenarioConfig.getName());
                 log.info("Schedule duration: {}s, Total duration: {}s",
-                        scenarioConfig.getScheduleDuration().getSeconds(),
+                        loadProfile.getTotalDuration().getSeconds(),
                         String.format("%.2f", actualDurationSeconds));
             } else {
-                log.warn("Scenario '{}' was interrupted while waiting for worker threads to finish. Actual runtime: {}s",
+                log.warn("Scenario '{}' finished without draining all in-flight requests. Actual runtime: {}s",
                         scenarioConfig.getName(), String.format("%.2f", actualDurationSeconds));
             }
         } catch (Exception e) {
             throw new RuntimeException("Error executing queries", e);
         } finally {
             // Fallback cleanup if an exception skipped the normal shutdown path.
-            if (scheduledTaskForCleanup != null) scheduledTaskForCleanup.cancel(false);
+            if (arrivalsForCleanup != null) arrivalsForCleanup.cancel(true);
             shutdownExecutorService(scheduler);
-            shutdownExecutorService(workers);
+            executor.close();
+            if (completionExecutor != null) {
+                shutdownExecutorService(completionExecutor);
+            }
+        }
+    }
+
+    /**
+     * Paces arrivals according to the load profile until the profile ends.
+     *
+     * <p>
+     * Intended start times come from the {@link ArrivalSchedule}, never from the time an arrival was actually
+     * dispatched. If dispatching falls behind, the following arrivals are dispatched immediately (and counted as
+     * late) instead of shifting the whole schedule.
+     * </p>
+     */
+    private void generateArrivals(
+            LoadProfile loadProfile,
+            QueryExecutionTask query,
+            OpenModelExecutor executor,
+            Executor completionExecutor
+    ) {
+        ArrivalSchedule schedule = new ArrivalSchedule(loadProfile);
+        long startNs = System.nanoTime();
+        int currentStage = -1;
+
+        for (long offsetNs = schedule.next(); offsetNs != ArrivalSchedule.END; offsetNs = schedule.next()) {
+            int stageIndex = loadProfile.stageIndexAt(offsetNs);
+            // Stages without arrivals, e.g. a pause at 0 qps, are logged when the next stage starts
+            while (currentStage < stageIndex) {
+                logStageStart(loadProfile, ++currentStage);
+            }
+
+            long intendedStartNs = startNs + offsetNs;
+            long waitNs = intendedStartNs - System.nanoTime();
+            while (waitNs > 0) {
+                LockSupport.parkNanos(waitNs);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                waitNs = intendedStartNs - System.nanoTime();
+            }
+
+            double rate = loadProfile.rateAt(stageIndex, offsetNs);
+            if (rate > 0 && -waitNs > NANOS_PER_SECOND / rate) {
+                executor.recordLateArrival();
+            }
+
+            String stageName = loadProfile.getStageName(stageIndex);
+            if (completionExecutor != null) {
+                executor.dispatchAsync(() -> query.executeAsync(intendedStartNs, stageName, completionExecutor));
+            } else {
+                executor.dispatch(() -> query.execute(intendedStartNs, stageName));
+            }
+        }
+    }
+
+    private static ThreadFactory completionThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> new Thread(runnable, "query-completion-" + threadNumber.getAndIncrement());
+    }
+
+    private void logStageStart(LoadProfile loadProfile, int stageIndex) {
+        String stageName = loadProfile.getStageName(stageIndex);
+        if (stageName == null) {
+            return;
+        }
+        LoadStage stage = loadProfile.getStage(stageIndex);
+        log.info("Starting stage {}/{} '{}' ({}, duration: {}s, peak: {} qps)",
+                stageIndex + 1, loadProfile.getStageCount(), stageName, stage.getType(),
+                stage.getDuration().toSeconds(), stage.peakRate());
+    }
+
+    private void logArrivalSummary(OpenModelExecutor executor) {
+        log.info("Arrivals: dispatched={}, dropped={}, failed={}, late={}", executor.getDispatchedCount(),
+                executor.getDroppedCount(), executor.getFailedCount(), executor.getLateCount());
+
+        if (executor.getDroppedCount() > 0) {
+            log.warn("{} arrivals were dropped because {} requests were already in flight. " +
+                            "The cluster cannot keep up with the configured QPS; " +
+                            "increase load.generator.max.in.flight only if the generator has capacity left.",
+                    executor.getDroppedCount(), executor.getMaxInFlight());
+        }
+        if (executor.getLateCount() > 0) {
+            log.warn("{} arrivals were dispatched later than their intended start time. " +
+                    "Please increase REPLICAS amount!", executor.getLateCount());
+        }
+    }
+
+    private void logMetricsBufferSummary() {
+        log.info("Metrics buffer: dropped={}, peak queue depth={}, still queued={}",
+                metricsCollector.getDroppedMetrics(), metricsCollector.getPeakQueueDepth(),
+                metricsCollector.getQueueDepth());
+
+        if (metricsCollector.getDroppedMetrics() > 0) {
+            log.warn("{} metrics were dropped because the metrics buffer was full. " +
+                            "The Metrics Reporter cannot keep up; increase metrics.batch.size " +
+                            "or metrics.buffer.capacity.",
+                    metricsCollector.getDroppedMetrics());
+        }
+        if (metricsCollector.getSpooledPayloads() > 0) {
+            log.info("{} metrics payloads were spooled because the Metrics Reporter did not accept them right away",
+                    metricsCollector.getSpooledPayloads());
+        }
+        if (metricsCollector.getLostPayloads() > 0) {
+            log.warn("{} metrics payloads could not be delivered or spooled; the report under-counts. " +
+                            "Increase metrics.spool.capacity.mb if the spool was full.",
+                    metricsCollector.getLostPayloads());
+        }
+        if (metricsCollector.getRejectedPayloads() > 0) {
+            log.warn("{} metrics payloads were rejected by the Metrics Reporter and dropped; the report " +
+                            "under-counts. See the errors logged for them.",
+                    metricsCollector.getRejectedPayloads());
         }
     }
 
@@ -172,17 +300,4 @@ public class LoadRunner {
         }
     }
 
-    private boolean awaitExecutorServiceTermination(ExecutorService executorService) {
-        try {
-            while (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-                log.info("Still waiting for workers to complete...");
-            }
-            return true;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.warn("Interrupted while waiting for workers to complete", e);
-            return false;
-        }
-    }
-
 }
@@ -1,81 +1,558 @@
 package com.opensearchloadtester.loadgenerator.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.codec.MetricsBatchCodec;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
 import com.opensearchloadtester.loadgenerator.client.MetricsReporterClient;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterBackpressureException;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterRejectedException;
+import com.opensearchloadtester.loadgenerator.model.MetricsReportingMode;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Collects the metrics of all queries and sends them to the Metrics Reporter in batches.
+ *
+ * <p>
+ * Query threads only append to a lock-free ring buffer and never block on reporting: if the buffer is full
+ * (the Metrics Reporter cannot keep up), the metrics are dropped and counted instead. A dedicated sender
+ * thread drains the buffer and sends a batch as soon as it is full or the flush interval passed since its
+ * first metrics arrived, whichever comes first. Retries of a failed batch also run on the sender thread.
+ * While waiting, the sender is parked until its next deadline; query threads wake it once the metrics it
+ * waits for were appended, so an idle load generator does not poll the buffer.
+ * </p>
+ *
+ * <p>
+ * Depending on the {@link MetricsReportingMode}, query latencies are (also) recorded into HdrHistograms per
+ * stage, query type and status class instead of being queued one by one. The sender thread ships the
+ * histograms of each interval once it ends; intervals are aligned to multiples of the interval length.
+ * </p>
+ *
+ * <p>
+ * Batches and histograms the Metrics Reporter does not accept (it is unavailable or answers 429) are written to
+ * a {@link MetricsSpool} if one is configured, and replayed in order with exponential backoff (or after the
+ * delay requested by Retry-After). Once the spool holds entries, new payloads are appended behind them so the
+ * Metrics Reporter still receives them in order. {@link #flush()} keeps replaying until the spool is empty or
+ * the replay timeout passed, so spooled metrics arrive before the load generator finishes.
+ * </p>
+ */
 @Slf4j
 @Component
 public class MetricsCollector {
 
+    private static final int DEFAULT_BUFFER_CAPACITY = 65_536;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1_000;
+    private static final long DEFAULT_HISTOGRAM_INTERVAL_MILLIS = 10_000;
+    private static final Duration FLUSH_TIMEOUT = Duration.ofMinutes(1);
+    private static final long DROP_LOG_INTERVAL = 10_000;
+    private static final long MAX_SPOOL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // Bounds the time the sender spends replaying before it drains the buffer again
+    private static final int REPLAYS_PER_ITERATION = 16;
+    private static final byte SPOOL_KIND_METRICS_BATCH = 1;
+    private static final byte SPOOL_KIND_HISTOGRAMS = 2;
+    private static final ObjectMapper SPOOL_MAPPER = new ObjectMapper();
+    // Waiting for a claimed but unpublished slot: spin this often, then park this long between checks
+    private static final int PUBLICATION_SPINS = 100;
+    private static final long PUBLICATION_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
     private final MetricsReporterClient metricsReporterClient;
+    private final String loadGeneratorId;
     private final int batchSize;
+    private final long flushIntervalNanos;
     private final boolean recording;
+    private final MetricsRingBuffer<MetricsDto> buffer;
+    private final MetricsReportingMode reportingMode;
+    // Null unless the reporting mode sends histograms
+    private final IntervalHistogramRecorder histogramRecorder;
+    private final long histogramIntervalMillis;
+    // Null if failed payloads are not spooled
+    private final MetricsSpool spool;
+    private final long spoolBackoffInitialNanos;
+    private final long spoolReplayTimeoutNanos;
 
-    private final List<MetricsDto> buffer = new ArrayList<>();
+    private final AtomicLong droppedMetrics = new AtomicLong();
+    private final AtomicLong spooledPayloads = new AtomicLong();
+    private final AtomicLong lostPayloads = new AtomicLong();
+    private final AtomicLong rejectedPayloads = new AtomicLong();
+    private final AtomicBoolean senderStarted = new AtomicBoolean();
+    private final AtomicReference<CompletableFuture<Void>> flushRequest = new AtomicReference<>();
+    // Queue depth at which appending wakes the parked sender, MAX_VALUE while the sender is not parked
+    private final AtomicInteger senderWakeDepth = new AtomicInteger(Integer.MAX_VALUE);
+    private volatile Thread sender;
+    private volatile boolean closed;
+    // Written by the sender thread only
+    private volatile int peakQueueDepth;
+    // Used by the sender thread only
+    private long histogramIntervalStartMillis;
+    private long histogramIntervalEndMillis;
+    private long spoolBackoffNanos;
+    private long nextReplayNanos;
+    // Flush request whose partial histograms were already sent, and the end of its spool replay
+    private CompletableFuture<Void> drainingFlush;
+    private long drainDeadlineNanos;
 
     @Autowired
     public MetricsCollector(
             MetricsReporterClient metricsReporterClient,
-            @Value("${metrics.batch.size:100}") int batchSize
+            @Value("${HOSTNAME}") String loadGeneratorId,
+            @Value("${metrics.batch.size:100}") int batchSize,
+            @Value("${metrics.flush.interval.ms:1000}") long flushIntervalMillis,
+            @Value("${metrics.buffer.capacity:65536}") int bufferCapacity,
+            @Value("${metrics.reporting.mode:RAW}") MetricsReportingMode reportingMode,
+            @Value("${metrics.histogram.interval.ms:10000}") long histogramIntervalMillis,
+            MetricsSpool spool,
+            @Value("${metrics.spool.backoff.initial.ms:500}") long spoolBackoffInitialMillis,
+            @Value("${metrics.spool.replay.timeout.ms:60000}") long spoolReplayTimeoutMillis
     ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("metrics.batch.size must be >= 1");
+        }
+        if (flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("metrics.flush.interval.ms must be >= 1");
+        }
+        if (histogramIntervalMillis < 1) {
+            throw new IllegalArgumentException("metrics.histogram.interval.ms must be >= 1");
+        }
+        if (spoolBackoffInitialMillis < 1) {
+            throw new IllegalArgumentException("metrics.spool.backoff.initial.ms must be >= 1");
+        }
+        if (spoolReplayTimeoutMillis < 0) {
+            throw new IllegalArgumentException("metrics.spool.replay.timeout.ms must be >= 0");
+        }
         this.metricsReporterClient = metricsReporterClient;
+        this.loadGeneratorId = loadGeneratorId;
         this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
         this.recording = true;
+        this.reportingMode = reportingMode;
+        this.buffer = new MetricsRingBuffer<>(reportingMode.sendsRaw() ? bufferCapacity : 1);
+        this.histogramRecorder = reportingMode.sendsHistograms() ? new IntervalHistogramRecorder() : null;
+        this.histogramIntervalMillis = histogramIntervalMillis;
+        this.spool = spool;
+        this.spoolBackoffInitialNanos = TimeUnit.MILLISECONDS.toNanos(spoolBackoffInitialMillis);
+        this.spoolReplayTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(spoolReplayTimeoutMillis);
+    }
+
+    // Raw reporting only, failed batches are not spooled
+    public MetricsCollector(
+            MetricsReporterClient metricsReporterClient,
+            int batchSize,
+            long flushIntervalMillis,
+            int bufferCapacity
+    ) {
+        this(metricsReporterClient, null, batchSize, flushIntervalMillis, bufferCapacity,
+                MetricsReportingMode.RAW, DEFAULT_HISTOGRAM_INTERVAL_MILLIS, null, 1, 0);
     }
 
     // Extra constructor for warm-up, enabled configurable
     public MetricsCollector(MetricsReporterClient metricsReporterClient, boolean enabled) {
         this.metricsReporterClient = metricsReporterClient;
+        this.loadGeneratorId = null;
         this.batchSize = 1;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FLUSH_INTERVAL_MILLIS);
         this.recording = enabled;
+        this.reportingMode = MetricsReportingMode.RAW;
+        this.buffer = new MetricsRingBuffer<>(enabled ? DEFAULT_BUFFER_CAPACITY : 1);
+        this.histogramRecorder = null;
+        this.histogramIntervalMillis = DEFAULT_HISTOGRAM_INTERVAL_MILLIS;
+        this.spool = null;
+        this.spoolBackoffInitialNanos = 0;
+        this.spoolReplayTimeoutNanos = 0;
     }
 
+    /**
+     * Queues the metrics of one query for sending and/or records them into the interval histograms;
+     * never blocks. Queued metrics are dropped (and counted) if the buffer is full.
+     */
     public void appendMetrics(@NotNull MetricsDto metricsDto) {
         if (!recording) return;
 
-        List<MetricsDto> toSend = null;
+        startSender();
+        if (histogramRecorder != null) {
+            histogramRecorder.record(metricsDto);
+        }
+        if (!reportingMode.sendsRaw()) {
+            return;
+        }
+        if (buffer.offer(metricsDto)) {
+            wakeSenderIfWaiting();
+        } else {
+            long dropped = droppedMetrics.incrementAndGet();
+            if (dropped == 1 || dropped % DROP_LOG_INTERVAL == 0) {
+                log.warn("Metrics buffer full (capacity={}), {} metrics dropped so far", buffer.capacity(), dropped);
+            }
+        }
+    }
+
+    /**
+     * Sends all metrics appended so far, replays the spool and waits until they were sent (or failed to send,
+     * or the spool replay timed out). Metrics appended concurrently may or may not be included.
+     */
+    public void flush() {
+        Thread senderThread = sender;
+        if (!recording || senderThread == null) return;
+
+        CompletableFuture<Void> request = flushRequest.updateAndGet(
+                current -> current != null ? current : new CompletableFuture<>());
+        LockSupport.unpark(senderThread);
 
-        synchronized (buffer) {
-            buffer.add(metricsDto);
-            if (buffer.size() >= batchSize) {
-                toSend = new ArrayList<>(buffer);
-                buffer.clear();
+        try {
+            request.get(FLUSH_TIMEOUT.toMillis() + TimeUnit.NANOSECONDS.toMillis(spoolReplayTimeoutNanos),
+                    TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Metrics not flushed in time, {} metrics still queued", buffer.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while flushing metrics");
+        } catch (ExecutionException e) {
+            log.error("Failed to flush metrics: {}", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Flushes the remaining metrics and stops the sender thread.
+     */
+    @PreDestroy
+    public void close() {
+        flush();
+        closed = true;
+
+        Thread senderThread = sender;
+        if (senderThread != null) {
+            LockSupport.unpark(senderThread);
+            try {
+                senderThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
+    }
 
-        if (toSend != null) {
-            sendBatchSafely(toSend);
+    /**
+     * Returns the number of metrics dropped because the buffer was full.
+     */
+    public long getDroppedMetrics() {
+        return droppedMetrics.get();
+    }
+
+    /**
+     * Returns the number of metrics waiting in the buffer.
+     */
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    /**
+     * Returns the highest number of metrics the sender found waiting in the buffer.
+     */
+    public int getPeakQueueDepth() {
+        return peakQueueDepth;
+    }
+
+    /**
+     * Returns the number of batches and histogram intervals written to the spool because the Metrics Reporter
+     * did not accept them right away.
+     */
+    public long getSpooledPayloads() {
+        return spooledPayloads.get();
+    }
+
+    /**
+     * Returns the number of batches and histogram intervals lost because they failed to send and could not be
+     * spooled (no spool configured, or the spool was full).
+     */
+    public long getLostPayloads() {
+        return lostPayloads.get();
+    }
+
+    /**
+     * Returns the number of batches and histogram intervals the Metrics Reporter rejected for good (HTTP 4xx other
+     * than 429, e.g. an invalid payload); they are dropped instead of being spooled.
+     */
+    public long getRejectedPayloads() {
+        return rejectedPayloads.get();
+    }
+
+    public MetricsReportingMode getReportingMode() {
+        return reportingMode;
+    }
+
+    private void startSender() {
+        if (sender == null && senderStarted.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::runSender, "metrics-sender");
+            thread.setDaemon(true);
+            sender = thread;
+            thread.start();
         }
     }
 
-    public void flush() {
-        if (!recording) return;
+    private void runSender() {
+        List<MetricsDto> batch = new ArrayList<>(batchSize);
+        long batchStartNanos = 0;
+        int publicationWaits = 0;
+        if (histogramRecorder != null) {
+            startHistogramInterval(System.currentTimeMillis());
+        }
+
+        while (true) {
+            CompletableFuture<Void> flush = flushRequest.get();
 
-        List<MetricsDto> toSend;
+            if (histogramRecorder != null && System.currentTimeMillis() >= histogramIntervalEndMillis) {
+                sendHistogramsSafely(histogramIntervalEndMillis);
+                startHistogramInterval(histogramIntervalEndMillis);
+            }
+
+            int queueDepth = buffer.size();
+            if (queueDepth > peakQueueDepth) {
+                peakQueueDepth = queueDepth;
+            }
+
+            boolean wasEmpty = batch.isEmpty();
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            if (drained > 0) {
+                publicationWaits = 0;
+            }
+            if (wasEmpty && drained > 0) {
+                batchStartNanos = System.nanoTime();
+            }
 
-        synchronized (buffer) {
-            if (buffer.isEmpty()) return;
-            toSend = new ArrayList<>(buffer);
-            buffer.clear();
+            boolean full = batch.size() >= batchSize;
+            boolean due = !batch.isEmpty() && System.nanoTime() - batchStartNanos >= flushIntervalNanos;
+            if (full || due || (flush != null && !batch.isEmpty())) {
+                sendBatchSafely(batch);
+                batch = new ArrayList<>(batchSize);
+                continue;
+            }
+
+            if (flush != null) {
+                // Everything published before the flush request was sent; wait for claimed but unpublished slots
+                if (buffer.size() == 0) {
+                    if (drainingFlush != flush) {
+                        if (histogramRecorder != null) {
+                            // Ship the partial interval, the next one continues from here
+                            long now = System.currentTimeMillis();
+                            sendHistogramsSafely(now);
+                            histogramIntervalStartMillis = now;
+                        }
+                        drainingFlush = flush;
+                        drainDeadlineNanos = System.nanoTime() + spoolReplayTimeoutNanos;
+                    }
+                    if (drainSpool()) {
+                        drainingFlush = null;
+                        flushRequest.compareAndSet(flush, null);
+                        flush.complete(null);
+                    }
+                } else {
+                    awaitPublication(++publicationWaits);
+                }
+                continue;
+            }
+
+            if (spool != null && !spool.isEmpty()) {
+                replaySpool(REPLAYS_PER_ITERATION);
+            }
+            if (closed) {
+                return;
+            }
+            parkUntilWork(batch, batchStartNanos, ++publicationWaits);
+        }
+    }
+
+    // Parks until the batch is due, the histogram interval ends or the spool may be replayed again, unless
+    // query threads append the metrics that fill the batch (or start it, if it is empty) first
+    private void parkUntilWork(List<MetricsDto> batch, long batchStartNanos, int publicationWaits) {
+        long now = System.nanoTime();
+        long parkNanos = batch.isEmpty() ? flushIntervalNanos : batchStartNanos + flushIntervalNanos - now;
+        if (histogramRecorder != null) {
+            parkNanos = Math.min(parkNanos,
+                    TimeUnit.MILLISECONDS.toNanos(histogramIntervalEndMillis - System.currentTimeMillis()));
+        }
+        if (spool != null && !spool.isEmpty()) {
+            parkNanos = Math.min(parkNanos, nextReplayNanos - now);
         }
 
-        sendBatchSafely(toSend);
+        int wakeDepth = batch.isEmpty() ? 1 : batchSize - batch.size();
+        senderWakeDepth.set(wakeDepth);
+        // Re-checked after publishing the wake depth, so metrics appended in between are not missed
+        if (buffer.size() < wakeDepth && flushRequest.get() == null && !closed) {
+            LockSupport.parkNanos(parkNanos);
+        } else if (buffer.size() >= wakeDepth) {
+            // Claimed slots the last drain did not find published yet
+            awaitPublication(publicationWaits);
+        }
+        senderWakeDepth.set(Integer.MAX_VALUE);
     }
 
-    private void sendBatchSafely(@NotNull List<MetricsDto> batch) {
+    // Waits for a producer to publish its claimed slot: spins briefly, then parks between checks
+    private static void awaitPublication(int waits) {
+        if (waits <= PUBLICATION_SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PUBLICATION_PARK_NANOS);
+        }
+    }
+
+    // Called after each append; only the append reaching the wake depth of the parked sender unparks it
+    private void wakeSenderIfWaiting() {
+        int wakeDepth = senderWakeDepth.get();
+        if (wakeDepth != Integer.MAX_VALUE && buffer.size() >= wakeDepth
+                && senderWakeDepth.compareAndSet(wakeDepth, Integer.MAX_VALUE)) {
+            LockSupport.unpark(sender);
+        }
+    }
+
+    // Replays the spool for the current flush, returns true once it is empty or the replay timed out
+    private boolean drainSpool() {
+        if (spool == null || spool.isEmpty()) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - drainDeadlineNanos >= 0) {
+            log.error("Metrics Reporter did not accept {} spooled payloads within {}s, they are not reported",
+                    spool.size(), TimeUnit.NANOSECONDS.toSeconds(spoolReplayTimeoutNanos));
+            return true;
+        }
+        if (now - nextReplayNanos < 0) {
+            LockSupport.parkNanos(Math.min(nextReplayNanos - now, drainDeadlineNanos - now));
+            return false;
+        }
+        replaySpool(REPLAYS_PER_ITERATION);
+        return spool.isEmpty();
+    }
+
+    // Replays up to maxEntries spooled payloads in order, stops at the first failure and backs off
+    private void replaySpool(int maxEntries) {
+        for (int i = 0; i < maxEntries && !spool.isEmpty(); i++) {
+            if (System.nanoTime() - nextReplayNanos < 0) {
+                return;
+            }
+            MetricsSpool.Entry entry = spool.peek();
+            try {
+                if (entry.kind() == SPOOL_KIND_METRICS_BATCH) {
+                    metricsReporterClient.sendMetrics(MetricsBatchCodec.decode(entry.payload()));
+                } else {
+                    metricsReporterClient.sendHistograms(
+                            SPOOL_MAPPER.readValue(entry.payload(), MetricsIntervalDto.class));
+                }
+            } catch (IOException e) {
+                log.error("Discarding unreadable spooled payload: {}", e.getMessage());
+                lostPayloads.incrementAndGet();
+            } catch (MetricsReporterRejectedException e) {
+                // Replaying it again would block every payload behind it
+                log.error("Discarding spooled payload: {}", e.getMessage());
+                rejectedPayloads.incrementAndGet();
+            } catch (Exception e) {
+                backOff(e);
+                log.warn("Failed to replay spooled metrics ({} spooled, next attempt in {} ms): {}",
+                        spool.size(), TimeUnit.NANOSECONDS.toMillis(nextReplayNanos - System.nanoTime()),
+                        e.getMessage());
+                return;
+            }
+            spool.remove();
+            spoolBackoffNanos = 0;
+            if (spool.isEmpty()) {
+                log.info("Replayed all spooled metrics");
+            }
+        }
+    }
+
+    private void backOff(Exception cause) {
+        if (cause instanceof MetricsReporterBackpressureException backpressure
+                && backpressure.getRetryAfter() != null) {
+            spoolBackoffNanos = Math.min(backpressure.getRetryAfter().toNanos(), MAX_SPOOL_BACKOFF_NANOS);
+        } else {
+            spoolBackoffNanos = spoolBackoffNanos == 0
+                    ? spoolBackoffInitialNanos
+                    : Math.min(spoolBackoffNanos * 2, MAX_SPOOL_BACKOFF_NANOS);
+        }
+        nextReplayNanos = System.nanoTime() + spoolBackoffNanos;
+    }
+
+    // Sends the payload unless older ones wait in the spool, spools it if that is the case or sending fails;
+    // a payload the Metrics Reporter rejects for good is dropped, as it would block the spool
+    private void deliver(byte kind, String description, Sender send, PayloadEncoder encode) {
+        if (spool == null || spool.isEmpty()) {
+            try {
+                send.send();
+                log.debug("Sent {}", description);
+                return;
+            } catch (MetricsReporterRejectedException e) {
+                rejectedPayloads.incrementAndGet();
+                log.error("Dropping {}: {}", description, e.getMessage());
+                return;
+            } catch (Exception e) {
+                if (spool == null) {
+                    lostPayloads.incrementAndGet();
+                    log.error("Failed to send {}: {}", description, e.getMessage(), e);
+                    return;
+                }
+                backOff(e);
+                log.warn("Failed to send {}, spooling it: {}", description, e.getMessage());
+            }
+        }
+
         try {
-            metricsReporterClient.sendMetrics(batch);
-            log.debug("Sent metrics batch size={}", batch.size());
+            if (spool.append(kind, encode.encode())) {
+                spooledPayloads.incrementAndGet();
+                return;
+            }
+            log.error("Metrics spool full ({} KiB), {} lost", spool.capacityBytes() / 1024, description);
         } catch (Exception e) {
-            log.error("Failed to send metrics batch (size={}): {}", batch.size(), e.getMessage(), e);
+            log.error("Failed to spool {}: {}", description, e.getMessage(), e);
         }
+        lostPayloads.incrementAndGet();
+    }
+
+    @FunctionalInterface
+    private interface Sender {
+        void send();
+    }
+
+    @FunctionalInterface
+    private interface PayloadEncoder {
+        byte[] encode() throws IOException;
+    }
+
+    private void startHistogramInterval(long startMillis) {
+        histogramIntervalStartMillis = startMillis;
+        histogramIntervalEndMillis = (startMillis / histogramIntervalMillis + 1) * histogramIntervalMillis;
+    }
+
+    private void sendHistogramsSafely(long intervalEndMillis) {
+        MetricsIntervalDto interval = histogramRecorder.snapshot(
+                loadGeneratorId, histogramIntervalStartMillis, intervalEndMillis);
+        if (interval.getHistograms().isEmpty()) {
+            return;
+        }
+        deliver(SPOOL_KIND_HISTOGRAMS,
+                String.format("%d histograms of interval [%d, %d)",
+                        interval.getHistograms().size(), histogramIntervalStartMillis, intervalEndMillis),
+                () -> metricsReporterClient.sendHistograms(interval),
+                () -> SPOOL_MAPPER.writeValueAsBytes(interval));
+    }
+
+    private void sendBatchSafely(@NotNull List<MetricsDto> batch) {
+        deliver(SPOOL_KIND_METRICS_BATCH, "metrics batch (size=" + batch.size() + ")",
+                () -> metricsReporterClient.sendMetrics(batch),
+                () -> MetricsBatchCodec.encode(batch));
     }
 }
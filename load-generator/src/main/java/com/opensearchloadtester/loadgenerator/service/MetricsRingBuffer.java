@@ -0,0 +1,102 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer/single-consumer ring buffer.
+ *
+ * <p>
+ * Producers claim a slot by advancing the shared tail with a CAS, write the element and publish it by setting
+ * the slot's sequence number; they never block and fail fast when the buffer is full. The single consumer reads
+ * published slots in order and releases them for the next lap by advancing their sequence number again
+ * (Vyukov's bounded queue). Capacity is rounded up to a power of two.
+ * </p>
+ */
+final class MetricsRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] slots;
+    // sequence[i] == position: slot free for the producer claiming position,
+    // sequence[i] == position + 1: element of position published for the consumer
+    private final AtomicLongArray sequence;
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer only
+    private volatile long head;
+
+    MetricsRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new Object[size];
+        this.sequence = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    /**
+     * Appends an element unless the buffer is full. Safe to call from any number of threads.
+     *
+     * @return false if the buffer was full and the element was not added
+     */
+    boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long difference = sequence.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                // The slot still holds the element of the previous lap
+                return false;
+            }
+            // Otherwise another producer claimed the position first, retry with the new tail
+        }
+        slots[index] = element;
+        sequence.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Moves up to {@code maxElements} published elements into the target list. Consumer thread only.
+     *
+     * @return number of elements moved
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<? super E> target, int maxElements) {
+        long position = head;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) position & mask;
+            if (sequence.get(index) != position + 1) {
+                break;
+            }
+            target.add((E) slots[index]);
+            slots[index] = null;
+            sequence.lazySet(index, position + slots.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * Returns the number of claimed but not yet drained elements (approximate while producers are active).
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
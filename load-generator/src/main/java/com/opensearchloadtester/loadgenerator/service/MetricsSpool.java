@@ -0,0 +1,187 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bounded local spool for metrics payloads the Metrics Reporter did not accept (yet), so they can be
+ * replayed later instead of being lost.
+ *
+ * <p>
+ * Payloads are appended to a memory-mapped segment file of fixed capacity, each framed as
+ * {@code [int length][byte kind][payload]}, and read back in the order they were appended. Space of
+ * replayed entries is reclaimed by moving the remaining entries to the start of the segment once the
+ * end is reached. The file is only created when the first payload is spooled and deleted on close.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe: the spool is used by the metrics sender thread only.
+ * </p>
+ */
+@Slf4j
+@Component
+public class MetricsSpool {
+
+    private static final int FRAME_HEADER_BYTES = Integer.BYTES + 1;
+
+    private final Path file;
+    private final int capacityBytes;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    // Offsets of the oldest entry and of the end of the newest one within the segment
+    private int readPosition;
+    private int writePosition;
+    private int entryCount;
+
+    @Autowired
+    public MetricsSpool(
+            @Value("${metrics.spool.directory:${java.io.tmpdir}}") String directory,
+            @Value("${HOSTNAME}") String loadGeneratorId,
+            @Value("${metrics.spool.capacity.mb:64}") int capacityMb
+    ) {
+        this(Path.of(directory, "metrics-spool-" + loadGeneratorId + ".bin"),
+                Math.toIntExact(capacityMb * 1024L * 1024L));
+    }
+
+    public MetricsSpool(Path file, int capacityBytes) {
+        if (capacityBytes <= FRAME_HEADER_BYTES) {
+            throw new IllegalArgumentException("metrics.spool.capacity must hold at least one entry");
+        }
+        this.file = file;
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * An entry of the spool.
+     *
+     * @param kind    type of the payload, defined by the caller
+     * @param payload encoded payload
+     */
+    public record Entry(byte kind, byte[] payload) {
+    }
+
+    /**
+     * Appends a payload after all spooled ones.
+     *
+     * @return false if the spool has no room left for the payload
+     * @throws UncheckedIOException if the segment file cannot be created
+     */
+    public boolean append(byte kind, byte[] payload) {
+        int frameBytes = FRAME_HEADER_BYTES + payload.length;
+        if (frameBytes > capacityBytes - (writePosition - readPosition)) {
+            return false;
+        }
+        ensureMapped();
+        if (frameBytes > capacityBytes - writePosition) {
+            compact();
+        }
+
+        segment.putInt(writePosition, payload.length);
+        segment.put(writePosition + Integer.BYTES, kind);
+        segment.put(writePosition + FRAME_HEADER_BYTES, payload);
+        writePosition += frameBytes;
+        entryCount++;
+        return true;
+    }
+
+    /**
+     * Returns the oldest entry without removing it, null if the spool is empty.
+     */
+    public Entry peek() {
+        if (entryCount == 0) {
+            return null;
+        }
+        int length = segment.getInt(readPosition);
+        byte kind = segment.get(readPosition + Integer.BYTES);
+        byte[] payload = new byte[length];
+        segment.get(readPosition + FRAME_HEADER_BYTES, payload);
+        return new Entry(kind, payload);
+    }
+
+    /**
+     * Removes the oldest entry, e.g. after it was replayed successfully.
+     */
+    public void remove() {
+        if (entryCount == 0) {
+            throw new IllegalStateException("Spool is empty");
+        }
+        readPosition += FRAME_HEADER_BYTES + segment.getInt(readPosition);
+        entryCount--;
+        if (entryCount == 0) {
+            readPosition = 0;
+            writePosition = 0;
+        }
+    }
+
+    public boolean isEmpty() {
+        return entryCount == 0;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    public int usedBytes() {
+        return writePosition - readPosition;
+    }
+
+    public int capacityBytes() {
+        return capacityBytes;
+    }
+
+    /**
+     * Releases and deletes the segment file; spooled entries are discarded.
+     */
+    @PreDestroy
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete metrics spool {}: {}", file, e.getMessage());
+        }
+        channel = null;
+        segment = null;
+        readPosition = 0;
+        writePosition = 0;
+        entryCount = 0;
+    }
+
+    private void ensureMapped() {
+        if (segment != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+            log.info("Created metrics spool {} ({} KiB)", file.toAbsolutePath(), capacityBytes / 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create metrics spool " + file.toAbsolutePath(), e);
+        }
+    }
+
+    // Moves the spooled entries to the start of the segment to reclaim the space of replayed ones
+    private void compact() {
+        int used = writePosition - readPosition;
+        segment.put(0, segment, readPosition, used);
+        readPosition = 0;
+        writePosition = used;
+    }
+}
@@ -0,0 +1,191 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Open-model executor for query arrivals.
+ *
+ * <p>
+ * Every arrival runs on its own virtual thread, so a slow cluster never holds back the arrival schedule
+ * and no platform threads are created per request. The number of requests in flight is capped by a
+ * semaphore: an arrival that finds no free slot is dropped and counted instead of queueing up behind
+ * the slow ones. Arrivals the scheduler could only dispatch after their intended time are counted as late.
+ * </p>
+ *
+ * <p>
+ * An arrival whose submission or execution throws unexpectedly is counted as failed instead of dispatched, so
+ * every arrival ends up in exactly one of dispatched, dropped and failed.
+ * </p>
+ *
+ * <p>
+ * Asynchronous arrivals ({@link #dispatchAsync(Supplier)}) are submitted on the calling thread and hold
+ * their in-flight slot until the returned stage completed, so they share the same limit without a thread each.
+ * </p>
+ */
+@Slf4j
+public class OpenModelExecutor implements AutoCloseable {
+
+    private final int maxInFlight;
+    private final Semaphore inFlightPermits;
+    private final ExecutorService workers;
+    private volatile boolean accepting = true;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder late = new LongAdder();
+
+    public OpenModelExecutor(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be >= 1");
+        }
+        this.maxInFlight = maxInFlight;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("query-", 0).factory());
+    }
+
+    /**
+     * Dispatches a single arrival on a new virtual thread.
+     *
+     * @param task query execution for this arrival
+     * @return true if the arrival was dispatched, false if it was dropped
+     */
+    public boolean dispatch(Runnable task) {
+        if (!inFlightPermits.tryAcquire()) {
+            dropped.increment();
+            return false;
+        }
+
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Query execution failed unexpectedly: {}", e.toString());
+                    dispatched.decrement();
+                    failed.increment();
+                } finally {
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            dropped.increment();
+            return false;
+        }
+
+        dispatched.increment();
+        return true;
+    }
+
+    /**
+     * Dispatches a single asynchronous arrival. The in-flight slot is released once the returned stage completed.
+     *
+     * @param task submits the query execution for this arrival and returns its completion
+     * @return true if the arrival was dispatched, false if it was dropped or its submission failed
+     */
+    public boolean dispatchAsync(Supplier<? extends CompletionStage<?>> task) {
+        if (!accepting || !inFlightPermits.tryAcquire()) {
+            dropped.increment();
+            return false;
+        }
+
+        CompletionStage<?> completion;
+        try {
+            completion = task.get();
+        } catch (RuntimeException e) {
+            inFlightPermits.release();
+            log.warn("Query submission failed unexpectedly: {}", e.toString());
+            failed.increment();
+            return false;
+        }
+
+        dispatched.increment();
+        completion.whenComplete((result, failure) -> {
+            if (failure != null) {
+                log.warn("Query execution failed unexpectedly: {}", failure.toString());
+                dispatched.decrement();
+                failed.increment();
+            }
+            inFlightPermits.release();
+        });
+        return true;
+    }
+
+    /**
+     * Records that an arrival was dispatched later than its intended start time.
+     */
+    public void recordLateArrival() {
+        late.increment();
+    }
+
+    /**
+     * Stops accepting arrivals and waits until all in-flight requests completed or the deadline passed.
+     * Blocking requests still running after the deadline are interrupted, asynchronous ones are abandoned.
+     *
+     * @param deadline maximum time to wait for in-flight requests
+     * @return true if all in-flight requests completed in time
+     */
+    public boolean drain(Duration deadline) {
+        accepting = false;
+        workers.shutdown();
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        try {
+            // Blocking arrivals end with their worker thread, asynchronous ones once all slots are free again
+            if (workers.awaitTermination(deadline.toNanos(), TimeUnit.NANOSECONDS)
+                    && inFlightPermits.tryAcquire(
+                    maxInFlight, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                inFlightPermits.release(maxInFlight);
+                return true;
+            }
+            log.warn("{} requests still in flight after drain deadline of {}s; abandoning them",
+                    getInFlight(), deadline.toSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while draining in-flight requests", e);
+        }
+        workers.shutdownNow();
+        return false;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getLateCount() {
+        return late.sum();
+    }
+
+    @Override
+    public void close() {
+        if (!workers.isTerminated()) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Pre-rendered request bodies per {@link QueryType}.
+ *
+ * <p>
+ * Rendering a query runs Datafaker and the template engine, which costs generator CPU while the cluster
+ * is measured. The corpus renders a fixed number of bodies per query type before the load test starts,
+ * so an arrival only picks one of them at random.
+ * </p>
+ *
+ * <p>
+ * Bodies are kept as UTF-8 byte arrays on the heap, or in one direct buffer per query type. Off-heap
+ * bodies are copied into a short-lived array when picked, which keeps large corpora out of the old generation.
+ * </p>
+ */
+public final class QueryCorpus {
+
+    private final Map<QueryType, Bodies> bodiesByType;
+    private final boolean offHeap;
+    private final int bodyCount;
+    private final long footprintBytes;
+    private final long generationTimeMillis;
+
+    private QueryCorpus(Map<QueryType, Bodies> bodiesByType, boolean offHeap, long generationTimeMillis) {
+        this.bodiesByType = bodiesByType;
+        this.offHeap = offHeap;
+        this.generationTimeMillis = generationTimeMillis;
+        this.bodyCount = bodiesByType.values().stream().mapToInt(Bodies::count).sum();
+        this.footprintBytes = bodiesByType.values().stream().mapToLong(Bodies::footprintBytes).sum();
+    }
+
+    /**
+     * Renders the given number of request bodies for each query type.
+     *
+     * @param queryTypes    query types to render, duplicates are rendered once
+     * @param bodiesPerType number of bodies per query type
+     * @param offHeap       whether to store the bodies in direct buffers
+     * @return the generated corpus
+     */
+    public static QueryCorpus generate(Collection<QueryType> queryTypes, int bodiesPerType, boolean offHeap) {
+        Objects.requireNonNull(queryTypes, "queryTypes must not be null");
+        if (bodiesPerType < 1) {
+            throw new IllegalArgumentException("bodiesPerType must be >= 1");
+        }
+
+        long start = System.nanoTime();
+        Map<QueryType, Bodies> bodiesByType = new EnumMap<>(QueryType.class);
+
+        for (QueryType queryType : queryTypes) {
+            if (bodiesByType.containsKey(queryType)) {
+                continue;
+            }
+            // Datafaker instances are thread-local, so rendering can use all cores
+            byte[][] rendered = IntStream.range(0, bodiesPerType)
+                    .parallel()
+                    .mapToObj(i -> queryType.createRandomQuery().toJsonBytes())
+                    .toArray(byte[][]::new);
+
+            bodiesByType.put(queryType, offHeap ? DirectBodies.of(queryType, rendered) : new HeapBodies(rendered));
+        }
+
+        long generationTimeMillis = (System.nanoTime() - start) / 1_000_000;
+        return new QueryCorpus(bodiesByType, offHeap, generationTimeMillis);
+    }
+
+    /**
+     * Returns a random pre-rendered request body of the given query type.
+     *
+     * @throws IllegalArgumentException if the corpus contains no bodies of the given type
+     */
+    public byte[] randomBody(QueryType queryType) {
+        Bodies bodies = bodiesByType.get(queryType);
+        if (bodies == null) {
+            throw new IllegalArgumentException("Query corpus contains no bodies of type " + queryType);
+        }
+        return bodies.get(ThreadLocalRandom.current().nextInt(bodies.count()));
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public int getQueryTypeCount() {
+        return bodiesByType.size();
+    }
+
+    /**
+     * Returns the number of bytes used by the rendered bodies and their offsets (array headers excluded).
+     */
+    public long getFootprintBytes() {
+        return footprintBytes;
+    }
+
+    public long getGenerationTimeMillis() {
+        return generationTimeMillis;
+    }
+
+    private interface Bodies {
+        int count();
+
+        byte[] get(int index);
+
+        long footprintBytes();
+    }
+
+    private record HeapBodies(byte[][] bodies) implements Bodies {
+
+        @Override
+        public int count() {
+            return bodies.length;
+        }
+
+        @Override
+        public byte[] get(int index) {
+            return bodies[index];
+        }
+
+        @Override
+        public long footprintBytes() {
+            long bytes = 0;
+            for (byte[] body : bodies) {
+                bytes += body.length;
+            }
+            return bytes;
+        }
+    }
+
+    // All bodies of one type back to back; offsets[i] is the start of body i, offsets[count] the end
+    private record DirectBodies(ByteBuffer buffer, int[] offsets) implements Bodies {
+
+        static DirectBodies of(QueryType queryType, byte[][] rendered) {
+            long totalBytes = 0;
+            for (byte[] body : rendered) {
+                totalBytes += body.length;
+            }
+            if (totalBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(String.format(
+                        "Query corpus for %s exceeds 2 GiB, reduce the corpus size", queryType));
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) totalBytes);
+            int[] offsets = new int[rendered.length + 1];
+            for (int i = 0; i < rendered.length; i++) {
+                offsets[i] = buffer.position();
+                buffer.put(rendered[i]);
+            }
+            offsets[rendered.length] = buffer.position();
+            return new DirectBodies(buffer, offsets);
+        }
+
+        @Override
+        public int count() {
+            return offsets.length - 1;
+        }
+
+        @Override
+        public byte[] get(int index) {
+            byte[] body = new byte[offsets[index + 1] - offsets[index]];
+            // Absolute get, so concurrent readers do not share a position
+            buffer.get(offsets[index], body);
+            return body;
+        }
+
+        @Override
+        public long footprintBytes() {
+            return buffer.capacity() + (long) offsets.length * Integer.BYTES;
+        }
+    }
+}
@@ -1,122 +1,349 @@
 package com.opensearchloadtester.loadgenerator.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.loadgenerator.config.ResponseTimings;
+import com.opensearchloadtester.loadgenerator.config.ResponseTimings.ResponseTiming;
 import com.opensearchloadtester.loadgenerator.model.QueryType;
-import com.opensearchloadtester.loadgenerator.queries.AbstractQuery;
-import lombok.RequiredArgsConstructor;
+import com.opensearchloadtester.loadgenerator.service.SearchResponseExtractor.SearchResponseSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.opensearch.client.opensearch.generic.*;
 import org.opensearch.client.transport.httpclient5.ResponseException;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.SocketTimeoutException;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
  * Executes a single OpenSearch query based on a JSON template.
+ *
+ * <p>
+ * Two durations are recorded per query: the service time, measured from the moment the request is sent,
+ * and the corrected duration, measured from the intended start time of the arrival. The latter still
+ * contains any delay the scheduler or the worker pool added, so it is not subject to coordinated omission.
+ * </p>
+ *
+ * <p>
+ * Queries are either executed blocking ({@link #execute(long, String)}) or submitted through the async
+ * transport ({@link #executeAsync(long, String, Executor)}); both record the same metrics.
+ * </p>
+ *
+ * <p>
+ * The service time is further split at the arrival of the response head (see {@link ResponseTimings})
+ * into time to first byte and body transfer time. Together with the request and response body sizes and the
+ * overhead (service time minus the server-side {@code took}) this shows whether a slow query type is slow in
+ * OpenSearch or on the wire. Each sample is stamped with the wall-clock time its request was sent, so the
+ * Metrics Reporter can build a per-second timeline.
+ * </p>
  */
 @Slf4j
-@RequiredArgsConstructor
 public class QueryExecutionTask implements Runnable {
 
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
     private final String loadGeneratorId;
     private final String index;
-    private final List<QueryType> queryPool;
+    private final QuerySampler querySampler;
     private final OpenSearchGenericClient openSearchClient;
     private final MetricsCollector metricsCollector;
     private final ObjectMapper mapper;
+    // Pre-rendered request bodies, null to render a new query per execution
+    private final QueryCorpus queryCorpus;
+    // Contains the OpenSearch response filter ('filter_path') if configured
+    private final Map<String, String> queryParameters;
+
+    public QueryExecutionTask(
+            String loadGeneratorId,
+            String index,
+            QuerySampler querySampler,
+            OpenSearchGenericClient openSearchClient,
+            MetricsCollector metricsCollector,
+            ObjectMapper mapper
+    ) {
+        this(loadGeneratorId, index, querySampler, openSearchClient, metricsCollector, mapper, null, null);
+    }
+
+    public QueryExecutionTask(
+            String loadGeneratorId,
+            String index,
+            QuerySampler querySampler,
+            OpenSearchGenericClient openSearchClient,
+            MetricsCollector metricsCollector,
+            ObjectMapper mapper,
+            QueryCorpus queryCorpus,
+            String filterPath
+    ) {
+        this.loadGeneratorId = loadGeneratorId;
+        this.index = index;
+        this.querySampler = querySampler;
+        this.openSearchClient = openSearchClient;
+        this.metricsCollector = metricsCollector;
+        this.mapper = mapper;
+        this.queryCorpus = queryCorpus;
+        this.queryParameters = filterPath != null ? Map.of("filter_path", filterPath) : Map.of();
+    }
 
+    /**
+     * Executes a query whose intended start time is now (e.g. during warm-up).
+     */
     @Override
     public void run() {
-        QueryType selectedQueryType = queryPool.get(ThreadLocalRandom.current().nextInt(queryPool.size()));
-        AbstractQuery query = selectedQueryType.createRandomQuery();
-        String queryAsJson = query.toJsonString();
+        execute(System.nanoTime(), null);
+    }
 
-        // Send query to OpenSearch and measure end-to-end client-side round-trip time
-        Request request = Requests.builder()
-                .endpoint("/" + index + "/_search")
-                .method("POST")
-                .json(queryAsJson)
-                .build();
+    /**
+     * Executes a query for an arrival that was scheduled to start at the given time.
+     *
+     * @param intendedStartNanos intended start time of the arrival on the {@link System#nanoTime()} clock
+     * @param stage              name of the load profile stage the arrival belongs to, may be null
+     */
+    public void execute(long intendedStartNanos, String stage) {
+        PreparedQuery query = prepareQuery(querySampler.sample());
 
+        // Send query to OpenSearch and measure end-to-end client-side round-trip time
+        ResponseTiming timing = ResponseTimings.track();
         long startTime = System.nanoTime();
         Response response = null;
-        int status;
+        Throwable failure = null;
         try {
-            response = openSearchClient.execute(request);
-            status = response.getStatus();
+            response = openSearchClient.execute(query.request());
         } catch (Exception e) {
-            log.debug("Error while executing query: {} {}", e.getClass(), e.getCause().getMessage());
-            if (e.getCause() instanceof TimeoutException
-                    || e.getCause() instanceof SocketTimeoutException) {
-                status = 408;
-            } else if (e.getCause() instanceof ResponseException exep) {
-                status = exep.status();
-            } else {
-                log.error("Error while executing query: ", e);
-                status = 500;
-            }
+            failure = e;
+        } finally {
+            ResponseTimings.untrack();
         }
-        long requestDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        long endTime = System.nanoTime();
+
+        recordResult(query, timing, response, failure, startTime, endTime, intendedStartNanos, stage);
+    }
+
+    /**
+     * Submits a query through the async transport for an arrival that was scheduled to start at the given time.
+     * No thread is blocked while the request is in flight; metrics are recorded on the completion executor.
+     *
+     * @param intendedStartNanos intended start time of the arrival on the {@link System#nanoTime()} clock
+     * @param stage              name of the load profile stage the arrival belongs to, may be null
+     * @param completionExecutor executor recording the metrics once the response arrived
+     * @return future completed after the metrics of this query were recorded
+     */
+    public CompletableFuture<Void> executeAsync(long intendedStartNanos, String stage, Executor completionExecutor) {
+        PreparedQuery query = prepareQuery(querySampler.sample());
+
+        ResponseTiming timing = ResponseTimings.track();
+        long startTime = System.nanoTime();
+        CompletableFuture<Response> pending;
+        try {
+            pending = openSearchClient.executeAsync(query.request());
+        } catch (RuntimeException e) {
+            pending = CompletableFuture.failedFuture(e);
+        } finally {
+            ResponseTimings.untrack();
+        }
+
+        // Stop the clock on the I/O thread, but keep parsing and recording off it
+        return pending
+                .handle((response, failure) -> new Completion(response, failure, System.nanoTime()))
+                .thenAcceptAsync(completion -> recordResult(
+                        query,
+                        timing,
+                        completion.response(),
+                        completion.failure(),
+                        startTime,
+                        completion.endTime(),
+                        intendedStartNanos,
+                        stage
+                ), completionExecutor);
+    }
+
+    private PreparedQuery prepareQuery(QueryType queryType) {
+        // Both sources render straight into UTF-8 bytes, no intermediate JSON string
+        byte[] body = queryCorpus != null
+                ? queryCorpus.randomBody(queryType)
+                : queryType.createRandomQuery().toJsonBytes();
+
+        Request request = Requests.builder()
+                .endpoint("/" + index + "/_search")
+                .method("POST")
+                .query(queryParameters)
+                .body(Body.from(body, JSON_CONTENT_TYPE))
+                .build();
+        return new PreparedQuery(queryType, request, body.length);
+    }
+
+    private void recordResult(
+            PreparedQuery query,
+            ResponseTiming timing,
+            Response response,
+            Throwable failure,
+            long startTime,
+            long endTime,
+            long intendedStartNanos,
+            String stage
+    ) {
+        long requestDurationMillis = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+        long correctedRequestDurationMillis = TimeUnit.NANOSECONDS.toMillis(endTime - intendedStartNanos);
+        // Wall-clock send time, derived from the monotonic clock so both durations and start time agree
+        long startTimeEpochMillis =
+                System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        Long firstByteNanos = timing.firstByteNanos();
+        Long timeToFirstByteMillis = firstByteNanos != null
+                ? TimeUnit.NANOSECONDS.toMillis(firstByteNanos - startTime)
+                : null;
+        Long transferTimeMillis = firstByteNanos != null
+                ? TimeUnit.NANOSECONDS.toMillis(endTime - firstByteNanos)
+                : null;
+
+        int status = failure == null ? response.getStatus() : statusOf(failure);
 
         if (status >= 400) {
-            if (response != null) {
-                String responseBody = response.getBody()
-                        .map(Body::bodyAsString)
-                        .orElse("no body");
-                log.debug("Status: {}, reason: {}, body: {}", status, response.getReason(), responseBody);
+            Long responseBytes = null;
+            if (response != null && response.getBody().isPresent()) {
+                try (Body body = response.getBody().get()) {
+                    byte[] responseBody = body.bodyAsBytes();
+                    responseBytes = (long) responseBody.length;
+                    log.debug("Status: {}, reason: {}, body: {}", status, response.getReason(),
+                            new String(responseBody, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    log.debug("Error while reading error response body: {}", e.getMessage());
+                }
             }
             MetricsDto metricsDto = new MetricsDto(
                     loadGeneratorId,
-                    selectedQueryType.name(),
+                    query.queryType().name(),
                     requestDurationMillis,
                     null,
                     null,
                     status
             );
+            metricsDto.setCorrectedRequestDurationMillis(correctedRequestDurationMillis);
+            metricsDto.setStage(stage);
+            metricsDto.setRequestBytes(query.requestBytes());
+            metricsDto.setResponseBytes(responseBytes);
+            metricsDto.setTimeToFirstByteMillis(timeToFirstByteMillis);
+            metricsDto.setTransferTimeMillis(transferTimeMillis);
+            metricsDto.setStartTimeEpochMillis(startTimeEpochMillis);
 
             metricsCollector.appendMetrics(metricsDto);
 
-            log.debug("Query execution failed (status: {}, requestDurationMillis: {})",
-                    status, requestDurationMillis);
+            log.debug("Query execution failed (status: {}, requestDurationMillis: {}, " +
+                            "correctedRequestDurationMillis: {})",
+                    status, requestDurationMillis, correctedRequestDurationMillis);
 
             return;
         }
 
-        // Collect performance metrics
-        assert response != null;
-        String responseBodyAsString = response.getBody()
-                .map(Body::bodyAsString)
+        // Collect performance metrics, reading only the needed fields from the body stream
+        SearchResponseSummary summary;
+        long responseBytes;
+        try (Body body = response.getBody()
                 .orElseThrow(() -> new IllegalStateException("Response body is missing"));
-
-        JsonNode responseBodyAsJsonNode = null;
-        try {
-            responseBodyAsJsonNode = mapper.readTree(responseBodyAsString);
-        } catch (JsonProcessingException e) {
+             CountingInputStream bodyStream = new CountingInputStream(body.body())) {
+            summary = SearchResponseExtractor.extract(mapper.getFactory(), bodyStream);
+            // The extractor stops after the needed fields, count the remainder of the buffered body
+            bodyStream.transferTo(OutputStream.nullOutputStream());
+            responseBytes = bodyStream.getCount();
+        } catch (IOException e) {
             log.error("Error while parsing response body: {} {}", e.getClass(), e.getMessage());
             return;
         }
-        int totalHits = responseBodyAsJsonNode.path("hits").path("total").path("value").asInt();
-        long queryDurationMillis = responseBodyAsJsonNode.path("took").asLong(-1);
+        int totalHits = summary.totalHits();
+        long queryDurationMillis = summary.took();
+        Long overheadMillis = queryDurationMillis >= 0 ? requestDurationMillis - queryDurationMillis : null;
 
         MetricsDto metricsDto = new MetricsDto(
                 loadGeneratorId,
-                selectedQueryType.name(),
+                query.queryType().name(),
                 requestDurationMillis,
                 queryDurationMillis,
                 totalHits,
                 status
         );
+        metricsDto.setCorrectedRequestDurationMillis(correctedRequestDurationMillis);
+        metricsDto.setStage(stage);
+        metricsDto.setRequestBytes(query.requestBytes());
+        metricsDto.setResponseBytes(responseBytes);
+        metricsDto.setTimeToFirstByteMillis(timeToFirstByteMillis);
+        metricsDto.setTransferTimeMillis(transferTimeMillis);
+        metricsDto.setOverheadMillis(overheadMillis);
+        metricsDto.setStartTimeEpochMillis(startTimeEpochMillis);
 
         metricsCollector.appendMetrics(metricsDto);
 
         log.debug(
-                "Executed query (status: {}, requestDurationMillis: {}, queryDurationMillis: {}, totalHits: {})",
-                status, requestDurationMillis, queryDurationMillis, totalHits);
+                "Executed query (status: {}, requestDurationMillis: {}, correctedRequestDurationMillis: {}, " +
+                        "queryDurationMillis: {}, totalHits: {}, responseBytes: {}, overheadMillis: {})",
+                status, requestDurationMillis, correctedRequestDurationMillis, queryDurationMillis, totalHits,
+                responseBytes, overheadMillis);
+    }
+
+    /**
+     * Maps a failed request to the HTTP status reported for it.
+     * Timeouts are reported as 408, all other failures without a response as 500.
+     */
+    private static int statusOf(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException) {
+                log.debug("Query timed out: {}", cause.getMessage());
+                return 408;
+            }
+            if (cause instanceof ResponseException responseException) {
+                return responseException.status();
+            }
+        }
+        log.error("Error while executing query: ", failure);
+        return 500;
+    }
+
+    private record PreparedQuery(QueryType queryType, Request request, long requestBytes) {
+    }
+
+    private record Completion(Response response, Throwable failure, long endTime) {
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
     }
 }
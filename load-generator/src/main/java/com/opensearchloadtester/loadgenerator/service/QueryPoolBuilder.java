@@ -4,33 +4,33 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.opensearchloadtester.loadgenerator.model.QueryType;
 import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 public final class QueryPoolBuilder {
 
-    public static List<QueryType> build(ScenarioConfig config) {
+    /**
+     * Builds the sampler for the query mix of the scenario. Short form entries are weighted equally,
+     * long form entries by their (possibly fractional) percent.
+     */
+    public static QuerySampler build(ScenarioConfig config) {
         Objects.requireNonNull(config, "ScenarioConfig must not be null");
         JsonNode mix = config.getQueryMix();
 
-        ArrayList<QueryType> pool = new ArrayList<>();
+        Map<QueryType, Double> weights = new LinkedHashMap<>();
 
         for (JsonNode entry : mix) {
             if (entry.isTextual()) {
-                pool.add(QueryType.valueOf(entry.asText()));
+                weights.put(QueryType.valueOf(entry.asText()), 1.0);
             } else {
                 JsonNode typeNode = entry.get("type");
                 JsonNode percentNode = entry.get("percent");
 
-                QueryType type = QueryType.valueOf(typeNode.asText());
-                int weight = percentNode.asInt();
-                for (int i = 0; i < weight; i++) {
-                    pool.add(type);
-                }
+                weights.put(QueryType.valueOf(typeNode.asText()), percentNode.asDouble());
             }
         }
 
-        return pool;
+        return QuerySampler.weighted(weights);
     }
 }
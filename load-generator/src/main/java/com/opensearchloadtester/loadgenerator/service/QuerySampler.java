@@ -0,0 +1,169 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks the query type of each arrival according to the weights of the query mix.
+ *
+ * <p>
+ * Sampling uses an alias table (Vose's alias method): one random number selects a column and decides between
+ * the column's own query type and its alias, so a pick costs O(1) regardless of the number of query types and
+ * of the precision of the weights. Weights may be fractional, e.g. 0.25 % for a rare expensive query.
+ * </p>
+ *
+ * <p>
+ * The table is immutable. {@link #updateWeights(Map)} builds a new one and swaps it atomically, so concurrent
+ * arrivals always sample from either the old or the new mix, never from a partially updated one.
+ * </p>
+ */
+public final class QuerySampler {
+
+    private static final long FRACTION_SCALE = 1L << 32;
+
+    private final AtomicReference<AliasTable> table;
+
+    private QuerySampler(AliasTable table) {
+        this.table = new AtomicReference<>(table);
+    }
+
+    /**
+     * Creates a sampler picking the given query types with the given (relative) weights.
+     *
+     * @param weights weight per query type in iteration order, need not sum up to 100
+     * @throws IllegalArgumentException if no weights are given, or any weight is not positive and finite
+     */
+    public static QuerySampler weighted(Map<QueryType, Double> weights) {
+        return new QuerySampler(AliasTable.of(weights));
+    }
+
+    /**
+     * Creates a sampler picking each of the given query types with the same probability.
+     */
+    public static QuerySampler uniform(Collection<QueryType> queryTypes) {
+        Map<QueryType, Double> weights = new LinkedHashMap<>();
+        for (QueryType queryType : queryTypes) {
+            weights.put(queryType, 1.0);
+        }
+        return weighted(weights);
+    }
+
+    /**
+     * Picks a query type using the random generator of the current thread.
+     */
+    public QueryType sample() {
+        return table.get().sample(ThreadLocalRandom.current().nextLong());
+    }
+
+    public QueryType sample(RandomGenerator random) {
+        return table.get().sample(random.nextLong());
+    }
+
+    /**
+     * Replaces the weights of the query mix; arrivals sampled afterwards use the new weights.
+     *
+     * @param weights weight per query type, need not sum up to 100
+     * @throws IllegalArgumentException if no weights are given, or any weight is not positive and finite
+     */
+    public void updateWeights(Map<QueryType, Double> weights) {
+        table.set(AliasTable.of(weights));
+    }
+
+    /**
+     * Returns the query types of the current mix in the order they were configured.
+     */
+    public List<QueryType> getQueryTypes() {
+        return List.copyOf(table.get().weights().keySet());
+    }
+
+    /**
+     * Returns the normalized weights (probabilities summing up to 1) of the current mix.
+     */
+    public Map<QueryType, Double> getWeights() {
+        return table.get().weights();
+    }
+
+    // threshold[i]: probability of column i itself (not its alias) in units of 2^-32
+    private record AliasTable(QueryType[] queryTypes, long[] threshold, int[] alias,
+                              Map<QueryType, Double> weights) {
+
+        static AliasTable of(Map<QueryType, Double> weights) {
+            Objects.requireNonNull(weights, "weights must not be null");
+            if (weights.isEmpty()) {
+                throw new IllegalArgumentException("At least one query type weight is required");
+            }
+
+            int n = weights.size();
+            QueryType[] queryTypes = new QueryType[n];
+            double[] scaled = new double[n];
+            double total = 0;
+            int i = 0;
+            for (Map.Entry<QueryType, Double> entry : weights.entrySet()) {
+                double weight = Objects.requireNonNull(entry.getValue(), "weight must not be null");
+                if (!(weight > 0) || Double.isInfinite(weight)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Weight of %s must be a positive number, was %s", entry.getKey(), weight));
+                }
+                queryTypes[i] = Objects.requireNonNull(entry.getKey(), "query type must not be null");
+                scaled[i] = weight;
+                total += weight;
+                i++;
+            }
+
+            Map<QueryType, Double> normalized = new LinkedHashMap<>();
+            for (i = 0; i < n; i++) {
+                normalized.put(queryTypes[i], scaled[i] / total);
+                // Scale so that the average column holds exactly 1
+                scaled[i] = scaled[i] * n / total;
+            }
+
+            double[] probability = new double[n];
+            int[] alias = new int[n];
+            Deque<Integer> small = new ArrayDeque<>();
+            Deque<Integer> large = new ArrayDeque<>();
+            for (i = 0; i < n; i++) {
+                (scaled[i] < 1.0 ? small : large).push(i);
+            }
+
+            // Fill each underfull column with the excess of an overfull one
+            while (!small.isEmpty() && !large.isEmpty()) {
+                int less = small.pop();
+                int more = large.pop();
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                (scaled[more] < 1.0 ? small : large).push(more);
+            }
+            // Remaining columns are full up to rounding errors
+            while (!large.isEmpty()) {
+                probability[large.pop()] = 1.0;
+            }
+            while (!small.isEmpty()) {
+                probability[small.pop()] = 1.0;
+            }
+
+            long[] threshold = new long[n];
+            for (i = 0; i < n; i++) {
+                threshold[i] = Math.min(FRACTION_SCALE, Math.round(probability[i] * FRACTION_SCALE));
+            }
+            return new AliasTable(queryTypes, threshold, alias, Collections.unmodifiableMap(normalized));
+        }
+
+        // One random number: the upper 32 bits select the column, the lower 32 bits decide column or alias
+        QueryType sample(long bits) {
+            int column = (int) (((bits >>> 32) * queryTypes.length) >>> 32);
+            return (bits & 0xFFFF_FFFFL) < threshold[column] ? queryTypes[column] : queryTypes[alias[column]];
+        }
+    }
+}
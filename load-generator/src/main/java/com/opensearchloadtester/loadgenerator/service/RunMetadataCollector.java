@@ -0,0 +1,118 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.opensearch.client.opensearch.generic.Body;
+import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
+import org.opensearch.client.opensearch.generic.Requests;
+import org.opensearch.client.opensearch.generic.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects what a run measured for the run history of the Metrics Reporter: the scenario file as written, the
+ * version and topology of the cluster under test and the settings of the queried index.
+ *
+ * <p>
+ * Best effort: whatever cannot be read is left out, the run itself does not depend on it.
+ * </p>
+ */
+@Slf4j
+@Component
+public class RunMetadataCollector {
+
+    private final String scenarioConfigPath;
+    private final String scenarioConfigFile;
+    private final ScenarioConfig scenarioConfig;
+    private final OpenSearchGenericClient openSearchClient;
+    private final ObjectMapper objectMapper;
+
+    public RunMetadataCollector(
+            @Value("${scenario.config.path}") String scenarioConfigPath,
+            @Value("${scenario.config}") String scenarioConfigFile,
+            ScenarioConfig scenarioConfig,
+            OpenSearchGenericClient openSearchClient,
+            ObjectMapper objectMapper) {
+        this.scenarioConfigPath = scenarioConfigPath;
+        this.scenarioConfigFile = scenarioConfigFile;
+        this.scenarioConfig = scenarioConfig;
+        this.openSearchClient = openSearchClient;
+        this.objectMapper = objectMapper;
+    }
+
+    public RunMetadataDto collect(String loadGeneratorId) {
+        Map<String, String> cluster = new LinkedHashMap<>();
+        JsonNode info = get("/", Map.of());
+        if (info != null) {
+            putText(cluster, "cluster_name", info.path("cluster_name"));
+            putText(cluster, "cluster_uuid", info.path("cluster_uuid"));
+            putText(cluster, "version", info.path("version").path("number"));
+            putText(cluster, "distribution", info.path("version").path("distribution"));
+            putText(cluster, "lucene_version", info.path("version").path("lucene_version"));
+            putText(cluster, "build_hash", info.path("version").path("build_hash"));
+        }
+        JsonNode health = get("/_cluster/health", Map.of());
+        if (health != null) {
+            putText(cluster, "status", health.path("status"));
+            putText(cluster, "number_of_nodes", health.path("number_of_nodes"));
+            putText(cluster, "number_of_data_nodes", health.path("number_of_data_nodes"));
+            putText(cluster, "active_shards", health.path("active_shards"));
+        }
+
+        String index = scenarioConfig.getDocumentType().getIndex();
+        Map<String, String> indexSettings = new LinkedHashMap<>();
+        JsonNode settings = get("/" + index + "/_settings", Map.of("flat_settings", "true"));
+        if (settings != null) {
+            // Keyed by the concrete index name, which differs from the queried name for aliases
+            settings.forEach(indexNode -> indexNode.path("settings").properties()
+                    .forEach(setting -> putText(indexSettings, setting.getKey(), setting.getValue())));
+        }
+
+        return new RunMetadataDto(loadGeneratorId, scenarioConfig.getName(), readScenarioFile(), cluster,
+                indexSettings);
+    }
+
+    private String readScenarioFile() {
+        Path path = Path.of(scenarioConfigPath + scenarioConfigFile);
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            log.warn("Failed to read scenario file {} for the run history: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private JsonNode get(String endpoint, Map<String, String> parameters) {
+        try (Response response = openSearchClient.execute(Requests.builder()
+                .endpoint(endpoint)
+                .method("GET")
+                .query(parameters)
+                .build())) {
+            if (response.getStatus() >= 400 || response.getBody().isEmpty()) {
+                log.warn("Failed to query {} for the run history (HTTP: {})", endpoint, response.getStatus());
+                return null;
+            }
+            try (Body body = response.getBody().get()) {
+                return objectMapper.readTree(body.body());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to query {} for the run history: {}", endpoint, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void putText(Map<String, String> target, String key, JsonNode value) {
+        if (value.isValueNode() && !value.isNull()) {
+            target.put(key, value.asText());
+        }
+    }
+}
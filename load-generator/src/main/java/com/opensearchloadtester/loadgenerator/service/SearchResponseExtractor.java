@@ -0,0 +1,100 @@
+package com.opensearchloadtester.loadgenerator.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming extractor for the fields of a search response the Load Generator reports.
+ *
+ * <p>
+ * Only {@code took} and {@code hits.total} are read; hits, aggregations and everything else are skipped
+ * token by token without building objects, and parsing stops as soon as both fields were found.
+ * </p>
+ */
+public final class SearchResponseExtractor {
+
+    private SearchResponseExtractor() {
+    }
+
+    /**
+     * Extracts {@code took} and {@code hits.total} from a search response body.
+     *
+     * @param jsonFactory factory creating the parser
+     * @param body        response body, not closed by this method
+     * @return took (-1 if missing) and total hits (0 if missing)
+     * @throws IOException if the body is not valid JSON
+     */
+    public static SearchResponseSummary extract(JsonFactory jsonFactory, InputStream body) throws IOException {
+        long took = -1;
+        int totalHits = 0;
+        boolean tookFound = false;
+        boolean totalHitsFound = false;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            // Leave the body open, so the caller can consume the rest of it
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Search response is not a JSON object");
+            }
+
+            while (!(tookFound && totalHitsFound) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("took".equals(field) && value.isNumeric()) {
+                    took = parser.getLongValue();
+                    tookFound = true;
+                } else if ("hits".equals(field) && value == JsonToken.START_OBJECT) {
+                    Integer total = readTotalHits(parser);
+                    if (total != null) {
+                        totalHits = total;
+                        totalHitsFound = true;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new SearchResponseSummary(took, totalHits);
+    }
+
+    // Reads the 'hits' object up to its end; 'total' is either an object with 'value' or a plain number
+    private static Integer readTotalHits(JsonParser parser) throws IOException {
+        Integer total = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("total".equals(field) && value.isNumeric()) {
+                total = parser.getIntValue();
+            } else if ("total".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String totalField = parser.currentName();
+                    if (parser.nextToken().isNumeric() && "value".equals(totalField)) {
+                        total = parser.getIntValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Fields of a search response reported per query.
+     *
+     * @param took      server-side query duration in milliseconds, -1 if missing
+     * @param totalHits number of matching documents, 0 if missing
+     */
+    public record SearchResponseSummary(long took, int totalHits) {
+    }
+}
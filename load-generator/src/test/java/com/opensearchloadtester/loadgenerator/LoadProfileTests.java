@@ -0,0 +1,157 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.opensearchloadtester.loadgenerator.model.LoadStage;
+import com.opensearchloadtester.loadgenerator.model.LoadStageType;
+import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
+import com.opensearchloadtester.loadgenerator.service.ArrivalSchedule;
+import com.opensearchloadtester.loadgenerator.service.LoadProfile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadProfileTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /**
+     * Verifies that a scenario without stages runs one unnamed constant stage split across replicas
+     */
+    @Test
+    void from_withoutStages_usesConstantRate() {
+        ScenarioConfig config = new ScenarioConfig(
+                "constant", null, Duration.ofSeconds(10), Duration.ofSeconds(5), 20, false, null);
+
+        LoadProfile profile = LoadProfile.from(config, 2);
+
+        assertEquals(1, profile.getStageCount());
+        assertNull(profile.getStageName(0));
+        assertEquals(Duration.ofSeconds(10), profile.getTotalDuration());
+        assertEquals(10.0, profile.rateAt(0, 0), 1e-9);
+        assertEquals(10.0, profile.rateAt(0, 9 * SECOND), 1e-9);
+    }
+
+    /**
+     * Verifies stage lookup, default stage names and the rate shape of ramp, step and spike stages
+     */
+    @Test
+    void from_withStages_followsStageShapes() {
+        LoadStage ramp = new LoadStage(null, LoadStageType.RAMP, Duration.ofSeconds(10));
+        ramp.setFromQps(0.0);
+        ramp.setToQps(100.0);
+
+        LoadStage step = new LoadStage("steps", LoadStageType.STEP, Duration.ofSeconds(10));
+        step.setFromQps(10.0);
+        step.setToQps(40.0);
+        step.setSteps(4);
+
+        LoadStage spike = new LoadStage(null, LoadStageType.SPIKE, Duration.ofSeconds(10));
+        spike.setQps(50.0);
+        spike.setSpikeQps(200.0);
+        spike.setSpikeDuration(Duration.ofSeconds(2));
+
+        ScenarioConfig config = new ScenarioConfig(
+                "staged", null, null, Duration.ofSeconds(5), null, false, null);
+        config.setStages(List.of(ramp, step, spike));
+
+        LoadProfile profile = LoadProfile.from(config, 1);
+
+        assertEquals(3, profile.getStageCount());
+        assertEquals(Duration.ofSeconds(30), profile.getTotalDuration());
+        assertEquals("1-ramp", profile.getStageName(0));
+        assertEquals("steps", profile.getStageName(1));
+        assertEquals("3-spike", profile.getStageName(2));
+
+        assertEquals(0, profile.stageIndexAt(9 * SECOND));
+        assertEquals(1, profile.stageIndexAt(10 * SECOND));
+        assertEquals(2, profile.stageIndexAt(25 * SECOND));
+
+        assertEquals(50.0, profile.rateAt(0, 5 * SECOND), 1e-9);
+        assertEquals(10.0, profile.rateAt(1, 11 * SECOND), 1e-9);
+        assertEquals(40.0, profile.rateAt(1, 19 * SECOND), 1e-9);
+        assertEquals(50.0, profile.rateAt(2, 21 * SECOND), 1e-9);
+        assertEquals(200.0, profile.rateAt(2, 25 * SECOND), 1e-9);
+    }
+
+    /**
+     * Verifies that arrivals follow a ramp starting at 0 qps, a pause at 0 qps and a short spike,
+     * by counting the arrivals the schedule produces per stage
+     */
+    @Test
+    void arrivalSchedule_integratesRateAcrossRampPauseAndSpike() {
+        LoadStage ramp = new LoadStage("ramp", LoadStageType.RAMP, Duration.ofSeconds(10));
+        ramp.setFromQps(0.0);
+        ramp.setToQps(100.0);
+
+        LoadStage pause = new LoadStage("pause", LoadStageType.HOLD, Duration.ofSeconds(5));
+        pause.setQps(0.0);
+
+        LoadStage spike = new LoadStage("spike", LoadStageType.SPIKE, Duration.ofSeconds(10));
+        spike.setQps(1.0);
+        spike.setSpikeQps(1000.0);
+        spike.setSpikeDuration(Duration.ofMillis(100));
+
+        ScenarioConfig config = new ScenarioConfig(
+                "staged", null, null, Duration.ofSeconds(5), null, false, null);
+        config.setStages(List.of(ramp, pause, spike));
+        LoadProfile profile = LoadProfile.from(config, 1);
+
+        int[] arrivalsPerStage = new int[profile.getStageCount()];
+        ArrivalSchedule schedule = new ArrivalSchedule(profile);
+        long previous = 0;
+        for (long offset = schedule.next(); offset != ArrivalSchedule.END; offset = schedule.next()) {
+            assertTrue(offset >= previous, "arrivals must be in order");
+            assertTrue(offset < profile.getTotalDuration().toNanos());
+            arrivalsPerStage[profile.stageIndexAt(offset)]++;
+            previous = offset;
+        }
+
+        // Ramp: the integral of the rate, 0.5 * 100 qps * 10 s
+        assertEquals(500, arrivalsPerStage[0], 1);
+        assertEquals(0, arrivalsPerStage[1]);
+        // Spike: 1000 qps for 0.1 s, then 1 qps for 9.9 s
+        assertEquals(110, arrivalsPerStage[2], 2);
+    }
+
+    /**
+     * Verifies that a ramp from a very low rate is not skipped by one long initial interval
+     */
+    @Test
+    void arrivalSchedule_followsRampFromNearZeroRate() {
+        LoadStage ramp = new LoadStage(null, LoadStageType.RAMP, Duration.ofSeconds(60));
+        ramp.setFromQps(0.01);
+        ramp.setToQps(1000.0);
+
+        ScenarioConfig config = new ScenarioConfig(
+                "ramp", null, null, Duration.ofSeconds(5), null, false, null);
+        config.setStages(List.of(ramp));
+        ArrivalSchedule schedule = new ArrivalSchedule(LoadProfile.from(config, 2));
+
+        long first = schedule.next();
+        int arrivals = 1;
+        while (schedule.next() != ArrivalSchedule.END) {
+            arrivals++;
+        }
+
+        // Half of the ramp's 30000 arrivals on each of the two replicas; the first one within the first second
+        assertTrue(first < SECOND, "first arrival at " + first + " ns");
+        assertEquals(15_000, arrivals, 2);
+    }
+
+    /**
+     * Verifies that arrivals of a constant rate are centered in their intervals
+     */
+    @Test
+    void arrivalSchedule_centersConstantArrivals() {
+        ScenarioConfig config = new ScenarioConfig(
+                "constant", null, Duration.ofSeconds(1), Duration.ofSeconds(5), 10, false, null);
+        ArrivalSchedule schedule = new ArrivalSchedule(LoadProfile.from(config, 1));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(SECOND / 20 + i * SECOND / 10, schedule.next(), 2);
+        }
+        assertEquals(ArrivalSchedule.END, schedule.next());
+    }
+}
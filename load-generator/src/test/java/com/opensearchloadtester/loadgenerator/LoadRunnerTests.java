@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.opensearchloadtester.loadgenerator.client.MetricsReporterClient;
 import com.opensearchloadtester.loadgenerator.exception.MetricsReporterAccessException;
 import com.opensearchloadtester.loadgenerator.model.DocumentType;
+import com.opensearchloadtester.loadgenerator.model.QueryExecutionMode;
 import com.opensearchloadtester.loadgenerator.model.QueryType;
 import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
 import com.opensearchloadtester.loadgenerator.service.LoadRunner;
@@ -16,15 +17,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
 import org.opensearch.client.opensearch.generic.Response;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +34,7 @@ class LoadRunnerTests {
 
     private static final int NUMBER_LOAD_GENERATORS = 1;
     private static final int METRICS_BATCH_SIZE = 100;
+    private static final int MAX_IN_FLIGHT_REQUESTS = 100;
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     @Mock
@@ -48,12 +51,14 @@ class LoadRunnerTests {
 
     @BeforeEach
     void setUp() {
-        metricsCollector = new MetricsCollector(metricsReporterClient, true);
-        ReflectionTestUtils.setField(metricsCollector, "batchSize", METRICS_BATCH_SIZE);
+        // Flush interval longer than any test scenario, so metrics are only sent on flush or a full batch
+        metricsCollector = new MetricsCollector(metricsReporterClient, METRICS_BATCH_SIZE, 60_000, 65_536);
 
         loadRunner = new LoadRunner(
                 "test-loadgen",
                 NUMBER_LOAD_GENERATORS,
+                MAX_IN_FLIGHT_REQUESTS,
+                QueryExecutionMode.BLOCKING,
                 openSearchClient,
                 metricsReporterClient,
                 metricsCollector,
@@ -233,6 +238,42 @@ class LoadRunnerTests {
         verify(openSearchClient, atMost(expected + 1)).execute(any());
     }
 
+    @Test
+    void asyncMode_submitsThroughAsyncTransport_andReportsOnce() throws Exception {
+        LoadRunner asyncRunner = new LoadRunner(
+                "test-loadgen",
+                NUMBER_LOAD_GENERATORS,
+                MAX_IN_FLIGHT_REQUESTS,
+                QueryExecutionMode.ASYNC,
+                openSearchClient,
+                metricsReporterClient,
+                metricsCollector,
+                objectMapperMock
+        );
+
+        ScenarioConfig scenario = createScenario(
+                "async-3s-3qps",
+                DocumentType.ANO,
+                QueryType.ANO_PAYROLL_RANGE,
+                Duration.ofSeconds(3),
+                Duration.ofMinutes(3),
+                3,
+                false
+        );
+
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(500);
+        when(openSearchClient.executeAsync(any())).thenReturn(CompletableFuture.completedFuture(response));
+
+        asyncRunner.executeScenario(scenario);
+
+        int expected = (int) (scenario.getScheduleDuration().toSeconds() * scenario.getQueriesPerSecond());
+        verify(openSearchClient, atLeast(expected)).executeAsync(any());
+        verify(openSearchClient, atMost(expected + 1)).executeAsync(any());
+        verify(openSearchClient, never()).execute(any());
+        verify(metricsReporterClient, times(1)).sendMetrics(argThat(batch -> batch.size() >= expected));
+    }
+
     @Test
     void schedulerStops_afterExecuteScenarioReturns() throws Exception {
         // No new calls should happen after method returns
@@ -304,6 +345,8 @@ class LoadRunnerTests {
         LoadRunner runner = new LoadRunner(
                 "test-loadgen",
                 2,
+                MAX_IN_FLIGHT_REQUESTS,
+                QueryExecutionMode.BLOCKING,
                 openSearchClient,
                 metricsReporterClient,
                 metricsCollector,
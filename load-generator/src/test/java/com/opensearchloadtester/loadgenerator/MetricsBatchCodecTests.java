@@ -0,0 +1,158 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.codec.MetricsBatchCodec;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the binary metrics batch format shared by load generator and Metrics Reporter.
+ */
+class MetricsBatchCodecTests {
+
+    /**
+     * Verifies that all fields survive encoding and decoding, including nulls, zeros and negative values
+     * that are encoded as deltas to the previous record
+     */
+    @Test
+    void decode_returnsEncodedMetrics() throws IOException {
+        MetricsDto full = new MetricsDto("lg-1", "term", "1-ramp", 120L, 150L, 80L, 42, 200,
+                300L, 9_000L, 100L, 20L, 40L, 1_767_225_600_123L);
+        MetricsDto noTook = new MetricsDto("lg-1", "aggregation", 35L, -1L, 0, 200);
+        noTook.setOverheadMillis(-5L);
+        MetricsDto error = new MetricsDto("lg-1", "term", 10_000L, null, null, 503);
+        error.setStage("2-spike");
+        MetricsDto empty = new MetricsDto();
+        empty.setLoadGeneratorId("lg-1");
+        List<MetricsDto> metrics = List.of(full, noTook, error, empty);
+
+        List<MetricsDto> decoded = MetricsBatchCodec.decode(MetricsBatchCodec.encode(metrics));
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.writeValueAsString(metrics), mapper.writeValueAsString(decoded));
+    }
+
+    /**
+     * Verifies that batches of version 1, written before start times were added, are still decoded
+     */
+    @Test
+    void decode_acceptsVersion1Batches() throws IOException {
+        MetricsDto metrics = new MetricsDto("lg-1", "term", 10L, 5L, 1, 200);
+        byte[] version2 = inflate(MetricsBatchCodec.encode(List.of(metrics)));
+        // The version follows the 4 magic bytes; the record has no start time, so the layout is the same
+        version2[4] = 1;
+
+        List<MetricsDto> decoded = MetricsBatchCodec.decode(gzip(version2));
+
+        assertEquals(1, decoded.size());
+        assertEquals(10L, decoded.getFirst().getRequestDurationMillis());
+        assertNull(decoded.getFirst().getStartTimeEpochMillis());
+    }
+
+    /**
+     * Verifies that an empty batch can be encoded and decoded
+     */
+    @Test
+    void decode_returnsEmptyList_forEmptyBatch() throws IOException {
+        assertTrue(MetricsBatchCodec.decode(MetricsBatchCodec.encode(List.of())).isEmpty());
+    }
+
+    /**
+     * Verifies that a batch must not mix load generators, since the id is only written once
+     */
+    @Test
+    void encode_rejectsMetricsOfSeveralLoadGenerators() {
+        List<MetricsDto> metrics = List.of(
+                new MetricsDto("lg-1", "term", 10L, 5L, 1, 200),
+                new MetricsDto("lg-2", "term", 10L, 5L, 1, 200)
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> MetricsBatchCodec.encode(metrics));
+    }
+
+    /**
+     * Verifies that data in another format, with an unknown version or truncated is rejected
+     */
+    @Test
+    void decode_rejectsInvalidData() throws IOException {
+        byte[] encoded = MetricsBatchCodec.encode(List.of(new MetricsDto("lg-1", "term", 10L, 5L, 1, 200)));
+
+        assertThrows(IOException.class, () -> MetricsBatchCodec.decode("[{}]".getBytes()));
+        assertThrows(IOException.class, () -> MetricsBatchCodec.decode(gzip(new byte[]{'O', 'S', 'L', 'M', 9})));
+        byte[] truncatedHeader = gzip(new byte[]{'O', 'S', 'L', 'M', 1, 4, 'l', 'g', '-'});
+        assertThrows(IOException.class, () -> MetricsBatchCodec.decode(truncatedHeader));
+        assertThrows(IOException.class,
+                () -> MetricsBatchCodec.decode(Arrays.copyOf(encoded, encoded.length - 10)));
+    }
+
+    /**
+     * Verifies that a typical batch takes far fewer bytes per record than the JSON list it replaces
+     */
+    @Test
+    void encode_isSmallerThanJson() throws IOException {
+        List<MetricsDto> metrics = sampleBatch(1_000, new SplittableRandom(7));
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(metrics);
+        byte[] binary = MetricsBatchCodec.encode(metrics);
+
+        assertTrue(binary.length * 10 < json.length,
+                "binary " + binary.length + " bytes, JSON " + json.length + " bytes");
+    }
+
+    // Metrics as sent by a load generator: few query types, similar durations, mostly successful
+    static List<MetricsDto> sampleBatch(int size, SplittableRandom random) {
+        String[] queryTypes = {"ANO_PAYROLL_RANGE", "ANO_CLIENT_BY_YEAR", "ANO_MULTI_REGEX", "DUO_COMPLEX"};
+        List<MetricsDto> metrics = new ArrayList<>(size);
+        long startTime = 1_767_225_600_000L;
+        for (int i = 0; i < size; i++) {
+            startTime += random.nextLong(0, 5);
+            long took = random.nextLong(2, 60);
+            long requestDuration = took + random.nextLong(1, 15);
+            long timeToFirstByte = requestDuration - random.nextLong(0, 3);
+            MetricsDto dto = new MetricsDto(
+                    "load-generator-7f9c5d8b6-x2k4q",
+                    queryTypes[random.nextInt(queryTypes.length)],
+                    "1-ramp",
+                    requestDuration,
+                    requestDuration + random.nextLong(0, 5),
+                    took,
+                    random.nextInt(0, 10_000),
+                    random.nextInt(100) == 0 ? 503 : 200,
+                    random.nextLong(300, 900),
+                    random.nextLong(500, 50_000),
+                    timeToFirstByte,
+                    requestDuration - timeToFirstByte,
+                    requestDuration - took,
+                    startTime
+            );
+            metrics.add(dto);
+        }
+        return metrics;
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
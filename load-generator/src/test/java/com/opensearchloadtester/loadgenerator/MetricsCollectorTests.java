@@ -1,25 +1,43 @@
 package com.opensearchloadtester.loadgenerator;
 
+import com.opensearchloadtester.common.dto.LatencyHistogramDto;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
 import com.opensearchloadtester.loadgenerator.client.MetricsReporterClient;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterAccessException;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterBackpressureException;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterRejectedException;
+import com.opensearchloadtester.loadgenerator.model.MetricsReportingMode;
 import com.opensearchloadtester.loadgenerator.service.MetricsCollector;
+import com.opensearchloadtester.loadgenerator.service.MetricsSpool;
+import org.HdrHistogram.Histogram;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
-import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class MetricsCollectorTests {
 
+    // Metrics are sent by the sender thread, so verifications wait for it
+    private static final long SEND_TIMEOUT_MILLIS = 2_000;
+    // Longer than any test, so only full batches and flushes trigger a send
+    private static final long LONG_FLUSH_INTERVAL_MILLIS = 60_000;
+
     private MetricsCollector metricsCollector;
     private MetricsReporterClient mockClient;
 
@@ -48,7 +66,7 @@ class MetricsCollectorTests {
 
         @SuppressWarnings("unchecked")
         ArgumentCaptor<List<MetricsDto>> captor = ArgumentCaptor.forClass(List.class);
-        verify(mockClient, times(1)).sendMetrics(captor.capture());
+        verify(mockClient, timeout(SEND_TIMEOUT_MILLIS).times(1)).sendMetrics(captor.capture());
         assertEquals(1, captor.getValue().size());
         assertSame(dto, captor.getValue().get(0));
     }
@@ -80,7 +98,7 @@ class MetricsCollectorTests {
 
         @SuppressWarnings("unchecked")
         ArgumentCaptor<List<MetricsDto>> captor = ArgumentCaptor.forClass(List.class);
-        verify(mockClient, times(metricsAmount)).sendMetrics(captor.capture());
+        verify(mockClient, timeout(SEND_TIMEOUT_MILLIS).times(metricsAmount)).sendMetrics(captor.capture());
 
         List<List<MetricsDto>> allBatches = captor.getAllValues();
         for (int i = 0; i < metricsAmount; i++) {
@@ -90,7 +108,7 @@ class MetricsCollectorTests {
 
     /**
      * Verifies that {@link MetricsCollector#appendMetrics(MetricsDto)} is thread-safe
-     * due to its synchronized buffer access
+     * due to its lock-free ring buffer
      * <br><br>
      * The test launches multiple concurrent threads, each adding a metrics object.
      * After all threads finish, the client must have received exactly as many
@@ -116,7 +134,7 @@ class MetricsCollectorTests {
 
         @SuppressWarnings("unchecked")
         ArgumentCaptor<List<MetricsDto>> captor = ArgumentCaptor.forClass(List.class);
-        verify(mockClient, times(threadCount)).sendMetrics(captor.capture());
+        verify(mockClient, timeout(SEND_TIMEOUT_MILLIS).times(threadCount)).sendMetrics(captor.capture());
 
         int totalMetricsSent = captor.getAllValues().stream()
                 .mapToInt(List::size)
@@ -137,21 +155,20 @@ class MetricsCollectorTests {
     void testAppendMetrics_batching() {
         // Create collector with batch size of 5
         MetricsReporterClient batchClient = mock(MetricsReporterClient.class);
-        MetricsCollector batchCollector = new MetricsCollector(batchClient, true);
-        ReflectionTestUtils.setField(batchCollector, "batchSize", 5);
+        MetricsCollector batchCollector = new MetricsCollector(batchClient, 5, LONG_FLUSH_INTERVAL_MILLIS, 64);
 
         // Add 4 metrics - should not trigger send yet
         for (int i = 0; i < 4; i++) {
             batchCollector.appendMetrics(new MetricsDto());
         }
-        verify(batchClient, never()).sendMetrics(any());
+        verify(batchClient, after(100).never()).sendMetrics(any());
 
         // Add 5th metric - should trigger batch send
         batchCollector.appendMetrics(new MetricsDto());
 
         @SuppressWarnings("unchecked")
         ArgumentCaptor<List<MetricsDto>> captor = ArgumentCaptor.forClass(List.class);
-        verify(batchClient, times(1)).sendMetrics(captor.capture());
+        verify(batchClient, timeout(SEND_TIMEOUT_MILLIS).times(1)).sendMetrics(captor.capture());
         assertEquals(5, captor.getValue().size());
     }
 
@@ -162,16 +179,15 @@ class MetricsCollectorTests {
     void testFlush() {
         // Create collector with batch size of 10 (won't be reached)
         MetricsReporterClient flushClient = mock(MetricsReporterClient.class);
-        MetricsCollector flushCollector = new MetricsCollector(flushClient, true);
-        ReflectionTestUtils.setField(flushCollector, "batchSize", 10);
+        MetricsCollector flushCollector = new MetricsCollector(flushClient, 10, LONG_FLUSH_INTERVAL_MILLIS, 64);
 
         // Add 3 metrics - won't trigger automatic send
         for (int i = 0; i < 3; i++) {
             flushCollector.appendMetrics(new MetricsDto());
         }
-        verify(flushClient, never()).sendMetrics(any());
+        verify(flushClient, after(100).never()).sendMetrics(any());
 
-        // Flush should send remaining metrics
+        // Flush should send remaining metrics before returning
         flushCollector.flush();
 
         @SuppressWarnings("unchecked")
@@ -193,4 +209,321 @@ class MetricsCollectorTests {
 
         verify(disabledClient, never()).sendMetrics(any());
     }
+
+    /**
+     * Verifies that a partial batch is sent once the flush interval has passed since its first metrics,
+     * without waiting for the batch to fill up or for an explicit flush
+     */
+    @Test
+    void testAppendMetrics_flushInterval() {
+        MetricsReporterClient intervalClient = mock(MetricsReporterClient.class);
+        MetricsCollector intervalCollector = new MetricsCollector(intervalClient, 100, 200, 64);
+
+        intervalCollector.appendMetrics(new MetricsDto());
+        intervalCollector.appendMetrics(new MetricsDto());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<MetricsDto>> captor = ArgumentCaptor.forClass(List.class);
+        verify(intervalClient, timeout(SEND_TIMEOUT_MILLIS).times(1)).sendMetrics(captor.capture());
+        assertEquals(2, captor.getValue().size());
+    }
+
+    /**
+     * Verifies that the sender parked with an empty buffer is woken by appended metrics: a partial batch is
+     * sent one flush interval after its first metrics, not after a further idle period, and a batch filled
+     * after a long idle period is sent right away
+     */
+    @Test
+    void testAppendMetrics_wakesIdleSender() throws InterruptedException {
+        MetricsReporterClient idleClient = mock(MetricsReporterClient.class);
+        MetricsCollector idleCollector = new MetricsCollector(idleClient, 3, 1_000, 64);
+        idleCollector.appendMetrics(new MetricsDto());
+        verify(idleClient, timeout(SEND_TIMEOUT_MILLIS).times(1)).sendMetrics(any());
+
+        // The sender is parked for the flush interval now
+        Thread.sleep(300);
+        long start = System.nanoTime();
+        idleCollector.appendMetrics(new MetricsDto());
+        verify(idleClient, timeout(SEND_TIMEOUT_MILLIS).times(2)).sendMetrics(any());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_500);
+
+        Thread.sleep(300);
+        start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            idleCollector.appendMetrics(new MetricsDto());
+        }
+        verify(idleClient, timeout(SEND_TIMEOUT_MILLIS).times(3)).sendMetrics(any());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+    }
+
+    /**
+     * Verifies that appending never blocks on a slow Metrics Reporter: once the buffer is full,
+     * further metrics are dropped and counted, and the queue depth reflects the buffered metrics
+     */
+    @Test
+    void testAppendMetrics_dropsWhenBufferFull() throws InterruptedException {
+        MetricsReporterClient slowClient = mock(MetricsReporterClient.class);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            return null;
+        }).when(slowClient).sendMetrics(any());
+
+        MetricsCollector slowCollector = new MetricsCollector(slowClient, 1, LONG_FLUSH_INTERVAL_MILLIS, 4);
+
+        // First metrics block the sender, the next 4 fill the buffer, the last 3 are dropped
+        slowCollector.appendMetrics(new MetricsDto());
+        assertTrue(sending.await(SEND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 7; i++) {
+            slowCollector.appendMetrics(new MetricsDto());
+        }
+
+        assertEquals(3, slowCollector.getDroppedMetrics());
+        assertEquals(4, slowCollector.getQueueDepth());
+
+        release.countDown();
+        slowCollector.flush();
+        verify(slowClient, times(5)).sendMetrics(any());
+        assertEquals(0, slowCollector.getQueueDepth());
+    }
+
+    /**
+     * Verifies that in aggregate mode no per-query metrics are sent; instead flush() sends one interval
+     * with a histogram per stage, query type and status class
+     * <br><br>
+     * The test checks that:
+     * <ul>
+     *     <li>The interval carries the load generator id and one entry per group</li>
+     *     <li>The decoded histograms hold the recorded durations</li>
+     * </ul>
+     */
+    @Test
+    void testAggregateMode_sendsHistogramsPerGroup() throws DataFormatException {
+        MetricsReporterClient aggregateClient = mock(MetricsReporterClient.class);
+        MetricsCollector aggregateCollector = new MetricsCollector(aggregateClient, "lg-1", 100,
+                LONG_FLUSH_INTERVAL_MILLIS, 64, MetricsReportingMode.AGGREGATE, LONG_FLUSH_INTERVAL_MILLIS, null, 500, 0);
+
+        aggregateCollector.appendMetrics(new MetricsDto("lg-1", "term", 10L, 4L, 1, 200));
+        aggregateCollector.appendMetrics(new MetricsDto("lg-1", "term", 30L, 6L, 1, 200));
+        aggregateCollector.appendMetrics(new MetricsDto("lg-1", "term", 500L, null, null, 503));
+        aggregateCollector.flush();
+
+        ArgumentCaptor<MetricsIntervalDto> captor = ArgumentCaptor.forClass(MetricsIntervalDto.class);
+        verify(aggregateClient, times(1)).sendHistograms(captor.capture());
+        verify(aggregateClient, never()).sendMetrics(any());
+
+        MetricsIntervalDto interval = captor.getValue();
+        assertEquals("lg-1", interval.getLoadGeneratorId());
+        assertTrue(interval.getIntervalStartMillis() <= interval.getIntervalEndMillis());
+        assertEquals(2, interval.getHistograms().size());
+
+        LatencyHistogramDto success = interval.getHistograms().stream()
+                .filter(histogram -> histogram.getStatusClass().equals("2xx"))
+                .findFirst().orElseThrow();
+        assertEquals("term", success.getQueryType());
+        assertEquals(2, success.getCount());
+        Histogram requestDuration = decode(success.getRequestDuration());
+        assertEquals(10, requestDuration.getMinValue());
+        assertEquals(30, requestDuration.getMaxValue());
+        assertEquals(5.0, decode(success.getQueryDuration()).getMean());
+
+        LatencyHistogramDto error = interval.getHistograms().stream()
+                .filter(histogram -> histogram.getStatusClass().equals("5xx"))
+                .findFirst().orElseThrow();
+        assertEquals(1, error.getCount());
+        assertNull(error.getQueryDuration());
+    }
+
+    /**
+     * Verifies that histograms are sent once their interval ends, without an explicit flush
+     */
+    @Test
+    void testAggregateMode_sendsHistogramsWhenIntervalEnds() {
+        MetricsReporterClient aggregateClient = mock(MetricsReporterClient.class);
+        MetricsCollector aggregateCollector = new MetricsCollector(aggregateClient, "lg-1", 100,
+                LONG_FLUSH_INTERVAL_MILLIS, 64, MetricsReportingMode.BOTH, 200, null, 500, 0);
+
+        aggregateCollector.appendMetrics(new MetricsDto("lg-1", "term", 10L, 4L, 1, 200));
+
+        ArgumentCaptor<MetricsIntervalDto> captor = ArgumentCaptor.forClass(MetricsIntervalDto.class);
+        verify(aggregateClient, timeout(SEND_TIMEOUT_MILLIS).times(1)).sendHistograms(captor.capture());
+        assertEquals(0, captor.getValue().getIntervalEndMillis() % 200);
+        // Raw metrics are still queued in BOTH mode
+        aggregateCollector.flush();
+        verify(aggregateClient, times(1)).sendMetrics(any());
+    }
+
+    /**
+     * Verifies that batches the Metrics Reporter rejects are spooled and replayed in order before flush()
+     * returns, including batches sent while older ones still wait in the spool
+     * <br><br>
+     * The test checks that:
+     * <ul>
+     *     <li>The first two batches fail and end up in the spool</li>
+     *     <li>After the Metrics Reporter recovers, all batches arrive in the order they were created</li>
+     *     <li>No batch is lost</li>
+     * </ul>
+     */
+    @Test
+    void testSpool_replaysFailedBatchesInOrder(@TempDir Path tempDir) {
+        MetricsReporterClient flakyClient = mock(MetricsReporterClient.class);
+        List<String> received = new ArrayList<>();
+        int[] failures = {2};
+        doAnswer(invocation -> {
+            if (failures[0]-- > 0) {
+                throw new MetricsReporterAccessException("Metrics Reporter unavailable");
+            }
+            List<MetricsDto> batch = invocation.getArgument(0);
+            batch.forEach(metrics -> received.add(metrics.getQueryType()));
+            return null;
+        }).when(flakyClient).sendMetrics(any());
+
+        MetricsSpool spool = new MetricsSpool(tempDir.resolve("spool.bin"), 64 * 1024);
+        MetricsCollector spoolingCollector = new MetricsCollector(flakyClient, "lg-1", 1,
+                LONG_FLUSH_INTERVAL_MILLIS, 64, MetricsReportingMode.RAW, LONG_FLUSH_INTERVAL_MILLIS,
+                spool, 10, 5_000);
+
+        for (int i = 0; i < 5; i++) {
+            spoolingCollector.appendMetrics(new MetricsDto("lg-1", "q" + i, 10L, 4L, 1, 200));
+        }
+        spoolingCollector.flush();
+
+        assertEquals(List.of("q0", "q1", "q2", "q3", "q4"), received);
+        assertTrue(spoolingCollector.getSpooledPayloads() >= 2);
+        assertEquals(0, spoolingCollector.getLostPayloads());
+        spoolingCollector.close();
+        spool.close();
+    }
+
+    /**
+     * Verifies that a 429 answer delays the replay by the Retry-After duration instead of retrying right away
+     */
+    @Test
+    void testSpool_honorsRetryAfter(@TempDir Path tempDir) {
+        MetricsReporterClient overloadedClient = mock(MetricsReporterClient.class);
+        doThrow(new MetricsReporterBackpressureException("Overloaded", Duration.ofMillis(300)))
+                .doNothing()
+                .when(overloadedClient).sendMetrics(any());
+
+        MetricsSpool spool = new MetricsSpool(tempDir.resolve("spool.bin"), 64 * 1024);
+        MetricsCollector spoolingCollector = new MetricsCollector(overloadedClient, "lg-1", 1,
+                LONG_FLUSH_INTERVAL_MILLIS, 64, MetricsReportingMode.RAW, LONG_FLUSH_INTERVAL_MILLIS,
+                spool, 10, 5_000);
+
+        long start = System.nanoTime();
+        spoolingCollector.appendMetrics(new MetricsDto("lg-1", "term", 10L, 4L, 1, 200));
+        spoolingCollector.flush();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        verify(overloadedClient, times(2)).sendMetrics(any());
+        assertTrue(elapsedMillis >= 300, "replayed after " + elapsedMillis + " ms");
+        assertTrue(spool.isEmpty());
+        spoolingCollector.close();
+        spool.close();
+    }
+
+    /**
+     * Verifies that a batch the Metrics Reporter rejects for good (HTTP 400) is dropped instead of spooled,
+     * so the batches after it are still delivered
+     */
+    @Test
+    void testSpool_dropsRejectedBatch(@TempDir Path tempDir) {
+        MetricsReporterClient rejectingClient = mock(MetricsReporterClient.class);
+        List<String> received = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<MetricsDto> batch = invocation.getArgument(0);
+            if (batch.getFirst().getQueryType().equals("q1")) {
+                throw new MetricsReporterRejectedException("Metrics Reporter rejected metrics (HTTP: 400)", 400);
+            }
+            batch.forEach(metrics -> received.add(metrics.getQueryType()));
+            return null;
+        }).when(rejectingClient).sendMetrics(any());
+
+        MetricsSpool spool = new MetricsSpool(tempDir.resolve("spool.bin"), 64 * 1024);
+        MetricsCollector spoolingCollector = new MetricsCollector(rejectingClient, "lg-1", 1,
+                LONG_FLUSH_INTERVAL_MILLIS, 64, MetricsReportingMode.RAW, LONG_FLUSH_INTERVAL_MILLIS,
+                spool, 10, 5_000);
+
+        for (int i = 0; i < 4; i++) {
+            spoolingCollector.appendMetrics(new MetricsDto("lg-1", "q" + i, 10L, 4L, 1, 200));
+        }
+        spoolingCollector.flush();
+
+        assertEquals(List.of("q0", "q2", "q3"), received);
+        verify(rejectingClient, times(4)).sendMetrics(any());
+        assertEquals(1, spoolingCollector.getRejectedPayloads());
+        assertEquals(0, spoolingCollector.getLostPayloads());
+        assertTrue(spool.isEmpty());
+        spoolingCollector.close();
+        spool.close();
+    }
+
+    /**
+     * Verifies that a spooled batch the Metrics Reporter rejects for good on replay is discarded instead of
+     * blocking the spool, so the batches behind it are still replayed
+     */
+    @Test
+    void testSpool_discardsRejectedHeadOnReplay(@TempDir Path tempDir) {
+        MetricsReporterClient flakyClient = mock(MetricsReporterClient.class);
+        List<String> received = new ArrayList<>();
+        int[] failures = {2};
+        doAnswer(invocation -> {
+            List<MetricsDto> batch = invocation.getArgument(0);
+            if (failures[0]-- > 0) {
+                throw new MetricsReporterAccessException("Metrics Reporter unavailable");
+            }
+            if (batch.getFirst().getQueryType().equals("q0")) {
+                throw new MetricsReporterRejectedException("Metrics Reporter rejected metrics (HTTP: 409)", 409);
+            }
+            batch.forEach(metrics -> received.add(metrics.getQueryType()));
+            return null;
+        }).when(flakyClient).sendMetrics(any());
+
+        MetricsSpool spool = new MetricsSpool(tempDir.resolve("spool.bin"), 64 * 1024);
+        MetricsCollector spoolingCollector = new MetricsCollector(flakyClient, "lg-1", 1,
+                LONG_FLUSH_INTERVAL_MILLIS, 64, MetricsReportingMode.RAW, LONG_FLUSH_INTERVAL_MILLIS,
+                spool, 10, 5_000);
+
+        for (int i = 0; i < 3; i++) {
+            spoolingCollector.appendMetrics(new MetricsDto("lg-1", "q" + i, 10L, 4L, 1, 200));
+        }
+        spoolingCollector.flush();
+
+        assertEquals(List.of("q1", "q2"), received);
+        assertEquals(1, spoolingCollector.getRejectedPayloads());
+        assertEquals(0, spoolingCollector.getLostPayloads());
+        assertTrue(spool.isEmpty());
+        spoolingCollector.close();
+        spool.close();
+    }
+
+    /**
+     * Verifies that flush() gives up replaying after the replay timeout and counts the payloads as spooled
+     * but not lost, so the caller can still finish the test
+     */
+    @Test
+    void testSpool_flushStopsAfterReplayTimeout(@TempDir Path tempDir) {
+        MetricsReporterClient downClient = mock(MetricsReporterClient.class);
+        doThrow(new MetricsReporterAccessException("Metrics Reporter unavailable"))
+                .when(downClient).sendMetrics(any());
+
+        MetricsSpool spool = new MetricsSpool(tempDir.resolve("spool.bin"), 64 * 1024);
+        MetricsCollector spoolingCollector = new MetricsCollector(downClient, "lg-1", 1,
+                LONG_FLUSH_INTERVAL_MILLIS, 64, MetricsReportingMode.RAW, LONG_FLUSH_INTERVAL_MILLIS,
+                spool, 10, 200);
+
+        spoolingCollector.appendMetrics(new MetricsDto("lg-1", "term", 10L, 4L, 1, 200));
+        spoolingCollector.flush();
+
+        assertEquals(1, spoolingCollector.getSpooledPayloads());
+        assertEquals(1, spool.size());
+        spoolingCollector.close();
+        spool.close();
+    }
+
+    private static Histogram decode(byte[] encoded) throws DataFormatException {
+        return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+    }
 }
@@ -2,17 +2,24 @@ package com.opensearchloadtester.loadgenerator;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.codec.MetricsBatchCodec;
 import com.opensearchloadtester.common.dto.MetricsDto;
 import com.opensearchloadtester.loadgenerator.client.MetricsReporterClient;
 import com.opensearchloadtester.loadgenerator.exception.MetricsReporterAccessException;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterBackpressureException;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterRejectedException;
+import com.opensearchloadtester.loadgenerator.model.MetricsWireFormat;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -20,11 +27,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -307,4 +317,127 @@ class MetricsReporterClientTests {
                             HttpClients.createDefault()));
         }
     }
+
+    /**
+     * Tests the {@link MetricsReporterClient#sendMetrics(List)} method with the binary wire format
+     * against a Metrics Reporter that does not support it
+     *
+     * <p>This test ensures that:</p>
+     * <ul>
+     *     <li>The first batch is sent in the binary format and, once rejected with HTTP 415,
+     *         sent again as JSON without further retries</li>
+     *     <li>All following batches are sent as JSON right away</li>
+     * </ul>
+     */
+    @Test
+    void testSendMetrics_binaryFormat_fallsBackToJsonOn415() throws Exception {
+        ArrayList<MetricsDto> metrics = getTestMetrics();
+
+        when(httpClientMock.execute(any(HttpPost.class), any(HttpClientResponseHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpPost request = invocation.getArgument(0);
+                    HttpClientResponseHandler<Integer> handler = invocation.getArgument(1);
+                    ClassicHttpResponse response = Mockito.mock(ClassicHttpResponse.class);
+                    boolean binary = request.getEntity().getContentType().startsWith(MetricsBatchCodec.MEDIA_TYPE);
+                    Mockito.when(response.getCode())
+                            .thenReturn(binary ? HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE : HttpStatus.SC_OK);
+                    return handler.handleResponse(response);
+                });
+
+        client = new MetricsReporterClient("http://metrics/", MetricsWireFormat.BINARY,
+                objectMapperMock, httpClientMock);
+
+        assertDoesNotThrow(() -> client.sendMetrics(metrics));
+        assertDoesNotThrow(() -> client.sendMetrics(metrics));
+
+        ArgumentCaptor<HttpPost> captor = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClientMock, times(3)).execute(captor.capture(), any(HttpClientResponseHandler.class));
+        List<String> contentTypes = captor.getAllValues().stream()
+                .map(request -> request.getEntity().getContentType())
+                .toList();
+        assertEquals(MetricsBatchCodec.MEDIA_TYPE, contentTypes.get(0));
+        assertTrue(contentTypes.get(1).startsWith("application/json"));
+        assertTrue(contentTypes.get(2).startsWith("application/json"));
+    }
+
+    /**
+     * Tests that with the binary wire format the metrics are sent as a decodable binary batch
+     */
+    @Test
+    void testSendMetrics_binaryFormat_sendsDecodableBatch() throws Exception {
+        List<MetricsDto> metrics = List.of(new MetricsDto("lg-1", "term", 12L, 7L, 3, 200));
+
+        when(httpClientMock.execute(any(HttpPost.class), any(HttpClientResponseHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpClientResponseHandler<Integer> handler = invocation.getArgument(1);
+                    ClassicHttpResponse response = Mockito.mock(ClassicHttpResponse.class);
+                    Mockito.when(response.getCode()).thenReturn(HttpStatus.SC_OK);
+                    return handler.handleResponse(response);
+                });
+
+        client = new MetricsReporterClient("http://metrics/", MetricsWireFormat.BINARY,
+                objectMapperMock, httpClientMock);
+        client.sendMetrics(metrics);
+
+        ArgumentCaptor<HttpPost> captor = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClientMock, times(1)).execute(captor.capture(), any(HttpClientResponseHandler.class));
+        List<MetricsDto> decoded = MetricsBatchCodec.decode(captor.getValue().getEntity().getContent());
+        assertEquals(1, decoded.size());
+        assertEquals("lg-1", decoded.getFirst().getLoadGeneratorId());
+        assertEquals(12L, decoded.getFirst().getRequestDurationMillis());
+    }
+
+    /**
+     * Tests that an overloaded Metrics Reporter (HTTP 429) is not retried right away; the client reports
+     * the back-pressure together with the delay requested by the Retry-After header
+     */
+    @Test
+    void testSendMetrics_tooManyRequests_throwsBackpressureWithoutRetrying() throws Exception {
+        List<MetricsDto> metrics = List.of(new MetricsDto("lg-1", "term", 12L, 7L, 3, 200));
+
+        when(httpClientMock.execute(any(HttpPost.class), any(HttpClientResponseHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpClientResponseHandler<?> handler = invocation.getArgument(1);
+                    ClassicHttpResponse response = Mockito.mock(ClassicHttpResponse.class);
+                    Mockito.when(response.getCode()).thenReturn(HttpStatus.SC_TOO_MANY_REQUESTS);
+                    Mockito.when(response.getFirstHeader(HttpHeaders.RETRY_AFTER))
+                            .thenReturn(new BasicHeader(HttpHeaders.RETRY_AFTER, "3"));
+                    return handler.handleResponse(response);
+                });
+
+        client = new MetricsReporterClient("http://metrics/", MetricsWireFormat.BINARY,
+                objectMapperMock, httpClientMock);
+
+        MetricsReporterBackpressureException exception = assertThrows(MetricsReporterBackpressureException.class,
+                () -> client.sendMetrics(metrics));
+
+        assertEquals(Duration.ofSeconds(3), exception.getRetryAfter());
+        verify(httpClientMock, times(1)).execute(any(HttpPost.class), any(HttpClientResponseHandler.class));
+    }
+
+    /**
+     * Tests that a payload the Metrics Reporter rejects for good (HTTP 400) is not retried; the client reports
+     * the rejection so the caller can drop the payload instead of sending it again
+     */
+    @Test
+    void testSendMetrics_badRequest_throwsRejectedWithoutRetrying() throws Exception {
+        List<MetricsDto> metrics = List.of(new MetricsDto("lg-1", "term", 12L, 7L, 3, 200));
+
+        when(httpClientMock.execute(any(HttpPost.class), any(HttpClientResponseHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpClientResponseHandler<?> handler = invocation.getArgument(1);
+                    ClassicHttpResponse response = Mockito.mock(ClassicHttpResponse.class);
+                    Mockito.when(response.getCode()).thenReturn(HttpStatus.SC_BAD_REQUEST);
+                    return handler.handleResponse(response);
+                });
+
+        client = new MetricsReporterClient("http://metrics/", MetricsWireFormat.BINARY,
+                objectMapperMock, httpClientMock);
+
+        MetricsReporterRejectedException exception = assertThrows(MetricsReporterRejectedException.class,
+                () -> client.sendMetrics(metrics));
+
+        assertEquals(HttpStatus.SC_BAD_REQUEST, exception.getStatus());
+        verify(httpClientMock, times(1)).execute(any(HttpPost.class), any(HttpClientResponseHandler.class));
+    }
 }
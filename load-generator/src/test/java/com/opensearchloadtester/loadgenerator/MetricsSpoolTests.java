@@ -0,0 +1,117 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.opensearchloadtester.loadgenerator.service.MetricsSpool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsSpoolTests {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private MetricsSpool spool;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("spool.bin");
+        spool = new MetricsSpool(file, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        spool.close();
+    }
+
+    /**
+     * Verifies that entries are read back in the order they were appended, with their kind and payload
+     */
+    @Test
+    void testAppend_readsBackInOrder() {
+        assertTrue(spool.isEmpty());
+        assertNull(spool.peek());
+
+        assertTrue(spool.append((byte) 1, new byte[]{1, 2, 3}));
+        assertTrue(spool.append((byte) 2, new byte[]{4}));
+        assertEquals(2, spool.size());
+        assertEquals(2 * 5 + 4, spool.usedBytes());
+
+        MetricsSpool.Entry first = spool.peek();
+        assertEquals(1, first.kind());
+        assertArrayEquals(new byte[]{1, 2, 3}, first.payload());
+        spool.remove();
+
+        MetricsSpool.Entry second = spool.peek();
+        assertEquals(2, second.kind());
+        assertArrayEquals(new byte[]{4}, second.payload());
+        spool.remove();
+
+        assertTrue(spool.isEmpty());
+        assertEquals(0, spool.usedBytes());
+    }
+
+    /**
+     * Verifies that a full spool rejects further entries and that the space of removed entries is reused
+     * once the end of the segment is reached
+     * <br><br>
+     * The test checks that:
+     * <ul>
+     *     <li>An entry not fitting into the remaining capacity is rejected</li>
+     *     <li>After removing the oldest entry, the new entry fits and the order is kept</li>
+     * </ul>
+     */
+    @Test
+    void testAppend_rejectsWhenFullAndReusesSpace() {
+        // Frames of 5 + 15 = 20 bytes, three fill 60 of 64 bytes
+        for (int i = 0; i < 3; i++) {
+            assertTrue(spool.append((byte) 1, filled(15, i)));
+        }
+        assertFalse(spool.append((byte) 1, filled(15, 3)));
+
+        spool.remove();
+        assertTrue(spool.append((byte) 1, filled(15, 3)));
+
+        for (int i = 1; i <= 3; i++) {
+            assertArrayEquals(filled(15, i), spool.peek().payload());
+            spool.remove();
+        }
+        assertTrue(spool.isEmpty());
+    }
+
+    /**
+     * Verifies that the segment file is only created once a payload is spooled and deleted on close
+     */
+    @Test
+    void testClose_deletesSegmentFile() {
+        assertFalse(Files.exists(file));
+
+        spool.append((byte) 1, new byte[]{1});
+        assertTrue(Files.exists(file));
+
+        spool.close();
+        assertFalse(Files.exists(file));
+        assertTrue(spool.isEmpty());
+    }
+
+    /**
+     * Verifies that a capacity too small for any entry is rejected
+     */
+    @Test
+    void testConstructor_rejectsTooSmallCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new MetricsSpool(file, 5));
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] payload = new byte[length];
+        Arrays.fill(payload, (byte) value);
+        return payload;
+    }
+}
@@ -0,0 +1,86 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.codec.MetricsBatchCodec;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the size and the ingestion (decoding) CPU time of a metrics batch sent as JSON list and in the
+ * binary batch format. Run with {@code mvn test -Dbenchmark=true -Dtest=MetricsWireFormatBenchmarkTests}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MetricsWireFormatBenchmarkTests {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int BATCHES = 2_000;
+    private static final int ROUNDS = 5;
+    private static final TypeReference<List<MetricsDto>> METRICS_LIST = new TypeReference<>() {
+    };
+
+    /**
+     * Encodes the same batches (of the default metrics.batch.size) in both formats and prints bytes per record
+     * and the ns per record the Metrics Reporter spends to turn a request body into {@link MetricsDto}s.
+     */
+    @Test
+    void compareJsonAndBinaryBatches() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        SplittableRandom random = new SplittableRandom(42);
+        byte[][] json = new byte[BATCHES][];
+        byte[][] binary = new byte[BATCHES][];
+        long jsonBytes = 0;
+        long jsonGzipBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < BATCHES; i++) {
+            List<MetricsDto> batch = MetricsBatchCodecTests.sampleBatch(BATCH_SIZE, random);
+            json[i] = mapper.writeValueAsBytes(batch);
+            binary[i] = MetricsBatchCodec.encode(batch);
+            jsonBytes += json[i].length;
+            jsonGzipBytes += gzip(json[i]).length;
+            binaryBytes += binary[i].length;
+        }
+
+        double jsonNanos = Double.MAX_VALUE;
+        double binaryNanos = Double.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (byte[] body : json) {
+                sink += mapper.readValue(body, METRICS_LIST).size();
+            }
+            jsonNanos = Math.min(jsonNanos, (System.nanoTime() - start) / (double) (BATCHES * BATCH_SIZE));
+
+            start = System.nanoTime();
+            for (byte[] body : binary) {
+                sink += MetricsBatchCodec.decode(body).size();
+            }
+            binaryNanos = Math.min(binaryNanos, (System.nanoTime() - start) / (double) (BATCHES * BATCH_SIZE));
+        }
+
+        double records = BATCHES * BATCH_SIZE;
+        System.out.printf("%n%-14s | %12s | %14s%n", "format", "bytes/record", "decode ns/rec");
+        System.out.printf("%-14s | %12.1f | %14.1f%n", "JSON", jsonBytes / records, jsonNanos);
+        System.out.printf("%-14s | %12.1f | %14s%n", "JSON + gzip", jsonGzipBytes / records, "-");
+        System.out.printf("%-14s | %12.1f | %14.1f%n", "binary (gzip)", binaryBytes / records, binaryNanos);
+
+        assertTrue(sink > 0);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
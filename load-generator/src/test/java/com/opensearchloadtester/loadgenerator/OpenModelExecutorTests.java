@@ -0,0 +1,150 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.opensearchloadtester.loadgenerator.service.OpenModelExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenModelExecutorTests {
+
+    /**
+     * Verifies that arrivals beyond the in-flight limit are dropped and counted
+     * instead of being queued
+     */
+    @Test
+    void dispatch_dropsArrivals_whenInFlightLimitReached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+
+        try (OpenModelExecutor executor = new OpenModelExecutor(2)) {
+            Runnable blocking = () -> {
+                started.countDown();
+                awaitQuietly(release);
+            };
+
+            assertTrue(executor.dispatch(blocking));
+            assertTrue(executor.dispatch(blocking));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertFalse(executor.dispatch(blocking));
+            assertEquals(2, executor.getInFlight());
+            assertEquals(2, executor.getDispatchedCount());
+            assertEquals(1, executor.getDroppedCount());
+
+            release.countDown();
+            assertTrue(executor.drain(Duration.ofSeconds(5)));
+            assertEquals(0, executor.getInFlight());
+        }
+    }
+
+    /**
+     * Verifies that each arrival runs on a virtual thread
+     */
+    @Test
+    void dispatch_runsArrivalsOnVirtualThreads() throws Exception {
+        AtomicInteger virtualThreads = new AtomicInteger();
+
+        try (OpenModelExecutor executor = new OpenModelExecutor(10)) {
+            for (int i = 0; i < 10; i++) {
+                executor.dispatch(() -> {
+                    if (Thread.currentThread().isVirtual()) {
+                        virtualThreads.incrementAndGet();
+                    }
+                });
+            }
+            assertTrue(executor.drain(Duration.ofSeconds(5)));
+        }
+
+        assertEquals(10, virtualThreads.get());
+    }
+
+    /**
+     * Verifies that draining gives up after the deadline instead of waiting forever
+     */
+    @Test
+    void drain_returnsFalse_whenDeadlineExceeded() {
+        CountDownLatch never = new CountDownLatch(1);
+
+        try (OpenModelExecutor executor = new OpenModelExecutor(1)) {
+            executor.dispatch(() -> awaitQuietly(never));
+
+            long start = System.nanoTime();
+            assertFalse(executor.drain(Duration.ofMillis(200)));
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        }
+    }
+
+    /**
+     * Verifies that exceptions thrown by a query execution release the in-flight slot
+     */
+    @Test
+    void dispatch_releasesSlot_whenTaskThrows() {
+        try (OpenModelExecutor executor = new OpenModelExecutor(1)) {
+            executor.dispatch(() -> {
+                throw new IllegalStateException("boom");
+            });
+            assertTrue(executor.drain(Duration.ofSeconds(5)));
+            assertEquals(0, executor.getInFlight());
+            assertEquals(0, executor.getDroppedCount());
+            assertEquals(0, executor.getDispatchedCount());
+            assertEquals(1, executor.getFailedCount());
+        }
+    }
+
+    /**
+     * Verifies that an async arrival whose submission or completion fails is counted
+     * as failed instead of dispatched and releases its in-flight slot
+     */
+    @Test
+    void dispatchAsync_countsFailed_whenSubmissionOrCompletionFails() {
+        try (OpenModelExecutor executor = new OpenModelExecutor(1)) {
+            assertFalse(executor.dispatchAsync(() -> {
+                throw new IllegalStateException("boom");
+            }));
+            assertEquals(0, executor.getInFlight());
+            assertTrue(executor.dispatchAsync(
+                    () -> CompletableFuture.failedFuture(new IllegalStateException("boom"))));
+            assertTrue(executor.dispatchAsync(() -> CompletableFuture.completedFuture(null)));
+
+            assertTrue(executor.drain(Duration.ofSeconds(5)));
+            assertEquals(1, executor.getDispatchedCount());
+            assertEquals(2, executor.getFailedCount());
+            assertEquals(0, executor.getDroppedCount());
+        }
+    }
+
+    /**
+     * Verifies that an async arrival holds its in-flight slot until its completion
+     * and that draining waits for it
+     */
+    @Test
+    void dispatchAsync_holdsSlot_untilCompletion() throws Exception {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+
+        try (OpenModelExecutor executor = new OpenModelExecutor(1)) {
+            assertTrue(executor.dispatchAsync(() -> pending));
+            assertEquals(1, executor.getInFlight());
+            assertFalse(executor.dispatchAsync(() -> CompletableFuture.completedFuture(null)));
+            assertEquals(1, executor.getDroppedCount());
+
+            CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> pending.complete(null));
+            assertTrue(executor.drain(Duration.ofSeconds(5)));
+            assertEquals(0, executor.getInFlight());
+            assertFalse(executor.dispatchAsync(() -> CompletableFuture.completedFuture(null)));
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
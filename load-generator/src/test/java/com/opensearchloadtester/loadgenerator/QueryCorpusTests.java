@@ -0,0 +1,60 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+import com.opensearchloadtester.loadgenerator.service.QueryCorpus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCorpusTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Verifies that every query type is rendered once with the configured number of bodies
+     */
+    @Test
+    void generate_rendersBodiesPerQueryType_onHeap() throws Exception {
+        assertCorpus(false);
+    }
+
+    /**
+     * Verifies that bodies stored in direct buffers are returned unchanged
+     */
+    @Test
+    void generate_rendersBodiesPerQueryType_offHeap() throws Exception {
+        assertCorpus(true);
+    }
+
+    /**
+     * Verifies that picking a query type that was not rendered fails fast
+     */
+    @Test
+    void randomBody_throws_forMissingQueryType() {
+        QueryCorpus corpus = QueryCorpus.generate(List.of(QueryType.ANO_PAYROLL_RANGE), 1, false);
+
+        assertThrows(IllegalArgumentException.class, () -> corpus.randomBody(QueryType.ANO_CLIENT_BY_YEAR));
+    }
+
+    private static void assertCorpus(boolean offHeap) throws Exception {
+        QueryCorpus corpus = QueryCorpus.generate(
+                List.of(QueryType.ANO_PAYROLL_RANGE, QueryType.ANO_CLIENT_BY_YEAR, QueryType.ANO_PAYROLL_RANGE),
+                20,
+                offHeap
+        );
+
+        assertEquals(2, corpus.getQueryTypeCount());
+        assertEquals(40, corpus.getBodyCount());
+        assertEquals(offHeap, corpus.isOffHeap());
+        assertTrue(corpus.getFootprintBytes() > 0);
+
+        for (int i = 0; i < 50; i++) {
+            JsonNode body = MAPPER.readTree(corpus.randomBody(QueryType.ANO_CLIENT_BY_YEAR));
+            assertTrue(body.has("query"));
+        }
+    }
+}
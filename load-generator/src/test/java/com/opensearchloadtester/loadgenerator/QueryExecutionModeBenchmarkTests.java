@@ -0,0 +1,166 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.opensearchloadtester.loadgenerator.config.OpenSearchClientConfig;
+import com.opensearchloadtester.loadgenerator.model.DocumentType;
+import com.opensearchloadtester.loadgenerator.model.QueryExecutionMode;
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
+import com.opensearchloadtester.loadgenerator.service.LoadRunner;
+import com.opensearchloadtester.loadgenerator.service.MetricsCollector;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.opensearch.client.opensearch.OpenSearchClient;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares blocking and async query execution against a local HTTP server with a fixed response latency.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=QueryExecutionModeBenchmarkTests}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class QueryExecutionModeBenchmarkTests {
+
+    private static final int TARGET_QPS = 500;
+    private static final Duration RESPONSE_LATENCY = Duration.ofSeconds(1);
+    private static final Duration WARM_UP_DURATION = Duration.ofSeconds(3);
+    private static final Duration SCHEDULE_DURATION = Duration.ofSeconds(10);
+    private static final int MAX_IN_FLIGHT_REQUESTS = 10_000;
+    private static final byte[] RESPONSE_BODY =
+            "{\"took\":1,\"hits\":{\"total\":{\"value\":1}}}".getBytes(StandardCharsets.UTF_8);
+
+    private final LongAdder handledRequests = new LongAdder();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger peakConcurrentRequests = new AtomicInteger();
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            peakConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(RESPONSE_LATENCY);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, RESPONSE_BODY.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(RESPONSE_BODY);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentRequests.decrementAndGet();
+                handledRequests.increment();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Runs the same scenario in both modes and prints threads used and achieved QPS.
+     * In blocking mode every in-flight request parks a (virtual) thread, in async mode none does.
+     */
+    @Test
+    void compareBlockingAndAsyncExecution() throws Exception {
+        // Warm up JIT, connection pool setup and the server, so neither mode pays for it in the measurement
+        run(QueryExecutionMode.BLOCKING, WARM_UP_DURATION);
+        run(QueryExecutionMode.ASYNC, WARM_UP_DURATION);
+
+        Result blocking = run(QueryExecutionMode.BLOCKING, SCHEDULE_DURATION);
+        Result async = run(QueryExecutionMode.ASYNC, SCHEDULE_DURATION);
+
+        System.out.printf("%n%-8s | %12s | %16s | %18s | %12s%n",
+                "mode", "achieved QPS", "peak in flight", "peak platform thr.", "request thr.");
+        for (Result result : new Result[]{blocking, async}) {
+            System.out.printf("%-8s | %12.1f | %16d | %18d | %12d%n",
+                    result.mode(), result.achievedQps(), result.peakInFlight(),
+                    result.peakPlatformThreads(), result.requestThreads());
+        }
+
+        assertTrue(async.achievedQps() >= TARGET_QPS * 0.9, "async mode did not reach the target rate");
+    }
+
+    private Result run(QueryExecutionMode mode, Duration scheduleDuration) throws Exception {
+        ScenarioConfig scenario = scenario(mode, scheduleDuration);
+        OpenSearchClient client = new OpenSearchClientConfig(
+                "http://localhost:" + server.getAddress().getPort(), scenario, MAX_IN_FLIGHT_REQUESTS
+        ).openSearchClient();
+
+        LoadRunner loadRunner = new LoadRunner(
+                "benchmark",
+                1,
+                MAX_IN_FLIGHT_REQUESTS,
+                mode,
+                client.generic(),
+                null,
+                new MetricsCollector(null, false),
+                new ObjectMapper()
+        );
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        handledRequests.reset();
+        peakConcurrentRequests.set(0);
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        try {
+            loadRunner.executeScenario(scenario);
+        } finally {
+            client._transport().close();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        int peakInFlight = peakConcurrentRequests.get();
+        return new Result(
+                mode,
+                handledRequests.sum() / elapsedSeconds,
+                peakInFlight,
+                threads.getPeakThreadCount(),
+                mode == QueryExecutionMode.BLOCKING ? peakInFlight : 0
+        );
+    }
+
+    private static ScenarioConfig scenario(QueryExecutionMode mode, Duration scheduleDuration) {
+        ArrayNode queryMix = new ObjectMapper().createArrayNode().add(QueryType.ANO_PAYROLL_RANGE.name());
+        return new ScenarioConfig(
+                "benchmark-" + mode.name().toLowerCase(),
+                DocumentType.ANO,
+                scheduleDuration,
+                Duration.ofSeconds(30),
+                TARGET_QPS,
+                false,
+                queryMix
+        );
+    }
+
+    private record Result(
+            QueryExecutionMode mode,
+            double achievedQps,
+            int peakInFlight,
+            int peakPlatformThreads,
+            int requestThreads
+    ) {
+    }
+}
@@ -0,0 +1,235 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.loadgenerator.config.ResponseTimings;
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+import com.opensearchloadtester.loadgenerator.service.MetricsCollector;
+import com.opensearchloadtester.loadgenerator.service.QueryExecutionTask;
+import com.opensearchloadtester.loadgenerator.service.QuerySampler;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensearch.client.opensearch.generic.Body;
+import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
+import org.opensearch.client.opensearch.generic.Request;
+import org.opensearch.client.opensearch.generic.Response;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueryExecutionTaskTests {
+
+    @Mock
+    private OpenSearchGenericClient openSearchClient;
+
+    @Mock
+    private MetricsCollector metricsCollector;
+
+    private QueryExecutionTask task;
+
+    @BeforeEach
+    void setUp() {
+        task = new QueryExecutionTask(
+                "lg-1",
+                "ano-index",
+                QuerySampler.uniform(List.of(QueryType.ANO_PAYROLL_RANGE)),
+                openSearchClient,
+                metricsCollector,
+                new ObjectMapper()
+        );
+    }
+
+    /**
+     * Verifies that the corrected duration contains the delay between the intended start
+     * of the arrival and the moment the request was actually sent
+     */
+    @Test
+    void execute_recordsCorrectedDuration_fromIntendedStart() throws Exception {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(500);
+        when(openSearchClient.execute(any())).thenReturn(response);
+
+        long intendedStart = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(250);
+        task.execute(intendedStart, "1-ramp");
+
+        MetricsDto metrics = captureMetrics();
+        assertEquals(500, metrics.getHttpStatusCode());
+        assertEquals("1-ramp", metrics.getStage());
+        assertNotNull(metrics.getRequestDurationMillis());
+        assertTrue(metrics.getCorrectedRequestDurationMillis() >= 250);
+        assertTrue(metrics.getCorrectedRequestDurationMillis() >= metrics.getRequestDurationMillis());
+    }
+
+    /**
+     * Verifies that each sample is stamped with the wall-clock time its request was sent
+     */
+    @Test
+    void execute_stampsStartTime() throws Exception {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(500);
+        when(openSearchClient.execute(any())).thenReturn(response);
+
+        long before = System.currentTimeMillis();
+        task.execute(System.nanoTime(), null);
+        long after = System.currentTimeMillis();
+
+        MetricsDto metrics = captureMetrics();
+        assertNotNull(metrics.getStartTimeEpochMillis());
+        // The derived start time may be off by the truncation of both clocks to ms
+        assertTrue(metrics.getStartTimeEpochMillis() >= before - 1);
+        assertTrue(metrics.getStartTimeEpochMillis() <= after);
+    }
+
+    /**
+     * Verifies that without scheduling delay both durations are (almost) equal
+     */
+    @Test
+    void run_usesNowAsIntendedStart() throws Exception {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(500);
+        when(openSearchClient.execute(any())).thenReturn(response);
+
+        task.run();
+
+        MetricsDto metrics = captureMetrics();
+        assertTrue(metrics.getCorrectedRequestDurationMillis() - metrics.getRequestDurationMillis() < 100);
+    }
+
+    /**
+     * Verifies that async execution records the metrics on the completion executor
+     * once the response arrived
+     */
+    @Test
+    void executeAsync_recordsMetrics_onCompletion() throws Exception {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(503);
+        CompletableFuture<Response> pending = new CompletableFuture<>();
+        when(openSearchClient.executeAsync(any())).thenReturn(pending);
+
+        ExecutorService completionExecutor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Void> recorded = task.executeAsync(System.nanoTime(), "2-spike", completionExecutor);
+            verifyNoInteractions(metricsCollector);
+
+            pending.complete(response);
+            recorded.get(5, TimeUnit.SECONDS);
+        } finally {
+            completionExecutor.shutdownNow();
+        }
+
+        MetricsDto metrics = captureMetrics();
+        assertEquals(503, metrics.getHttpStatusCode());
+        assertEquals("2-spike", metrics.getStage());
+        verify(openSearchClient, never()).execute(any());
+    }
+
+    /**
+     * Verifies that a timed out async request is recorded as 408
+     */
+    @Test
+    void executeAsync_recordsTimeout_as408() throws Exception {
+        when(openSearchClient.executeAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException(new SocketTimeoutException("timeout"))));
+
+        task.executeAsync(System.nanoTime(), null, Runnable::run).get(5, TimeUnit.SECONDS);
+
+        assertEquals(408, captureMetrics().getHttpStatusCode());
+    }
+
+    /**
+     * Verifies that took and total hits are read from a successful response
+     * and that the configured filter_path is sent with the request
+     */
+    @Test
+    void execute_readsSummaryFromBody_andSendsFilterPath() throws Exception {
+        QueryExecutionTask filteredTask = new QueryExecutionTask(
+                "lg-1",
+                "ano-index",
+                QuerySampler.uniform(List.of(QueryType.ANO_PAYROLL_RANGE)),
+                openSearchClient,
+                metricsCollector,
+                new ObjectMapper(),
+                null,
+                "took,hits.total"
+        );
+
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getBody()).thenReturn(Optional.of(Body.from(
+                "{\"took\":12,\"hits\":{\"total\":{\"value\":3}}}".getBytes(StandardCharsets.UTF_8),
+                "application/json")));
+        when(openSearchClient.execute(any())).thenReturn(response);
+
+        filteredTask.run();
+
+        ArgumentCaptor<Request> request = ArgumentCaptor.forClass(Request.class);
+        verify(openSearchClient).execute(request.capture());
+        assertEquals(Map.of("filter_path", "took,hits.total"), request.getValue().getParameters());
+
+        MetricsDto metrics = captureMetrics();
+        assertEquals(12L, metrics.getQueryDurationMillis());
+        assertEquals(3, metrics.getTotalHits());
+    }
+
+    /**
+     * Verifies that payload sizes, the split at the arrival of the response head and the
+     * overhead (service time minus took) are recorded, and that the whole body is counted
+     * although parsing stops after took and hits.total
+     */
+    @Test
+    void execute_recordsPayloadSizes_andLatencyBreakdown() throws Exception {
+        byte[] responseBody = ("{\"took\":5,\"hits\":{\"total\":{\"value\":1}," +
+                "\"hits\":[{\"_id\":\"1\",\"_source\":{\"name\":\"payroll\"}}]}}")
+                .getBytes(StandardCharsets.UTF_8);
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getBody()).thenReturn(Optional.of(Body.from(responseBody, "application/json")));
+
+        // Simulate the transport: response head arrives, then the body takes 30 ms to transfer
+        when(openSearchClient.execute(any())).thenAnswer(invocation -> {
+            ResponseTimings.consumerFactory().createHttpAsyncResponseConsumer()
+                    .consumeResponse(new BasicHttpResponse(200), null, HttpCoreContext.create(), mock());
+            Thread.sleep(30);
+            return response;
+        });
+
+        task.run();
+
+        ArgumentCaptor<Request> request = ArgumentCaptor.forClass(Request.class);
+        verify(openSearchClient).execute(request.capture());
+        byte[] requestBody = request.getValue().getBody().orElseThrow().bodyAsBytes();
+
+        MetricsDto metrics = captureMetrics();
+        assertEquals(requestBody.length, metrics.getRequestBytes());
+        assertEquals(responseBody.length, metrics.getResponseBytes());
+        assertTrue(metrics.getTransferTimeMillis() >= 30);
+        assertTrue(metrics.getTimeToFirstByteMillis() + metrics.getTransferTimeMillis()
+                <= metrics.getRequestDurationMillis() + 1);
+        assertEquals(metrics.getRequestDurationMillis() - 5, metrics.getOverheadMillis());
+    }
+
+    private MetricsDto captureMetrics() {
+        ArgumentCaptor<MetricsDto> captor = ArgumentCaptor.forClass(MetricsDto.class);
+        verify(metricsCollector).appendMetrics(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,91 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+import com.opensearchloadtester.loadgenerator.service.QuerySampler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the alias-table sampler with the former lookup in a list holding one entry per percent point.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=QuerySamplerBenchmarkTests}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class QuerySamplerBenchmarkTests {
+
+    private static final int SAMPLES = 50_000_000;
+    private static final int ROUNDS = 5;
+
+    /**
+     * Samples the same mix with the list lookup (whole percents and 0.01 % precision) and the alias table
+     * and prints ns per sample. The list grows with the precision of the weights, the alias table does not.
+     */
+    @Test
+    void compareAliasTableAndListLookup() {
+        Map<QueryType, Double> weights = new EnumMap<>(QueryType.class);
+        QueryType[] types = QueryType.values();
+        // 27 types: 26 share 96 %, the last one gets the remaining 4 %
+        for (int i = 0; i < types.length - 1; i++) {
+            weights.put(types[i], i < 18 ? 4.0 : 3.0);
+        }
+        double assigned = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        weights.put(types[types.length - 1], 100.0 - assigned);
+
+        List<QueryType> percentPool = expand(weights, 1);
+        List<QueryType> basisPointPool = expand(weights, 100);
+        QuerySampler sampler = QuerySampler.weighted(weights);
+
+        double percentListNanos = Double.MAX_VALUE;
+        double basisPointListNanos = Double.MAX_VALUE;
+        double aliasNanos = Double.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += sampleList(percentPool);
+            percentListNanos = Math.min(percentListNanos, (System.nanoTime() - start) / (double) SAMPLES);
+
+            start = System.nanoTime();
+            sink += sampleList(basisPointPool);
+            basisPointListNanos = Math.min(basisPointListNanos, (System.nanoTime() - start) / (double) SAMPLES);
+
+            start = System.nanoTime();
+            for (int i = 0; i < SAMPLES; i++) {
+                sink += sampler.sample().ordinal();
+            }
+            aliasNanos = Math.min(aliasNanos, (System.nanoTime() - start) / (double) SAMPLES);
+        }
+
+        System.out.printf("%n%-18s | %10s | %14s%n", "sampler", "ns/sample", "table entries");
+        System.out.printf("%-18s | %10.2f | %14d%n", "list (1 %)", percentListNanos, percentPool.size());
+        System.out.printf("%-18s | %10.2f | %14d%n", "list (0.01 %)", basisPointListNanos, basisPointPool.size());
+        System.out.printf("%-18s | %10.2f | %14d%n", "alias table", aliasNanos, weights.size());
+
+        assertTrue(sink > 0);
+    }
+
+    // One entry per 1/entriesPerPercent percent point, like the former QueryPoolBuilder
+    private static List<QueryType> expand(Map<QueryType, Double> weights, int entriesPerPercent) {
+        List<QueryType> pool = new ArrayList<>();
+        weights.forEach((type, percent) -> {
+            for (int i = 0; i < Math.round(percent * entriesPerPercent); i++) {
+                pool.add(type);
+            }
+        });
+        return pool;
+    }
+
+    private static long sampleList(List<QueryType> pool) {
+        long sink = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sink += pool.get(ThreadLocalRandom.current().nextInt(pool.size())).ordinal();
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,146 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.opensearchloadtester.loadgenerator.model.DocumentType;
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
+import com.opensearchloadtester.loadgenerator.service.QueryPoolBuilder;
+import com.opensearchloadtester.loadgenerator.service.QuerySampler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuerySamplerTests {
+
+    private static final int SAMPLES = 10_000_000;
+
+    /**
+     * Verifies over 10M samples that every query type, including a rare 0.25 % one,
+     * is picked within 5 standard deviations of its configured share
+     */
+    @Test
+    void sample_matchesFractionalWeights_over10MillionSamples() {
+        Map<QueryType, Double> weights = new LinkedHashMap<>();
+        weights.put(QueryType.ANO_PAYROLL_RANGE, 60.0);
+        weights.put(QueryType.ANO_CLIENT_BY_YEAR, 29.75);
+        weights.put(QueryType.ANO_MULTI_REGEX, 10.0);
+        weights.put(QueryType.ANO_DIS_MAX_EXPENSIVE, 0.25);
+        QuerySampler sampler = QuerySampler.weighted(weights);
+
+        SplittableRandom random = new SplittableRandom(42);
+        Map<QueryType, Integer> counts = new EnumMap<>(QueryType.class);
+        for (int i = 0; i < SAMPLES; i++) {
+            counts.merge(sampler.sample(random), 1, Integer::sum);
+        }
+
+        assertEquals(weights.keySet(), counts.keySet());
+        weights.forEach((queryType, percent) -> {
+            double p = percent / 100;
+            double expected = SAMPLES * p;
+            double tolerance = 5 * Math.sqrt(SAMPLES * p * (1 - p));
+            assertEquals(expected, counts.get(queryType), tolerance, queryType + " share off");
+        });
+    }
+
+    /**
+     * Verifies that weights are normalized and that equal weights are used for the short form
+     */
+    @Test
+    void uniform_normalizesWeights() {
+        QuerySampler sampler = QuerySampler.uniform(List.of(QueryType.ANO_PAYROLL_RANGE, QueryType.DOCNAME_REGEX));
+
+        assertEquals(List.of(QueryType.ANO_PAYROLL_RANGE, QueryType.DOCNAME_REGEX), sampler.getQueryTypes());
+        assertEquals(0.5, sampler.getWeights().get(QueryType.ANO_PAYROLL_RANGE), 1e-12);
+        assertEquals(0.5, sampler.getWeights().get(QueryType.DOCNAME_REGEX), 1e-12);
+    }
+
+    /**
+     * Verifies that samplers running concurrently with weight updates only ever pick
+     * query types of the old or the new mix, and that the new mix takes effect
+     */
+    @Test
+    void updateWeights_swapsMixAtomically() throws Exception {
+        Map<QueryType, Double> mixA = new LinkedHashMap<>();
+        mixA.put(QueryType.ANO_PAYROLL_RANGE, 99.75);
+        mixA.put(QueryType.ANO_CLIENT_BY_YEAR, 0.25);
+        Map<QueryType, Double> mixB = new LinkedHashMap<>();
+        mixB.put(QueryType.DOCNAME_REGEX, 50.0);
+        mixB.put(QueryType.ANO_MULTI_REGEX, 50.0);
+        QuerySampler sampler = QuerySampler.weighted(mixA);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService samplers = Executors.newFixedThreadPool(3);
+        List<Future<Integer>> unexpectedPicks = new ArrayList<>();
+        try {
+            for (int t = 0; t < 3; t++) {
+                unexpectedPicks.add(samplers.submit(() -> {
+                    int unexpected = 0;
+                    while (running.get()) {
+                        QueryType picked = sampler.sample();
+                        if (!mixA.containsKey(picked) && !mixB.containsKey(picked)) {
+                            unexpected++;
+                        }
+                    }
+                    return unexpected;
+                }));
+            }
+
+            for (int i = 0; i < 10_000; i++) {
+                sampler.updateWeights(i % 2 == 0 ? mixB : mixA);
+            }
+            sampler.updateWeights(mixB);
+            running.set(false);
+
+            for (Future<Integer> result : unexpectedPicks) {
+                assertEquals(0, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            samplers.shutdownNow();
+        }
+
+        assertEquals(List.of(QueryType.DOCNAME_REGEX, QueryType.ANO_MULTI_REGEX), sampler.getQueryTypes());
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(mixB.containsKey(sampler.sample()));
+        }
+    }
+
+    /**
+     * Verifies that fractional percents of the long form are used as weights
+     */
+    @Test
+    void queryPoolBuilder_acceptsFractionalPercents() {
+        ArrayNode queryMix = new ObjectMapper().createArrayNode();
+        queryMix.addObject().put("type", QueryType.ANO_PAYROLL_RANGE.name()).put("percent", 99.75);
+        queryMix.addObject().put("type", QueryType.ANO_DIS_MAX_EXPENSIVE.name()).put("percent", 0.25);
+        ScenarioConfig scenario = new ScenarioConfig(
+                "fractional", DocumentType.ANO, Duration.ofSeconds(1), Duration.ofSeconds(1), 1, false, queryMix);
+
+        QuerySampler sampler = QueryPoolBuilder.build(scenario);
+
+        assertEquals(0.0025, sampler.getWeights().get(QueryType.ANO_DIS_MAX_EXPENSIVE), 1e-12);
+    }
+
+    /**
+     * Verifies that non-positive weights are rejected
+     */
+    @Test
+    void weighted_rejectsNonPositiveWeights() {
+        assertThrows(IllegalArgumentException.class,
+                () -> QuerySampler.weighted(Map.of(QueryType.ANO_PAYROLL_RANGE, 0.0)));
+        assertThrows(IllegalArgumentException.class, () -> QuerySampler.weighted(Map.of()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.loadgenerator.model.QueryType;
+import com.opensearchloadtester.loadgenerator.queries.QueryTemplate;
+import com.opensearchloadtester.loadgenerator.queries.QueryTemplateRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryTemplateTests {
+
+    /**
+     * Verifies that whitespace is removed outside of JSON strings only
+     * and that placeholders are replaced by their values
+     */
+    @Test
+    void render_minifiesTemplate_andReplacesPlaceholders() {
+        QueryTemplate template = QueryTemplate.compile("test.json", """
+                {
+                  "query": {
+                    "regexp": { "name": ".* {{year}} \\" .*" },
+                    "term": { "client": "{{client}}" }
+                  }
+                }
+                """);
+
+        byte[] rendered = template.render(Map.of("year", "2024", "client", "Müller GmbH"));
+
+        assertEquals(List.of("year", "client"), template.getPlaceholders());
+        assertEquals(
+                "{\"query\":{\"regexp\":{\"name\":\".* 2024 \\\" .*\"},\"term\":{\"client\":\"Müller GmbH\"}}}",
+                new String(rendered, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies that values are encoded like String.getBytes(UTF_8), including characters outside the BMP
+     * and unpaired surrogates
+     */
+    @Test
+    void render_encodesValuesAsUtf8() {
+        QueryTemplate template = QueryTemplate.compile("test.json", "{\"a\": \"{{value}}\"}");
+        String value = "aß€\uD83D\uDE00\uD800z";
+
+        byte[] rendered = template.render(Map.of("value", value));
+
+        assertArrayEquals(("{\"a\":\"" + value + "\"}").getBytes(StandardCharsets.UTF_8), rendered);
+    }
+
+    /**
+     * Verifies that placeholders without a parameter are rendered unchanged
+     */
+    @Test
+    void render_keepsUnresolvedPlaceholders() {
+        QueryTemplate template = QueryTemplate.compile("test.json", "{\"a\": \"{{known}}-{{unknown}}\"}");
+
+        byte[] rendered = template.render(Map.of("known", "x"));
+
+        assertEquals("{\"a\":\"x-{{unknown}}\"}", new String(rendered, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies that the registry compiles all templates up front (rendering loads nothing new)
+     * and that every query type renders valid JSON from them
+     */
+    @Test
+    void registry_compilesAllTemplates_forEveryQueryType() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        int compiledTemplates = QueryTemplateRegistry.getInstance().size();
+
+        for (QueryType queryType : QueryType.values()) {
+            String rendered = queryType.createRandomQuery().toJsonString();
+            assertNotNull(mapper.readTree(rendered), queryType + " did not render valid JSON");
+        }
+
+        assertTrue(compiledTemplates > 0);
+        assertEquals(compiledTemplates, QueryTemplateRegistry.getInstance().size());
+    }
+}
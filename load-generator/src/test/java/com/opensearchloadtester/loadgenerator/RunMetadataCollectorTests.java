@@ -0,0 +1,105 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.loadgenerator.model.DocumentType;
+import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
+import com.opensearchloadtester.loadgenerator.service.RunMetadataCollector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensearch.client.opensearch.generic.Body;
+import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
+import org.opensearch.client.opensearch.generic.Request;
+import org.opensearch.client.opensearch.generic.Response;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RunMetadataCollectorTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private OpenSearchGenericClient openSearchClient;
+
+    /**
+     * Verifies that the scenario file, cluster version and topology and the flat index settings are collected
+     */
+    @Test
+    void collect_readsScenarioFileClusterAndIndexSettings() throws Exception {
+        Files.writeString(tempDir.resolve("nightly.yaml"), "name: nightly\nqueries_per_second: 50\n");
+        String index = DocumentType.DUO.getIndex();
+        when(openSearchClient.execute(any())).thenAnswer(invocation -> {
+            Request request = invocation.getArgument(0);
+            return switch (request.getEndpoint()) {
+                case "/" -> response(200, "{\"name\":\"node-1\",\"cluster_name\":\"perf\",\"cluster_uuid\":\"u1\","
+                        + "\"version\":{\"distribution\":\"opensearch\",\"number\":\"2.16.0\"}}");
+                case "/_cluster/health" -> response(200,
+                        "{\"status\":\"green\",\"number_of_nodes\":3,\"number_of_data_nodes\":2}");
+                default -> {
+                    assertEquals(Map.of("flat_settings", "true"), request.getParameters());
+                    yield response(200, "{\"" + index + "-000001\":{\"settings\":{"
+                            + "\"index.number_of_replicas\":\"1\",\"index.refresh_interval\":\"30s\"}}}");
+                }
+            };
+        });
+
+        RunMetadataDto metadata = collector().collect("lg-1");
+
+        assertEquals("lg-1", metadata.getLoadGeneratorId());
+        assertEquals("nightly", metadata.getScenarioName());
+        assertEquals("name: nightly\nqueries_per_second: 50\n", metadata.getScenarioConfig());
+        assertEquals("2.16.0", metadata.getCluster().get("version"));
+        assertEquals("perf", metadata.getCluster().get("cluster_name"));
+        assertEquals("3", metadata.getCluster().get("number_of_nodes"));
+        assertEquals(Map.of("index.number_of_replicas", "1", "index.refresh_interval", "30s"),
+                metadata.getIndexSettings());
+    }
+
+    /**
+     * Verifies that an unreachable cluster and a missing scenario file leave the metadata empty instead of failing
+     */
+    @Test
+    void collect_leavesOutWhatCannotBeRead() throws Exception {
+        when(openSearchClient.execute(any())).thenThrow(new IOException("Connection refused"));
+
+        RunMetadataDto metadata = collector().collect("lg-1");
+
+        assertEquals("nightly", metadata.getScenarioName());
+        assertNull(metadata.getScenarioConfig());
+        assertTrue(metadata.getCluster().isEmpty());
+        assertTrue(metadata.getIndexSettings().isEmpty());
+    }
+
+    private RunMetadataCollector collector() {
+        ScenarioConfig scenarioConfig = new ScenarioConfig();
+        scenarioConfig.setName("nightly");
+        scenarioConfig.setDocumentType(DocumentType.DUO);
+        return new RunMetadataCollector(tempDir + "/", "nightly.yaml", scenarioConfig, openSearchClient,
+                new ObjectMapper());
+    }
+
+    private static Response response(int status, String body) {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getBody()).thenReturn(Optional.of(Body.from(body.getBytes(StandardCharsets.UTF_8),
+                "application/json")));
+        return response;
+    }
+}
@@ -0,0 +1,75 @@
+package com.opensearchloadtester.loadgenerator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.opensearchloadtester.loadgenerator.service.SearchResponseExtractor;
+import com.opensearchloadtester.loadgenerator.service.SearchResponseExtractor.SearchResponseSummary;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResponseExtractorTests {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Verifies that took and hits.total.value are found next to hits and aggregations
+     */
+    @Test
+    void extract_readsTookAndTotalHits_skippingHitsAndAggregations() throws Exception {
+        SearchResponseSummary summary = extract("""
+                {
+                  "took": 42,
+                  "timed_out": false,
+                  "_shards": {"total": 1, "successful": 1},
+                  "hits": {
+                    "total": {"value": 1234, "relation": "eq"},
+                    "max_score": 1.0,
+                    "hits": [{"_id": "1", "_source": {"took": 7, "total": {"value": 9}}}]
+                  },
+                  "aggregations": {"by_year": {"buckets": [{"key": 2024, "doc_count": 5}]}}
+                }
+                """);
+
+        assertEquals(42, summary.took());
+        assertEquals(1234, summary.totalHits());
+    }
+
+    /**
+     * Verifies that a numeric hits.total and a different field order are supported
+     */
+    @Test
+    void extract_supportsNumericTotal_andAnyFieldOrder() throws Exception {
+        SearchResponseSummary summary = extract("{\"hits\":{\"hits\":[],\"total\":17},\"took\":3}");
+
+        assertEquals(3, summary.took());
+        assertEquals(17, summary.totalHits());
+    }
+
+    /**
+     * Verifies the defaults when the fields are missing (e.g. filtered out)
+     */
+    @Test
+    void extract_returnsDefaults_whenFieldsMissing() throws Exception {
+        SearchResponseSummary summary = extract("{\"timed_out\":false}");
+
+        assertEquals(-1, summary.took());
+        assertEquals(0, summary.totalHits());
+    }
+
+    /**
+     * Verifies that a body which is not a JSON object is rejected
+     */
+    @Test
+    void extract_throws_forNonObjectBody() {
+        assertThrows(IOException.class, () -> extract("[1, 2]"));
+    }
+
+    private static SearchResponseSummary extract(String body) throws IOException {
+        return SearchResponseExtractor.extract(
+                JSON_FACTORY, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
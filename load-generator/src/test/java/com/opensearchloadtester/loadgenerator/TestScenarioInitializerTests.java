@@ -2,16 +2,24 @@ package com.opensearchloadtester.loadgenerator;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opensearchloadtester.loadgenerator.client.LoadTestStartSyncClient;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
 import com.opensearchloadtester.loadgenerator.client.MetricsReporterClient;
+import com.opensearchloadtester.loadgenerator.exception.MetricsReporterAccessException;
+import com.opensearchloadtester.loadgenerator.model.QueryType;
 import com.opensearchloadtester.loadgenerator.model.ScenarioConfig;
 import com.opensearchloadtester.loadgenerator.service.LoadRunner;
+import com.opensearchloadtester.loadgenerator.service.QueryCorpus;
+import com.opensearchloadtester.loadgenerator.service.RunMetadataCollector;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +36,8 @@ public class TestScenarioInitializerTests {
     @Mock
     private MetricsReporterClient metricsReporterClient;
     @Mock
+    private RunMetadataCollector runMetadataCollector;
+    @Mock
     private ObjectMapper objectMapperMock;
 
     @Test
@@ -38,17 +48,20 @@ public class TestScenarioInitializerTests {
         TestScenarioInitializer initializer = new TestScenarioInitializer(
                 "lg-1",
                 1,
+                0,
+                false,
                 scenarioConfig,
                 loadRunner,
                 openSearchClient,
                 loadTestStartSyncClient,
                 metricsReporterClient,
+                runMetadataCollector,
                 objectMapperMock
         );
 
         initializer.run();
 
-        verify(loadRunner, times(1)).executeScenario(scenarioConfig);
+        verify(loadRunner, times(1)).executeScenario(scenarioConfig, null);
         verifyNoInteractions(loadTestStartSyncClient);
     }
 
@@ -60,11 +73,14 @@ public class TestScenarioInitializerTests {
         TestScenarioInitializer initializer = new TestScenarioInitializer(
                 "lg-1",
                 3,
+                0,
+                false,
                 scenarioConfig,
                 loadRunner,
                 openSearchClient,
                 loadTestStartSyncClient,
                 metricsReporterClient,
+                runMetadataCollector,
                 objectMapperMock
         );
 
@@ -73,6 +89,65 @@ public class TestScenarioInitializerTests {
         InOrder inOrder = inOrder(loadTestStartSyncClient, loadRunner);
         inOrder.verify(loadTestStartSyncClient).registerReady("lg-1");
         inOrder.verify(loadTestStartSyncClient).awaitStartPermission();
-        inOrder.verify(loadRunner).executeScenario(scenarioConfig);
+        inOrder.verify(loadRunner).executeScenario(scenarioConfig, null);
+    }
+
+    @Test
+    void run_queryCorpusEnabled_passesCorpusToScenario() {
+        when(scenarioConfig.getName()).thenReturn("test-scenario");
+        when(scenarioConfig.getWarmUpEnabled()).thenReturn(false);
+        when(scenarioConfig.getQueryMix()).thenReturn(
+                new ObjectMapper().createArrayNode().add(QueryType.ANO_PAYROLL_RANGE.name()));
+
+        TestScenarioInitializer initializer = new TestScenarioInitializer(
+                "lg-1",
+                1,
+                5,
+                false,
+                scenarioConfig,
+                loadRunner,
+                openSearchClient,
+                loadTestStartSyncClient,
+                metricsReporterClient,
+                runMetadataCollector,
+                objectMapperMock
+        );
+
+        initializer.run();
+
+        ArgumentCaptor<QueryCorpus> corpus = ArgumentCaptor.forClass(QueryCorpus.class);
+        verify(loadRunner).executeScenario(eq(scenarioConfig), corpus.capture());
+        assertEquals(5, corpus.getValue().getBodyCount());
+    }
+
+    @Test
+    void run_sendsRunMetadataBeforeScenario_andRunsWhenSendingFails() {
+        when(scenarioConfig.getName()).thenReturn("test-scenario");
+        when(scenarioConfig.getWarmUpEnabled()).thenReturn(false);
+        RunMetadataDto runMetadata = new RunMetadataDto("lg-1", "test-scenario", null, null, null);
+        when(runMetadataCollector.collect("lg-1")).thenReturn(runMetadata);
+        doThrow(new MetricsReporterAccessException("Run metadata call failed (HTTP: 404)"))
+                .when(metricsReporterClient).sendRunMetadata(runMetadata);
+
+        TestScenarioInitializer initializer = new TestScenarioInitializer(
+                "lg-1",
+                1,
+                0,
+                false,
+                scenarioConfig,
+                loadRunner,
+                openSearchClient,
+                loadTestStartSyncClient,
+                metricsReporterClient,
+                runMetadataCollector,
+                objectMapperMock
+        );
+
+        initializer.run();
+
+        InOrder inOrder = inOrder(metricsReporterClient, loadRunner);
+        inOrder.verify(metricsReporterClient).sendRunMetadata(runMetadata);
+        inOrder.verify(loadRunner).executeScenario(scenarioConfig, null);
+        inOrder.verify(metricsReporterClient).finish("lg-1", true, null);
     }
 }
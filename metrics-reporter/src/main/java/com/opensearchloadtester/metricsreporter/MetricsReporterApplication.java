@@ -1,12 +1,24 @@
 package com.opensearchloadtester.metricsreporter;
 
+import com.opensearchloadtester.metricsreporter.comparison.RunComparisonCli;
+import com.opensearchloadtester.metricsreporter.history.RunHistoryCli;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class MetricsReporterApplication {
 
 	public static void main(String[] args) {
+		// "compare <baseline> <candidate>..." compares finished runs instead of starting the reporter
+		if (args.length > 0 && RunComparisonCli.COMMAND.equals(args[0])) {
+			System.exit(RunComparisonCli.run(Arrays.copyOfRange(args, 1, args.length), System.out, System.err));
+		}
+		// "history <directory> <runs|trend|show>" queries the run history instead of starting the reporter
+		if (args.length > 0 && RunHistoryCli.COMMAND.equals(args[0])) {
+			System.exit(RunHistoryCli.run(Arrays.copyOfRange(args, 1, args.length), System.out, System.err));
+		}
 		SpringApplication.run(MetricsReporterApplication.class, args);
 	}
 
@@ -0,0 +1,449 @@
+package com.opensearchloadtester.metricsreporter.comparison;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opensearchloadtester.metricsreporter.dto.RunComparisonDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import com.opensearchloadtester.metricsreporter.history.RunHistoryStore;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+
+/**
+ * Compares runs by the duration histograms they wrote ({@code histograms.json}), per query type.
+ *
+ * <p>
+ * For every query type both runs have, the candidate is tested against the baseline with a Mann-Whitney U test,
+ * computed exactly from the histogram buckets, and every percentile gets the change with a bootstrap confidence
+ * interval. The bootstrap is a Poisson bootstrap over the buckets: each resample draws every bucket count from a
+ * Poisson distribution with the observed count as mean, so an iteration costs one pass over the buckets however
+ * many samples a run has. A query type regressed if the test is significant, the candidate tends to be slower, the
+ * whole interval of the gate percentile change is above zero and the change is at least the minimum effect;
+ * improved likewise the other way round.
+ * </p>
+ */
+@Component
+public class RunComparator {
+
+    static final String HISTOGRAMS_FILENAME = "histograms.json";
+
+    /**
+     * Duration a comparison is based on, by its name in the reports.
+     */
+    public enum Metric {
+        REQUEST_DURATION("request_duration_ms", RunHistogramsDto.GroupHistograms::getRequestDurationMs),
+        CORRECTED_REQUEST_DURATION("corrected_request_duration_ms",
+                RunHistogramsDto.GroupHistograms::getCorrectedRequestDurationMs),
+        QUERY_DURATION("query_duration_ms", RunHistogramsDto.GroupHistograms::getQueryDurationMs);
+
+        private final String reportName;
+        private final Function<RunHistogramsDto.GroupHistograms, byte[]> histogram;
+
+        Metric(String reportName, Function<RunHistogramsDto.GroupHistograms, byte[]> histogram) {
+            this.reportName = reportName;
+            this.histogram = histogram;
+        }
+
+        public String reportName() {
+            return reportName;
+        }
+
+        /**
+         * Returns the compressed histogram of this duration of a group, null if the group has none.
+         */
+        public byte[] histogram(RunHistogramsDto.GroupHistograms group) {
+            return group != null ? histogram.apply(group) : null;
+        }
+
+        /**
+         * @throws IllegalArgumentException if no metric has this report name
+         */
+        public static Metric of(String reportName) {
+            for (Metric metric : values()) {
+                if (metric.reportName.equals(reportName)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown metric '" + reportName + "', expected one of "
+                    + Arrays.stream(values()).map(Metric::reportName).toList());
+        }
+    }
+
+    /**
+     * Parameters of a comparison; see {@link RunComparisonDto.Settings}.
+     */
+    public record Settings(Metric metric, double[] percentiles, double gatePercentile, double alpha,
+                           double confidence, double minEffect, int bootstrapIterations, long minSamples,
+                           long seed) {
+
+        /**
+         * @throws IllegalArgumentException if a value is out of range
+         */
+        public Settings {
+            for (double percentile : percentiles) {
+                requireRange("percentile", percentile, 0, 100);
+            }
+            requireRange("gate percentile", gatePercentile, 0, 100);
+            requireRange("alpha", alpha, 0, 1);
+            requireRange("confidence", confidence, 0, 1);
+            if (minEffect < 0 || bootstrapIterations < 1 || minSamples < 1) {
+                throw new IllegalArgumentException(
+                        "min effect must not be negative, bootstrap iterations and min samples must be positive");
+            }
+        }
+
+        private static void requireRange(String name, double value, double min, double max) {
+            if (!(value > min && value <= max)) {
+                throw new IllegalArgumentException(name + " must be in (" + min + ", " + max + "], got " + value);
+            }
+        }
+    }
+
+    @Value("${report.percentiles:50,90,99,99.9}")
+    private double[] percentiles = {50, 90, 99, 99.9};
+    @Value("${report.compare.metric:request_duration_ms}")
+    private String metric = "request_duration_ms";
+    @Value("${report.compare.gate.percentile:99}")
+    private double gatePercentile = 99;
+    @Value("${report.compare.alpha:0.01}")
+    private double alpha = 0.01;
+    @Value("${report.compare.confidence:0.95}")
+    private double confidence = 0.95;
+    @Value("${report.compare.min.effect:0.05}")
+    private double minEffect = 0.05;
+    @Value("${report.compare.bootstrap.iterations:1000}")
+    private int bootstrapIterations = 1000;
+    @Value("${report.compare.min.samples:30}")
+    private long minSamples = 30;
+    @Value("${report.compare.seed:42}")
+    private long seed = 42;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    /**
+     * Returns the configured settings ({@code report.compare.*}).
+     */
+    public Settings settings() {
+        return new Settings(Metric.of(metric), percentiles, gatePercentile, alpha, confidence, minEffect,
+                bootstrapIterations, minSamples, seed);
+    }
+
+    /**
+     * Compares every further run with the first one.
+     *
+     * @param runs run directories holding {@value #HISTOGRAMS_FILENAME}, or the histogram files themselves
+     * @throws IOException              if a run cannot be read
+     * @throws IllegalArgumentException if fewer than two runs are given
+     */
+    public RunComparisonDto compare(List<Path> runs, Settings settings) throws IOException {
+        if (runs.size() < 2) {
+            throw new IllegalArgumentException("At least two runs are needed: a baseline and a candidate");
+        }
+        RunHistogramsDto baseline = load(runs.getFirst());
+        List<RunComparisonDto.CandidateComparison> candidates = new ArrayList<>();
+        for (Path run : runs.subList(1, runs.size())) {
+            candidates.add(compare(baseline, load(run), run.toString(), settings));
+        }
+        return new RunComparisonDto(LocalDateTime.now(),
+                combine(candidates.stream().map(RunComparisonDto.CandidateComparison::getVerdict).toList()),
+                runs.getFirst().toString(), toDto(settings), candidates);
+    }
+
+    /**
+     * Compares a candidate run with a baseline run.
+     */
+    public RunComparisonDto.CandidateComparison compare(RunHistogramsDto baseline, RunHistogramsDto candidate,
+                                                        String candidateName, Settings settings) {
+        Map<String, RunHistogramsDto.GroupHistograms> baselineTypes = orEmpty(baseline.getQueryTypes());
+        Map<String, RunHistogramsDto.GroupHistograms> candidateTypes = orEmpty(candidate.getQueryTypes());
+
+        Map<String, RunComparisonDto.GroupComparison> queryTypes = new LinkedHashMap<>();
+        List<String> regressed = new ArrayList<>();
+        List<String> improved = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String queryType : new TreeSet<>(baselineTypes.keySet())) {
+            if (!candidateTypes.containsKey(queryType)) {
+                missing.add(queryType);
+                continue;
+            }
+            RunComparisonDto.GroupComparison comparison = compare(
+                    buckets(baselineTypes.get(queryType), settings.metric()),
+                    buckets(candidateTypes.get(queryType), settings.metric()),
+                    settings, settings.seed() ^ queryType.hashCode());
+            queryTypes.put(queryType, comparison);
+            if (comparison.getVerdict() == RunComparisonDto.Verdict.REGRESSED) {
+                regressed.add(queryType);
+            } else if (comparison.getVerdict() == RunComparisonDto.Verdict.IMPROVED) {
+                improved.add(queryType);
+            }
+        }
+        List<String> added = new TreeSet<>(candidateTypes.keySet()).stream()
+                .filter(queryType -> !baselineTypes.containsKey(queryType))
+                .toList();
+
+        RunComparisonDto.GroupComparison overall = compare(buckets(baseline.getOverall(), settings.metric()),
+                buckets(candidate.getOverall(), settings.metric()), settings, settings.seed());
+        return new RunComparisonDto.CandidateComparison(candidateName,
+                combine(queryTypes.values().stream().map(RunComparisonDto.GroupComparison::getVerdict).toList()),
+                regressed, improved, missing, added, overall, queryTypes);
+    }
+
+    /**
+     * Reads the histograms of a run.
+     *
+     * @param run a run directory holding {@value #HISTOGRAMS_FILENAME}, the histogram file itself, or a run file of
+     *            the run history
+     */
+    public RunHistogramsDto load(Path run) throws IOException {
+        Path file = Files.isDirectory(run) ? run.resolve(HISTOGRAMS_FILENAME) : run;
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("No histograms found at " + file
+                    + "; runs finished before histograms were written cannot be compared");
+        }
+        if (file.getFileName().toString().endsWith(RunHistoryStore.RUN_FILE_SUFFIX)) {
+            return RunHistoryStore.readHistograms(file);
+        }
+        return objectMapper.readValue(file.toFile(), RunHistogramsDto.class);
+    }
+
+    static RunComparisonDto.GroupComparison compare(Buckets baseline, Buckets candidate, Settings settings,
+                                                    long seed) {
+        double[] percentiles = withGatePercentile(settings);
+        Map<String, RunComparisonDto.PercentileDelta> deltas = new LinkedHashMap<>();
+        if (baseline.total() < settings.minSamples() || candidate.total() < settings.minSamples()) {
+            if (baseline.total() > 0 && candidate.total() > 0) {
+                long[] baselineValues = baseline.percentiles(percentiles);
+                long[] candidateValues = candidate.percentiles(percentiles);
+                for (int i = 0; i < percentiles.length; i++) {
+                    deltas.put(label(percentiles[i]), delta(baselineValues[i], candidateValues[i], 0, 0));
+                }
+            }
+            return new RunComparisonDto.GroupComparison(RunComparisonDto.Verdict.INSUFFICIENT_DATA,
+                    baseline.total(), candidate.total(), null, deltas);
+        }
+
+        RunComparisonDto.MannWhitney test = mannWhitney(baseline, candidate);
+
+        // Percentile changes of every bootstrap iteration, sorted per percentile
+        SplittableRandom random = new SplittableRandom(seed);
+        long[][] resampled = new long[percentiles.length][settings.bootstrapIterations()];
+        for (int iteration = 0; iteration < settings.bootstrapIterations(); iteration++) {
+            long[] baselineValues = baseline.resample(random).percentiles(percentiles);
+            long[] candidateValues = candidate.resample(random).percentiles(percentiles);
+            for (int i = 0; i < percentiles.length; i++) {
+                resampled[i][iteration] = candidateValues[i] - baselineValues[i];
+            }
+        }
+        long[] baselineValues = baseline.percentiles(percentiles);
+        long[] candidateValues = candidate.percentiles(percentiles);
+        int low = (int) Math.floor((settings.bootstrapIterations() - 1) * (1 - settings.confidence()) / 2);
+        int high = settings.bootstrapIterations() - 1 - low;
+        for (int i = 0; i < percentiles.length; i++) {
+            Arrays.sort(resampled[i]);
+            deltas.put(label(percentiles[i]),
+                    delta(baselineValues[i], candidateValues[i], resampled[i][low], resampled[i][high]));
+        }
+
+        RunComparisonDto.PercentileDelta gate = deltas.get(label(settings.gatePercentile()));
+        boolean significant = test.getPValue() < settings.alpha();
+        RunComparisonDto.Verdict verdict = RunComparisonDto.Verdict.UNCHANGED;
+        if (significant && test.getProbabilitySlower() > 0.5 && gate.getCiLow() > 0
+                && gate.getRelativeDelta() >= settings.minEffect()) {
+            verdict = RunComparisonDto.Verdict.REGRESSED;
+        } else if (significant && test.getProbabilitySlower() < 0.5 && gate.getCiHigh() < 0
+                && -gate.getRelativeDelta() >= settings.minEffect()) {
+            verdict = RunComparisonDto.Verdict.IMPROVED;
+        }
+        return new RunComparisonDto.GroupComparison(verdict, baseline.total(), candidate.total(), test, deltas);
+    }
+
+    /**
+     * Mann-Whitney U test on bucketed values: equal bucket values are ties.
+     */
+    static RunComparisonDto.MannWhitney mannWhitney(Buckets baseline, Buckets candidate) {
+        double baselineTotal = baseline.total();
+        double candidateTotal = candidate.total();
+        double u = 0;
+        double ties = 0;
+        double baselineBelow = 0;
+        int i = 0;
+        int j = 0;
+        while (i < baseline.values().length || j < candidate.values().length) {
+            long value = Math.min(i < baseline.values().length ? baseline.values()[i] : Long.MAX_VALUE,
+                    j < candidate.values().length ? candidate.values()[j] : Long.MAX_VALUE);
+            double baselineCount = i < baseline.values().length && baseline.values()[i] == value
+                    ? baseline.counts()[i++] : 0;
+            double candidateCount = j < candidate.values().length && candidate.values()[j] == value
+                    ? candidate.counts()[j++] : 0;
+            u += candidateCount * (baselineBelow + baselineCount / 2);
+            double tied = baselineCount + candidateCount;
+            ties += tied * tied * tied - tied;
+            baselineBelow += baselineCount;
+        }
+
+        double pairs = baselineTotal * candidateTotal;
+        double n = baselineTotal + candidateTotal;
+        double mean = pairs / 2;
+        double variance = pairs / 12 * ((n + 1) - ties / (n * (n - 1)));
+        double z = 0;
+        if (variance > 0) {
+            // Continuity correction
+            double difference = Math.max(0, Math.abs(u - mean) - 0.5);
+            z = Math.copySign(difference, u - mean) / Math.sqrt(variance);
+        }
+        return new RunComparisonDto.MannWhitney(u, z, erfc(Math.abs(z) / Math.sqrt(2)), u / pairs);
+    }
+
+    // Complementary error function, fractional error below 1.2e-7 (Numerical Recipes, erfcc)
+    static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double result = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 + t * (-0.82215223
+                + t * 0.17087277)))))))));
+        return x >= 0 ? result : 2 - result;
+    }
+
+    static Buckets buckets(RunHistogramsDto.GroupHistograms group, Metric metric) {
+        byte[] encoded = metric.histogram(group);
+        if (encoded == null) {
+            return new Buckets(new long[0], new long[0], 0);
+        }
+        try {
+            return Buckets.of(Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0));
+        } catch (DataFormatException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid " + metric.reportName() + " histogram", e);
+        }
+    }
+
+    private static RunComparisonDto.PercentileDelta delta(long baseline, long candidate, long ciLow, long ciHigh) {
+        double relative = baseline > 0 ? (candidate - baseline) / (double) baseline : 0.0;
+        return new RunComparisonDto.PercentileDelta(baseline, candidate, candidate - baseline, relative, ciLow,
+                ciHigh);
+    }
+
+    private static double[] withGatePercentile(Settings settings) {
+        double[] percentiles = settings.percentiles();
+        for (double percentile : percentiles) {
+            if (percentile == settings.gatePercentile()) {
+                return percentiles;
+            }
+        }
+        double[] extended = Arrays.copyOf(percentiles, percentiles.length + 1);
+        extended[percentiles.length] = settings.gatePercentile();
+        return extended;
+    }
+
+    // REGRESSED wins over IMPROVED, which wins over UNCHANGED; INSUFFICIENT_DATA only if nothing else is known
+    private static RunComparisonDto.Verdict combine(List<RunComparisonDto.Verdict> verdicts) {
+        for (RunComparisonDto.Verdict verdict : List.of(RunComparisonDto.Verdict.REGRESSED,
+                RunComparisonDto.Verdict.IMPROVED, RunComparisonDto.Verdict.UNCHANGED)) {
+            if (verdicts.contains(verdict)) {
+                return verdict;
+            }
+        }
+        return RunComparisonDto.Verdict.INSUFFICIENT_DATA;
+    }
+
+    private static RunComparisonDto.Settings toDto(Settings settings) {
+        return new RunComparisonDto.Settings(settings.metric().reportName(), settings.gatePercentile(),
+                settings.alpha(), settings.confidence(), settings.minEffect(), settings.bootstrapIterations(),
+                settings.minSamples(), settings.seed());
+    }
+
+    private static Map<String, RunHistogramsDto.GroupHistograms> orEmpty(
+            Map<String, RunHistogramsDto.GroupHistograms> queryTypes) {
+        return queryTypes != null ? queryTypes : Map.of();
+    }
+
+    // 99.9 -> "p99.9", 50.0 -> "p50", like the statistics
+    private static String label(double percentile) {
+        return "p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Distinct values of a histogram in ascending order with their counts.
+     */
+    record Buckets(long[] values, long[] counts, long total) {
+
+        static Buckets of(Histogram histogram) {
+            long[] values = new long[64];
+            long[] counts = new long[64];
+            int size = 0;
+            for (HistogramIterationValue value : histogram.recordedValues()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                values[size] = value.getValueIteratedTo();
+                counts[size] = value.getCountAtValueIteratedTo();
+                size++;
+            }
+            return new Buckets(Arrays.copyOf(values, size), Arrays.copyOf(counts, size), histogram.getTotalCount());
+        }
+
+        /**
+         * Nearest-rank percentiles; 0 for an empty histogram.
+         */
+        long[] percentiles(double[] percentiles) {
+            long[] result = new long[percentiles.length];
+            if (total == 0) {
+                return result;
+            }
+            for (int p = 0; p < percentiles.length; p++) {
+                long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+                long seen = 0;
+                int bucket = 0;
+                while (seen + counts[bucket] < rank) {
+                    seen += counts[bucket];
+                    bucket++;
+                }
+                result[p] = values[bucket];
+            }
+            return result;
+        }
+
+        // Poisson bootstrap resample: every count drawn with the observed count as mean
+        Buckets resample(SplittableRandom random) {
+            long[] resampled = new long[counts.length];
+            long resampledTotal = 0;
+            for (int i = 0; i < counts.length; i++) {
+                resampled[i] = poisson(counts[i], random);
+                resampledTotal += resampled[i];
+            }
+            return resampledTotal > 0 ? new Buckets(values, resampled, resampledTotal) : this;
+        }
+
+        private static long poisson(long mean, SplittableRandom random) {
+            if (mean < 30) {
+                // Knuth's multiplication method
+                double limit = Math.exp(-mean);
+                long k = 0;
+                double product = random.nextDouble();
+                while (product > limit) {
+                    k++;
+                    product *= random.nextDouble();
+                }
+                return k;
+            }
+            return Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.opensearchloadtester.metricsreporter.comparison;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opensearchloadtester.metricsreporter.dto.RunComparisonDto;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line run comparison, started with {@code java -jar metrics-reporter.jar compare [options] <baseline>
+ * <candidate>...} instead of the reporter service.
+ *
+ * <p>
+ * Prints the {@link RunComparisonDto} as JSON and exits with {@link #EXIT_REGRESSED} if any query type of any
+ * candidate regressed, so a pipeline can gate on the exit code alone or on the {@code verdict} field.
+ * </p>
+ */
+public final class RunComparisonCli {
+
+    public static final String COMMAND = "compare";
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_ERROR = 1;
+    public static final int EXIT_REGRESSED = 3;
+
+    private static final String USAGE = """
+            Usage: compare [options] <baseline> <candidate>...
+              Runs are report directories holding histograms.json, histograms.json files or run history .run files.
+              --metric <name>           request_duration_ms (default), corrected_request_duration_ms or query_duration_ms
+              --percentiles <list>      percentiles to compare, e.g. 50,90,99,99.9 (default)
+              --gate-percentile <p>     percentile a verdict is based on (default 99)
+              --alpha <a>               significance level of the Mann-Whitney U test (default 0.01)
+              --confidence <c>          confidence level of the bootstrap intervals (default 0.95)
+              --min-effect <r>          smallest relative change counted, e.g. 0.05 for 5 % (default)
+              --bootstrap <n>           bootstrap iterations (default 1000)
+              --min-samples <n>         fewer samples give INSUFFICIENT_DATA (default 30)
+              --seed <n>                seed of the bootstrap (default 42)
+            Exit code: 0 no regression, 3 regression, 1 invalid arguments or unreadable runs.
+            """;
+
+    private static final ObjectMapper OUTPUT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private RunComparisonCli() {
+    }
+
+    /**
+     * Runs a comparison with the given arguments (without the command itself).
+     *
+     * @return the exit code
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        RunComparator comparator = new RunComparator();
+        Map<String, String> options = new HashMap<>();
+        List<Path> runs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help") || arg.equals("-h")) {
+                out.print(USAGE);
+                return EXIT_OK;
+            }
+            if (!arg.startsWith("--")) {
+                runs.add(Path.of(arg));
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (i + 1 < args.length) {
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                err.println("Missing value of " + arg);
+                err.print(USAGE);
+                return EXIT_ERROR;
+            }
+        }
+
+        RunComparator.Settings settings;
+        try {
+            settings = settings(comparator.settings(), options);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.print(USAGE);
+            return EXIT_ERROR;
+        }
+        if (runs.size() < 2) {
+            err.println("At least two runs are needed: a baseline and a candidate");
+            err.print(USAGE);
+            return EXIT_ERROR;
+        }
+
+        RunComparisonDto comparison;
+        try {
+            comparison = comparator.compare(runs, settings);
+            out.println(OUTPUT_MAPPER.writeValueAsString(comparison));
+        } catch (IOException | IllegalArgumentException e) {
+            err.println("Comparison failed: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+        for (RunComparisonDto.CandidateComparison candidate : comparison.getCandidates()) {
+            err.printf("%s vs %s: %s%s%s%n", candidate.getCandidate(), comparison.getBaseline(),
+                    candidate.getVerdict(),
+                    candidate.getRegressed().isEmpty() ? "" : ", regressed " + candidate.getRegressed(),
+                    candidate.getImproved().isEmpty() ? "" : ", improved " + candidate.getImproved());
+        }
+        return comparison.getVerdict() == RunComparisonDto.Verdict.REGRESSED ? EXIT_REGRESSED : EXIT_OK;
+    }
+
+    private static RunComparator.Settings settings(RunComparator.Settings defaults, Map<String, String> options) {
+        Map<String, String> remaining = new HashMap<>(options);
+        try {
+            RunComparator.Settings settings = new RunComparator.Settings(
+                    remaining.containsKey("metric")
+                            ? RunComparator.Metric.of(remaining.remove("metric")) : defaults.metric(),
+                    remaining.containsKey("percentiles")
+                            ? Arrays.stream(remaining.remove("percentiles").split(","))
+                            .mapToDouble(value -> Double.parseDouble(value.trim())).toArray()
+                            : defaults.percentiles(),
+                    remaining.containsKey("gate-percentile")
+                            ? Double.parseDouble(remaining.remove("gate-percentile")) : defaults.gatePercentile(),
+                    remaining.containsKey("alpha")
+                            ? Double.parseDouble(remaining.remove("alpha")) : defaults.alpha(),
+                    remaining.containsKey("confidence")
+                            ? Double.parseDouble(remaining.remove("confidence")) : defaults.confidence(),
+                    remaining.containsKey("min-effect")
+                            ? Double.parseDouble(remaining.remove("min-effect")) : defaults.minEffect(),
+                    remaining.containsKey("bootstrap")
+                            ? Integer.parseInt(remaining.remove("bootstrap")) : defaults.bootstrapIterations(),
+                    remaining.containsKey("min-samples")
+                            ? Long.parseLong(remaining.remove("min-samples")) : defaults.minSamples(),
+                    remaining.containsKey("seed")
+                            ? Long.parseLong(remaining.remove("seed")) : defaults.seed());
+            if (!remaining.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options " + remaining.keySet());
+            }
+            return settings;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.opensearchloadtester.metricsreporter.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the number of metrics uploads processed concurrently.
+ *
+ * <p>
+ * Uploads beyond the limit are rejected right away with HTTP 429 and a {@code Retry-After} header instead of
+ * queueing up in the servlet container. Load generators spool rejected payloads and replay them after the
+ * requested delay, so they slow down their uploads rather than dropping metrics.
+ * </p>
+ */
+@Slf4j
+@Component
+public class IngestionBackpressureInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ACQUIRED = "metricsReporter.ingestPermitAcquired";
+
+    private final Semaphore permits;
+    private final long retryAfterSeconds;
+
+    public IngestionBackpressureInterceptor(
+            @Value("${report.ingest.max.concurrent.requests:4}") int maxConcurrentRequests,
+            @Value("${report.ingest.retry.after.seconds:1}") long retryAfterSeconds
+    ) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("report.ingest.max.concurrent.requests must be >= 1");
+        }
+        if (retryAfterSeconds < 0) {
+            throw new IllegalArgumentException("report.ingest.retry.after.seconds must be >= 0");
+        }
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!permits.tryAcquire()) {
+            log.debug("Rejecting metrics upload to '{}', too many concurrent uploads", request.getRequestURI());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return false;
+        }
+        request.setAttribute(PERMIT_ACQUIRED, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+                                HttpServletResponse response,
+                                Object handler,
+                                Exception ex) {
+        if (Boolean.TRUE.equals(request.getAttribute(PERMIT_ACQUIRED))) {
+            request.removeAttribute(PERMIT_ACQUIRED);
+            permits.release();
+        }
+    }
+}
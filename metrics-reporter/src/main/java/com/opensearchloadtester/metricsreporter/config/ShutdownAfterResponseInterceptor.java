@@ -9,6 +9,9 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -18,7 +21,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * <p>
  * The shutdown is initiated only when explicitly requested via a request attribute
  * and supports custom exit codes to distinguish between successful runs,
- * load generator failures, and internal reporter errors.
+ * load generator failures, and internal reporter errors. A background job passed via
+ * {@link #SHUTDOWN_AFTER_JOB} (e.g. the results JSON export) is awaited first; if it fails,
+ * the reporter exits with {@link #EXIT_INTERNAL_ERROR}.
  * </p>
  */
 @Slf4j
@@ -28,6 +33,7 @@ public class ShutdownAfterResponseInterceptor implements HandlerInterceptor {
 
     public static final String SHUTDOWN_AFTER_RESPONSE = "metricsReporter.shutdownAfterResponse";
     public static final String EXIT_CODE = "metricsReporter.exitCode";
+    public static final String SHUTDOWN_AFTER_JOB = "metricsReporter.shutdownAfterJob";
 
     // Exit Codes
     public static final int EXIT_OK = 0;
@@ -54,13 +60,26 @@ public class ShutdownAfterResponseInterceptor implements HandlerInterceptor {
         }
 
         Integer exitCodeAttr = (Integer) request.getAttribute(EXIT_CODE);
-        int exitCode = exitCodeAttr != null ? exitCodeAttr : EXIT_OK;
+        int requestedExitCode = exitCodeAttr != null ? exitCodeAttr : EXIT_OK;
+        CompletableFuture<?> job = (CompletableFuture<?>) request.getAttribute(SHUTDOWN_AFTER_JOB);
 
         // Run shutdown outside request thread
         new Thread(() -> {
+            int exitCode = requestedExitCode;
+            if (job != null) {
+                log.info("Waiting for report generation to complete before shutting down");
+                try {
+                    job.join();
+                } catch (CompletionException | CancellationException e) {
+                    log.error("Report generation failed", e);
+                    exitCode = EXIT_INTERNAL_ERROR;
+                }
+            }
+
             log.info("Shutting down Metrics Reporter with exit code '{}'", exitCode);
-            SpringApplication.exit(context, () -> exitCode);
-            System.exit(exitCode);
+            int finalExitCode = exitCode;
+            SpringApplication.exit(context, () -> finalExitCode);
+            System.exit(finalExitCode);
         }, "metrics-reporter-shutdown").start();
     }
 }
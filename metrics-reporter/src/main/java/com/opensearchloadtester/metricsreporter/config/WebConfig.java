@@ -10,9 +10,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
     private final ShutdownAfterResponseInterceptor shutdownInterceptor;
+    private final IngestionBackpressureInterceptor backpressureInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(shutdownInterceptor);
+        registry.addInterceptor(backpressureInterceptor).addPathPatterns("/api/metrics", "/api/metrics/**");
     }
 }
@@ -1,8 +1,21 @@
 package com.opensearchloadtester.metricsreporter.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.opensearchloadtester.common.codec.MetricsBatchCodec;
 import com.opensearchloadtester.common.dto.FinishLoadTestDto;
+import com.opensearchloadtester.common.dto.LatencyHistogramDto;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
 import com.opensearchloadtester.metricsreporter.config.ShutdownAfterResponseInterceptor;
+import com.opensearchloadtester.metricsreporter.dto.ExportProgressDto;
+import com.opensearchloadtester.metricsreporter.dto.ResultSliceDto;
+import com.opensearchloadtester.metricsreporter.dto.SinkStatusDto;
 import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
 import com.opensearchloadtester.metricsreporter.service.ReportService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,10 +28,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
-import java.util.HashSet;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Slf4j
 @RestController
@@ -38,23 +53,97 @@ public class ReportController {
     @Value("${report.export.json.enabled}")
     private boolean jsonExportEnabled;
 
+    // Samples must start within this much of the reporter's lifetime and may not take longer than the duration
+    // limit, so a skewed or restarted load generator cannot stretch the per-second timeline without bound
+    @Value("${report.ingest.max.clock.skew.seconds:600}")
+    private long maxClockSkewSeconds = 600;
+
+    @Value("${report.ingest.max.duration.seconds:3600}")
+    private long maxDurationSeconds = 3600;
+
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    private static final int MAX_RESULTS_PAGE_SIZE = 10_000;
+
+    // Like Spring's default ObjectMapper the request body was bound with
+    private static final ObjectReader METRICS_READER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(MetricsDto.class);
+
     private final ReportService reportService;
-    private boolean loadTestFinished = false;
+    private volatile boolean loadTestFinished = false;
+    // Uploads are processed concurrently under the read lock; finishing the run takes the write lock, so it waits
+    // for uploads in progress and no upload is stored after the reports were generated
+    private final ReadWriteLock finalizationLock = new ReentrantReadWriteLock();
 
     /**
-     * This Post request saves the received metrics to thread-safe storage.
-     * Stores incoming metrics batches. Does not finalize the run.
+     * This Post request stores a batch of metrics sent as a JSON array. Does not finalize the run.
      * Finalization happens only after all replicas call /finish.
      *
+     * <p>
+     * The body is parsed as a stream: each entry is validated and staged as soon as it is read, so the heap
+     * needed per batch does not grow with the batch size. The batch is stored as a whole, or not at all if any
+     * entry is invalid. Batches of different load generators are validated and stored concurrently.
+     * </p>
      */
     @PostMapping("/metrics")
-    public synchronized ResponseEntity<String> submitMetrics(@RequestBody List<MetricsDto> metricsList) {
-        Set<String> loadGeneratorIds = new HashSet<>();
+    public ResponseEntity<String> submitMetricsStream(InputStream body) {
+        // Reject late batches after finalization
+        if (loadTestFinished) {
+            return rejectLateMetrics();
+        }
+
+        try (JsonParser parser = METRICS_READER.createParser(body);
+             ReportService.MetricsBatch batch = reportService.beginMetricsBatch()) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                log.error("Metrics payload is not a JSON array");
+                return ResponseEntity.badRequest().body("Invalid metrics payload\n");
+            }
+
+            String payloadLoadGeneratorId = null;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    log.error("Metrics payload ends within the JSON array");
+                    return ResponseEntity.badRequest().body("Invalid metrics payload\n");
+                }
+                MetricsDto metrics = METRICS_READER.readValue(parser);
+                String validationError = validatePayloadEntry(metrics, payloadLoadGeneratorId);
+                if (validationError != null) {
+                    log.error("Invalid metrics entry at index {}: {}", batch.size(), validationError);
+                    return ResponseEntity.badRequest().body("Invalid metrics payload\n");
+                }
+                payloadLoadGeneratorId = metrics.getLoadGeneratorId();
+                batch.add(metrics);
+            }
 
+            // Validate payload (empty payload is invalid)
+            if (batch.size() == 0) {
+                log.error("Received empty metrics payload");
+                return ResponseEntity.badRequest().body("Invalid metrics payload\n");
+            }
+
+            log.info("Received {} metrics entries from load generator: {}", batch.size(), payloadLoadGeneratorId);
+            return storeMetrics(payloadLoadGeneratorId, batch.size(), batch::commit);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse metrics payload: {}", e.getOriginalMessage());
+            return ResponseEntity.badRequest().body("Invalid metrics payload\n");
+        } catch (IOException e) {
+            log.error("Failed to persist metrics", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to persist metrics: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Stores a batch of metrics that is already in memory, e.g. decoded from the binary format.
+     * Same validation and responses as {@link #submitMetricsStream(InputStream)}.
+     */
+    public ResponseEntity<String> submitMetrics(List<MetricsDto> metricsList) {
         // Reject late batches after finalization
         if (loadTestFinished) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body("Run already finalized; metrics batch rejected\n");
+            return rejectLateMetrics();
         }
 
         // Validate payload (empty payload is invalid)
@@ -67,42 +156,47 @@ public class ReportController {
         String payloadLoadGeneratorId = null;
         for (int i = 0; i < metricsList.size(); i++) {
             MetricsDto metrics = metricsList.get(i);
-            String validationError = validateMetrics(metrics);
+            String validationError = validatePayloadEntry(metrics, payloadLoadGeneratorId);
             if (validationError != null) {
                 log.error("Invalid metrics entry at index {}: {}", i, validationError);
                 return ResponseEntity.badRequest().body("Invalid metrics payload\n");
             }
-            // Validate that all metrics entries have the same loadGeneratorId
-            if (payloadLoadGeneratorId == null) {
-                payloadLoadGeneratorId = metrics.getLoadGeneratorId();
-            } else if (!payloadLoadGeneratorId.equals(metrics.getLoadGeneratorId())) {
-                log.error("Mixed loadGeneratorId values in one payload (first: {}, current: {}, index: {})",
-                        payloadLoadGeneratorId, metrics.getLoadGeneratorId(), i);
-                return ResponseEntity.badRequest().body("Invalid metrics payload\n");
-            }
+            payloadLoadGeneratorId = metrics.getLoadGeneratorId();
         }
 
-        loadGeneratorIds.add(payloadLoadGeneratorId);
         log.info("Received {} metrics entries from load generator: {}", metricsList.size(), payloadLoadGeneratorId);
-
-        // Immediately process and persist metrics to avoid unbounded in-memory growth
         try {
-            reportService.processMetrics(metricsList);
+            return storeMetrics(payloadLoadGeneratorId, metricsList.size(),
+                    () -> reportService.processMetrics(metricsList));
         } catch (IOException e) {
             log.error("Failed to persist metrics", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Failed to persist metrics: " + e.getMessage() + "\n");
         }
+    }
 
-        // Track that this load generator has reported at least one batch
-        reportedLoadGenerators.addAll(loadGeneratorIds);
+    // Persists a validated batch unless the run was finalized meanwhile
+    private ResponseEntity<String> storeMetrics(String loadGeneratorId, int batchSize, MetricsStore store)
+            throws IOException {
+        // Immediately process and persist metrics to avoid unbounded in-memory growth
+        finalizationLock.readLock().lock();
+        try {
+            if (loadTestFinished) {
+                return rejectLateMetrics();
+            }
+            store.store();
+            // Track that this load generator has reported at least one batch
+            reportedLoadGenerators.add(loadGeneratorId);
+        } finally {
+            finalizationLock.readLock().unlock();
+        }
         int reportedCount = reportedLoadGenerators.size();
 
         log.info("Stored metrics from {}. Reported {}/{} replicas. Batch size: {}",
-                loadGeneratorIds,
+                loadGeneratorId,
                 reportedCount,
                 expectedLoadGenerators,
-                metricsList.size());
+                batchSize);
 
         // Finalization happens only after all replicas call /finish/{id}.
         return ResponseEntity.ok(
@@ -111,6 +205,81 @@ public class ReportController {
         );
     }
 
+    @FunctionalInterface
+    private interface MetricsStore {
+        void store() throws IOException;
+    }
+
+    /**
+     * Same as {@link #submitMetrics(List)} for a batch in the compact binary format of {@link MetricsBatchCodec}.
+     * Load generators fall back to JSON if a Metrics Reporter does not offer this endpoint (HTTP 415).
+     */
+    @PostMapping(value = "/metrics", consumes = MetricsBatchCodec.MEDIA_TYPE)
+    public ResponseEntity<String> submitMetricsBatch(@RequestBody byte[] metricsBatch) {
+        List<MetricsDto> metricsList;
+
+        try {
+            metricsList = MetricsBatchCodec.decode(metricsBatch);
+        } catch (IOException e) {
+            log.error("Failed to decode metrics batch ({} bytes): {}", metricsBatch.length, e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid metrics payload\n");
+        }
+
+        return submitMetrics(metricsList);
+    }
+
+    /**
+     * Stores the latency histograms of one reporting interval of a load generator (aggregate reporting mode)
+     * by merging them into the statistics. Does not finalize the run.
+     */
+    @PostMapping("/metrics/histograms")
+    public ResponseEntity<String> submitHistograms(@RequestBody MetricsIntervalDto metricsInterval) {
+        // Reject late intervals after finalization
+        if (loadTestFinished) {
+            return rejectLateHistograms();
+        }
+
+        String validationError = validateMetricsInterval(metricsInterval);
+        if (validationError != null) {
+            log.error("Invalid histograms payload: {}", validationError);
+            return ResponseEntity.badRequest().body("Invalid histograms payload\n");
+        }
+
+        finalizationLock.readLock().lock();
+        try {
+            if (loadTestFinished) {
+                return rejectLateHistograms();
+            }
+            reportService.processHistograms(metricsInterval);
+            reportedLoadGenerators.add(metricsInterval.getLoadGeneratorId());
+        } catch (IllegalArgumentException e) {
+            log.error("Failed to decode histograms from {}: {}", metricsInterval.getLoadGeneratorId(), e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid histograms payload\n");
+        } finally {
+            finalizationLock.readLock().unlock();
+        }
+
+        log.info("Stored {} histograms from {}. Reported {}/{} replicas.",
+                metricsInterval.getHistograms().size(),
+                metricsInterval.getLoadGeneratorId(),
+                reportedLoadGenerators.size(),
+                expectedLoadGenerators);
+
+        return ResponseEntity.ok(
+                String.format("Histograms stored successfully. Reported replicas (%d/%d). Waiting for finish signals.\n",
+                        reportedLoadGenerators.size(), expectedLoadGenerators)
+        );
+    }
+
+    /**
+     * Stores the scenario and cluster a Load Generator runs against, for the run history. Sent before the run.
+     */
+    @PostMapping("/run-metadata")
+    public ResponseEntity<Void> submitRunMetadata(@Valid @RequestBody RunMetadataDto runMetadata) {
+        reportService.recordRunMetadata(runMetadata);
+        return ResponseEntity.accepted().build();
+    }
+
     /**
      * Called by each Load Generator after finishing its run, either successfully or with an error.
      * Generates reports once all expected Load Generators have finished.
@@ -140,7 +309,13 @@ public class ReportController {
 
         // Generate reports only after all load generators have finished their run
         if (finishedLoadGenerators.size() == expectedLoadGenerators) {
-            loadTestFinished = true;
+            // Wait for uploads in progress; later ones see the flag and are rejected
+            finalizationLock.writeLock().lock();
+            try {
+                loadTestFinished = true;
+            } finally {
+                finalizationLock.writeLock().unlock();
+            }
 
             log.info("All {} Load Generators finished their run. Generating reports...",
                     finishedLoadGenerators.size());
@@ -165,8 +340,10 @@ public class ReportController {
                 ));
 
                 if (jsonExportEnabled) {
-                    message.append("Results JSON report: ").append(reportService.getResultsJsonPath()).append("\n");
-                    message.append("Statistics JSON: ").append(reportService.getStatisticsReportPath());
+                    message.append("Results JSON report (exporting, progress at GET /api/reports/export): ")
+                            .append(reportService.getResultsJsonPath()).append("\n");
+                    message.append("Statistics JSON: ").append(reportService.getStatisticsReportPath()).append("\n");
+                    message.append("Timeline NDJSON: ").append(reportService.getTimelinePath());
                 }
 
                 log.info(message.toString());
@@ -177,6 +354,9 @@ public class ReportController {
                         ? ShutdownAfterResponseInterceptor.EXIT_OK
                         : ShutdownAfterResponseInterceptor.EXIT_LOAD_GENERATOR_FAILED;
                 request.setAttribute(ShutdownAfterResponseInterceptor.EXIT_CODE, exitCode);
+                // Keep the reporter up until the results JSON export has completed and the result sinks are drained
+                request.setAttribute(ShutdownAfterResponseInterceptor.SHUTDOWN_AFTER_JOB,
+                        reportService.getFinalizationJobs());
 
                 return ResponseEntity.ok().build();
             } catch (IOException e) {
@@ -194,6 +374,63 @@ public class ReportController {
         return ResponseEntity.ok().build();
     }
 
+    private static ResponseEntity<String> rejectLateMetrics() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Run already finalized; metrics batch rejected\n");
+    }
+
+    private static ResponseEntity<String> rejectLateHistograms() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Run already finalized; histograms rejected\n");
+    }
+
+    /**
+     * Returns the progress of the results JSON export that starts once all load generators have finished.
+     */
+    @GetMapping("/reports/export")
+    public ResponseEntity<ExportProgressDto> getExportProgress() {
+        return ResponseEntity.ok(reportService.getResultsJsonExportProgress());
+    }
+
+    /**
+     * Returns the state and counters of the result sinks enabled via {@code report.sinks}.
+     */
+    @GetMapping("/reports/sinks")
+    public ResponseEntity<List<SinkStatusDto>> getResultSinkStatus() {
+        return ResponseEntity.ok(reportService.getResultSinkStatus());
+    }
+
+    /**
+     * Returns a page of the query results stored so far, filtered by query type, status code ({@code 503}) or
+     * class ({@code 5xx}) and start time range (epoch millis, to exclusive). Pass the returned next_cursor as
+     * cursor for the next page. Served from the sparse index of the NDJSON report, reading only the blocks that
+     * may hold matching results.
+     */
+    @GetMapping("/reports/results")
+    public ResponseEntity<ResultSliceDto> getResults(
+            @RequestParam(name = "query_type", required = false) String queryType,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "from", required = false) Long fromMillis,
+            @RequestParam(name = "to", required = false) Long toMillis,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_RESULTS_PAGE_SIZE) {
+            log.warn("Invalid results page size {}", limit);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(reportService.getResults(queryType, status, fromMillis, toMillis, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid results query: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            log.error("Failed to read query results", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Health check endpoint.
      */
@@ -202,6 +439,17 @@ public class ReportController {
         return ResponseEntity.ok("Report Controller is running!\n");
     }
 
+    // Validates one entry of a payload; all entries must have the loadGeneratorId of the first one
+    private String validatePayloadEntry(MetricsDto metrics, String payloadLoadGeneratorId) {
+        String validationError = validateMetrics(metrics);
+        if (validationError == null && payloadLoadGeneratorId != null
+                && !payloadLoadGeneratorId.equals(metrics.getLoadGeneratorId())) {
+            return String.format("mixed loadGeneratorId values in one payload (first: %s, current: %s)",
+                    payloadLoadGeneratorId, metrics.getLoadGeneratorId());
+        }
+        return validationError;
+    }
+
     // Validate a single metrics entry
     // Returns a string with the validation error, or null if the metrics entry is valid
     private String validateMetrics(MetricsDto metrics) {
@@ -214,11 +462,27 @@ public class ReportController {
         if (metrics.getQueryType() == null || metrics.getQueryType().isBlank()) {
             return "queryType is missing";
         }
-        if (metrics.getRequestDurationMillis() != null && metrics.getRequestDurationMillis() < 0) {
-            return "requestDurationMillis is negative";
+        String durationError = firstNonNull(
+                validateDuration("requestDurationMillis", metrics.getRequestDurationMillis()),
+                validateDuration("correctedRequestDurationMillis", metrics.getCorrectedRequestDurationMillis()),
+                validateDuration("queryDurationMillis", metrics.getQueryDurationMillis()),
+                validateDuration("timeToFirstByteMillis", metrics.getTimeToFirstByteMillis()),
+                validateDuration("transferTimeMillis", metrics.getTransferTimeMillis()),
+                validateDuration("overheadMillis", metrics.getOverheadMillis()));
+        if (durationError != null) {
+            return durationError;
         }
-        if (metrics.getQueryDurationMillis() != null && metrics.getQueryDurationMillis() < 0) {
-            return "queryDurationMillis is negative";
+        if (metrics.getRequestBytes() != null && metrics.getRequestBytes() < 0) {
+            return "requestBytes is negative";
+        }
+        if (metrics.getResponseBytes() != null && metrics.getResponseBytes() < 0) {
+            return "responseBytes is negative";
+        }
+        Long startMillis = metrics.getStartTimeEpochMillis();
+        long maxSkewMillis = maxClockSkewSeconds * 1000;
+        if (startMillis != null && (startMillis < startedAtMillis - maxSkewMillis
+                || startMillis > System.currentTimeMillis() + maxSkewMillis)) {
+            return "startTimeEpochMillis is outside the run";
         }
         if (metrics.getHttpStatusCode() < 100 || metrics.getHttpStatusCode() > 599) {
             return "httpStatusCode is out of range";
@@ -226,6 +490,67 @@ public class ReportController {
         return null;
     }
 
+    // Durations are optional, but must not be negative (HdrHistogram rejects them) or absurdly long
+    private String validateDuration(String name, Long durationMillis) {
+        if (durationMillis == null) {
+            return null;
+        }
+        if (durationMillis < 0) {
+            return name + " is negative";
+        }
+        if (durationMillis > maxDurationSeconds * 1000) {
+            return name + " exceeds " + maxDurationSeconds + " seconds";
+        }
+        return null;
+    }
+
+    private static String firstNonNull(String... errors) {
+        for (String error : errors) {
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    // Validate the histograms of one reporting interval
+    // Returns a string with the validation error, or null if the payload is valid
+    private String validateMetricsInterval(MetricsIntervalDto metricsInterval) {
+        if (metricsInterval == null) {
+            return "payload is null";
+        }
+        if (metricsInterval.getLoadGeneratorId() == null || metricsInterval.getLoadGeneratorId().isBlank()) {
+            return "loadGeneratorId is missing";
+        }
+        if (metricsInterval.getIntervalEndMillis() < metricsInterval.getIntervalStartMillis()) {
+            return "interval ends before it starts";
+        }
+        // Each second of the interval becomes a timeline bucket
+        if (metricsInterval.getIntervalEndMillis() - metricsInterval.getIntervalStartMillis()
+                > maxDurationSeconds * 1000) {
+            return "interval exceeds " + maxDurationSeconds + " seconds";
+        }
+        if (metricsInterval.getHistograms() == null || metricsInterval.getHistograms().isEmpty()) {
+            return "histograms are missing";
+        }
+        for (int i = 0; i < metricsInterval.getHistograms().size(); i++) {
+            LatencyHistogramDto histogram = metricsInterval.getHistograms().get(i);
+            if (histogram == null) {
+                return "histogram at index " + i + " is null";
+            }
+            if (histogram.getQueryType() == null || histogram.getQueryType().isBlank()) {
+                return "queryType is missing at index " + i;
+            }
+            if (histogram.getStatusClass() == null || !histogram.getStatusClass().matches("[1-5]xx")) {
+                return "statusClass is invalid at index " + i;
+            }
+            if (histogram.getCount() < 1 || histogram.getRequestDuration() == null) {
+                return "histogram at index " + i + " is empty";
+            }
+        }
+        return null;
+    }
+
     private void logFailedLoadGenerators(List<FinishLoadTestDto> failedLoadGenerators) {
         StringBuilder warning = new StringBuilder();
         warning.append("The following Load Generators finished with an error:\n");
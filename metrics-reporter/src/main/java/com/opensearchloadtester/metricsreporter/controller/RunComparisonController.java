@@ -0,0 +1,74 @@
+package com.opensearchloadtester.metricsreporter.controller;
+
+import com.opensearchloadtester.metricsreporter.comparison.RunComparator;
+import com.opensearchloadtester.metricsreporter.dto.RunComparisonDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller comparing runs by their duration histograms, e.g. to gate a deployment on performance.
+ *
+ * <p>
+ * Runs are directories below the report output directory holding a {@code histograms.json}; {@code .} is the
+ * run of this reporter once it is finalized. The first run is the baseline.
+ * </p>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class RunComparisonController {
+
+    private final RunComparator runComparator;
+
+    @Value("${report.output.directory}")
+    private String outputDirectory;
+
+    /**
+     * Compares every further run with the first one; see {@link RunComparisonDto} for the verdicts. Without
+     * parameters, the metric and gate percentile of {@code report.compare.*} apply.
+     */
+    @GetMapping("/compare")
+    public ResponseEntity<RunComparisonDto> compare(
+            @RequestParam(name = "runs") List<String> runs,
+            @RequestParam(name = "metric", required = false) String metric,
+            @RequestParam(name = "gate_percentile", required = false) Double gatePercentile) {
+        Path base = Paths.get(outputDirectory).toAbsolutePath().normalize();
+        List<Path> runPaths = new ArrayList<>();
+        for (String run : runs) {
+            Path runPath = base.resolve(run).normalize();
+            if (!runPath.startsWith(base)) {
+                log.warn("Rejected run '{}' outside the report directory", run);
+                return ResponseEntity.badRequest().build();
+            }
+            runPaths.add(runPath);
+        }
+
+        try {
+            RunComparator.Settings defaults = runComparator.settings();
+            RunComparator.Settings settings = new RunComparator.Settings(
+                    metric != null ? RunComparator.Metric.of(metric) : defaults.metric(),
+                    defaults.percentiles(),
+                    gatePercentile != null ? gatePercentile : defaults.gatePercentile(),
+                    defaults.alpha(), defaults.confidence(), defaults.minEffect(), defaults.bootstrapIterations(),
+                    defaults.minSamples(), defaults.seed());
+            return ResponseEntity.ok(runComparator.compare(runPaths, settings));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid run comparison: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            log.warn("Failed to compare runs {}: {}", runs, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.opensearchloadtester.metricsreporter.controller;
+
+import com.opensearchloadtester.metricsreporter.comparison.RunComparator;
+import com.opensearchloadtester.metricsreporter.dto.HistoryRunDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import com.opensearchloadtester.metricsreporter.dto.RunSummaryDto;
+import com.opensearchloadtester.metricsreporter.dto.RunTrendDto;
+import com.opensearchloadtester.metricsreporter.dto.TimelineBucketDto;
+import com.opensearchloadtester.metricsreporter.history.RunHistoryStore;
+import com.opensearchloadtester.metricsreporter.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+/**
+ * REST controller querying the run history: the runs recorded so far, their scenario, cluster, histograms and
+ * timeline, and trends of a percentile across runs. Answers 404 if the run history is disabled.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/history")
+@RequiredArgsConstructor
+public class RunHistoryController {
+
+    private static final int MAX_RUNS = 10_000;
+
+    private final ReportService reportService;
+
+    /**
+     * Lists the latest runs, oldest first, optionally of one scenario or with one label only.
+     */
+    @GetMapping("/runs")
+    public ResponseEntity<List<RunSummaryDto>> getRuns(
+            @RequestParam(name = "scenario", required = false) String scenario,
+            @RequestParam(name = "label", required = false) String label,
+            @RequestParam(name = "last", defaultValue = "100") int last) {
+        return query(history -> history.runs(scenario, label, Math.min(last, MAX_RUNS)));
+    }
+
+    @GetMapping("/runs/{runId}")
+    public ResponseEntity<HistoryRunDto> getRun(@PathVariable String runId) {
+        return query(history -> history.run(runId));
+    }
+
+    /**
+     * Returns the histograms of a run, in the format of {@code histograms.json}.
+     */
+    @GetMapping("/runs/{runId}/histograms")
+    public ResponseEntity<RunHistogramsDto> getRunHistograms(@PathVariable String runId) {
+        return query(history -> history.histograms(runId));
+    }
+
+    @GetMapping("/runs/{runId}/timeline")
+    public ResponseEntity<List<TimelineBucketDto>> getRunTimeline(@PathVariable String runId) {
+        return query(history -> history.timeline(runId));
+    }
+
+    /**
+     * Returns a percentile of a query type (all queries without {@code query_type}) across the latest runs, e.g.
+     * {@code ?query_type=DUO_COMPLEX&percentile=99&label=nightly&last=30}.
+     */
+    @GetMapping("/trend")
+    public ResponseEntity<RunTrendDto> getTrend(
+            @RequestParam(name = "query_type", required = false) String queryType,
+            @RequestParam(name = "metric", defaultValue = "request_duration_ms") String metric,
+            @RequestParam(name = "percentile", defaultValue = "99") double percentile,
+            @RequestParam(name = "scenario", required = false) String scenario,
+            @RequestParam(name = "label", required = false) String label,
+            @RequestParam(name = "last", defaultValue = "30") int last) {
+        return query(history -> history.trend(queryType, RunComparator.Metric.of(metric), percentile, scenario,
+                label, Math.min(last, MAX_RUNS)));
+    }
+
+    private <T> ResponseEntity<T> query(HistoryQuery<T> query) {
+        try {
+            RunHistoryStore history = reportService.getRunHistory();
+            if (history == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            return ResponseEntity.ok(query.apply(history));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid run history query: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (IOException e) {
+            log.error("Failed to read the run history", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @FunctionalInterface
+    private interface HistoryQuery<T> {
+        T apply(RunHistoryStore history) throws IOException;
+    }
+}
@@ -0,0 +1,68 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Exact percentiles over all raw samples of a run, written when the raw-sample store is enabled.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "report_generated_at",
+        "total_samples",
+        "overall",
+        "query_types"
+})
+public class ExactPercentilesDto {
+
+    @JsonProperty("report_generated_at")
+    private LocalDateTime reportGeneratedAt;
+
+    @JsonProperty("total_samples")
+    private long totalSamples;
+
+    @JsonProperty("overall")
+    private GroupPercentiles overall;
+
+    @JsonProperty("query_types")
+    private Map<String, GroupPercentiles> queryTypes;
+
+    /**
+     * Exact nearest-rank percentiles of the durations of one group of samples; a duration no sample of the group
+     * reported is left out.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({
+            "samples",
+            "request_duration_ms",
+            "corrected_request_duration_ms",
+            "query_duration_ms"
+    })
+    public static class GroupPercentiles {
+
+        // Samples with a request duration
+        @JsonProperty("samples")
+        private long samples;
+
+        @JsonProperty("request_duration_ms")
+        private Map<String, Long> requestDurationMs;
+
+        @JsonProperty("corrected_request_duration_ms")
+        private Map<String, Long> correctedRequestDurationMs;
+
+        @JsonProperty("query_duration_ms")
+        private Map<String, Long> queryDurationMs;
+    }
+}
@@ -0,0 +1,72 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of the results JSON export that runs in the background once a load test run is finalized.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "state",
+        "results_json",
+        "total_bytes",
+        "processed_bytes",
+        "progress",
+        "chunks",
+        "completed_chunks",
+        "records",
+        "skipped_lines",
+        "error"
+})
+public class ExportProgressDto {
+
+    public enum State {
+        NOT_STARTED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    @JsonProperty("state")
+    private State state;
+
+    // Absolute path of the results JSON, complete once the state is DONE
+    @JsonProperty("results_json")
+    private String resultsJson;
+
+    // Size of all NDJSON segments and the part of it converted so far
+    @JsonProperty("total_bytes")
+    private Long totalBytes;
+
+    @JsonProperty("processed_bytes")
+    private Long processedBytes;
+
+    // Share of processed bytes, between 0 and 1
+    @JsonProperty("progress")
+    private Double progress;
+
+    // Chunks the segments were split into for parallel conversion
+    @JsonProperty("chunks")
+    private Integer chunks;
+
+    @JsonProperty("completed_chunks")
+    private Integer completedChunks;
+
+    @JsonProperty("records")
+    private Long records;
+
+    // NDJSON lines that were not a single JSON object and left out of the array
+    @JsonProperty("skipped_lines")
+    private Long skippedLines;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("error")
+    private String error;
+}
@@ -0,0 +1,49 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description of a run in the run history: what was run against which cluster. Its histograms and timeline are
+ * read separately.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "summary",
+        "load_generators",
+        "query_types",
+        "scenario_config",
+        "cluster",
+        "index_settings"
+})
+public class HistoryRunDto {
+
+    @JsonProperty("summary")
+    private RunSummaryDto summary;
+
+    @JsonProperty("load_generators")
+    private List<String> loadGenerators;
+
+    @JsonProperty("query_types")
+    private List<String> queryTypes;
+
+    // Scenario file as written, null if no load generator sent it
+    @JsonProperty("scenario_config")
+    private String scenarioConfig;
+
+    // Cluster under test, e.g. cluster_name, version, number_of_nodes
+    @JsonProperty("cluster")
+    private Map<String, String> cluster;
+
+    // Settings of the queried index in flat form, e.g. index.number_of_replicas
+    @JsonProperty("index_settings")
+    private Map<String, String> indexSettings;
+}
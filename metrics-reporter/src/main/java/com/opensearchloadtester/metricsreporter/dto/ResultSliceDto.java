@@ -0,0 +1,45 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of query results read from the NDJSON report via its sparse index. Pass next_cursor as cursor to get
+ * the next page; it is missing on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "count",
+        "next_cursor",
+        "scanned_blocks",
+        "scanned_bytes",
+        "results"
+})
+public class ResultSliceDto {
+
+    @JsonProperty("count")
+    private int count;
+
+    @JsonProperty("next_cursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    @JsonProperty("scanned_blocks")
+    private long scannedBlocks;
+
+    @JsonProperty("scanned_bytes")
+    private long scannedBytes;
+
+    // Query results as written to the NDJSON report
+    @JsonProperty("results")
+    private List<JsonNode> results;
+}
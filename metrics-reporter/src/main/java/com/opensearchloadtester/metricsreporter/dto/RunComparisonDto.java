@@ -0,0 +1,219 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparison of one or more candidate runs with a baseline run, per query type, with a verdict for gating.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "generated_at",
+        "verdict",
+        "baseline",
+        "settings",
+        "candidates"
+})
+public class RunComparisonDto {
+
+    /**
+     * Outcome of a comparison: REGRESSED if the candidate is significantly and relevantly slower at the gate
+     * percentile, IMPROVED if it is faster, INSUFFICIENT_DATA if either run has too few samples.
+     */
+    public enum Verdict {
+        REGRESSED,
+        IMPROVED,
+        UNCHANGED,
+        INSUFFICIENT_DATA
+    }
+
+    @JsonProperty("generated_at")
+    private LocalDateTime generatedAt;
+
+    // REGRESSED if any candidate regressed, else IMPROVED if any improved
+    @JsonProperty("verdict")
+    private Verdict verdict;
+
+    @JsonProperty("baseline")
+    private String baseline;
+
+    @JsonProperty("settings")
+    private Settings settings;
+
+    @JsonProperty("candidates")
+    private List<CandidateComparison> candidates;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({
+            "metric",
+            "gate_percentile",
+            "alpha",
+            "confidence",
+            "min_effect",
+            "bootstrap_iterations",
+            "min_samples",
+            "seed"
+    })
+    public static class Settings {
+        // Duration compared, e.g. request_duration_ms
+        @JsonProperty("metric")
+        private String metric;
+
+        @JsonProperty("gate_percentile")
+        private double gatePercentile;
+
+        // Significance level of the Mann-Whitney U test
+        @JsonProperty("alpha")
+        private double alpha;
+
+        // Confidence level of the bootstrap intervals
+        @JsonProperty("confidence")
+        private double confidence;
+
+        // Smallest relative change of the gate percentile that counts as a regression or improvement
+        @JsonProperty("min_effect")
+        private double minEffect;
+
+        @JsonProperty("bootstrap_iterations")
+        private int bootstrapIterations;
+
+        @JsonProperty("min_samples")
+        private long minSamples;
+
+        @JsonProperty("seed")
+        private long seed;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({
+            "candidate",
+            "verdict",
+            "regressed",
+            "improved",
+            "missing_query_types",
+            "new_query_types",
+            "overall",
+            "query_types"
+    })
+    public static class CandidateComparison {
+        @JsonProperty("candidate")
+        private String candidate;
+
+        // Over the query types only; the overall group depends on the query mix and is informational
+        @JsonProperty("verdict")
+        private Verdict verdict;
+
+        @JsonProperty("regressed")
+        private List<String> regressed;
+
+        @JsonProperty("improved")
+        private List<String> improved;
+
+        // Query types of the baseline the candidate did not run, and the other way round
+        @JsonProperty("missing_query_types")
+        private List<String> missingQueryTypes;
+
+        @JsonProperty("new_query_types")
+        private List<String> newQueryTypes;
+
+        @JsonProperty("overall")
+        private GroupComparison overall;
+
+        @JsonProperty("query_types")
+        private Map<String, GroupComparison> queryTypes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({
+            "verdict",
+            "baseline_samples",
+            "candidate_samples",
+            "mann_whitney",
+            "percentiles"
+    })
+    public static class GroupComparison {
+        @JsonProperty("verdict")
+        private Verdict verdict;
+
+        @JsonProperty("baseline_samples")
+        private long baselineSamples;
+
+        @JsonProperty("candidate_samples")
+        private long candidateSamples;
+
+        @JsonProperty("mann_whitney")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private MannWhitney mannWhitney;
+
+        // Per percentile label, e.g. "p99"
+        @JsonProperty("percentiles")
+        private Map<String, PercentileDelta> percentiles;
+    }
+
+    /**
+     * Mann-Whitney U test of the candidate against the baseline (normal approximation with tie correction).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({"u", "z", "p_value", "probability_slower"})
+    public static class MannWhitney {
+        // Pairs in which the candidate is slower, ties counting half
+        @JsonProperty("u")
+        private double u;
+
+        @JsonProperty("z")
+        private double z;
+
+        // Two-sided
+        @JsonProperty("p_value")
+        private double pValue;
+
+        // Probability that a random candidate result is slower than a random baseline result (0.5: no shift)
+        @JsonProperty("probability_slower")
+        private double probabilitySlower;
+    }
+
+    /**
+     * A percentile of both runs, the change (candidate minus baseline) and its bootstrap confidence interval.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({"baseline", "candidate", "delta", "relative_delta", "ci_low", "ci_high"})
+    public static class PercentileDelta {
+        @JsonProperty("baseline")
+        private long baseline;
+
+        @JsonProperty("candidate")
+        private long candidate;
+
+        @JsonProperty("delta")
+        private long delta;
+
+        @JsonProperty("relative_delta")
+        private double relativeDelta;
+
+        @JsonProperty("ci_low")
+        private long ciLow;
+
+        @JsonProperty("ci_high")
+        private long ciHigh;
+    }
+}
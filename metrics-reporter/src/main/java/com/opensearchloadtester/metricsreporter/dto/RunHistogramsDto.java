@@ -0,0 +1,63 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Duration histograms of a run, overall and per query type, so runs can be compared statistically later.
+ * Each histogram is an HdrHistogram in its compressed encoding (base64 in JSON).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "report_generated_at",
+        "overall",
+        "query_types"
+})
+public class RunHistogramsDto {
+
+    @JsonProperty("report_generated_at")
+    private LocalDateTime reportGeneratedAt;
+
+    @JsonProperty("overall")
+    private GroupHistograms overall;
+
+    @JsonProperty("query_types")
+    private Map<String, GroupHistograms> queryTypes;
+
+    /**
+     * Histograms of the durations of one group; durations no result of the group reported are left out.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({
+            "total_queries",
+            "request_duration_ms",
+            "corrected_request_duration_ms",
+            "query_duration_ms"
+    })
+    public static class GroupHistograms {
+
+        @JsonProperty("total_queries")
+        private long totalQueries;
+
+        @JsonProperty("request_duration_ms")
+        private byte[] requestDurationMs;
+
+        @JsonProperty("corrected_request_duration_ms")
+        private byte[] correctedRequestDurationMs;
+
+        @JsonProperty("query_duration_ms")
+        private byte[] queryDurationMs;
+    }
+}
@@ -0,0 +1,61 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A run of the run history, one line of its catalog.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "run_id",
+        "finished_at",
+        "scenario",
+        "labels",
+        "cluster_version",
+        "total_queries",
+        "total_errors",
+        "duration_seconds",
+        "size_bytes"
+})
+public class RunSummaryDto {
+
+    @JsonProperty("run_id")
+    private String runId;
+
+    @JsonProperty("finished_at")
+    private LocalDateTime finishedAt;
+
+    // Scenario name reported by the load generators, null if none did
+    @JsonProperty("scenario")
+    private String scenario;
+
+    // report.history.labels of the reporter that recorded the run, e.g. "nightly"
+    @JsonProperty("labels")
+    private List<String> labels;
+
+    @JsonProperty("cluster_version")
+    private String clusterVersion;
+
+    @JsonProperty("total_queries")
+    private long totalQueries;
+
+    @JsonProperty("total_errors")
+    private long totalErrors;
+
+    // Seconds of the timeline, from the first to the last query started
+    @JsonProperty("duration_seconds")
+    private long durationSeconds;
+
+    // Size of the run file
+    @JsonProperty("size_bytes")
+    private long sizeBytes;
+}
@@ -0,0 +1,74 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A percentile of one query type (or all queries) across the runs of the run history, oldest run first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "query_type",
+        "metric",
+        "percentile",
+        "median",
+        "latest_relative_to_median",
+        "points"
+})
+public class RunTrendDto {
+
+    // Null for all queries
+    @JsonProperty("query_type")
+    private String queryType;
+
+    @JsonProperty("metric")
+    private String metric;
+
+    // Label of the percentile, e.g. "p99"
+    @JsonProperty("percentile")
+    private String percentile;
+
+    // Median of the values of all runs but the latest one, null if none has a value
+    @JsonProperty("median")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long median;
+
+    // Latest value relative to that median, e.g. 0.2 for 20 % slower
+    @JsonProperty("latest_relative_to_median")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double latestRelativeToMedian;
+
+    @JsonProperty("points")
+    private List<Point> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({"run_id", "finished_at", "scenario", "samples", "value"})
+    public static class Point {
+        @JsonProperty("run_id")
+        private String runId;
+
+        @JsonProperty("finished_at")
+        private LocalDateTime finishedAt;
+
+        @JsonProperty("scenario")
+        private String scenario;
+
+        @JsonProperty("samples")
+        private long samples;
+
+        // Null if the run has no samples of the query type
+        @JsonProperty("value")
+        private Long value;
+    }
+}
@@ -0,0 +1,61 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State and counters of one result sink enabled via {@code report.sinks}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "name",
+        "state",
+        "queued_batches",
+        "queue_capacity",
+        "written_records",
+        "dropped_records",
+        "failed_records",
+        "last_error"
+})
+public class SinkStatusDto {
+
+    public enum State {
+        RUNNING,
+        CLOSED,
+        CLOSED_WITH_ERRORS
+    }
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("state")
+    private State state;
+
+    @JsonProperty("queued_batches")
+    private int queuedBatches;
+
+    @JsonProperty("queue_capacity")
+    private int queueCapacity;
+
+    // Results handed to the sink; a sink that buffers may still fail to pass them on (see last_error)
+    @JsonProperty("written_records")
+    private long writtenRecords;
+
+    // Results not handed to the sink because its queue was full
+    @JsonProperty("dropped_records")
+    private long droppedRecords;
+
+    // Results of batches the sink failed to write
+    @JsonProperty("failed_records")
+    private long failedRecords;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("last_error")
+    private String lastError;
+}
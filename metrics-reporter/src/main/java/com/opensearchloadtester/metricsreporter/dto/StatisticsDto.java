@@ -1,5 +1,6 @@
 package com.opensearchloadtester.metricsreporter.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents aggregated statistics for a load test run.
@@ -19,19 +21,29 @@ import java.util.List;
 @JsonPropertyOrder({
         "report_generated_at",
         "request_duration_ms",
+        "corrected_request_duration_ms",
         "query_duration_ms",
         "total_queries",
         "total_errors",
-        "load_generator_instances"
+        "load_generator_instances",
+        "stages",
+        "query_types",
+        "status_classes",
+        "load_generators"
 })
 public class StatisticsDto {
 
     @JsonProperty("report_generated_at")
     private LocalDateTime reportGeneratedAt;
 
+    // Service time: measured from the moment the request was sent
     @JsonProperty("request_duration_ms")
     private DurationStats requestDurationMs;
 
+    // Response time measured from the intended start of each arrival (coordinated-omission corrected)
+    @JsonProperty("corrected_request_duration_ms")
+    private DurationStats correctedRequestDurationMs;
+
     @JsonProperty("query_duration_ms")
     private DurationStats queryDurationMs;
 
@@ -44,9 +56,95 @@ public class StatisticsDto {
     @JsonProperty("load_generator_instances")
     private List<String> loadGeneratorInstances;
 
+    // Statistics per load profile stage, in the order the stages were first reported
+    @JsonProperty("stages")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, GroupStatistics> stages;
+
+    // Statistics per query type, including the payload size and latency breakdown
+    @JsonProperty("query_types")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, GroupStatistics> queryTypes;
+
+    // Statistics per HTTP status class ("2xx", "5xx", ...)
+    @JsonProperty("status_classes")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, GroupStatistics> statusClasses;
+
+    // Statistics per load generator instance
+    @JsonProperty("load_generators")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, GroupStatistics> loadGenerators;
+
+    /**
+     * Statistics of a subset of all queries (e.g. all queries of one load profile stage).
+     *
+     * <p>
+     * Besides the durations, the service time is broken down into time to first byte, body transfer time
+     * and client/network overhead (service time minus the server-side {@code took}).
+     * </p>
+     */
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonPropertyOrder({
+            "total_queries",
+            "total_errors",
+            "request_duration_ms",
+            "corrected_request_duration_ms",
+            "query_duration_ms",
+            "request_bytes",
+            "response_bytes",
+            "time_to_first_byte_ms",
+            "transfer_time_ms",
+            "overhead_ms",
+            "status_classes"
+    })
+    public static class GroupStatistics {
+        @JsonProperty("total_queries")
+        private Integer totalQueries;
+
+        @JsonProperty("total_errors")
+        private Integer totalErrors;
+
+        @JsonProperty("request_duration_ms")
+        private DurationStats requestDurationMs;
+
+        @JsonProperty("corrected_request_duration_ms")
+        private DurationStats correctedRequestDurationMs;
+
+        @JsonProperty("query_duration_ms")
+        private DurationStats queryDurationMs;
+
+        @JsonProperty("request_bytes")
+        private SizeStats requestBytes;
+
+        @JsonProperty("response_bytes")
+        private SizeStats responseBytes;
+
+        @JsonProperty("time_to_first_byte_ms")
+        private DurationStats timeToFirstByteMs;
+
+        @JsonProperty("transfer_time_ms")
+        private DurationStats transferTimeMs;
+
+        @JsonProperty("overhead_ms")
+        private DurationStats overheadMs;
+
+        // Breakdown of the group per HTTP status class, only filled in for query types
+        @JsonProperty("status_classes")
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        private Map<String, GroupStatistics> statusClasses;
+    }
+
+    /**
+     * Average, min and max of a duration; for request and query durations also the configured percentiles
+     * (e.g. {@code "p99.9"}), accurate to three significant digits.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonPropertyOrder({"average", "min", "max", "percentiles"})
     public static class DurationStats {
         @JsonProperty("average")
         private Double average;
@@ -56,5 +154,26 @@ public class StatisticsDto {
 
         @JsonProperty("max")
         private Long max;
+
+        @JsonProperty("percentiles")
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        private Map<String, Long> percentiles;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SizeStats {
+        @JsonProperty("average")
+        private Double average;
+
+        @JsonProperty("min")
+        private Long min;
+
+        @JsonProperty("max")
+        private Long max;
+
+        @JsonProperty("total")
+        private Long total;
     }
 }
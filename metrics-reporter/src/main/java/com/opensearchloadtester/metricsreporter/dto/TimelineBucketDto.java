@@ -0,0 +1,50 @@
+package com.opensearchloadtester.metricsreporter.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Queries started within one second of a load test run, one line of the timeline report.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({
+        "epoch_millis",
+        "queries",
+        "qps",
+        "errors",
+        "error_rate",
+        "in_flight",
+        "request_duration_ms"
+})
+public class TimelineBucketDto {
+
+    // Start of the second, in milliseconds since the epoch
+    @JsonProperty("epoch_millis")
+    private Long epochMillis;
+
+    @JsonProperty("queries")
+    private Long queries;
+
+    // Achieved throughput; equals the number of queries since buckets span one second
+    @JsonProperty("qps")
+    private Double qps;
+
+    @JsonProperty("errors")
+    private Long errors;
+
+    // Share of queries with a status of 400 or above, between 0 and 1
+    @JsonProperty("error_rate")
+    private Double errorRate;
+
+    // Average number of requests in flight during the second (sum of their overlap with it in seconds)
+    @JsonProperty("in_flight")
+    private Double inFlight;
+
+    @JsonProperty("request_duration_ms")
+    private StatisticsDto.DurationStats requestDurationMs;
+}
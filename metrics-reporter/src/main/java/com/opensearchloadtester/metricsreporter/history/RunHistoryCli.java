@@ -0,0 +1,154 @@
+package com.opensearchloadtester.metricsreporter.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opensearchloadtester.metricsreporter.comparison.RunComparator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line queries of the run history, started with {@code java -jar metrics-reporter.jar history <directory>
+ * <runs|trend|show> [options]} instead of the reporter service. Prints the result as JSON.
+ *
+ * <p>
+ * The history is opened read-only, so it can be queried while a reporter records into it.
+ * </p>
+ */
+public final class RunHistoryCli {
+
+    public static final String COMMAND = "history";
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_ERROR = 1;
+
+    private static final String USAGE = """
+            Usage: history <directory> runs [--scenario <name>] [--label <label>] [--last <n>]
+                   history <directory> trend [--query-type <type>] [--metric <name>] [--percentile <p>]
+                                             [--scenario <name>] [--label <label>] [--last <n>]
+                   history <directory> show <run-id>
+              <directory>               run history directory, e.g. reports/history
+              --scenario <name>         only runs of this scenario
+              --label <label>           only runs with this label, e.g. nightly
+              --last <n>                latest runs included (default 100 for runs, 30 for trend)
+              --query-type <type>       query type of the trend, all queries if omitted
+              --metric <name>           request_duration_ms (default), corrected_request_duration_ms or query_duration_ms
+              --percentile <p>          percentile of the trend (default 99)
+            Exit code: 0 success, 1 invalid arguments or unreadable history.
+            """;
+
+    private static final ObjectMapper OUTPUT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private RunHistoryCli() {
+    }
+
+    /**
+     * Runs a query with the given arguments (without the command itself).
+     *
+     * @return the exit code
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Map<String, String> options = new HashMap<>();
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help") || arg.equals("-h")) {
+                out.print(USAGE);
+                return EXIT_OK;
+            }
+            if (!arg.startsWith("--")) {
+                positional.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (i + 1 < args.length) {
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                err.println("Missing value of " + arg);
+                err.print(USAGE);
+                return EXIT_ERROR;
+            }
+        }
+        if (positional.size() < 2) {
+            err.println("A history directory and a query are needed");
+            err.print(USAGE);
+            return EXIT_ERROR;
+        }
+
+        Path directory = Path.of(positional.get(0));
+        String query = positional.get(1);
+        try {
+            Object result = switch (query) {
+                case "runs" -> {
+                    requireOnly(options, positional, 2, "scenario", "label", "last");
+                    yield RunHistoryStore.openReadOnly(directory).runs(options.get("scenario"),
+                            options.get("label"), integer(options, "last", 100));
+                }
+                case "trend" -> {
+                    requireOnly(options, positional, 2, "query-type", "metric", "percentile", "scenario", "label",
+                            "last");
+                    RunComparator.Metric metric = options.containsKey("metric")
+                            ? RunComparator.Metric.of(options.get("metric")) : RunComparator.Metric.REQUEST_DURATION;
+                    yield RunHistoryStore.openReadOnly(directory).trend(options.get("query-type"), metric,
+                            number(options, "percentile", 99), options.get("scenario"), options.get("label"),
+                            integer(options, "last", 30));
+                }
+                case "show" -> {
+                    requireOnly(options, positional, 3);
+                    yield RunHistoryStore.openReadOnly(directory).run(positional.get(2));
+                }
+                default -> throw new IllegalArgumentException("Unknown query '" + query + "'");
+            };
+            out.println(OUTPUT_MAPPER.writeValueAsString(result));
+            return EXIT_OK;
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.print(USAGE);
+            return EXIT_ERROR;
+        } catch (IOException e) {
+            err.println("Reading the run history failed: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    private static void requireOnly(Map<String, String> options, List<String> positional, int arguments,
+                                    String... allowed) {
+        if (positional.size() != arguments) {
+            throw new IllegalArgumentException("Expected " + (arguments - 2) + " argument(s) after the query, got "
+                    + positional.subList(2, positional.size()));
+        }
+        Map<String, String> remaining = new HashMap<>(options);
+        for (String option : allowed) {
+            remaining.remove(option);
+        }
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + remaining.keySet());
+        }
+    }
+
+    private static int integer(Map<String, String> options, String name, int defaultValue) {
+        try {
+            return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage(), e);
+        }
+    }
+
+    private static double number(Map<String, String> options, String name, double defaultValue) {
+        try {
+            return options.containsKey(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage(), e);
+        }
+    }
+}
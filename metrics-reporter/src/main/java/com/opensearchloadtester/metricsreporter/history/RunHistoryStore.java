@@ -0,0 +1,731 @@
+package com.opensearchloadtester.metricsreporter.history;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.metricsreporter.comparison.RunComparator;
+import com.opensearchloadtester.metricsreporter.dto.HistoryRunDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import com.opensearchloadtester.metricsreporter.dto.RunSummaryDto;
+import com.opensearchloadtester.metricsreporter.dto.RunTrendDto;
+import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
+import com.opensearchloadtester.metricsreporter.dto.TimelineBucketDto;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Embedded, file-based history of finished runs, so results survive the reporter deleting the previous run's
+ * outputs at startup.
+ *
+ * <p>
+ * Layout of the directory:
+ * </p>
+ * <ul>
+ *     <li>{@code catalog.ndjson}: one {@link RunSummaryDto} per line, oldest run first; listing and filtering runs
+ *     reads nothing else</li>
+ *     <li>{@code runs/<run id>.run}: one file per run, a 4-byte magic and a format version followed by a single
+ *     deflate stream of three sections: the {@link HistoryRunDto} as JSON (scenario file, cluster and index
+ *     settings), the duration histograms overall and per query type, and the per-second timeline</li>
+ * </ul>
+ *
+ * <p>
+ * Histograms are reduced to {@code significantDigits} (2: percentiles within 1 %) and stored in HdrHistogram's
+ * plain encoding, which the outer deflate compresses further. The timeline is stored column by column, each value
+ * as the zig-zag varint of its change from the previous second, so steady runs compress to a few bytes per
+ * second. A trend over a query type inflates each run file only up to the histograms and decodes that query type
+ * only. Runs beyond {@code maxRuns} or {@code maxBytes} are removed oldest first.
+ * </p>
+ *
+ * <p>
+ * A run file is written to a temporary file and moved into place before its catalog line is appended, so a
+ * crash leaves at most an unlisted run file, removed when the store is opened next. Methods are synchronized;
+ * one reporter writes the history at a time.
+ * </p>
+ */
+@Slf4j
+public class RunHistoryStore {
+
+    static final String CATALOG_FILENAME = "catalog.ndjson";
+    static final String RUNS_DIRECTORY = "runs";
+    public static final String RUN_FILE_SUFFIX = ".run";
+
+    // "OLTH"
+    private static final int MAGIC = 0x4F4C5448;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final Pattern RUN_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    // Missing values in the timeline columns
+    private static final long ABSENT = -1;
+    // Timeline columns before the percentiles
+    private static final int TIMELINE_COLUMNS = 7;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Path directory;
+    private final Path runsDirectory;
+    private final int significantDigits;
+    private final int maxRuns;
+    private final long maxBytes;
+    private final boolean readOnly;
+    // Oldest run first
+    private final List<RunSummaryDto> catalog = new ArrayList<>();
+
+    /**
+     * What is recorded of a finished run.
+     *
+     * @param metadata scenario and cluster as reported by a load generator, null if none did
+     */
+    public record Run(LocalDateTime finishedAt, List<String> labels, List<String> loadGenerators,
+                      RunMetadataDto metadata, long totalQueries, long totalErrors, RunHistogramsDto histograms,
+                      List<TimelineBucketDto> timeline) {
+    }
+
+    /**
+     * Opens the history in the given directory, creating it if needed.
+     *
+     * @param significantDigits precision the histograms are stored with, 1 to 5
+     * @param maxRuns           runs kept, the oldest are removed beyond
+     * @param maxBytes          bytes of run files kept, the oldest are removed beyond; 0 for no limit
+     */
+    public RunHistoryStore(Path directory, int significantDigits, int maxRuns, long maxBytes) throws IOException {
+        this(directory, significantDigits, maxRuns, maxBytes, false);
+    }
+
+    private RunHistoryStore(Path directory, int significantDigits, int maxRuns, long maxBytes, boolean readOnly)
+            throws IOException {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("significant digits must be 1 to 5, got " + significantDigits);
+        }
+        if (maxRuns < 1 || maxBytes < 0) {
+            throw new IllegalArgumentException("max runs must be positive and max bytes must not be negative");
+        }
+        this.directory = directory;
+        this.runsDirectory = directory.resolve(RUNS_DIRECTORY);
+        this.significantDigits = significantDigits;
+        this.maxRuns = maxRuns;
+        this.maxBytes = maxBytes;
+        this.readOnly = readOnly;
+        if (!readOnly) {
+            Files.createDirectories(runsDirectory);
+        } else if (!Files.isDirectory(runsDirectory)) {
+            throw new NoSuchFileException("No run history in " + directory);
+        }
+        loadCatalog();
+    }
+
+    /**
+     * Opens an existing history for reading only, e.g. while a reporter records into it. Neither repairs nor
+     * prunes the history.
+     *
+     * @throws NoSuchFileException if the directory holds no history
+     */
+    public static RunHistoryStore openReadOnly(Path directory) throws IOException {
+        return new RunHistoryStore(directory, 1, Integer.MAX_VALUE, 0, true);
+    }
+
+    /**
+     * Records a finished run and removes the oldest runs beyond the limits.
+     *
+     * @return the run as listed in the catalog
+     */
+    public synchronized RunSummaryDto record(Run run) throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("The run history is opened read-only");
+        }
+        String runId = newRunId(run.finishedAt());
+        RunMetadataDto metadata = run.metadata();
+        List<TimelineBucketDto> timeline = run.timeline() != null ? run.timeline() : List.of();
+        RunSummaryDto summary = new RunSummaryDto(runId, run.finishedAt(),
+                metadata != null ? metadata.getScenarioName() : null,
+                run.labels() != null ? List.copyOf(run.labels()) : List.of(),
+                metadata != null && metadata.getCluster() != null ? metadata.getCluster().get("version") : null,
+                run.totalQueries(), run.totalErrors(), timeline.size(), 0);
+        RunHistogramsDto histograms = run.histograms();
+        HistoryRunDto description = new HistoryRunDto(summary, run.loadGenerators(),
+                histograms.getQueryTypes() != null ? List.copyOf(histograms.getQueryTypes().keySet()) : List.of(),
+                metadata != null ? metadata.getScenarioConfig() : null,
+                metadata != null ? metadata.getCluster() : null,
+                metadata != null ? metadata.getIndexSettings() : null);
+
+        Path target = runFile(runId);
+        Path temporary = runsDirectory.resolve(runId + RUN_FILE_SUFFIX + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary)) {
+            writeRun(file, description, histograms, timeline);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        summary.setSizeBytes(Files.size(target));
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(CATALOG_FILENAME), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            String line = OBJECT_MAPPER.writeValueAsString(summary) + "\n";
+            channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        }
+        catalog.add(summary);
+        prune();
+        return summary;
+    }
+
+    /**
+     * Lists the latest runs, oldest first.
+     *
+     * @param scenario only runs of this scenario, or all if null
+     * @param label    only runs with this label, or all if null
+     * @param last     at most this many runs
+     */
+    public synchronized List<RunSummaryDto> runs(String scenario, String label, int last) {
+        if (last < 1) {
+            throw new IllegalArgumentException("last must be positive, got " + last);
+        }
+        List<RunSummaryDto> matching = catalog.stream()
+                .filter(run -> scenario == null || scenario.equals(run.getScenario()))
+                .filter(run -> label == null || run.getLabels().contains(label))
+                .toList();
+        return List.copyOf(matching.subList(Math.max(0, matching.size() - last), matching.size()));
+    }
+
+    /**
+     * @throws NoSuchFileException if there is no such run
+     */
+    public HistoryRunDto run(String runId) throws IOException {
+        RunSummaryDto summary = summary(runId);
+        try (DataInputStream in = openRun(runFile(runId))) {
+            HistoryRunDto description = readDescription(in);
+            description.setSummary(summary);
+            return description;
+        }
+    }
+
+    /**
+     * Returns the histograms of a run, at the precision they were stored with.
+     *
+     * @throws NoSuchFileException if there is no such run
+     */
+    public RunHistogramsDto histograms(String runId) throws IOException {
+        summary(runId);
+        return readHistograms(runFile(runId));
+    }
+
+    /**
+     * @throws NoSuchFileException if there is no such run
+     */
+    public List<TimelineBucketDto> timeline(String runId) throws IOException {
+        summary(runId);
+        try (DataInputStream in = openRun(runFile(runId))) {
+            readDescription(in);
+            readGroups(in, queryType -> false);
+            return readTimeline(in);
+        }
+    }
+
+    /**
+     * Returns a percentile of a query type across the latest runs, oldest first.
+     *
+     * @param queryType a query type, or null for all queries
+     * @param scenario  only runs of this scenario, or all if null
+     * @param label     only runs with this label, or all if null
+     * @param last      at most this many runs
+     */
+    public RunTrendDto trend(String queryType, RunComparator.Metric metric, double percentile, String scenario,
+                             String label, int last) throws IOException {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be in (0, 100], got " + percentile);
+        }
+        List<RunTrendDto.Point> points = new ArrayList<>();
+        for (RunSummaryDto run : runs(scenario, label, last)) {
+            Histogram histogram;
+            try (DataInputStream in = openRun(runFile(run.getRunId()))) {
+                skipDescription(in);
+                StoredGroup group = queryType == null
+                        ? readGroups(in, name -> false).overall()
+                        : readGroups(in, queryType::equals).queryTypes().get(queryType);
+                histogram = group != null ? group.histograms()[metric.ordinal()] : null;
+            } catch (NoSuchFileException e) {
+                log.warn("Run {} of the run history is missing its run file", run.getRunId());
+                continue;
+            }
+            boolean present = histogram != null && histogram.getTotalCount() > 0;
+            points.add(new RunTrendDto.Point(run.getRunId(), run.getFinishedAt(), run.getScenario(),
+                    present ? histogram.getTotalCount() : 0,
+                    present ? histogram.getValueAtPercentile(percentile) : null));
+        }
+
+        Long median = null;
+        Double latestRelativeToMedian = null;
+        if (points.size() > 1) {
+            long[] previous = points.subList(0, points.size() - 1).stream()
+                    .filter(point -> point.getValue() != null)
+                    .mapToLong(RunTrendDto.Point::getValue)
+                    .sorted()
+                    .toArray();
+            Long latest = points.getLast().getValue();
+            if (previous.length > 0) {
+                median = previous[(previous.length - 1) / 2];
+                if (latest != null && median > 0) {
+                    latestRelativeToMedian = (latest - median) / (double) median;
+                }
+            }
+        }
+        return new RunTrendDto(queryType, metric.reportName(), label(percentile), median, latestRelativeToMedian,
+                points);
+    }
+
+    /**
+     * Reads the histograms of a run file, e.g. to compare a run of the history with another run.
+     */
+    public static RunHistogramsDto readHistograms(Path runFile) throws IOException {
+        try (DataInputStream in = openRun(runFile)) {
+            HistoryRunDto description = readDescription(in);
+            StoredGroups groups = readGroups(in, queryType -> true);
+            Map<String, RunHistogramsDto.GroupHistograms> queryTypes = new LinkedHashMap<>();
+            groups.queryTypes().forEach((queryType, group) -> queryTypes.put(queryType, group.toDto()));
+            return new RunHistogramsDto(description.getSummary().getFinishedAt(), groups.overall().toDto(),
+                    queryTypes);
+        }
+    }
+
+    private RunSummaryDto summary(String runId) throws NoSuchFileException {
+        if (runId == null || !RUN_ID.matcher(runId).matches()) {
+            throw new IllegalArgumentException("Invalid run id '" + runId + "'");
+        }
+        synchronized (this) {
+            for (RunSummaryDto run : catalog) {
+                if (run.getRunId().equals(runId)) {
+                    return run;
+                }
+            }
+        }
+        throw new NoSuchFileException("No run '" + runId + "' in the run history");
+    }
+
+    private Path runFile(String runId) {
+        return runsDirectory.resolve(runId + RUN_FILE_SUFFIX);
+    }
+
+    private String newRunId(LocalDateTime finishedAt) {
+        String base = RUN_ID_FORMAT.format(finishedAt);
+        String runId = base;
+        for (int suffix = 2; Files.exists(runFile(runId)) || isListed(runId); suffix++) {
+            runId = base + "-" + suffix;
+        }
+        return runId;
+    }
+
+    private boolean isListed(String runId) {
+        return catalog.stream().anyMatch(run -> run.getRunId().equals(runId));
+    }
+
+    private void loadCatalog() throws IOException {
+        Path catalogFile = directory.resolve(CATALOG_FILENAME);
+        boolean rewrite = false;
+        if (Files.exists(catalogFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(catalogFile)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    RunSummaryDto run;
+                    try {
+                        run = OBJECT_MAPPER.readValue(line, RunSummaryDto.class);
+                    } catch (JsonProcessingException e) {
+                        // A line cut off by a crash while appending
+                        log.warn("Skipping unreadable line of {}: {}", catalogFile, e.getOriginalMessage());
+                        rewrite = true;
+                        continue;
+                    }
+                    if (run.getRunId() == null || !RUN_ID.matcher(run.getRunId()).matches()
+                            || (!readOnly && !Files.exists(runFile(run.getRunId())))) {
+                        log.warn("Skipping run {} of {} without a run file", run.getRunId(), catalogFile);
+                        rewrite = true;
+                        continue;
+                    }
+                    catalog.add(run);
+                }
+            }
+        }
+        if (readOnly) {
+            return;
+        }
+        if (rewrite) {
+            writeCatalog();
+        }
+
+        // Run files of a crashed reporter that never made it into the catalog
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(runsDirectory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean listed = name.endsWith(RUN_FILE_SUFFIX)
+                        && isListed(name.substring(0, name.length() - RUN_FILE_SUFFIX.length()));
+                if (!listed) {
+                    log.warn("Deleting run file {} not listed in the run history", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void writeCatalog() throws IOException {
+        Path catalogFile = directory.resolve(CATALOG_FILENAME);
+        Path temporary = directory.resolve(CATALOG_FILENAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            for (RunSummaryDto run : catalog) {
+                writer.write(OBJECT_MAPPER.writeValueAsString(run));
+                writer.write("\n");
+            }
+        }
+        Files.move(temporary, catalogFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Keeps at least the latest run, even if it alone exceeds the size limit
+    private void prune() throws IOException {
+        long totalBytes = catalog.stream().mapToLong(RunSummaryDto::getSizeBytes).sum();
+        List<RunSummaryDto> removed = new ArrayList<>();
+        while (catalog.size() > 1 && (catalog.size() > maxRuns || (maxBytes > 0 && totalBytes > maxBytes))) {
+            RunSummaryDto oldest = catalog.removeFirst();
+            totalBytes -= oldest.getSizeBytes();
+            removed.add(oldest);
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+        // Catalog first, so a crash in between leaves unlisted run files rather than listed runs without files
+        writeCatalog();
+        for (RunSummaryDto run : removed) {
+            Files.deleteIfExists(runFile(run.getRunId()));
+        }
+        log.info("Removed {} runs from the run history, {} runs ({} KiB) kept", removed.size(), catalog.size(),
+                totalBytes / 1024);
+    }
+
+    private void writeRun(OutputStream file, HistoryRunDto description, RunHistogramsDto histograms,
+                          List<TimelineBucketDto> timeline) throws IOException {
+        DataOutputStream header = new DataOutputStream(file);
+        header.writeInt(MAGIC);
+        header.writeByte(FORMAT_VERSION);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            DeflaterOutputStream deflated = new DeflaterOutputStream(file, deflater, STREAM_BUFFER_SIZE);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflated, STREAM_BUFFER_SIZE));
+
+            byte[] json = OBJECT_MAPPER.writeValueAsBytes(description);
+            writeVarLong(out, json.length);
+            out.write(json);
+
+            writeGroup(out, histograms.getOverall());
+            Map<String, RunHistogramsDto.GroupHistograms> queryTypes =
+                    histograms.getQueryTypes() != null ? histograms.getQueryTypes() : Map.of();
+            writeVarLong(out, queryTypes.size());
+            for (Map.Entry<String, RunHistogramsDto.GroupHistograms> queryType : queryTypes.entrySet()) {
+                out.writeUTF(queryType.getKey());
+                writeGroup(out, queryType.getValue());
+            }
+
+            writeTimeline(out, timeline);
+            out.flush();
+            deflated.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Total queries, then each duration of RunComparator.Metric in declaration order: length (0 if absent) and
+    // the histogram reduced to the configured precision
+    private void writeGroup(DataOutputStream out, RunHistogramsDto.GroupHistograms group) throws IOException {
+        writeVarLong(out, group != null ? group.getTotalQueries() : 0);
+        for (RunComparator.Metric metric : RunComparator.Metric.values()) {
+            byte[] encoded = metric.histogram(group);
+            if (encoded == null) {
+                writeVarLong(out, 0);
+                continue;
+            }
+            Histogram reduced = reduce(decodeCompressed(encoded));
+            ByteBuffer buffer = ByteBuffer.allocate(reduced.getNeededByteBufferCapacity());
+            int length = reduced.encodeIntoByteBuffer(buffer);
+            writeVarLong(out, length);
+            out.write(buffer.array(), 0, length);
+        }
+    }
+
+    private Histogram reduce(Histogram histogram) {
+        if (histogram.getNumberOfSignificantValueDigits() <= significantDigits) {
+            return histogram;
+        }
+        Histogram reduced = new Histogram(significantDigits);
+        reduced.setAutoResize(true);
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            reduced.recordValueWithCount(value.getValueIteratedTo(), value.getCountAtValueIteratedTo());
+        }
+        return reduced;
+    }
+
+    private static void writeTimeline(DataOutputStream out, List<TimelineBucketDto> timeline) throws IOException {
+        List<String> labels = new ArrayList<>();
+        for (TimelineBucketDto bucket : timeline) {
+            if (bucket.getRequestDurationMs() != null && bucket.getRequestDurationMs().getPercentiles() != null) {
+                labels.addAll(bucket.getRequestDurationMs().getPercentiles().keySet());
+                break;
+            }
+        }
+        writeVarLong(out, labels.size());
+        for (String label : labels) {
+            out.writeUTF(label);
+        }
+        int size = timeline.size();
+        writeVarLong(out, size);
+
+        // Columns: start, queries, errors, in flight (1/1000), then the request duration stats, absent if the
+        // second has none: average (1/1000 ms), min, max and the percentiles
+        long[][] columns = new long[TIMELINE_COLUMNS + labels.size()][size];
+        for (int i = 0; i < size; i++) {
+            TimelineBucketDto bucket = timeline.get(i);
+            columns[0][i] = bucket.getEpochMillis();
+            columns[1][i] = orAbsent(bucket.getQueries());
+            columns[2][i] = orAbsent(bucket.getErrors());
+            columns[3][i] = bucket.getInFlight() != null ? Math.round(bucket.getInFlight() * 1000) : ABSENT;
+            StatisticsDto.DurationStats stats = bucket.getRequestDurationMs();
+            if (stats == null) {
+                for (int j = 4; j < columns.length; j++) {
+                    columns[j][i] = ABSENT;
+                }
+                continue;
+            }
+            columns[4][i] = stats.getAverage() != null ? Math.round(stats.getAverage() * 1000) : 0;
+            columns[5][i] = orAbsent(stats.getMin());
+            columns[6][i] = orAbsent(stats.getMax());
+            for (int j = 0; j < labels.size(); j++) {
+                columns[TIMELINE_COLUMNS + j][i] = stats.getPercentiles() != null
+                        ? orAbsent(stats.getPercentiles().get(labels.get(j))) : ABSENT;
+            }
+        }
+        for (long[] column : columns) {
+            writeDeltas(out, column);
+        }
+    }
+
+    private static List<TimelineBucketDto> readTimeline(DataInputStream in) throws IOException {
+        int labelCount = Math.toIntExact(readVarLong(in));
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < labelCount; i++) {
+            labels.add(in.readUTF());
+        }
+        int size = Math.toIntExact(readVarLong(in));
+        long[][] columns = new long[TIMELINE_COLUMNS + labelCount][];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = readDeltas(in, size);
+        }
+
+        List<TimelineBucketDto> timeline = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Long queries = orNull(columns[1][i]);
+            Long errors = orNull(columns[2][i]);
+            StatisticsDto.DurationStats stats = null;
+            if (columns[4][i] != ABSENT) {
+                Map<String, Long> percentiles = new LinkedHashMap<>();
+                for (int j = 0; j < labelCount; j++) {
+                    if (columns[TIMELINE_COLUMNS + j][i] != ABSENT) {
+                        percentiles.put(labels.get(j), columns[TIMELINE_COLUMNS + j][i]);
+                    }
+                }
+                stats = new StatisticsDto.DurationStats(columns[4][i] / 1000.0, orNull(columns[5][i]),
+                        orNull(columns[6][i]), percentiles.isEmpty() ? null : percentiles);
+            }
+            // Buckets span one second, so qps equals the queries; see TimelineAccumulator
+            timeline.add(new TimelineBucketDto(columns[0][i], queries,
+                    queries != null ? queries.doubleValue() : null,
+                    errors,
+                    queries == null || errors == null ? null : queries == 0 ? 0.0 : errors / (double) queries,
+                    columns[3][i] != ABSENT ? columns[3][i] / 1000.0 : null,
+                    stats));
+        }
+        return timeline;
+    }
+
+    private static DataInputStream openRun(Path runFile) throws IOException {
+        InputStream file = Files.newInputStream(runFile);
+        try {
+            DataInputStream header = new DataInputStream(file);
+            if (header.readInt() != MAGIC) {
+                throw new IOException(runFile + " is not a run file");
+            }
+            byte version = header.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported version " + version + " of run file " + runFile);
+            }
+            return new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(new BufferedInputStream(file, STREAM_BUFFER_SIZE)), STREAM_BUFFER_SIZE));
+        } catch (EOFException e) {
+            file.close();
+            throw new IOException(runFile + " is not a run file", e);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static HistoryRunDto readDescription(DataInputStream in) throws IOException {
+        byte[] json = in.readNBytes(Math.toIntExact(readVarLong(in)));
+        return OBJECT_MAPPER.readValue(json, HistoryRunDto.class);
+    }
+
+    private static void skipDescription(DataInputStream in) throws IOException {
+        in.skipNBytes(readVarLong(in));
+    }
+
+    // Reads the overall group and the query types accepted by the filter, skipping the others
+    private static StoredGroups readGroups(DataInputStream in, Predicate<String> queryTypes) throws IOException {
+        StoredGroup overall = readGroup(in, true);
+        long count = readVarLong(in);
+        Map<String, StoredGroup> groups = new LinkedHashMap<>();
+        for (long i = 0; i < count; i++) {
+            String queryType = in.readUTF();
+            boolean wanted = queryTypes.test(queryType);
+            StoredGroup group = readGroup(in, wanted);
+            if (wanted) {
+                groups.put(queryType, group);
+            }
+        }
+        return new StoredGroups(overall, groups);
+    }
+
+    private static StoredGroup readGroup(DataInputStream in, boolean decode) throws IOException {
+        long totalQueries = readVarLong(in);
+        Histogram[] histograms = new Histogram[RunComparator.Metric.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            long length = readVarLong(in);
+            if (length == 0) {
+                continue;
+            }
+            if (!decode) {
+                in.skipNBytes(length);
+                continue;
+            }
+            byte[] encoded = in.readNBytes(Math.toIntExact(length));
+            histograms[i] = Histogram.decodeFromByteBuffer(ByteBuffer.wrap(encoded), 0);
+        }
+        return new StoredGroup(totalQueries, histograms);
+    }
+
+    private record StoredGroups(StoredGroup overall, Map<String, StoredGroup> queryTypes) {
+    }
+
+    private record StoredGroup(long totalQueries, Histogram[] histograms) {
+
+        // Histograms in the order of RunComparator.Metric
+        RunHistogramsDto.GroupHistograms toDto() {
+            byte[][] encoded = new byte[histograms.length][];
+            for (int i = 0; i < histograms.length; i++) {
+                if (histograms[i] != null) {
+                    ByteBuffer buffer = ByteBuffer.allocate(histograms[i].getNeededByteBufferCapacity());
+                    int length = histograms[i].encodeIntoCompressedByteBuffer(buffer);
+                    encoded[i] = Arrays.copyOf(buffer.array(), length);
+                }
+            }
+            return new RunHistogramsDto.GroupHistograms(totalQueries, encoded[0], encoded[1], encoded[2]);
+        }
+    }
+
+    private static Histogram decodeCompressed(byte[] encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid histogram", e);
+        }
+    }
+
+    private static void writeDeltas(DataOutputStream out, long[] column) throws IOException {
+        long previous = 0;
+        for (long value : column) {
+            long delta = value - previous;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = value;
+        }
+    }
+
+    private static long[] readDeltas(DataInputStream in, int size) throws IOException {
+        long[] column = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            long zigZag = readVarLong(in);
+            previous += (zigZag >>> 1) ^ -(zigZag & 1);
+            column[i] = previous;
+        }
+        return column;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in run file");
+    }
+
+    private static long orAbsent(Long value) {
+        return value != null ? value : ABSENT;
+    }
+
+    private static Long orNull(long value) {
+        return value != ABSENT ? value : null;
+    }
+
+    // 99.9 -> "p99.9", 50.0 -> "p50", like the statistics
+    private static String label(double percentile) {
+        return "p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File of fixed-width primitive values that is memory-mapped in regions of a fixed size.
+ *
+ * <p>
+ * The file grows one region at a time as values are appended, so the values never occupy heap and the column can
+ * hold far more values than fit into memory. Values are stored little-endian at {@code index * width}. The file
+ * always ends on a region boundary; the number of values in use is tracked by the caller.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe for writes; concurrent reads of values written before are safe.
+ * </p>
+ */
+final class MappedColumn implements AutoCloseable {
+
+    private final Path file;
+    private final int width;
+    private final long valuesPerRegion;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+    /**
+     * Creates (or truncates) the column file.
+     *
+     * @param width       bytes per value: 2, 4 or 8
+     * @param regionBytes bytes mapped at a time, rounded down to a multiple of the width
+     */
+    MappedColumn(Path file, int width, long regionBytes) throws IOException {
+        if (width != 2 && width != 4 && width != 8) {
+            throw new IllegalArgumentException("width must be 2, 4 or 8");
+        }
+        if (regionBytes < width || regionBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("regionBytes must be between width and 2 GiB");
+        }
+        this.file = file;
+        this.width = width;
+        this.valuesPerRegion = regionBytes / width;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /**
+     * Maps further regions until the column can hold the given number of values.
+     */
+    void ensureCapacity(long values) throws IOException {
+        while ((long) regions.size() * valuesPerRegion < values) {
+            long position = regions.size() * valuesPerRegion * width;
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, position, valuesPerRegion * width);
+            region.order(ByteOrder.LITTLE_ENDIAN);
+            regions.add(region);
+        }
+    }
+
+    void putShort(long index, short value) {
+        region(index).putShort(offset(index), value);
+    }
+
+    void putInt(long index, int value) {
+        region(index).putInt(offset(index), value);
+    }
+
+    void putLong(long index, long value) {
+        region(index).putLong(offset(index), value);
+    }
+
+    short getShort(long index) {
+        return region(index).getShort(offset(index));
+    }
+
+    int getInt(long index) {
+        return region(index).getInt(offset(index));
+    }
+
+    long getLong(long index) {
+        return region(index).getLong(offset(index));
+    }
+
+    /**
+     * Writes the mapped regions back to the file.
+     */
+    void force() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+    }
+
+    /**
+     * Closes the channel; the mappings stay valid until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        regions.clear();
+        channel.close();
+    }
+
+    private MappedByteBuffer region(long index) {
+        return regions.get((int) (index / valuesPerRegion));
+    }
+
+    private int offset(long index) {
+        return (int) (index % valuesPerRegion) * width;
+    }
+}
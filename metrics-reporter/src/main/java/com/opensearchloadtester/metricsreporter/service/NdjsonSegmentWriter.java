@@ -0,0 +1,414 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends records to the NDJSON report from a dedicated I/O thread.
+ *
+ * <p>
+ * Callers hand over whole batches and wait until they are written. The I/O thread takes all batches queued at that
+ * moment, serializes them with Jackson into one reused direct buffer, writes them to a long-lived
+ * {@link FileChannel} and syncs the file according to the {@link FsyncPolicy} once per group (group commit), so
+ * concurrent uploads share one write and one fsync. A group that cannot be written completely is cut off the file
+ * again and fails all of its batches.
+ * </p>
+ *
+ * <p>
+ * The report is split into segments: once a segment exceeds the maximum size, the next group goes to a new file
+ * {@code <name>.<index>.<extension>}. The first segment keeps the configured file name.
+ * </p>
+ *
+ * <p>
+ * If an {@link NdjsonSparseIndex} is given, every line is added to it while being written and the index entries of a
+ * group are appended once the group is in the report.
+ * </p>
+ */
+@Slf4j
+final class NdjsonSegmentWriter implements AutoCloseable {
+
+    /**
+     * When written records are forced to the storage device. Independent of the policy the file is always synced
+     * on {@link #flush()}, on rotation and on close.
+     */
+    enum FsyncPolicy {
+        // Leave it to the operating system
+        NEVER,
+        // After every group commit, before the batches of the group are acknowledged
+        GROUP,
+        // With the first group commit after the fsync interval elapsed
+        INTERVAL
+    }
+
+    private static final int BUFFER_BYTES = 256 * 1024;
+    private static final int MAX_GROUP_BATCHES = 256;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final Path firstSegment;
+    private final long maxSegmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ObjectWriter writer;
+    private final NdjsonSparseIndex index;
+    private final BlockingQueue<WriteRequest> queue;
+    private final List<Path> segments = new CopyOnWriteArrayList<>();
+    private final Thread ioThread;
+    private volatile boolean closed;
+
+    // Owned by the I/O thread
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final OutputStream bufferStream = new BufferOutputStream();
+    private FileChannel channel;
+    private long segmentBytes;
+    private long lastFsyncNanos = System.nanoTime();
+
+    /**
+     * Creates (or truncates) the first segment and starts the I/O thread.
+     *
+     * @param maxSegmentBytes  size after which the next segment is started, 0 for a single file
+     * @param queueCapacity    batches waiting for the I/O thread before callers block
+     * @throws IOException if the first segment cannot be created
+     */
+    NdjsonSegmentWriter(Path firstSegment, long maxSegmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis,
+                        int queueCapacity, ObjectWriter writer) throws IOException {
+        this(firstSegment, maxSegmentBytes, fsyncPolicy, fsyncIntervalMillis, queueCapacity, writer, null);
+    }
+
+    /**
+     * Like {@link #NdjsonSegmentWriter(Path, long, FsyncPolicy, long, int, ObjectWriter)}, adding every line to the
+     * index, if not null.
+     */
+    NdjsonSegmentWriter(Path firstSegment, long maxSegmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis,
+                        int queueCapacity, ObjectWriter writer, NdjsonSparseIndex index) throws IOException {
+        if (maxSegmentBytes < 0) {
+            throw new IllegalArgumentException("maxSegmentBytes must not be negative");
+        }
+        this.firstSegment = firstSegment;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.index = index;
+        openSegment(firstSegment);
+
+        this.ioThread = new Thread(this::run, "ndjson-writer");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    /**
+     * Returns the path of the segment with the given index, index 0 being the first segment itself.
+     */
+    static Path segmentPath(Path firstSegment, int index) {
+        if (index == 0) {
+            return firstSegment;
+        }
+        String name = firstSegment.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        String segmentName = extension > 0
+                ? name.substring(0, extension) + "." + index + name.substring(extension)
+                : name + "." + index;
+        return firstSegment.resolveSibling(segmentName);
+    }
+
+    /**
+     * Returns the segments of a previous run in order, e.g. to delete them before a new run starts.
+     */
+    static List<Path> existingSegments(Path firstSegment) {
+        List<Path> existing = new ArrayList<>();
+        for (int index = 0; Files.exists(segmentPath(firstSegment, index)); index++) {
+            existing.add(segmentPath(firstSegment, index));
+        }
+        return existing;
+    }
+
+    /**
+     * Appends the records, one line each, and returns once they are written (and synced if the policy says so).
+     * Blocks while the queue of the I/O thread is full.
+     *
+     * @throws IOException if the records could not be written; none of them are in the report then
+     */
+    void write(List<?> records) throws IOException {
+        await(enqueue(records, false));
+    }
+
+    /**
+     * Appends the lines of a staged batch like {@link #write(List)}, copying them from memory or its spill file.
+     * The staged batch must not be changed until this method returns.
+     */
+    void write(StagedNdjson staged) throws IOException {
+        await(enqueue(List.of(), staged, false));
+    }
+
+    /**
+     * Creates an empty staged batch serializing records like this writer.
+     *
+     * @param spillDirectory directory of the temporary file the batch spills to once it exceeds memoryBytes
+     */
+    StagedNdjson stage(Path spillDirectory, int memoryBytes) {
+        return new StagedNdjson(writer, spillDirectory, memoryBytes, index != null ? index.newBlocks() : null);
+    }
+
+    /**
+     * Waits until all batches handed over before are written and syncs the current segment.
+     */
+    void flush() throws IOException {
+        await(enqueue(List.of(), true));
+    }
+
+    /**
+     * Returns all segments written so far in order.
+     */
+    List<Path> segments() {
+        return List.copyOf(segments);
+    }
+
+    /**
+     * Writes the batches still queued, syncs and closes the current segment and stops the I/O thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.offer(new WriteRequest(List.of(), null, true, new CompletableFuture<>()));
+        try {
+            ioThread.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ioThread.isAlive()) {
+            log.warn("NDJSON writer did not finish within {} seconds", CLOSE_TIMEOUT_SECONDS);
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(List<?> records, boolean force) throws IOException {
+        return enqueue(records, null, force);
+    }
+
+    private CompletableFuture<Void> enqueue(List<?> records, StagedNdjson staged, boolean force) throws IOException {
+        if (closed) {
+            throw new IOException("NDJSON writer is closed");
+        }
+        WriteRequest request = new WriteRequest(records, staged, force, new CompletableFuture<>());
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the NDJSON writer");
+        }
+        return request.done();
+    }
+
+    private static void await(CompletableFuture<Void> done) throws IOException {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the NDJSON writer");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to write NDJSON report", e.getCause());
+        }
+    }
+
+    private void run() {
+        List<WriteRequest> group = new ArrayList<>();
+        while (!(closed && queue.isEmpty())) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(group, MAX_GROUP_BATCHES - 1);
+            commit(group);
+            group.clear();
+        }
+
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close NDJSON segment: {}", e.getMessage());
+        }
+        if (index != null) {
+            index.closeWriter();
+        }
+        WriteRequest request;
+        while ((request = queue.poll()) != null) {
+            request.done().completeExceptionally(new IOException("NDJSON writer is closed"));
+        }
+    }
+
+    private void commit(List<WriteRequest> group) {
+        long groupStart = segmentBytes;
+        if (index != null) {
+            index.beginGroup();
+        }
+        try {
+            boolean force = fsyncPolicy == FsyncPolicy.GROUP
+                    || (fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastFsyncNanos >= fsyncIntervalNanos);
+            try (JsonGenerator generator = createLineGenerator(writer, bufferStream)) {
+                for (WriteRequest request : group) {
+                    for (Object record : request.records()) {
+                        if (index != null) {
+                            index.line(segments.size() - 1,
+                                    segmentBytes + buffer.position() + generator.getOutputBuffered(), record);
+                        }
+                        writer.writeValue(generator, record);
+                        generator.writeRaw('\n');
+                    }
+                    if (request.staged() != null) {
+                        // Keep the order of lines: everything serialized so far goes first
+                        generator.flush();
+                        drainBuffer();
+                        long stagedStart = segmentBytes;
+                        segmentBytes += request.staged().transferTo(channel);
+                        if (index != null && request.staged().indexBlocks() != null) {
+                            index.staged(segments.size() - 1, stagedStart, request.staged().indexBlocks(),
+                                    segmentBytes - stagedStart);
+                        }
+                    }
+                    force |= request.force();
+                }
+            }
+            drainBuffer();
+            if (force) {
+                channel.force(false);
+                lastFsyncNanos = System.nanoTime();
+            }
+            if (index != null && group.stream().anyMatch(WriteRequest::force)) {
+                // Flushing makes all lines written so far findable
+                index.finishBlock(segmentBytes);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write {} metrics batches to NDJSON report", group.size(), e);
+            discardGroup(groupStart);
+            if (index != null) {
+                index.rollbackGroup();
+            }
+            for (WriteRequest request : group) {
+                request.done().completeExceptionally(e);
+            }
+            return;
+        }
+
+        if (index != null) {
+            index.commitGroup();
+        }
+        for (WriteRequest request : group) {
+            request.done().complete(null);
+        }
+        if (maxSegmentBytes > 0 && segmentBytes >= maxSegmentBytes) {
+            rotate();
+        }
+    }
+
+    // Cuts a partially written group off the segment, so every batch is either complete or missing
+    private void discardGroup(long groupStart) {
+        buffer.clear();
+        try {
+            channel.truncate(groupStart);
+            channel.position(groupStart);
+            segmentBytes = groupStart;
+        } catch (IOException e) {
+            log.error("Failed to discard partially written batches from {}", segments.getLast(), e);
+        }
+    }
+
+    private void rotate() {
+        Path next = segmentPath(firstSegment, segments.size());
+        if (index != null) {
+            index.finishBlock(segmentBytes);
+            index.commitGroup();
+        }
+        try {
+            channel.force(false);
+            channel.close();
+            openSegment(next);
+            log.info("Continuing NDJSON report in segment {}", next.toAbsolutePath());
+        } catch (IOException e) {
+            // Keep appending to the current segment rather than losing records
+            log.error("Failed to rotate NDJSON report to {}", next.toAbsolutePath(), e);
+            try {
+                channel = FileChannel.open(segments.getLast(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException reopenException) {
+                log.error("Failed to reopen NDJSON segment {}", segments.getLast(), reopenException);
+            }
+        }
+    }
+
+    // Generator writing one record per line, without Jackson's separator between root values
+    static JsonGenerator createLineGenerator(ObjectWriter writer, OutputStream out) throws IOException {
+        JsonGenerator generator = writer.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void openSegment(Path segment) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segmentBytes = 0;
+        segments.add(segment);
+    }
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentBytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private record WriteRequest(List<?> records, StagedNdjson staged, boolean force, CompletableFuture<Void> done) {
+    }
+
+    // Collects the generator output in the direct buffer, writing it to the channel whenever it is full
+    private final class BufferOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drainBuffer();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    drainBuffer();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sparse on-disk index of the NDJSON report: which blocks of which segment hold results of a time bucket, query
+ * type and status class.
+ *
+ * <p>
+ * The {@link NdjsonSegmentWriter} cuts the segments into blocks of about the configured size at line boundaries
+ * and hands every line to the index while writing it. Once a block is complete, the index appends one entry per
+ * (bucket, query type, status class) found in it, with the offset, length and number of lines of the block
+ * ({@value #ENTRY_BYTES} bytes, little-endian). Query type names are appended to a text file next to it, one per
+ * line in the order of their ordinals. Entries of a group are appended only once the group is in the report.
+ * </p>
+ *
+ * <p>
+ * {@link #read(List, Filter, Cursor, int, ObjectReader)} serves a filtered slice by scanning the index entries and
+ * memory-mapping only the blocks they point to. The block still being filled is not in the index yet, so the
+ * newest lines show up once their block is complete, at the latest when the report is flushed.
+ * </p>
+ */
+@Slf4j
+final class NdjsonSparseIndex {
+
+    static final int ENTRY_BYTES = 32;
+    static final int NO_QUERY_TYPE = 0xFFFF;
+
+    private static final int READ_BUFFER_ENTRIES = 8192;
+
+    private final Path file;
+    private final Path queryTypesFile;
+    private final long blockBytes;
+    private final long bucketMillis;
+    private final Map<String, Integer> queryTypeOrdinals = new ConcurrentHashMap<>();
+    private final List<String> queryTypeNames = new CopyOnWriteArrayList<>();
+    private volatile long committedEntries;
+    private volatile boolean failed;
+
+    // Owned by the writer thread
+    private final FileChannel channel;
+    private final Blocks pending;
+    private Blocks.State snapshot;
+
+    /**
+     * Creates (or truncates) the index and its query type file.
+     *
+     * @param blockBytes   bytes after which the next line starts a new block
+     * @param bucketMillis width of the time buckets, by start time of the results
+     */
+    NdjsonSparseIndex(Path file, long blockBytes, long bucketMillis) throws IOException {
+        if (blockBytes < 1 || bucketMillis < 1) {
+            throw new IllegalArgumentException("blockBytes and bucketMillis must be positive");
+        }
+        this.file = file;
+        this.queryTypesFile = queryTypesFile(file);
+        this.blockBytes = blockBytes;
+        this.bucketMillis = bucketMillis;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        Files.writeString(queryTypesFile, "");
+        this.pending = new Blocks();
+    }
+
+    /**
+     * Returns the file holding the query type names of the index.
+     */
+    static Path queryTypesFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".types");
+    }
+
+    /**
+     * Creates an empty block list for lines staged outside the report; see {@link #staged(int, long, Blocks, long)}.
+     */
+    Blocks newBlocks() {
+        return new Blocks();
+    }
+
+    long entries() {
+        return committedEntries;
+    }
+
+    /**
+     * Remembers the block in progress, so {@link #rollbackGroup()} can restore it.
+     */
+    void beginGroup() {
+        snapshot = pending.state();
+    }
+
+    /**
+     * Adds the line of the record starting at the given offset of the segment.
+     */
+    void line(int segment, long offset, Object record) {
+        pending.add(segment, offset, record);
+    }
+
+    /**
+     * Adds the blocks of a staged batch that was copied to the segment at the given offset.
+     */
+    void staged(int segment, long offset, Blocks staged, long stagedBytes) {
+        pending.finish(offset);
+        for (Block block : staged.finishAndDrain(stagedBytes)) {
+            block.segment = segment;
+            block.offset += offset;
+            pending.closed.add(block);
+        }
+    }
+
+    /**
+     * Completes the block in progress, which ends at the given offset of its segment.
+     */
+    void finishBlock(long end) {
+        pending.finish(end);
+    }
+
+    /**
+     * Appends the entries of the completed blocks. A failure is logged and disables the index, the report itself
+     * is not affected.
+     */
+    void commitGroup() {
+        List<Block> closed = pending.drain();
+        if (closed.isEmpty() || failed) {
+            return;
+        }
+        int entries = 0;
+        for (Block block : closed) {
+            entries += block.counts.size();
+        }
+        ByteBuffer encoded = ByteBuffer.allocate(entries * ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (Block block : closed) {
+            for (Map.Entry<Long, int[]> count : block.counts.entrySet()) {
+                long key = count.getKey();
+                encoded.putLong((key >> 19) * bucketMillis);
+                encoded.putInt(block.segment);
+                encoded.putLong(block.offset);
+                encoded.putInt((int) block.length);
+                encoded.putInt(count.getValue()[0]);
+                encoded.putShort((short) (key & 0xFFFF));
+                encoded.put((byte) ((key >> 16) & 0x7));
+                encoded.put((byte) 0);
+            }
+        }
+        encoded.flip();
+        try {
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+            committedEntries += entries;
+        } catch (IOException e) {
+            failed = true;
+            log.error("Failed to append to results index {}; the index is disabled for this run", file, e);
+        }
+    }
+
+    /**
+     * Forgets the lines added since {@link #beginGroup()}, because the group was cut off the report again.
+     */
+    void rollbackGroup() {
+        pending.restore(snapshot);
+    }
+
+    /**
+     * Closes the index file for writing; slices can still be read.
+     */
+    void closeWriter() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close results index {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns up to limit results matching the filter, in report order, starting at the cursor.
+     *
+     * @param segments the segments of the report, in order
+     * @param cursor   where the previous slice ended, or null for the start of the report
+     * @param reader   reads one line into a JSON tree
+     * @throws IOException if the index or a segment cannot be read, or the index was disabled after a failure
+     */
+    Slice read(List<Path> segments, Filter filter, Cursor cursor, int limit, ObjectReader reader)
+            throws IOException {
+        if (failed) {
+            throw new IOException("Results index " + file + " is incomplete after a write failure");
+        }
+        int queryType = NO_QUERY_TYPE;
+        if (filter.queryType() != null) {
+            Integer ordinal = queryTypeOrdinals.get(filter.queryType());
+            if (ordinal == null) {
+                return new Slice(List.of(), null, 0, 0);
+            }
+            queryType = ordinal;
+        }
+        long fromBucket = filter.fromMillis() != null
+                ? Math.floorDiv(filter.fromMillis(), bucketMillis) * bucketMillis : Long.MIN_VALUE;
+        long entries = committedEntries;
+
+        Cursor position = cursor != null ? cursor : new Cursor(0, 0);
+        List<JsonNode> results = new ArrayList<>();
+        long scannedBlocks = 0;
+        long scannedBytes = 0;
+        int lastSegment = -1;
+        long lastOffset = -1;
+        Map<Integer, FileChannel> channels = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_ENTRIES * ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel index = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long entry = 0; entry < entries; entry++) {
+                if (entry % READ_BUFFER_ENTRIES == 0) {
+                    readEntries(index, buffer, entry, Math.min(READ_BUFFER_ENTRIES, entries - entry));
+                }
+                long bucket = buffer.getLong();
+                int segment = buffer.getInt();
+                long offset = buffer.getLong();
+                int length = buffer.getInt();
+                buffer.getInt();
+                int entryQueryType = buffer.getShort() & 0xFFFF;
+                int statusClass = buffer.get();
+                buffer.get();
+
+                if ((segment == lastSegment && offset == lastOffset)
+                        || segment < position.segment()
+                        || (segment == position.segment() && offset + length <= position.offset())
+                        || (filter.queryType() != null && entryQueryType != queryType)
+                        || (filter.statusClass() != null && statusClass != filter.statusClass())
+                        || bucket < fromBucket
+                        || (filter.toMillis() != null && bucket >= filter.toMillis())) {
+                    continue;
+                }
+                lastSegment = segment;
+                lastOffset = offset;
+                if (segment >= segments.size()) {
+                    throw new IOException("Results index refers to missing segment " + segment);
+                }
+
+                FileChannel segmentChannel = channels.get(segment);
+                if (segmentChannel == null) {
+                    segmentChannel = FileChannel.open(segments.get(segment), StandardOpenOption.READ);
+                    channels.put(segment, segmentChannel);
+                }
+                long start = segment == position.segment() ? Math.max(offset, position.offset()) : offset;
+                scannedBlocks++;
+                scannedBytes += offset + length - start;
+                long end = scanBlock(segmentChannel, start, offset + length, filter, limit, results, reader);
+                if (results.size() == limit) {
+                    return new Slice(results, new Cursor(segment, end), scannedBlocks, scannedBytes);
+                }
+            }
+        } finally {
+            for (FileChannel segmentChannel : channels.values()) {
+                segmentChannel.close();
+            }
+        }
+        return new Slice(results, null, scannedBlocks, scannedBytes);
+    }
+
+    private static void readEntries(FileChannel index, ByteBuffer buffer, long entry, long count)
+            throws IOException {
+        buffer.clear();
+        buffer.limit((int) (count * ENTRY_BYTES));
+        long position = entry * ENTRY_BYTES;
+        while (buffer.hasRemaining()) {
+            int read = index.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Results index ended early");
+            }
+        }
+        buffer.flip();
+    }
+
+    // Adds matching lines from [start, end) until the limit is reached; returns the offset after the last line read
+    private static long scanBlock(FileChannel segment, long start, long end, Filter filter, int limit,
+                                  List<JsonNode> results, ObjectReader reader) throws IOException {
+        MappedByteBuffer block = segment.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        byte[] line = new byte[1024];
+        int lineStart = 0;
+        for (int position = 0; position < block.limit(); position++) {
+            if (block.get(position) != '\n') {
+                continue;
+            }
+            int length = position - lineStart;
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            block.get(lineStart, line, 0, length);
+            lineStart = position + 1;
+            JsonNode result;
+            try {
+                result = reader.readTree(line, 0, length);
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable line at offset {} of the NDJSON report", start + position - length);
+                continue;
+            }
+            if (filter.matches(result)) {
+                results.add(result);
+                if (results.size() == limit) {
+                    return start + lineStart;
+                }
+            }
+        }
+        return end;
+    }
+
+    private synchronized int queryTypeOrdinal(String queryType) {
+        if (queryType == null) {
+            return NO_QUERY_TYPE;
+        }
+        Integer ordinal = queryTypeOrdinals.get(queryType);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        if (queryTypeNames.size() == NO_QUERY_TYPE) {
+            return NO_QUERY_TYPE;
+        }
+        try {
+            Files.writeString(queryTypesFile, queryType + "\n", StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Failed to append query type '{}' to {}: {}", queryType, queryTypesFile, e.getMessage());
+        }
+        queryTypeNames.add(queryType);
+        queryTypeOrdinals.put(queryType, queryTypeNames.size() - 1);
+        return queryTypeNames.size() - 1;
+    }
+
+    // Bucket, status class and query type ordinal of a line, packed into one key
+    private long key(Object record) {
+        if (!(record instanceof MetricsDto metrics)) {
+            return NO_QUERY_TYPE;
+        }
+        long startTime = metrics.getStartTimeEpochMillis() != null ? metrics.getStartTimeEpochMillis() : 0L;
+        int statusClass = metrics.getHttpStatusCode() / 100;
+        if (statusClass < 1 || statusClass > 5) {
+            statusClass = 0;
+        }
+        return (Math.floorDiv(startTime, bucketMillis) << 19) | ((long) statusClass << 16)
+                | queryTypeOrdinal(metrics.getQueryType());
+    }
+
+    /**
+     * Which results a slice holds; null fields do not filter. The time range is by start time, from inclusive and
+     * to exclusive.
+     */
+    record Filter(String queryType, Integer statusCode, Integer statusClass, Long fromMillis, Long toMillis) {
+
+        /**
+         * Creates a filter from request parameters; the status is a code like {@code 503} or a class like
+         * {@code 5xx}.
+         *
+         * @throws IllegalArgumentException if the status or the time range is invalid
+         */
+        static Filter of(String queryType, String status, Long fromMillis, Long toMillis) {
+            Integer statusCode = null;
+            Integer statusClass = null;
+            if (status != null && !status.isBlank()) {
+                String trimmed = status.trim().toLowerCase();
+                if (trimmed.matches("[1-5]xx")) {
+                    statusClass = trimmed.charAt(0) - '0';
+                } else if (trimmed.matches("\\d{1,3}")) {
+                    statusCode = Integer.parseInt(trimmed);
+                    int codeClass = statusCode / 100;
+                    statusClass = codeClass >= 1 && codeClass <= 5 ? codeClass : 0;
+                } else {
+                    throw new IllegalArgumentException("status must be a code like 503 or a class like 5xx");
+                }
+            }
+            if (fromMillis != null && toMillis != null && fromMillis > toMillis) {
+                throw new IllegalArgumentException("from must not be after to");
+            }
+            return new Filter(queryType == null || queryType.isBlank() ? null : queryType, statusCode, statusClass,
+                    fromMillis, toMillis);
+        }
+
+        boolean matches(JsonNode result) {
+            if (queryType != null && !queryType.equals(result.path("query_type").asText(null))) {
+                return false;
+            }
+            if (statusCode != null && result.path("http_status_code").asInt(-1) != statusCode) {
+                return false;
+            }
+            if (statusClass != null && statusCode == null
+                    && result.path("http_status_code").asInt(-1) / 100 != statusClass) {
+                return false;
+            }
+            JsonNode startTime = result.path("start_time_epoch_millis");
+            long start = startTime.isNumber() ? startTime.asLong() : 0L;
+            return (fromMillis == null || start >= fromMillis) && (toMillis == null || start < toMillis);
+        }
+    }
+
+    /**
+     * Position in the report where a slice continues: a segment and the offset of a line in it.
+     */
+    record Cursor(int segment, long offset) {
+
+        /**
+         * @throws IllegalArgumentException if the cursor was not created by {@link #toString()}
+         */
+        static Cursor parse(String cursor) {
+            String[] parts = cursor.split(":");
+            try {
+                if (parts.length == 2) {
+                    Cursor parsed = new Cursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+                    if (parsed.segment() >= 0 && parsed.offset() >= 0) {
+                        return parsed;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+
+        @Override
+        public String toString() {
+            return segment + ":" + offset;
+        }
+    }
+
+    /**
+     * Results of one slice, the cursor of the next slice (null if there are no more results) and how much of the
+     * report was scanned for it.
+     */
+    record Slice(List<JsonNode> results, Cursor next, long scannedBlocks, long scannedBytes) {
+    }
+
+    // A run of lines in one segment and the number of lines per key in it
+    static final class Block {
+        private int segment;
+        private long offset;
+        private long length;
+        private final Map<Long, int[]> counts = new HashMap<>();
+
+        private Block(int segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        private Block copy() {
+            Block copy = new Block(segment, offset);
+            counts.forEach((key, count) -> copy.counts.put(key, new int[]{count[0]}));
+            return copy;
+        }
+    }
+
+    /**
+     * Cuts lines into blocks of about the block size. Not thread-safe.
+     */
+    final class Blocks {
+        private final List<Block> closed = new ArrayList<>();
+        private Block open;
+
+        private record State(int closed, Block open) {
+        }
+
+        /**
+         * Adds the line of the record starting at the given offset, starting a new block first if the current
+         * one is full.
+         */
+        void add(int segment, long offset, Object record) {
+            if (open != null && offset - open.offset >= blockBytes) {
+                finish(offset);
+            }
+            if (open == null) {
+                open = new Block(segment, offset);
+            }
+            open.counts.computeIfAbsent(key(record), k -> new int[1])[0]++;
+        }
+
+        private void finish(long end) {
+            if (open != null) {
+                open.length = end - open.offset;
+                closed.add(open);
+                open = null;
+            }
+        }
+
+        private List<Block> finishAndDrain(long end) {
+            finish(end);
+            return drain();
+        }
+
+        private List<Block> drain() {
+            List<Block> drained = new ArrayList<>(closed);
+            closed.clear();
+            return drained;
+        }
+
+        private State state() {
+            return new State(closed.size(), open != null ? open.copy() : null);
+        }
+
+        private void restore(State state) {
+            closed.subList(state.closed(), closed.size()).clear();
+            open = state.open();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.ExactPercentilesDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The raw-sample store of a run and the exact percentiles computed over it once the run is finalized.
+ * The store is created with the first samples.
+ */
+@Slf4j
+final class RawSampleReport implements AutoCloseable {
+
+    private final Path directory;
+    private final long regionBytes;
+    private final Path exactPercentilesPath;
+    private final double[] percentiles;
+    private final int threads;
+    private final ObjectMapper objectMapper;
+    private RawSampleStore store;
+
+    RawSampleReport(Path directory, long regionBytes, Path exactPercentilesPath, double[] percentiles, int threads,
+                    ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.regionBytes = regionBytes;
+        this.exactPercentilesPath = exactPercentilesPath;
+        this.percentiles = percentiles;
+        this.threads = threads;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Appends the samples; safe to call from concurrent request threads.
+     */
+    void append(List<MetricsDto> metricsList) throws IOException {
+        store().append(metricsList);
+    }
+
+    /**
+     * Computes the exact percentiles over all samples in the background and writes them next to the statistics.
+     *
+     * @return completes once the percentiles were written, exceptionally if that failed
+     */
+    CompletableFuture<Void> computeExactPercentiles() throws IOException {
+        RawSampleStore samples = store();
+        CompletableFuture<Void> job = CompletableFuture.runAsync(() -> {
+            ExecutorService workers = Executors.newFixedThreadPool(threads,
+                    Thread.ofPlatform().name("exact-percentiles-", 1).daemon().factory());
+            try {
+                samples.writeManifest();
+                long start = System.nanoTime();
+                writeExactPercentiles(samples, workers);
+                log.info("Exact percentiles over {} raw samples written to {} in {} ms", samples.size(),
+                        exactPercentilesPath, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                workers.shutdownNow();
+            }
+        }, task -> Thread.ofPlatform().name("exact-percentiles").start(task));
+        job.whenComplete((result, failure) -> {
+            if (failure != null) {
+                log.error("Failed to compute exact percentiles", failure);
+            }
+        });
+        return job;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private synchronized RawSampleStore store() throws IOException {
+        if (store == null) {
+            store = new RawSampleStore(directory, regionBytes);
+        }
+        return store;
+    }
+
+    private void writeExactPercentiles(RawSampleStore samples, ExecutorService workers) throws IOException {
+        Map<String, RawSampleStore.GroupPercentiles> groups = samples.exactPercentiles(percentiles, workers);
+        Map<String, ExactPercentilesDto.GroupPercentiles> queryTypes = new LinkedHashMap<>();
+        groups.entrySet().stream()
+                .filter(group -> group.getKey() != null)
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(group -> queryTypes.put(group.getKey(), toExactPercentiles(group.getValue())));
+        ExactPercentilesDto.GroupPercentiles overall = toExactPercentiles(groups.get(null));
+        objectMapper.writeValue(exactPercentilesPath.toFile(),
+                new ExactPercentilesDto(LocalDateTime.now(), samples.size(), overall, queryTypes));
+    }
+
+    private static ExactPercentilesDto.GroupPercentiles toExactPercentiles(RawSampleStore.GroupPercentiles group) {
+        return new ExactPercentilesDto.GroupPercentiles(
+                group.samples()[RawSampleStore.Metric.REQUEST_DURATION.ordinal()],
+                group.values().get(RawSampleStore.Metric.REQUEST_DURATION),
+                group.values().get(RawSampleStore.Metric.CORRECTED_REQUEST_DURATION),
+                group.values().get(RawSampleStore.Metric.QUERY_DURATION));
+    }
+}
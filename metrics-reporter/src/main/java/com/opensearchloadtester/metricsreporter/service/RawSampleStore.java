@@ -0,0 +1,380 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps every sample of a run in memory-mapped primitive column files, so exact percentiles can be computed over
+ * all samples without re-reading the NDJSON report.
+ *
+ * <p>
+ * Columns (little-endian, one value per sample, see {@link #MANIFEST} for the number of samples):
+ * {@code request_duration_millis}, {@code corrected_request_duration_millis} and {@code query_duration_millis}
+ * as int32 ({@value #NULL_DURATION} if missing), {@code http_status_code} as int16, {@code query_type} as the
+ * uint16 index into the query types of the manifest ({@value #NULL_QUERY_TYPE} if missing) and
+ * {@code start_time_epoch_millis} as int64 (0 if missing). That is 24 bytes per sample on disk and none on heap.
+ * </p>
+ *
+ * <p>
+ * {@link #exactPercentiles(double[], ExecutorService)} finds the nearest-rank percentiles per query type by radix
+ * selection: three passes over the columns, each narrowing every wanted rank down to the samples that share the
+ * next 11 bits of its value. The passes split the samples into chunks counted in parallel. Heap usage depends on the
+ * number of query types, percentiles and threads only, not on the number of samples.
+ * </p>
+ */
+@Slf4j
+final class RawSampleStore implements AutoCloseable {
+
+    static final String MANIFEST = "manifest.json";
+    static final int NULL_DURATION = -1;
+    static final int NULL_QUERY_TYPE = 0xFFFF;
+
+    // Durations are non-negative ints: 31 bits in digits of at most RADIX_BITS
+    private static final int VALUE_BITS = 31;
+    private static final int RADIX_BITS = 11;
+    // Per-chunk counters are ints, so a chunk must hold fewer samples than that
+    private static final long MAX_CHUNK_SAMPLES = 1L << 30;
+
+    private static final ObjectMapper MANIFEST_MAPPER = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Durations the percentiles are computed for, in the order of the duration columns.
+     */
+    enum Metric {
+        REQUEST_DURATION,
+        CORRECTED_REQUEST_DURATION,
+        QUERY_DURATION
+    }
+
+    private final Path directory;
+    private final MappedColumn[] durations = new MappedColumn[Metric.values().length];
+    private final MappedColumn statusCodes;
+    private final MappedColumn queryTypes;
+    private final MappedColumn startTimes;
+    private final Map<String, Integer> queryTypeOrdinals = new HashMap<>();
+    private final List<String> queryTypeNames = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long size;
+
+    /**
+     * Creates the directory and (empty) column files, replacing those of a previous run.
+     *
+     * @param regionBytes bytes of each column file mapped at a time
+     */
+    RawSampleStore(Path directory, long regionBytes) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(MANIFEST));
+        durations[Metric.REQUEST_DURATION.ordinal()] =
+                new MappedColumn(directory.resolve("request_duration_millis.i32"), 4, regionBytes);
+        durations[Metric.CORRECTED_REQUEST_DURATION.ordinal()] =
+                new MappedColumn(directory.resolve("corrected_request_duration_millis.i32"), 4, regionBytes);
+        durations[Metric.QUERY_DURATION.ordinal()] =
+                new MappedColumn(directory.resolve("query_duration_millis.i32"), 4, regionBytes);
+        statusCodes = new MappedColumn(directory.resolve("http_status_code.i16"), 2, regionBytes);
+        queryTypes = new MappedColumn(directory.resolve("query_type.u16"), 2, regionBytes);
+        startTimes = new MappedColumn(directory.resolve("start_time_epoch_millis.i64"), 8, regionBytes);
+    }
+
+    /**
+     * Appends the samples; safe to call from concurrent request threads.
+     */
+    void append(List<MetricsDto> metricsList) throws IOException {
+        lock.lock();
+        try {
+            long start = size;
+            long end = start + metricsList.size();
+            for (MappedColumn column : columns()) {
+                column.ensureCapacity(end);
+            }
+            long index = start;
+            for (MetricsDto metrics : metricsList) {
+                durations[0].putInt(index, duration(metrics.getRequestDurationMillis()));
+                durations[1].putInt(index, duration(metrics.getCorrectedRequestDurationMillis()));
+                durations[2].putInt(index, duration(metrics.getQueryDurationMillis()));
+                statusCodes.putShort(index, (short) metrics.getHttpStatusCode());
+                queryTypes.putShort(index, (short) queryTypeOrdinal(metrics.getQueryType()));
+                startTimes.putLong(index, metrics.getStartTimeEpochMillis() != null
+                        ? metrics.getStartTimeEpochMillis() : 0L);
+                index++;
+            }
+            size = end;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    List<String> queryTypes() {
+        lock.lock();
+        try {
+            return List.copyOf(queryTypeNames);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Computes the exact nearest-rank percentiles of every duration, over all samples and per query type. Must
+     * not run concurrently with {@link #append(List)}.
+     *
+     * @return percentiles per group (null for all samples, otherwise the query type) and metric; metrics without
+     * any value in a group are left out, as are samples without a query type from the per-type groups
+     */
+    Map<String, GroupPercentiles> exactPercentiles(double[] percentiles, ExecutorService executor)
+            throws IOException {
+        List<String> types = queryTypes();
+        int overall = types.size();
+        int groups = types.size() + 1;
+        int metrics = Metric.values().length;
+        long samples = size;
+
+        List<Selection> selections = new ArrayList<>();
+        long[][] counts = new long[groups][metrics];
+        for (int remaining = VALUE_BITS; remaining > 0; ) {
+            int bits = Math.min(RADIX_BITS, remaining);
+            int shift = remaining - bits;
+
+            // Samples are counted into one histogram per distinct (group, metric, prefix) still looked for
+            Map<List<Long>, Integer> slotIndex = new LinkedHashMap<>();
+            if (remaining == VALUE_BITS) {
+                for (int group = 0; group < groups; group++) {
+                    for (int metric = 0; metric < metrics; metric++) {
+                        slotIndex.put(List.of((long) group, (long) metric, 0L), slotIndex.size());
+                    }
+                }
+            } else {
+                for (Selection selection : selections) {
+                    slotIndex.putIfAbsent(selection.slotKey(), slotIndex.size());
+                }
+            }
+            long[][] histograms = countPass(slotIndex, groups, shift, bits, samples, executor);
+
+            if (remaining == VALUE_BITS) {
+                for (Map.Entry<List<Long>, Integer> slot : slotIndex.entrySet()) {
+                    int group = slot.getKey().get(0).intValue();
+                    int metric = slot.getKey().get(1).intValue();
+                    long count = 0;
+                    for (long bucket : histograms[slot.getValue()]) {
+                        count += bucket;
+                    }
+                    counts[group][metric] = count;
+                    for (double percentile : percentiles) {
+                        if (count > 0) {
+                            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+                            selections.add(new Selection(group, metric, percentile, Math.min(rank, count)));
+                        }
+                    }
+                }
+            }
+            for (Selection selection : selections) {
+                long[] histogram = histograms[slotIndex.get(selection.slotKey())];
+                long below = 0;
+                int digit = 0;
+                while (below + histogram[digit] < selection.rank) {
+                    below += histogram[digit];
+                    digit++;
+                }
+                selection.rank -= below;
+                selection.prefix = (selection.prefix << bits) | digit;
+            }
+            remaining = shift;
+        }
+
+        Map<String, GroupPercentiles> result = new LinkedHashMap<>();
+        for (int group = 0; group < groups; group++) {
+            result.put(group == overall ? null : types.get(group), new GroupPercentiles(
+                    counts[group], new LinkedHashMap<>()));
+        }
+        for (Selection selection : selections) {
+            GroupPercentiles group = result.get(selection.group == overall ? null : types.get(selection.group));
+            group.values().computeIfAbsent(Metric.values()[selection.metric], metric -> new LinkedHashMap<>())
+                    .put(DurationAccumulator.label(selection.percentile), selection.prefix);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the manifest describing the columns and flushes them to disk.
+     */
+    void writeManifest() throws IOException {
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("samples", size);
+        manifest.put("byte_order", "little_endian");
+        Map<String, String> columnTypes = new LinkedHashMap<>();
+        for (MappedColumn column : columns()) {
+            String name = column.file().getFileName().toString();
+            columnTypes.put(name.substring(0, name.lastIndexOf('.')), name.substring(name.lastIndexOf('.') + 1));
+            column.force();
+        }
+        manifest.put("columns", columnTypes);
+        manifest.put("null_duration", NULL_DURATION);
+        manifest.put("null_query_type", NULL_QUERY_TYPE);
+        manifest.put("query_types", queryTypes());
+        MANIFEST_MAPPER.writeValue(directory.resolve(MANIFEST).toFile(), manifest);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MappedColumn column : columns()) {
+            column.close();
+        }
+    }
+
+    private long[][] countPass(Map<List<Long>, Integer> slotIndex, int groups, int shift, int bits, long samples,
+                               ExecutorService executor) throws IOException {
+        int metrics = Metric.values().length;
+        // Slots a sample of (group, metric) may fall into, with the prefix it must have
+        int[][] slotsByGroupMetric = new int[groups * metrics][];
+        int[] slotPrefix = new int[slotIndex.size()];
+        Map<Integer, List<Integer>> grouped = new HashMap<>();
+        for (Map.Entry<List<Long>, Integer> slot : slotIndex.entrySet()) {
+            int key = (int) (slot.getKey().get(0) * metrics + slot.getKey().get(1));
+            grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(slot.getValue());
+            slotPrefix[slot.getValue()] = slot.getKey().get(2).intValue();
+        }
+        for (int key = 0; key < slotsByGroupMetric.length; key++) {
+            slotsByGroupMetric[key] = grouped.getOrDefault(key, List.of()).stream().mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        long chunkSamples = Math.min(MAX_CHUNK_SAMPLES, Math.max(1, (samples + threads * 4L - 1) / (threads * 4L)));
+        List<Future<int[][]>> chunks = new ArrayList<>();
+        for (long from = 0; from < samples; from += chunkSamples) {
+            long start = from;
+            long end = Math.min(samples, from + chunkSamples);
+            chunks.add(executor.submit(() ->
+                    countChunk(start, end, groups, slotsByGroupMetric, slotPrefix, shift, bits)));
+        }
+
+        long[][] histograms = new long[slotIndex.size()][1 << bits];
+        try {
+            for (Future<int[][]> chunk : chunks) {
+                int[][] counted = chunk.get();
+                for (int slot = 0; slot < histograms.length; slot++) {
+                    for (int digit = 0; digit < histograms[slot].length; digit++) {
+                        histograms[slot][digit] += counted[slot][digit];
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing exact percentiles");
+        } catch (ExecutionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new IOException("Failed to compute exact percentiles", e.getCause());
+        }
+        return histograms;
+    }
+
+    private int[][] countChunk(long from, long to, int groups, int[][] slotsByGroupMetric, int[] slotPrefix,
+                               int shift, int bits) {
+        int metrics = Metric.values().length;
+        int overall = groups - 1;
+        int mask = (1 << bits) - 1;
+        int prefixShift = shift + bits;
+        int[][] histograms = new int[slotPrefix.length][1 << bits];
+        for (long index = from; index < to; index++) {
+            int type = queryTypes.getShort(index) & 0xFFFF;
+            for (int metric = 0; metric < metrics; metric++) {
+                int value = durations[metric].getInt(index);
+                if (value < 0) {
+                    continue;
+                }
+                int prefix = value >>> prefixShift;
+                int digit = (value >>> shift) & mask;
+                for (int slot : slotsByGroupMetric[overall * metrics + metric]) {
+                    if (slotPrefix[slot] == prefix) {
+                        histograms[slot][digit]++;
+                    }
+                }
+                if (type != NULL_QUERY_TYPE) {
+                    for (int slot : slotsByGroupMetric[type * metrics + metric]) {
+                        if (slotPrefix[slot] == prefix) {
+                            histograms[slot][digit]++;
+                        }
+                    }
+                }
+            }
+        }
+        return histograms;
+    }
+
+    private MappedColumn[] columns() {
+        return new MappedColumn[]{durations[0], durations[1], durations[2], statusCodes, queryTypes, startTimes};
+    }
+
+    private int queryTypeOrdinal(String queryType) {
+        if (queryType == null) {
+            return NULL_QUERY_TYPE;
+        }
+        Integer ordinal = queryTypeOrdinals.get(queryType);
+        if (ordinal == null) {
+            if (queryTypeNames.size() == NULL_QUERY_TYPE) {
+                log.warn("More than {} query types; storing '{}' without query type", NULL_QUERY_TYPE, queryType);
+                return NULL_QUERY_TYPE;
+            }
+            ordinal = queryTypeNames.size();
+            queryTypeNames.add(queryType);
+            queryTypeOrdinals.put(queryType, ordinal);
+        }
+        return ordinal;
+    }
+
+    private static int duration(Long millis) {
+        if (millis == null || millis < 0) {
+            return NULL_DURATION;
+        }
+        return (int) Math.min(millis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sample counts per metric and the percentiles found for a group.
+     */
+    record GroupPercentiles(long[] samples, Map<Metric, Map<String, Long>> values) {
+    }
+
+    // One wanted percentile: the rank is relative to the samples sharing the prefix found so far
+    private static final class Selection {
+        private final int group;
+        private final int metric;
+        private final double percentile;
+        private long rank;
+        private long prefix;
+
+        Selection(int group, int metric, double percentile, long rank) {
+            this.group = group;
+            this.metric = metric;
+            this.percentile = percentile;
+            this.rank = rank;
+        }
+
+        List<Long> slotKey() {
+            return List.of((long) group, (long) metric, prefix);
+        }
+    }
+}
@@ -1,29 +1,56 @@
 package com.opensearchloadtester.metricsreporter.service;
 
-import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opensearchloadtester.common.dto.LatencyHistogramDto;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.metricsreporter.dto.ExportProgressDto;
+import com.opensearchloadtester.metricsreporter.dto.ResultSliceDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import com.opensearchloadtester.metricsreporter.dto.SinkStatusDto;
 import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
+import com.opensearchloadtester.metricsreporter.dto.TimelineBucketDto;
+import com.opensearchloadtester.metricsreporter.history.RunHistoryStore;
+import com.opensearchloadtester.metricsreporter.sink.ResultSinks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.DataFormatException;
 
 /**
  * Service responsible for creating and exporting test run reports.
@@ -35,6 +62,7 @@ public class ReportService {
 
     private final ObjectMapper objectMapper;
     private final ObjectWriter ndjsonWriter;
+    private final ResultSinks resultSinks;
 
     @Value("${report.output.directory}")
     private String outputDirectory;
@@ -45,10 +73,94 @@ public class ReportService {
     private String ndjsonFilename;
     @Value("${report.resultsjson.filename}")
     private String resultsJsonFilename;
+    // Percentiles of the durations written to the statistics, e.g. 99.9 for p99.9
+    @Value("${report.percentiles:50,90,99,99.9}")
+    private double[] percentiles = {50, 90, 99, 99.9};
+    // Duration histograms overall and per query type, for comparing runs
+    @Value("${report.histograms.filename:histograms.json}")
+    private String histogramsFilename = "histograms.json";
+    @Value("${report.timeline.filename:timeline.ndjson}")
+    private String timelineFilename = "timeline.ndjson";
+    @Value("${report.timeline.seal.delay.seconds:120}")
+    private long timelineSealDelaySeconds = 120;
+    // NDJSON report: segment size (0 for a single file), fsync policy and batches queued for the writer thread
+    @Value("${report.ndjson.segment.max.mb:256}")
+    private long ndjsonSegmentMaxMb = 256;
+    @Value("${report.ndjson.fsync.policy:INTERVAL}")
+    private NdjsonSegmentWriter.FsyncPolicy ndjsonFsyncPolicy = NdjsonSegmentWriter.FsyncPolicy.INTERVAL;
+    @Value("${report.ndjson.fsync.interval.ms:1000}")
+    private long ndjsonFsyncIntervalMs = 1000;
+    @Value("${report.ndjson.queue.capacity:1024}")
+    private int ndjsonQueueCapacity = 1024;
+    // Sparse index of the NDJSON report by start time bucket, query type and status class, for result slices
+    @Value("${report.ndjson.index.enabled:true}")
+    private boolean ndjsonIndexEnabled = true;
+    @Value("${report.ndjson.index.filename:query_results.index}")
+    private String ndjsonIndexFilename = "query_results.index";
+    @Value("${report.ndjson.index.block.kb:256}")
+    private long ndjsonIndexBlockKb = 256;
+    @Value("${report.ndjson.index.bucket.seconds:10}")
+    private long ndjsonIndexBucketSeconds = 10;
+    // Uploads processed at once never contend for a stripe as long as there are at least as many stripes
+    @Value("${report.ingest.stripes:${report.ingest.max.concurrent.requests:4}}")
+    private int statsStripeCount = 4;
+    // NDJSON lines of a streamed batch kept in memory before they spill to a temporary file
+    @Value("${report.ingest.batch.memory.kb:1024}")
+    private long batchMemoryKb = 1024;
+    // Results JSON export: NDJSON is converted in chunks of this size by this many threads (0: one per processor)
+    @Value("${report.export.chunk.mb:64}")
+    private long exportChunkMb = 64;
+    @Value("${report.export.threads:0}")
+    private int exportThreads = 0;
+    // Raw-sample store: every sample in memory-mapped column files, for exact percentiles computed at finalization
+    @Value("${report.raw.samples.enabled:false}")
+    private boolean rawSamplesEnabled = false;
+    @Value("${report.raw.samples.directory:raw_samples}")
+    private String rawSamplesDirectory = "raw_samples";
+    @Value("${report.raw.samples.region.mb:64}")
+    private long rawSamplesRegionMb = 64;
+    @Value("${report.raw.samples.percentiles.filename:exact_percentiles.json}")
+    private String exactPercentilesFilename = "exact_percentiles.json";
+    // Run history: every finalized run is kept in this directory (relative to the output directory), with
+    // histograms at this precision, until there are more than max.runs runs or they take more than max.mb
+    @Value("${report.history.enabled:true}")
+    private boolean historyEnabled = true;
+    @Value("${report.history.directory:history}")
+    private String historyDirectory = "history";
+    @Value("${report.history.labels:}")
+    private List<String> historyLabels = List.of();
+    @Value("${report.history.significant.digits:2}")
+    private int historySignificantDigits = 2;
+    @Value("${report.history.max.runs:5000}")
+    private int historyMaxRuns = 5000;
+    @Value("${report.history.max.mb:512}")
+    private long historyMaxMb = 512;
 
-    private final StatsAccumulator stats = new StatsAccumulator();
+    // Created with the first sample, once the configuration was injected
+    private volatile StatsStripe[] statsStripes;
+    // Stages in the order they were first reported, across all stripes
+    private final Set<String> stageOrder = Collections.synchronizedSet(new LinkedHashSet<>());
+    private volatile TimelineAccumulator timeline;
+    private NdjsonSegmentWriter ndjsonSegments;
+    private NdjsonSparseIndex ndjsonIndex;
+    private volatile ResultsJsonExporter resultsJsonExporter;
+    private volatile CompletableFuture<Void> resultsJsonExport;
+    private volatile ResultFanOut resultFanOut;
+    // Result sinks closed and exact percentiles computed in the background after finalization
+    private volatile CompletableFuture<Void> resultFanOutFinished;
+    // Null if the run history is disabled
+    private RunHistoryRecorder runHistory;
+
+    // Index i holds status class (i + 1)xx
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
 
     public ReportService() {
+        this(new ResultSinks());
+    }
+
+    @Autowired
+    public ReportService(ResultSinks resultSinks) {
+        this.resultSinks = resultSinks;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
@@ -59,14 +171,257 @@ public class ReportService {
 
     /**
      * Processes incoming metrics in a streaming fashion:
-     * - flattens the MetricsDto list into entries
-     * - appends to NDJSON
+     * - appends them to NDJSON (written by the single NDJSON writer thread)
+     * - queues them for the enabled result sinks
+     * - appends them to the raw-sample store, if enabled
      * - updates aggregated statistics in memory
+     *
+     * <p>
+     * Safe to call from concurrent request threads: statistics are striped, each batch updates one stripe that
+     * no other upload holds at the same time, and the stripes are merged when the reports are finalized.
+     * </p>
      */
-    public synchronized void processMetrics(List<MetricsDto> metricsList) throws IOException {
+    public void processMetrics(List<MetricsDto> metricsList) throws IOException {
         // metricsList is already validated in the controller, so we can skip the validation here
-        appendToNdjsonReport(metricsList);
-        stats.update(metricsList);
+        ndjsonSegments().write(metricsList);
+        log.info("Appended {} metrics entries to NDJSON report", metricsList.size());
+        resultFanOut().publish(metricsList);
+
+        StatsStripe stripe = acquireStripe();
+        try {
+            for (MetricsDto metrics : metricsList) {
+                addToStripe(stripe, metrics);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        // Sealing needs the newest second over all samples, so the timeline is shared; one short update per batch
+        TimelineAccumulator timeline = timeline();
+        synchronized (timeline) {
+            for (MetricsDto metrics : metricsList) {
+                timeline.add(metrics);
+            }
+        }
+    }
+
+    /**
+     * Starts a batch of metrics that are added one at a time, e.g. while the request body is still being parsed.
+     * Nothing of the batch is visible in the reports before {@link MetricsBatch#commit()}; closing an uncommitted
+     * batch discards it. Heap usage of a batch is bounded regardless of its size: its NDJSON lines spill to a
+     * temporary file beyond {@code report.ingest.batch.memory.kb}, its statistics grow with the number of
+     * distinct groups only. Only if result sinks or the raw-sample store are enabled, the entries themselves are kept
+     * until the commit.
+     */
+    public MetricsBatch beginMetricsBatch() throws IOException {
+        return new MetricsBatch(ndjsonSegments().stage(Paths.get(outputDirectory),
+                Math.toIntExact(batchMemoryKb * 1024)));
+    }
+
+    /**
+     * Metrics of one upload staged by {@link #beginMetricsBatch()}. Used by a single request thread.
+     */
+    public final class MetricsBatch implements AutoCloseable {
+        private final StagedNdjson ndjson;
+        private final List<MetricsDto> retained = resultFanOut().needsEntries() ? new ArrayList<>() : null;
+        private final StatsStripe stats = new StatsStripe();
+        private final TimelineAccumulator batchTimeline =
+                new TimelineAccumulator(timelineSealDelaySeconds, percentiles);
+        private boolean committed;
+
+        private MetricsBatch(StagedNdjson ndjson) {
+            this.ndjson = ndjson;
+        }
+
+        /**
+         * Stages one (validated) metrics entry.
+         */
+        public void add(MetricsDto metrics) throws IOException {
+            ndjson.add(metrics);
+            if (retained != null) {
+                retained.add(metrics);
+            }
+            addToStripe(stats, metrics);
+            batchTimeline.add(metrics);
+        }
+
+        public int size() {
+            return ndjson.records();
+        }
+
+        /**
+         * Appends the staged metrics to the NDJSON report and merges their statistics.
+         *
+         * @throws IOException if the metrics could not be written; the batch is not part of the reports then
+         */
+        public void commit() throws IOException {
+            if (committed) {
+                throw new IllegalStateException("Metrics batch already committed");
+            }
+            ndjsonSegments().write(ndjson);
+            committed = true;
+            log.info("Appended {} metrics entries to NDJSON report{}", ndjson.records(),
+                    ndjson.isSpilled() ? " (spilled to disk while parsing)" : "");
+            if (retained != null) {
+                resultFanOut().publish(retained);
+            }
+
+            StatsStripe stripe = acquireStripe();
+            try {
+                stripe.merge(stats);
+            } finally {
+                stripe.lock.unlock();
+            }
+            TimelineAccumulator timeline = timeline();
+            synchronized (timeline) {
+                timeline.merge(batchTimeline);
+            }
+        }
+
+        /**
+         * Releases the staged NDJSON lines; discards the batch unless it was committed.
+         */
+        @Override
+        public void close() {
+            ndjson.close();
+        }
+    }
+
+    // Constant number of accumulator updates per entry: overall, stage, query type, status class, load generator
+    private void addToStripe(StatsStripe stripe, MetricsDto metrics) {
+        int statusClass = statusClassIndex(metrics.getHttpStatusCode());
+        stripe.stats.add(metrics);
+        if (statusClass >= 0) {
+            stripe.stats.statusClass(statusClass).add(metrics);
+        }
+        if (metrics.getStage() != null) {
+            stageStats(stripe, metrics.getStage()).add(metrics);
+        }
+        if (metrics.getQueryType() != null) {
+            StatsAccumulator queryTypeStats = stripe.statsByQueryType.computeIfAbsent(
+                    metrics.getQueryType(), type -> new StatsAccumulator());
+            queryTypeStats.add(metrics);
+            if (statusClass >= 0) {
+                queryTypeStats.statusClass(statusClass).add(metrics);
+            }
+        }
+        stripe.statsByLoadGenerator.computeIfAbsent(metrics.getLoadGeneratorId(), id -> new StatsAccumulator())
+                .add(metrics);
+    }
+
+    /**
+     * Merges the latency histograms of one reporting interval (aggregate reporting mode) into the statistics and
+     * the timeline.
+     * Histograms are decoded before any of them is merged, so an invalid payload leaves the statistics unchanged.
+     *
+     * @throws IllegalArgumentException if a histogram cannot be decoded
+     */
+    public void processHistograms(MetricsIntervalDto metricsInterval) {
+        List<DecodedHistograms> decoded = new ArrayList<>();
+        for (LatencyHistogramDto histogram : metricsInterval.getHistograms()) {
+            decoded.add(DecodedHistograms.of(histogram));
+        }
+
+        StatsStripe stripe = acquireStripe();
+        try {
+            StatsAccumulator loadGeneratorStats = stripe.statsByLoadGenerator.computeIfAbsent(
+                    metricsInterval.getLoadGeneratorId(), id -> new StatsAccumulator());
+            for (DecodedHistograms histograms : decoded) {
+                // Status classes are validated in the controller
+                int statusClass = histograms.statusClass().charAt(0) - '1';
+                stripe.stats.add(histograms);
+                stripe.stats.statusClass(statusClass).add(histograms);
+                if (histograms.stage() != null) {
+                    stageStats(stripe, histograms.stage()).add(histograms);
+                }
+                StatsAccumulator queryTypeStats = stripe.statsByQueryType.computeIfAbsent(
+                        histograms.queryType(), type -> new StatsAccumulator());
+                queryTypeStats.add(histograms);
+                queryTypeStats.statusClass(statusClass).add(histograms);
+                loadGeneratorStats.add(histograms);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        TimelineAccumulator timeline = timeline();
+        synchronized (timeline) {
+            for (DecodedHistograms histograms : decoded) {
+                timeline.addInterval(metricsInterval.getIntervalStartMillis(), metricsInterval.getIntervalEndMillis(),
+                        histograms.count(), histograms.isError(), histograms.requestDuration());
+            }
+        }
+
+        log.info("Merged {} histograms of interval [{}, {}) from load generator {}", decoded.size(),
+                metricsInterval.getIntervalStartMillis(), metricsInterval.getIntervalEndMillis(),
+                metricsInterval.getLoadGeneratorId());
+    }
+
+    // Prefers the stripe of the current thread and otherwise takes the first free one, so concurrent uploads do not
+    // wait for each other unless there are more of them than stripes
+    private StatsStripe acquireStripe() {
+        StatsStripe[] stripes = statsStripes();
+        int home = (int) (Thread.currentThread().threadId() % stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            StatsStripe stripe = stripes[(home + i) % stripes.length];
+            if (stripe.lock.tryLock()) {
+                return stripe;
+            }
+        }
+        stripes[home].lock.lock();
+        return stripes[home];
+    }
+
+    private StatsStripe[] statsStripes() {
+        StatsStripe[] stripes = statsStripes;
+        if (stripes == null) {
+            synchronized (this) {
+                stripes = statsStripes;
+                if (stripes == null) {
+                    if (statsStripeCount < 1) {
+                        throw new IllegalStateException("report.ingest.stripes must be >= 1");
+                    }
+                    stripes = new StatsStripe[statsStripeCount];
+                    Arrays.setAll(stripes, i -> new StatsStripe());
+                    statsStripes = stripes;
+                }
+            }
+        }
+        return stripes;
+    }
+
+    private StatsAccumulator stageStats(StatsStripe stripe, String stage) {
+        StatsAccumulator stageStats = stripe.statsByStage.get(stage);
+        if (stageStats == null) {
+            stageOrder.add(stage);
+            stageStats = new StatsAccumulator();
+            stripe.statsByStage.put(stage, stageStats);
+        }
+        return stageStats;
+    }
+
+    // Merges all stripes into one, each while holding its lock
+    private StatsStripe mergeStripes() {
+        StatsStripe merged = new StatsStripe();
+        for (StatsStripe stripe : statsStripes()) {
+            stripe.lock.lock();
+            try {
+                merged.merge(stripe);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return merged;
+    }
+
+    @PostConstruct
+    void validatePercentiles() {
+        for (double percentile : percentiles) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException(
+                        "report.percentiles must be within (0, 100], was " + percentile);
+            }
+        }
     }
 
     @EventListener(ApplicationReadyEvent.class)
@@ -80,8 +435,8 @@ public class ReportService {
     }
 
     /**
-     * Initializes the report directory, deletes any previous run outputs,
-     * and creates the NDJSON placeholder file. Intended to run once at startup.
+     * Initializes the report directory, deletes any previous run outputs (the run history is kept),
+     * creates the NDJSON placeholder file and starts the result sinks. Intended to run once at startup.
      */
     private synchronized void initializeReportFiles() throws IOException {
         Path dirPath = Paths.get(outputDirectory);
@@ -92,15 +447,29 @@ public class ReportService {
         Path ndjsonPath = dirPath.resolve(ndjsonFilename);
         Path statsPath = dirPath.resolve(statsFilename);
         Path resultsJsonPath = dirPath.resolve(resultsJsonFilename);
+        Path timelinePath = dirPath.resolve(timelineFilename);
 
         // Start a fresh run: remove leftover report files from a previous runs (e.g., when reports are volume-mounted).
-        deleteReportFileIfExists(ndjsonPath);
+        NdjsonSegmentWriter.existingSegments(ndjsonPath).forEach(this::deleteReportFileIfExists);
         deleteReportFileIfExists(statsPath);
         deleteReportFileIfExists(resultsJsonPath);
+        deleteReportFileIfExists(timelinePath);
+        deleteReportFileIfExists(dirPath.resolve(histogramsFilename));
+        deleteReportFileIfExists(dirPath.resolve(ndjsonIndexFilename));
+        deleteReportFileIfExists(NdjsonSparseIndex.queryTypesFile(dirPath.resolve(ndjsonIndexFilename)));
+        deleteReportFileIfExists(dirPath.resolve(exactPercentilesFilename));
+        // Batches staged and exports started by a reporter that did not shut down cleanly
+        try (DirectoryStream<Path> leftovers =
+                     Files.newDirectoryStream(dirPath, "{metrics-batch-,results-part-}*.tmp")) {
+            leftovers.forEach(this::deleteReportFileIfExists);
+        }
+        deleteReportFileIfExists(dirPath.resolve(resultsJsonFilename + ".tmp"));
 
         // Create NDJSON file placeholder
         Files.createFile(ndjsonPath);
         log.info("Created NDJSON report file: {}", ndjsonPath.toAbsolutePath());
+
+        resultFanOut().start(dirPath);
     }
 
     private void deleteReportFileIfExists(Path path) {
@@ -113,18 +482,58 @@ public class ReportService {
         }
     }
 
-    private void appendToNdjsonReport(List<MetricsDto> metricsList) throws IOException {
-        Path ndjsonPath = resolveReportPath(ndjsonFilename);
+    private synchronized NdjsonSegmentWriter ndjsonSegments() throws IOException {
+        if (ndjsonSegments == null) {
+            if (ndjsonIndexEnabled) {
+                ndjsonIndex = new NdjsonSparseIndex(resolveReportPath(ndjsonIndexFilename),
+                        ndjsonIndexBlockKb * 1024, ndjsonIndexBucketSeconds * 1000);
+            }
+            ndjsonSegments = new NdjsonSegmentWriter(resolveReportPath(ndjsonFilename),
+                    ndjsonSegmentMaxMb * 1024 * 1024, ndjsonFsyncPolicy, ndjsonFsyncIntervalMs,
+                    ndjsonQueueCapacity, ndjsonWriter, ndjsonIndex);
+        }
+        return ndjsonSegments;
+    }
 
-        try (FileWriter writer = new FileWriter(ndjsonPath.toFile(), true)) {
-            for (MetricsDto metrics : metricsList) {
-                writer.write(ndjsonWriter.writeValueAsString(metrics));
-                writer.write("\n");
+    private ResultFanOut resultFanOut() {
+        ResultFanOut fanOut = resultFanOut;
+        if (fanOut == null) {
+            synchronized (this) {
+                fanOut = resultFanOut;
+                if (fanOut == null) {
+                    RawSampleReport rawSamples = rawSamplesEnabled
+                            ? new RawSampleReport(resolveReportPath(rawSamplesDirectory),
+                            rawSamplesRegionMb * 1024 * 1024, getExactPercentilesPath(), percentiles,
+                            backgroundThreads(), objectMapper)
+                            : null;
+                    fanOut = new ResultFanOut(resultSinks, rawSamples);
+                    resultFanOut = fanOut;
+                }
             }
-            writer.flush();
         }
+        return fanOut;
+    }
+
+    private synchronized RunHistoryRecorder runHistory() {
+        if (historyEnabled && runHistory == null) {
+            runHistory = new RunHistoryRecorder(Paths.get(outputDirectory).toAbsolutePath().resolve(historyDirectory),
+                    historyLabels, historySignificantDigits, historyMaxRuns, historyMaxMb * 1024 * 1024);
+        }
+        return runHistory;
+    }
 
-        log.info("Appended {} metrics entries to NDJSON report", metricsList.size());
+    private int backgroundThreads() {
+        return exportThreads > 0 ? exportThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @PreDestroy
+    synchronized void closeNdjsonReport() {
+        if (ndjsonSegments != null) {
+            ndjsonSegments.close();
+        }
+        if (resultFanOut != null) {
+            resultFanOut.close();
+        }
     }
 
     /**
@@ -148,23 +557,61 @@ public class ReportService {
     }
 
     /**
-     * Finalizes reports by writing the aggregated statistics JSON and building the full query results JSON
-     * without loading all query results into memory.
+     * Finalizes reports by writing the aggregated statistics JSON and the timeline, and starts building the full
+     * query results JSON in the background without loading all query results into memory. The result sinks write
+     * what is still queued and are closed in the background as well, as are the exact percentiles computed if the
+     * raw-sample store is enabled.
      */
     public synchronized StatisticsDto finalizeReports(Set<String> loadGeneratorInstances) throws IOException {
-        StatisticsDto statistics = stats.toStatistics(LocalDateTime.now(), loadGeneratorInstances);
+        StatsStripe merged = mergeStripes();
+        StatisticsDto statistics = merged.stats.toStatistics(LocalDateTime.now(), loadGeneratorInstances, percentiles);
+
+        Map<String, StatisticsDto.GroupStatistics> stages = new LinkedHashMap<>();
+        List<String> orderedStages;
+        synchronized (stageOrder) {
+            orderedStages = List.copyOf(stageOrder);
+        }
+        for (String stage : orderedStages) {
+            StatsAccumulator accumulator = merged.statsByStage.get(stage);
+            if (accumulator != null) {
+                stages.put(stage, accumulator.toGroupStatistics(percentiles));
+            }
+        }
+        statistics.setStages(stages);
+
+        Map<String, StatisticsDto.GroupStatistics> queryTypes = new LinkedHashMap<>();
+        new TreeMap<>(merged.statsByQueryType).forEach((queryType, accumulator) ->
+                queryTypes.put(queryType, accumulator.toGroupStatistics(percentiles)));
+        statistics.setQueryTypes(queryTypes);
+
+        statistics.setStatusClasses(merged.stats.toStatusClassStatistics(percentiles));
+
+        Map<String, StatisticsDto.GroupStatistics> loadGenerators = new LinkedHashMap<>();
+        new TreeMap<>(merged.statsByLoadGenerator).forEach((loadGeneratorId, accumulator) ->
+                loadGenerators.put(loadGeneratorId, accumulator.toGroupStatistics(percentiles)));
+        statistics.setLoadGenerators(loadGenerators);
 
         Path statsPath = resolveReportPath(statsFilename);
         objectMapper.writeValue(statsPath.toFile(), statistics);
-        Path ndjsonPath = resolveReportPath(ndjsonFilename);
-        Path resultsJsonPath = resolveReportPath(resultsJsonFilename);
-        writeResultsJsonReport(ndjsonPath, resultsJsonPath);
+        List<TimelineBucketDto> timeline = writeTimelineReport(resolveReportPath(timelineFilename));
+        RunHistogramsDto histograms = writeHistograms(merged, statistics.getReportGeneratedAt());
+        RunHistoryRecorder history = runHistory();
+        if (history != null) {
+            history.record(statistics, histograms, timeline);
+        }
+        startResultsJsonExport(resolveReportPath(resultsJsonFilename));
+        resultFanOutFinished = resultFanOut().finish();
 
         log.info("Statistics written: queries={}, errors={}, instances={}", statistics.getTotalQueries(), statistics.getTotalErrors(), statistics.getLoadGeneratorInstances().size());
-        log.info("Request duration stats: avg={}ms min={}ms max={}ms | Query duration stats: avg={}ms min={}ms max={}ms",
+        log.info("Request duration stats: avg={}ms min={}ms max={}ms | " +
+                        "Corrected request duration stats: avg={}ms min={}ms max={}ms | " +
+                        "Query duration stats: avg={}ms min={}ms max={}ms",
                 String.format("%.2f", statistics.getRequestDurationMs().getAverage()),
                 statistics.getRequestDurationMs().getMin(),
                 statistics.getRequestDurationMs().getMax(),
+                String.format("%.2f", statistics.getCorrectedRequestDurationMs().getAverage()),
+                statistics.getCorrectedRequestDurationMs().getMin(),
+                statistics.getCorrectedRequestDurationMs().getMax(),
                 String.format("%.2f", statistics.getQueryDurationMs().getAverage()),
                 statistics.getQueryDurationMs().getMin(),
                 statistics.getQueryDurationMs().getMax());
@@ -173,34 +620,230 @@ public class ReportService {
     }
 
     /**
-     * Builds a valid JSON array file from the NDJSON stream so tools like Grafana can import it.
+     * Writes the per-second timeline as NDJSON, one bucket per line, so dashboards can chart it directly.
      */
-    private void writeResultsJsonReport(Path ndjsonPath, Path resultsJsonPath) throws IOException {
-        if (!Files.exists(ndjsonPath)) {
-            log.warn("NDJSON report file {} not found; skipping results JSON export", ndjsonPath.toAbsolutePath());
-            return;
+    private List<TimelineBucketDto> writeTimelineReport(Path timelinePath) throws IOException {
+        TimelineAccumulator timeline = timeline();
+        List<TimelineBucketDto> buckets;
+        synchronized (timeline) {
+            buckets = timeline.toTimeline(percentiles);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(timelinePath)) {
+            for (TimelineBucketDto bucket : buckets) {
+                writer.write(ndjsonWriter.writeValueAsString(bucket));
+                writer.write("\n");
+            }
         }
+        log.info("Timeline written to {} with {} seconds", timelinePath.toAbsolutePath(), buckets.size());
+        return buckets;
+    }
+
+    /**
+     * Writes the duration histograms overall and per query type, the input of run comparisons.
+     */
+    private RunHistogramsDto writeHistograms(StatsStripe merged, LocalDateTime generatedAt) throws IOException {
+        Map<String, RunHistogramsDto.GroupHistograms> queryTypes = new LinkedHashMap<>();
+        new TreeMap<>(merged.statsByQueryType).forEach((queryType, accumulator) ->
+                queryTypes.put(queryType, accumulator.toGroupHistograms()));
+        Path histogramsPath = getHistogramsPath();
+        RunHistogramsDto histograms = new RunHistogramsDto(generatedAt, merged.stats.toGroupHistograms(), queryTypes);
+        objectMapper.writeValue(histogramsPath.toFile(), histograms);
+        log.info("Histograms of {} query types written to {}", queryTypes.size(), histogramsPath.toAbsolutePath());
+        return histograms;
+    }
+
+    /**
+     * Keeps the scenario and cluster a load generator reported, for the run history.
+     */
+    public void recordRunMetadata(RunMetadataDto metadata) {
+        RunHistoryRecorder history = runHistory();
+        if (history != null) {
+            history.recordMetadata(metadata);
+        }
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(ndjsonPath);
-             FileWriter writer = new FileWriter(resultsJsonPath.toFile())) {
-            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
-            generator.useDefaultPrettyPrinter();
-            generator.writeStartArray();
+    /**
+     * Returns the run history, opened on first use, or null if it is disabled.
+     */
+    public RunHistoryStore getRunHistory() throws IOException {
+        RunHistoryRecorder history = runHistory();
+        return history != null ? history.store() : null;
+    }
 
-            String line;
-            int count = 0;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) {
-                    continue;
+    public Path getHistogramsPath() {
+        return resolveReportPath(histogramsFilename);
+    }
+
+    /**
+     * Returns the absolute path to the per-second timeline report file.
+     */
+    public Path getTimelinePath() {
+        return resolveReportPath(timelineFilename);
+    }
+
+    private TimelineAccumulator timeline() {
+        TimelineAccumulator accumulator = timeline;
+        if (accumulator == null) {
+            synchronized (this) {
+                accumulator = timeline;
+                if (accumulator == null) {
+                    accumulator = new TimelineAccumulator(timelineSealDelaySeconds, percentiles);
+                    timeline = accumulator;
                 }
-                generator.writeTree(objectMapper.readTree(line));
-                count++;
             }
+        }
+        return accumulator;
+    }
+
+    /**
+     * Starts building the results JSON array from the NDJSON segments in the background, so tools like Grafana
+     * can import it. See {@link #getResultsJsonExport()} and {@link #getResultsJsonExportProgress()}.
+     */
+    private void startResultsJsonExport(Path resultsJsonPath) throws IOException {
+        List<Path> segments;
+        if (ndjsonSegments != null) {
+            ndjsonSegments.flush();
+            segments = ndjsonSegments.segments();
+        } else {
+            segments = NdjsonSegmentWriter.existingSegments(resolveReportPath(ndjsonFilename));
+        }
+        if (segments.isEmpty()) {
+            log.warn("NDJSON report file {} not found; skipping results JSON export",
+                    resolveReportPath(ndjsonFilename));
+            resultsJsonExport = CompletableFuture.completedFuture(null);
+            return;
+        }
+
+        ResultsJsonExporter exporter =
+                new ResultsJsonExporter(segments, resultsJsonPath, exportChunkMb * 1024 * 1024);
+        int threads = backgroundThreads();
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("results-json-export-", 1).daemon().factory());
+        resultsJsonExporter = exporter;
+        resultsJsonExport = CompletableFuture.runAsync(() -> {
+            try {
+                exporter.export(workers);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                workers.shutdownNow();
+            }
+        }, job -> Thread.ofPlatform().name("results-json-export").start(job));
+        resultsJsonExport.whenComplete((result, failure) -> {
+            if (failure != null) {
+                log.error("Failed to export results JSON to {}", resultsJsonPath.toAbsolutePath(), failure);
+            }
+        });
+        log.info("Exporting results JSON from {} NDJSON segments with {} threads", segments.size(), threads);
+    }
+
+    /**
+     * Returns the results JSON export started by {@link #finalizeReports(Set)}, completing exceptionally if the
+     * export failed, or null if the reports were not finalized yet.
+     */
+    public CompletableFuture<Void> getResultsJsonExport() {
+        return resultsJsonExport;
+    }
+
+    /**
+     * Returns a future that completes once all background work started by {@link #finalizeReports(Set)} is done:
+     * the results JSON export, closing the result sinks and the exact percentiles. Fails if the export or the
+     * exact percentiles failed; null before finalization.
+     */
+    public CompletableFuture<Void> getFinalizationJobs() {
+        CompletableFuture<Void> export = resultsJsonExport;
+        CompletableFuture<Void> fanOut = resultFanOutFinished;
+        if (export == null || fanOut == null) {
+            return null;
+        }
+        return CompletableFuture.allOf(export, fanOut);
+    }
+
+    public Path getExactPercentilesPath() {
+        return resolveReportPath(exactPercentilesFilename);
+    }
+
+    /**
+     * Returns a page of the query results written so far that match all given filters, in report order. Only the
+     * blocks of the report the sparse index points to are read, memory-mapped.
+     *
+     * @param status     status code like {@code 503} or class like {@code 5xx}, or null
+     * @param fromMillis start time (epoch millis) from which results are included, or null
+     * @param toMillis   start time (epoch millis) before which results are included, or null
+     * @param cursor     next_cursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException if a filter or the cursor is invalid
+     * @throws IllegalStateException    if the index is disabled
+     */
+    public ResultSliceDto getResults(String queryType, String status, Long fromMillis, Long toMillis,
+                                     String cursor, int limit) throws IOException {
+        if (!ndjsonIndexEnabled) {
+            throw new IllegalStateException("The results index is disabled (report.ndjson.index.enabled)");
+        }
+        NdjsonSparseIndex.Filter filter = NdjsonSparseIndex.Filter.of(queryType, status, fromMillis, toMillis);
+        NdjsonSparseIndex.Cursor position = cursor != null && !cursor.isBlank()
+                ? NdjsonSparseIndex.Cursor.parse(cursor) : null;
+        NdjsonSparseIndex index;
+        List<Path> segments;
+        synchronized (this) {
+            index = ndjsonIndex;
+            segments = ndjsonSegments != null ? ndjsonSegments.segments() : List.of();
+        }
+        if (index == null) {
+            return new ResultSliceDto(0, null, 0, 0, List.of());
+        }
+
+        NdjsonSparseIndex.Slice slice = index.read(segments, filter, position, limit, objectMapper.reader());
+        return new ResultSliceDto(slice.results().size(), slice.next() != null ? slice.next().toString() : null,
+                slice.scannedBlocks(), slice.scannedBytes(), slice.results());
+    }
+
+    public List<SinkStatusDto> getResultSinkStatus() {
+        return resultFanOut().status();
+    }
+
+    /**
+     * Returns how far the results JSON export has got.
+     */
+    public ExportProgressDto getResultsJsonExportProgress() {
+        CompletableFuture<Void> export = resultsJsonExport;
+        ResultsJsonExporter exporter = resultsJsonExporter;
+        ExportProgressDto progress = new ExportProgressDto();
+        progress.setResultsJson(getResultsJsonPath().toString());
+        if (export == null) {
+            progress.setState(ExportProgressDto.State.NOT_STARTED);
+            return progress;
+        }
 
-            generator.writeEndArray();
-            generator.flush();
-            log.info("Results JSON report written to {} with {} metrics entries", resultsJsonPath.toAbsolutePath(), count);
+        if (!export.isDone()) {
+            progress.setState(ExportProgressDto.State.RUNNING);
+        } else if (export.isCompletedExceptionally()) {
+            progress.setState(ExportProgressDto.State.FAILED);
+            Throwable failure = export.exceptionNow();
+            Throwable cause = failure instanceof UncheckedIOException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            progress.setError(cause.getMessage());
+        } else {
+            progress.setState(ExportProgressDto.State.DONE);
         }
+
+        if (exporter != null) {
+            long totalBytes = exporter.getTotalBytes();
+            progress.setTotalBytes(totalBytes);
+            progress.setProcessedBytes(exporter.getProcessedBytes());
+            progress.setProgress(totalBytes == 0 ? (export.isDone() ? 1.0 : 0.0)
+                    : exporter.getProcessedBytes() / (double) totalBytes);
+            progress.setChunks(exporter.getChunks());
+            progress.setCompletedChunks(exporter.getCompletedChunks());
+            progress.setRecords(exporter.getRecords());
+            progress.setSkippedLines(exporter.getSkippedLines());
+        }
+        return progress;
+    }
+
+    // Index into STATUS_CLASSES, -1 for codes outside 100-599
+    private static int statusClassIndex(int httpStatusCode) {
+        int index = httpStatusCode / 100 - 1;
+        return httpStatusCode >= 100 && index < STATUS_CLASSES.length ? index : -1;
     }
 
     @lombok.Getter
@@ -209,73 +852,200 @@ public class ReportService {
         private int totalQueries = 0;
         private int totalErrors = 0;
 
-        private long requestDurationCount = 0;
-        private long requestDurationSum = 0;
-        private long requestDurationMin = Long.MAX_VALUE;
-        private long requestDurationMax = Long.MIN_VALUE;
+        private final DurationAccumulator requestDuration = new DurationAccumulator(true);
+        private final DurationAccumulator correctedRequestDuration = new DurationAccumulator(true);
+        private final DurationAccumulator queryDuration = new DurationAccumulator(true);
+        private final DurationAccumulator requestBytes = new DurationAccumulator();
+        private final DurationAccumulator responseBytes = new DurationAccumulator();
+        private final DurationAccumulator timeToFirstByte = new DurationAccumulator();
+        private final DurationAccumulator transferTime = new DurationAccumulator();
+        private final DurationAccumulator overhead = new DurationAccumulator();
+        // Breakdown per status class, indexed like STATUS_CLASSES; only created for groups that report it
+        private StatsAccumulator[] statusClasses;
 
-        private long queryDurationCount = 0;
-        private long queryDurationSum = 0;
-        private long queryDurationMin = Long.MAX_VALUE;
-        private long queryDurationMax = Long.MIN_VALUE;
+        StatsAccumulator statusClass(int index) {
+            if (statusClasses == null) {
+                statusClasses = new StatsAccumulator[STATUS_CLASSES.length];
+            }
+            if (statusClasses[index] == null) {
+                statusClasses[index] = new StatsAccumulator();
+            }
+            return statusClasses[index];
+        }
 
-        void update(List<MetricsDto> results) {
-            for (MetricsDto result : results) {
-                totalQueries++;
+        void add(MetricsDto result) {
+            totalQueries++;
 
-                if (result.getHttpStatusCode() >= 400) {
-                    totalErrors++;
-                }
+            if (result.getHttpStatusCode() >= 400) {
+                totalErrors++;
+            }
 
-                Long requestDurationMs = result.getRequestDurationMillis();
-                if (requestDurationMs != null) {
-                    requestDurationCount++;
-                    requestDurationSum += requestDurationMs;
-                    requestDurationMin = Math.min(requestDurationMin, requestDurationMs);
-                    requestDurationMax = Math.max(requestDurationMax, requestDurationMs);
-                }
+            Long requestDurationMs = result.getRequestDurationMillis();
+            if (requestDurationMs != null) {
+                requestDuration.add(requestDurationMs);
+            }
 
-                Long queryDurationMs = result.getQueryDurationMillis();
-                if (queryDurationMs != null && queryDurationMs >= 0) {
-                    queryDurationCount++;
-                    queryDurationSum += queryDurationMs;
-                    queryDurationMin = Math.min(queryDurationMin, queryDurationMs);
-                    queryDurationMax = Math.max(queryDurationMax, queryDurationMs);
+            Long correctedRequestDurationMs = result.getCorrectedRequestDurationMillis();
+            if (correctedRequestDurationMs != null) {
+                correctedRequestDuration.add(correctedRequestDurationMs);
+            }
+
+            Long queryDurationMs = result.getQueryDurationMillis();
+            if (queryDurationMs != null && queryDurationMs >= 0) {
+                queryDuration.add(queryDurationMs);
+            }
+
+            addIfPresent(requestBytes, result.getRequestBytes());
+            addIfPresent(responseBytes, result.getResponseBytes());
+            addIfPresent(timeToFirstByte, result.getTimeToFirstByteMillis());
+            addIfPresent(transferTime, result.getTransferTimeMillis());
+            addIfPresent(overhead, result.getOverheadMillis());
+        }
+
+        void add(DecodedHistograms histograms) {
+            totalQueries = Math.addExact(totalQueries, Math.toIntExact(histograms.count()));
+
+            if (histograms.isError()) {
+                totalErrors = Math.addExact(totalErrors, Math.toIntExact(histograms.count()));
+            }
+
+            requestDuration.add(histograms.requestDuration());
+            correctedRequestDuration.add(histograms.correctedRequestDuration());
+            queryDuration.add(histograms.queryDuration());
+        }
+
+        void merge(StatsAccumulator other) {
+            totalQueries = Math.addExact(totalQueries, other.totalQueries);
+            totalErrors = Math.addExact(totalErrors, other.totalErrors);
+            requestDuration.merge(other.requestDuration);
+            correctedRequestDuration.merge(other.correctedRequestDuration);
+            queryDuration.merge(other.queryDuration);
+            requestBytes.merge(other.requestBytes);
+            responseBytes.merge(other.responseBytes);
+            timeToFirstByte.merge(other.timeToFirstByte);
+            transferTime.merge(other.transferTime);
+            overhead.merge(other.overhead);
+            if (other.statusClasses != null) {
+                for (int i = 0; i < other.statusClasses.length; i++) {
+                    if (other.statusClasses[i] != null) {
+                        statusClass(i).merge(other.statusClasses[i]);
+                    }
                 }
             }
         }
 
-        StatisticsDto toStatistics(LocalDateTime generatedAt, Set<String> loadGeneratorInstances) {
-            StatisticsDto.DurationStats requestDuration = new StatisticsDto.DurationStats();
-            if (requestDurationCount > 0) {
-                requestDuration.setAverage(requestDurationSum / (double) requestDurationCount);
-                requestDuration.setMin(requestDurationMin);
-                requestDuration.setMax(requestDurationMax);
-            } else {
-                requestDuration.setAverage(0.0);
-                requestDuration.setMin(0L);
-                requestDuration.setMax(0L);
+        private static void addIfPresent(DurationAccumulator accumulator, Long value) {
+            if (value != null) {
+                accumulator.add(value);
             }
+        }
+
+        StatisticsDto.GroupStatistics toGroupStatistics(double[] percentiles) {
+            return new StatisticsDto.GroupStatistics(
+                    totalQueries,
+                    totalErrors,
+                    requestDuration.toDurationStats(percentiles),
+                    correctedRequestDuration.toDurationStats(percentiles),
+                    queryDuration.toDurationStats(percentiles),
+                    requestBytes.toSizeStats(),
+                    responseBytes.toSizeStats(),
+                    timeToFirstByte.toDurationStats(percentiles),
+                    transferTime.toDurationStats(percentiles),
+                    overhead.toDurationStats(percentiles),
+                    toStatusClassStatistics(percentiles)
+            );
+        }
+
+        RunHistogramsDto.GroupHistograms toGroupHistograms() {
+            return new RunHistogramsDto.GroupHistograms(
+                    totalQueries,
+                    requestDuration.encodeHistogram(),
+                    correctedRequestDuration.encodeHistogram(),
+                    queryDuration.encodeHistogram()
+            );
+        }
 
-            StatisticsDto.DurationStats queryDuration = new StatisticsDto.DurationStats();
-            if (queryDurationCount > 0) {
-                queryDuration.setAverage(queryDurationSum / (double) queryDurationCount);
-                queryDuration.setMin(queryDurationMin);
-                queryDuration.setMax(queryDurationMax);
-            } else {
-                queryDuration.setAverage(0.0);
-                queryDuration.setMin(0L);
-                queryDuration.setMax(0L);
+        Map<String, StatisticsDto.GroupStatistics> toStatusClassStatistics(double[] percentiles) {
+            Map<String, StatisticsDto.GroupStatistics> result = new LinkedHashMap<>();
+            if (statusClasses != null) {
+                for (int i = 0; i < statusClasses.length; i++) {
+                    if (statusClasses[i] != null) {
+                        result.put(STATUS_CLASSES[i], statusClasses[i].toGroupStatistics(percentiles));
+                    }
+                }
             }
+            return result;
+        }
 
+        StatisticsDto toStatistics(LocalDateTime generatedAt, Set<String> loadGeneratorInstances,
+                                   double[] percentiles) {
             return new StatisticsDto(
                     generatedAt,
-                    requestDuration,
-                    queryDuration,
+                    requestDuration.toDurationStats(percentiles),
+                    correctedRequestDuration.toDurationStats(percentiles),
+                    queryDuration.toDurationStats(percentiles),
                     totalQueries,
                     totalErrors,
-                    new ArrayList<>(loadGeneratorInstances)
+                    new ArrayList<>(loadGeneratorInstances),
+                    new LinkedHashMap<>(),
+                    new LinkedHashMap<>(),
+                    new LinkedHashMap<>(),
+                    new LinkedHashMap<>()
             );
         }
     }
+
+    // Statistics updated by one upload at a time, guarded by the lock
+    private static final class StatsStripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final StatsAccumulator stats = new StatsAccumulator();
+        private final Map<String, StatsAccumulator> statsByStage = new HashMap<>();
+        private final Map<String, StatsAccumulator> statsByQueryType = new HashMap<>();
+        private final Map<String, StatsAccumulator> statsByLoadGenerator = new HashMap<>();
+
+        void merge(StatsStripe other) {
+            stats.merge(other.stats);
+            mergeInto(statsByStage, other.statsByStage);
+            mergeInto(statsByQueryType, other.statsByQueryType);
+            mergeInto(statsByLoadGenerator, other.statsByLoadGenerator);
+        }
+
+        private static void mergeInto(Map<String, StatsAccumulator> target, Map<String, StatsAccumulator> source) {
+            source.forEach((key, accumulator) ->
+                    target.computeIfAbsent(key, k -> new StatsAccumulator()).merge(accumulator));
+        }
+    }
+
+    // Latency histograms of one stage, query type and status class, decoded from their compressed encoding
+    private record DecodedHistograms(String stage, String queryType, String statusClass, long count,
+                                     Histogram requestDuration, Histogram correctedRequestDuration,
+                                     Histogram queryDuration) {
+
+        static DecodedHistograms of(LatencyHistogramDto dto) {
+            return new DecodedHistograms(
+                    dto.getStage(),
+                    dto.getQueryType(),
+                    dto.getStatusClass(),
+                    dto.getCount(),
+                    decode(dto.getRequestDuration()),
+                    decode(dto.getCorrectedRequestDuration()),
+                    decode(dto.getQueryDuration())
+            );
+        }
+
+        boolean isError() {
+            return statusClass.startsWith("4") || statusClass.startsWith("5");
+        }
+
+        private static Histogram decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            try {
+                return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+            } catch (DataFormatException | RuntimeException e) {
+                throw new IllegalArgumentException("Invalid histogram encoding: " + e.getMessage(), e);
+            }
+        }
+    }
 }
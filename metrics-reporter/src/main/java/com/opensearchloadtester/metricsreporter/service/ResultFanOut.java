@@ -0,0 +1,76 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.SinkStatusDto;
+import com.opensearchloadtester.metricsreporter.sink.ResultSinks;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands each batch of results to the consumers besides the NDJSON report and the statistics: the result sinks
+ * and, if enabled, the raw-sample store. Both need the entries themselves, so a staged batch only keeps them
+ * until its commit if {@link #needsEntries()}.
+ */
+@Slf4j
+final class ResultFanOut implements AutoCloseable {
+
+    private final ResultSinks resultSinks;
+    // Null if the raw-sample store is disabled
+    private final RawSampleReport rawSamples;
+
+    ResultFanOut(ResultSinks resultSinks, RawSampleReport rawSamples) {
+        this.resultSinks = resultSinks;
+        this.rawSamples = rawSamples;
+    }
+
+    boolean needsEntries() {
+        return resultSinks.isEnabled() || rawSamples != null;
+    }
+
+    void start(Path outputDirectory) throws IOException {
+        resultSinks.start(outputDirectory);
+    }
+
+    /**
+     * Queues the batch for the result sinks (never blocks) and appends it to the raw-sample store.
+     */
+    void publish(List<MetricsDto> metricsList) throws IOException {
+        resultSinks.publish(metricsList);
+        if (rawSamples != null) {
+            rawSamples.append(metricsList);
+        }
+    }
+
+    /**
+     * Closes the result sinks once they wrote what is still queued and computes the exact percentiles, both in
+     * the background.
+     *
+     * @return completes once both are done, exceptionally if the exact percentiles failed
+     */
+    CompletableFuture<Void> finish() throws IOException {
+        CompletableFuture<Void> sinksClosed = resultSinks.closeAsync();
+        CompletableFuture<Void> exactPercentiles = rawSamples != null
+                ? rawSamples.computeExactPercentiles()
+                : CompletableFuture.completedFuture(null);
+        return CompletableFuture.allOf(sinksClosed, exactPercentiles);
+    }
+
+    List<SinkStatusDto> status() {
+        return resultSinks.getStatus();
+    }
+
+    @Override
+    public void close() {
+        if (rawSamples != null) {
+            try {
+                rawSamples.close();
+            } catch (IOException e) {
+                log.warn("Failed to close raw-sample store: {}", e.getMessage());
+            }
+        }
+    }
+}
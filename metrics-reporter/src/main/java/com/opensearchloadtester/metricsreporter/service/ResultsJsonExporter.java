@@ -0,0 +1,351 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the results JSON array from the NDJSON segments without parsing lines into trees.
+ *
+ * <p>
+ * The segments are split into chunks at line boundaries, which are converted in parallel into temporary part
+ * files: each line is only validated by running the streaming parser over it and then copied as raw bytes, one
+ * array element per line. The parts are concatenated in order into a temporary file that replaces the target once
+ * complete, so the target never holds a partial array. Lines that are not a single JSON object (e.g. cut off by a
+ * crash) are skipped and counted.
+ * </p>
+ *
+ * <p>
+ * Progress counters may be read from any thread while the export runs.
+ * </p>
+ */
+@Slf4j
+final class ResultsJsonExporter {
+
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final int LOGGED_SKIPPED_LINES = 10;
+    private static final byte[] ARRAY_START = "[\n".getBytes();
+    private static final byte[] ELEMENT_SEPARATOR = ",\n".getBytes();
+    private static final byte[] ARRAY_END = "\n]\n".getBytes();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final List<Path> segments;
+    private final Path target;
+    private final long chunkBytes;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong processedBytes = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong skippedLines = new AtomicLong();
+    private final AtomicInteger chunks = new AtomicInteger();
+    private final AtomicInteger completedChunks = new AtomicInteger();
+
+    ResultsJsonExporter(List<Path> segments, Path target, long chunkBytes) {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("chunkBytes must be positive");
+        }
+        this.segments = List.copyOf(segments);
+        this.target = target;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Converts all segments, using the given executor for the chunks, and replaces the target file.
+     *
+     * @throws IOException if a segment cannot be read or the target cannot be written
+     */
+    void export(ExecutorService executor) throws IOException {
+        List<Chunk> plan = planChunks();
+        chunks.set(plan.size());
+
+        List<Future<Part>> parts = new ArrayList<>();
+        for (Chunk chunk : plan) {
+            parts.add(executor.submit(() -> convert(chunk)));
+        }
+
+        Path partial = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(out, ARRAY_START);
+            boolean first = true;
+            for (Future<Part> future : parts) {
+                Part part = await(future);
+                try (FileChannel in = FileChannel.open(part.file(), StandardOpenOption.READ)) {
+                    if (part.records() > 0) {
+                        if (!first) {
+                            write(out, ELEMENT_SEPARATOR);
+                        }
+                        transfer(in, out);
+                        first = false;
+                    }
+                } finally {
+                    Files.deleteIfExists(part.file());
+                }
+            }
+            write(out, ARRAY_END);
+        } catch (IOException | RuntimeException e) {
+            discardParts(parts);
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log.info("Results JSON report written to {} with {} metrics entries from {} chunks{}",
+                target.toAbsolutePath(), records.get(), plan.size(),
+                skippedLines.get() > 0 ? " (" + skippedLines.get() + " invalid lines skipped)" : "");
+    }
+
+    long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    long getProcessedBytes() {
+        return processedBytes.get();
+    }
+
+    long getRecords() {
+        return records.get();
+    }
+
+    long getSkippedLines() {
+        return skippedLines.get();
+    }
+
+    int getChunks() {
+        return chunks.get();
+    }
+
+    int getCompletedChunks() {
+        return completedChunks.get();
+    }
+
+    // Splits every segment into chunks of about chunkBytes, each starting at the beginning of a line
+    private List<Chunk> planChunks() throws IOException {
+        List<Chunk> plan = new ArrayList<>();
+        for (Path segment : segments) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long size = channel.size();
+                totalBytes.addAndGet(size);
+                long start = 0;
+                while (start < size) {
+                    long end = start + chunkBytes >= size ? size : nextLineStart(channel, start + chunkBytes, size);
+                    plan.add(new Chunk(segment, start, end));
+                    start = end;
+                }
+            }
+        }
+        return plan;
+    }
+
+    // Position after the first line break at or after position, or size if there is none
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private Part convert(Chunk chunk) throws IOException {
+        Path partFile = Files.createTempFile(target.toAbsolutePath().getParent(), "results-part-", ".json.tmp");
+        long partRecords = 0;
+        try (FileChannel in = FileChannel.open(chunk.segment(), StandardOpenOption.READ);
+             OutputStream out = Channels.newOutputStream(FileChannel.open(partFile, StandardOpenOption.WRITE))) {
+            LineCopier copier = new LineCopier(out);
+            byte[] block = new byte[BLOCK_BYTES];
+            long position = chunk.start();
+            while (position < chunk.end()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Results JSON export was cancelled");
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(block, 0, (int) Math.min(block.length, chunk.end() - position));
+                int read = in.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                copier.accept(block, read);
+                position += read;
+                processedBytes.addAndGet(read);
+            }
+            copier.finish();
+            partRecords = copier.records;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+        records.addAndGet(partRecords);
+        completedChunks.incrementAndGet();
+        return new Part(partFile, partRecords);
+    }
+
+    private static Part await(Future<Part> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the results JSON export");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to export results JSON", e.getCause());
+        }
+    }
+
+    // Cancels the chunks still running and deletes the part files of completed ones
+    private static void discardParts(List<Future<Part>> parts) {
+        for (Future<Part> future : parts) {
+            if (future.cancel(true) || future.state() != Future.State.SUCCESS) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(future.resultNow().file());
+            } catch (IOException e) {
+                log.warn("Failed to delete results JSON part {}: {}", future.resultNow().file(), e.getMessage());
+            }
+        }
+    }
+
+    private static void write(FileChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void transfer(FileChannel in, FileChannel out) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            position += in.transferTo(position, size - position, out);
+        }
+    }
+
+    private record Chunk(Path segment, long start, long end) {
+    }
+
+    private record Part(Path file, long records) {
+    }
+
+    // Splits blocks into lines and copies each valid line as one array element; lines may span blocks
+    private final class LineCopier {
+        private final OutputStream out;
+        private byte[] pending = new byte[1024];
+        private int pendingLength;
+        private long records;
+
+        LineCopier(OutputStream out) {
+            this.out = new BufferedOutputStream(out, BLOCK_BYTES);
+        }
+
+        void accept(byte[] block, int length) throws IOException {
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (block[i] != '\n') {
+                    continue;
+                }
+                if (pendingLength == 0) {
+                    copyIfValid(block, lineStart, i - lineStart);
+                } else {
+                    append(block, lineStart, i - lineStart);
+                    copyIfValid(pending, 0, pendingLength);
+                    pendingLength = 0;
+                }
+                lineStart = i + 1;
+            }
+            append(block, lineStart, length - lineStart);
+        }
+
+        void finish() throws IOException {
+            if (pendingLength > 0) {
+                copyIfValid(pending, 0, pendingLength);
+                pendingLength = 0;
+            }
+            out.flush();
+        }
+
+        private void append(byte[] bytes, int offset, int length) {
+            if (pendingLength + length > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+            }
+            System.arraycopy(bytes, offset, pending, pendingLength, length);
+            pendingLength += length;
+        }
+
+        private void copyIfValid(byte[] bytes, int offset, int length) throws IOException {
+            // Drop the carriage return of CRLF line endings and skip blank lines
+            if (length > 0 && bytes[offset + length - 1] == '\r') {
+                length--;
+            }
+            if (isBlank(bytes, offset, length)) {
+                return;
+            }
+            if (!isSingleObject(bytes, offset, length)) {
+                long skipped = skippedLines.incrementAndGet();
+                if (skipped <= LOGGED_SKIPPED_LINES) {
+                    log.warn("Skipping invalid NDJSON line ({} bytes) in results JSON export", length);
+                }
+                return;
+            }
+            if (records > 0) {
+                out.write(ELEMENT_SEPARATOR);
+            }
+            out.write(bytes, offset, length);
+            records++;
+        }
+
+        private static boolean isBlank(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] != ' ' && bytes[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isSingleObject(byte[] bytes, int offset, int length) throws IOException {
+            try (JsonParser parser = JSON_FACTORY.createParser(bytes, offset, length)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return false;
+                }
+                parser.skipChildren();
+                return parser.nextToken() == null;
+            } catch (JsonProcessingException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import com.opensearchloadtester.metricsreporter.dto.RunSummaryDto;
+import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
+import com.opensearchloadtester.metricsreporter.dto.TimelineBucketDto;
+import com.opensearchloadtester.metricsreporter.history.RunHistoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records finalized runs in the run history, together with the scenario and cluster the load generators reported.
+ * The history is opened on first use.
+ */
+@Slf4j
+final class RunHistoryRecorder {
+
+    private final Path directory;
+    private final List<String> labels;
+    private final int significantDigits;
+    private final int maxRuns;
+    private final long maxBytes;
+    // Scenario and cluster per load generator
+    private final Map<String, RunMetadataDto> runMetadata = new ConcurrentHashMap<>();
+    private RunHistoryStore store;
+
+    RunHistoryRecorder(Path directory, List<String> labels, int significantDigits, int maxRuns, long maxBytes) {
+        this.directory = directory;
+        this.labels = labels;
+        this.significantDigits = significantDigits;
+        this.maxRuns = maxRuns;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Keeps the scenario and cluster a load generator reported; only the first report of each one counts.
+     */
+    void recordMetadata(RunMetadataDto metadata) {
+        if (runMetadata.putIfAbsent(metadata.getLoadGeneratorId(), metadata) == null) {
+            log.info("Run metadata received from load generator {}: scenario {}, cluster version {}",
+                    metadata.getLoadGeneratorId(), metadata.getScenarioName(),
+                    metadata.getCluster() != null ? metadata.getCluster().get("version") : null);
+        }
+    }
+
+    /**
+     * Records the finalized run. A failure is logged only; the reports do not depend on it.
+     */
+    void record(StatisticsDto statistics, RunHistogramsDto histograms, List<TimelineBucketDto> timeline) {
+        // All load generators run the same scenario against the same cluster; the first one by id is kept
+        TreeMap<String, RunMetadataDto> metadata = new TreeMap<>(runMetadata);
+        if (metadata.values().stream().map(RunMetadataDto::getScenarioName).distinct().count() > 1) {
+            log.warn("Load generators reported different scenarios, the run history keeps the one of {}",
+                    metadata.firstKey());
+        }
+        try {
+            RunSummaryDto run = store().record(new RunHistoryStore.Run(statistics.getReportGeneratedAt(),
+                    labels, statistics.getLoadGeneratorInstances(),
+                    metadata.isEmpty() ? null : metadata.firstEntry().getValue(),
+                    statistics.getTotalQueries(), statistics.getTotalErrors(), histograms, timeline));
+            log.info("Run {} recorded in the run history ({} bytes)", run.getRunId(), run.getSizeBytes());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to record the run in the run history: {}", e.getMessage());
+        }
+    }
+
+    synchronized RunHistoryStore store() throws IOException {
+        if (store == null) {
+            store = new RunHistoryStore(directory, significantDigits, maxRuns, maxBytes);
+        }
+        return store;
+    }
+}
@@ -0,0 +1,175 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * NDJSON lines of one metrics batch that are not part of the report yet.
+ *
+ * <p>
+ * Lines are kept in memory up to a limit and spilled to a temporary file beyond it, so staging a batch takes
+ * bounded heap regardless of its size. {@link NdjsonSegmentWriter#write(StagedNdjson)} copies the lines into the
+ * report; closing the staged batch discards them and deletes the spill file.
+ * </p>
+ *
+ * <p>
+ * If the report is indexed, the lines are cut into index blocks while staging, see {@link NdjsonSparseIndex}.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe: filled by the request thread, then handed over to the writer thread.
+ * </p>
+ */
+@Slf4j
+final class StagedNdjson implements AutoCloseable {
+
+    private final ObjectWriter writer;
+    private final Path spillDirectory;
+    private final byte[] buffer;
+    private final JsonGenerator generator;
+    private final NdjsonSparseIndex.Blocks indexBlocks;
+    private int buffered;
+    private long spilled;
+    private Path spillFile;
+    private FileChannel spill;
+    private int records;
+
+    StagedNdjson(ObjectWriter writer, Path spillDirectory, int memoryBytes) {
+        this(writer, spillDirectory, memoryBytes, null);
+    }
+
+    /**
+     * @param indexBlocks blocks of the index the lines are added to, or null if the report is not indexed
+     */
+    StagedNdjson(ObjectWriter writer, Path spillDirectory, int memoryBytes, NdjsonSparseIndex.Blocks indexBlocks) {
+        if (memoryBytes < 1) {
+            throw new IllegalArgumentException("memoryBytes must be positive");
+        }
+        this.writer = writer;
+        this.spillDirectory = spillDirectory;
+        this.indexBlocks = indexBlocks;
+        this.buffer = new byte[memoryBytes];
+        try {
+            this.generator = NdjsonSegmentWriter.createLineGenerator(writer, new SpillOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serializes the record as one line.
+     *
+     * @throws IOException if the spill file cannot be written
+     */
+    void add(Object record) throws IOException {
+        if (indexBlocks != null) {
+            indexBlocks.add(0, spilled + buffered + generator.getOutputBuffered(), record);
+        }
+        writer.writeValue(generator, record);
+        generator.writeRaw('\n');
+        records++;
+    }
+
+    int records() {
+        return records;
+    }
+
+    NdjsonSparseIndex.Blocks indexBlocks() {
+        return indexBlocks;
+    }
+
+    boolean isSpilled() {
+        return spill != null;
+    }
+
+    /**
+     * Writes all lines to the target channel at its position.
+     *
+     * @return number of bytes written
+     */
+    long transferTo(FileChannel target) throws IOException {
+        generator.flush();
+        long bytes = 0;
+        if (spill != null) {
+            long size = spill.size();
+            while (bytes < size) {
+                bytes += spill.transferTo(bytes, size - bytes, target);
+            }
+        }
+        ByteBuffer tail = ByteBuffer.wrap(buffer, 0, buffered);
+        while (tail.hasRemaining()) {
+            bytes += target.write(tail);
+        }
+        return bytes;
+    }
+
+    /**
+     * Discards the staged lines.
+     */
+    @Override
+    public void close() {
+        try {
+            generator.close();
+        } catch (IOException e) {
+            // Only flushes into the buffer or spill file that is discarded anyway
+        }
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete spilled metrics batch {}: {}", spillFile, e.getMessage());
+        }
+        spill = null;
+    }
+
+    private void spillBuffer() throws IOException {
+        if (spill == null) {
+            spillFile = Files.createTempFile(spillDirectory, "metrics-batch-", ".ndjson.tmp");
+            spill = FileChannel.open(spillFile, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        }
+        ByteBuffer data = ByteBuffer.wrap(buffer, 0, buffered);
+        while (data.hasRemaining()) {
+            spill.write(data);
+        }
+        spilled += buffered;
+        buffered = 0;
+    }
+
+    private final class SpillOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            if (buffered == buffer.length) {
+                spillBuffer();
+            }
+            buffer[buffered++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (buffered == buffer.length) {
+                    spillBuffer();
+                }
+                int chunk = Math.min(length, buffer.length - buffered);
+                System.arraycopy(bytes, offset, buffer, buffered, chunk);
+                buffered += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
+import com.opensearchloadtester.metricsreporter.dto.TimelineBucketDto;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-second buckets of all samples, keyed by the second their request was sent.
+ *
+ * <p>
+ * Each bucket counts queries and errors, the time its requests were in flight (a request spanning several
+ * seconds adds its overlap to each of them) and the request durations for percentiles. To bound memory, the
+ * latency histogram of a bucket is replaced by its statistics once the bucket is more than the seal delay
+ * older than the newest sample; samples arriving even later (e.g. replayed from a load generator's spool)
+ * still count as queries, but no longer contribute to the latency of their second.
+ * </p>
+ *
+ * <p>
+ * Latency histograms of a reporting interval (aggregate reporting mode) are spread evenly over the seconds of
+ * the interval: each second gets its share of the queries and errors, the in-flight time of their mean request
+ * duration and the request durations of the whole interval for percentiles, which is as fine as the load
+ * generator resolved them. Samples without a start time (older load generators) are not part of the timeline.
+ * </p>
+ */
+final class TimelineAccumulator {
+
+    private static final long BUCKET_MILLIS = 1_000;
+    // Longest stretch of empty seconds filled in between two seconds with samples
+    private static final long MAX_EMPTY_SECONDS = 3_600;
+
+    private final long sealDelaySeconds;
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+    private long newestSecond = Long.MIN_VALUE;
+    // Buckets before this second are sealed
+    private long firstUnsealedSecond = Long.MIN_VALUE;
+    private final double[] sealPercentiles;
+
+    TimelineAccumulator(long sealDelaySeconds, double[] percentiles) {
+        if (sealDelaySeconds < 1) {
+            throw new IllegalArgumentException("report.timeline.seal.delay.seconds must be >= 1");
+        }
+        this.sealDelaySeconds = sealDelaySeconds;
+        this.sealPercentiles = percentiles;
+    }
+
+    void add(MetricsDto metrics) {
+        Long startMillis = metrics.getStartTimeEpochMillis();
+        if (startMillis == null) {
+            return;
+        }
+        long second = Math.floorDiv(startMillis, BUCKET_MILLIS);
+        Bucket bucket = bucket(second);
+        bucket.queries++;
+        if (metrics.getHttpStatusCode() >= 400) {
+            bucket.errors++;
+        }
+
+        Long durationMillis = metrics.getRequestDurationMillis();
+        if (durationMillis != null && durationMillis >= 0) {
+            if (bucket.requestDuration != null) {
+                bucket.requestDuration.add(durationMillis);
+            }
+            addInFlight(bucket, startMillis, startMillis + durationMillis);
+        }
+
+        if (second > newestSecond) {
+            newestSecond = second;
+            seal(newestSecond - sealDelaySeconds);
+        }
+    }
+
+    /**
+     * Adds the queries of one group of a reporting interval [startMillis, endMillis), all of them errors or none.
+     */
+    void addInterval(long startMillis, long endMillis, long queries, boolean errors, Histogram requestDuration) {
+        long firstSecond = Math.floorDiv(startMillis, BUCKET_MILLIS);
+        long seconds = Math.max(1, Math.ceilDiv(endMillis - firstSecond * BUCKET_MILLIS, BUCKET_MILLIS));
+        double inFlightMillis = requestDuration != null ? requestDuration.getMean() * queries : 0.0;
+        for (long i = 0; i < seconds; i++) {
+            Bucket bucket = bucket(firstSecond + i);
+            // Shares that add up to the total, e.g. 10 queries over 3 seconds as 3, 3 and 4
+            long share = queries * (i + 1) / seconds - queries * i / seconds;
+            bucket.queries += share;
+            if (errors) {
+                bucket.errors += share;
+            }
+            bucket.inFlightMillis += Math.round(inFlightMillis * (i + 1) / seconds)
+                    - Math.round(inFlightMillis * i / seconds);
+            if (bucket.requestDuration != null) {
+                bucket.requestDuration.add(requestDuration);
+            }
+        }
+
+        long lastSecond = firstSecond + seconds - 1;
+        if (lastSecond > newestSecond) {
+            newestSecond = lastSecond;
+            seal(newestSecond - sealDelaySeconds);
+        }
+    }
+
+    /**
+     * Adds all buckets of another timeline, e.g. of a metrics batch staged before it is committed. Seconds that
+     * either timeline has already sealed only contribute their counts, like late samples.
+     */
+    void merge(TimelineAccumulator other) {
+        for (Bucket source : other.buckets.values()) {
+            Bucket bucket = bucket(source.second);
+            bucket.queries += source.queries;
+            bucket.errors += source.errors;
+            bucket.inFlightMillis += source.inFlightMillis;
+            if (bucket.requestDuration != null && source.requestDuration != null) {
+                bucket.requestDuration.merge(source.requestDuration);
+            }
+        }
+        if (other.newestSecond > newestSecond) {
+            newestSecond = other.newestSecond;
+            seal(newestSecond - sealDelaySeconds);
+        }
+    }
+
+    /**
+     * Returns one bucket per second from the first to the last second with samples, including empty seconds.
+     * Gaps longer than {@value #MAX_EMPTY_SECONDS} seconds are left out rather than filled.
+     */
+    List<TimelineBucketDto> toTimeline(double[] percentiles) {
+        List<TimelineBucketDto> timeline = new ArrayList<>();
+        long previousSecond = Long.MIN_VALUE;
+        for (Bucket bucket : buckets.values()) {
+            if (previousSecond != Long.MIN_VALUE && bucket.second - previousSecond <= MAX_EMPTY_SECONDS) {
+                for (long second = previousSecond + 1; second < bucket.second; second++) {
+                    timeline.add(new Bucket(second).toDto(percentiles));
+                }
+            }
+            timeline.add(bucket.toDto(percentiles));
+            previousSecond = bucket.second;
+        }
+        return timeline;
+    }
+
+    // Adds the overlap of [startMillis, endMillis) with each second it spans, starting with the given bucket
+    private void addInFlight(Bucket first, long startMillis, long endMillis) {
+        Bucket bucket = first;
+        long second = first.second;
+        while (true) {
+            long bucketEnd = (second + 1) * BUCKET_MILLIS;
+            bucket.inFlightMillis += Math.min(endMillis, bucketEnd) - Math.max(startMillis, second * BUCKET_MILLIS);
+            if (endMillis <= bucketEnd) {
+                return;
+            }
+            second++;
+            bucket = bucket(second);
+        }
+    }
+
+    private Bucket bucket(long second) {
+        Bucket bucket = buckets.get(second);
+        if (bucket == null) {
+            bucket = new Bucket(second);
+            if (second < firstUnsealedSecond) {
+                bucket.seal(sealPercentiles);
+            }
+            buckets.put(second, bucket);
+        }
+        return bucket;
+    }
+
+    private void seal(long beforeSecond) {
+        if (beforeSecond <= firstUnsealedSecond) {
+            return;
+        }
+        Map<Long, Bucket> sealable = firstUnsealedSecond == Long.MIN_VALUE
+                ? buckets.headMap(beforeSecond)
+                : buckets.subMap(firstUnsealedSecond, beforeSecond);
+        sealable.values().forEach(bucket -> bucket.seal(sealPercentiles));
+        firstUnsealedSecond = beforeSecond;
+    }
+
+    private static final class Bucket {
+        private final long second;
+        private long queries;
+        private long errors;
+        private long inFlightMillis;
+        // Null once sealed
+        private DurationAccumulator requestDuration = new DurationAccumulator(true);
+        private StatisticsDto.DurationStats sealedRequestDuration;
+
+        Bucket(long second) {
+            this.second = second;
+        }
+
+        void seal(double[] percentiles) {
+            if (requestDuration != null) {
+                sealedRequestDuration = requestDuration.toDurationStats(percentiles);
+                requestDuration = null;
+            }
+        }
+
+        TimelineBucketDto toDto(double[] percentiles) {
+            StatisticsDto.DurationStats durationStats = requestDuration != null
+                    ? requestDuration.toDurationStats(percentiles)
+                    : sealedRequestDuration;
+            return new TimelineBucketDto(
+                    second * BUCKET_MILLIS,
+                    queries,
+                    queries * 1_000.0 / BUCKET_MILLIS,
+                    errors,
+                    queries == 0 ? 0.0 : errors / (double) queries,
+                    inFlightMillis / (double) BUCKET_MILLIS,
+                    durationStats
+            );
+        }
+    }
+}
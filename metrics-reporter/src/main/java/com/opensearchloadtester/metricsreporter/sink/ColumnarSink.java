@@ -0,0 +1,235 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes the results into a compact binary file organized in column blocks.
+ *
+ * <p>
+ * Layout (all integers big-endian): the header {@code int MAGIC, int VERSION}, followed by blocks of
+ * {@code int rowCount, int byteLength, byte[byteLength]}. Within a block the columns follow each other:
+ * </p>
+ * <ol>
+ *     <li>{@code load_generator_id}, {@code query_type}, {@code stage}: a dictionary ({@code varint size}, then per
+ *     entry {@code varint length} and UTF-8 bytes) followed by one {@code varint} code per row, 0 for null and
+ *     {@code n} for dictionary entry {@code n - 1}</li>
+ *     <li>{@code http_status_code}: one zigzag {@code varint} per row, the difference to the previous row</li>
+ *     <li>{@link #LONG_COLUMNS}, in that order: a presence bitmap of {@code (rowCount + 7) / 8} bytes (bit
+ *     {@code i % 8} of byte {@code i / 8} set if row {@code i} has a value), then one zigzag {@code varint} per
+ *     present value, the difference to the previous present value of the column</li>
+ * </ol>
+ * <p>
+ * Durations and timestamps of neighbouring results are close, so most values take one or two bytes. Rows are
+ * buffered until a block is full, and the last, partial block is written on close.
+ * </p>
+ */
+@Slf4j
+final class ColumnarSink implements ResultSink {
+
+    static final String NAME = "columnar";
+    static final int MAGIC = 0x4F4C5443; // "OLTC"
+    static final int VERSION = 1;
+    static final List<String> LONG_COLUMNS = List.of(
+            "request_duration_millis",
+            "corrected_request_duration_millis",
+            "query_duration_millis",
+            "total_hits",
+            "request_bytes",
+            "response_bytes",
+            "time_to_first_byte_millis",
+            "transfer_time_millis",
+            "overhead_millis",
+            "start_time_epoch_millis");
+    private static final List<Function<MetricsDto, Number>> LONG_VALUES = List.of(
+            MetricsDto::getRequestDurationMillis,
+            MetricsDto::getCorrectedRequestDurationMillis,
+            MetricsDto::getQueryDurationMillis,
+            MetricsDto::getTotalHits,
+            MetricsDto::getRequestBytes,
+            MetricsDto::getResponseBytes,
+            MetricsDto::getTimeToFirstByteMillis,
+            MetricsDto::getTransferTimeMillis,
+            MetricsDto::getOverheadMillis,
+            MetricsDto::getStartTimeEpochMillis);
+
+    private final Path file;
+    private final int blockRows;
+    private final DataOutputStream out;
+
+    // Current block
+    private final DictionaryColumn[] stringColumns;
+    private final int[] statusCodes;
+    private final long[][] longValues;
+    private final BitSet[] longPresent;
+    private int rows;
+
+    private final BlockEncoder encoder = new BlockEncoder();
+    private long blocks;
+    private long totalRows;
+
+    /**
+     * Creates (or truncates) the file and writes the header.
+     */
+    ColumnarSink(Path file, int blockRows) throws IOException {
+        if (blockRows < 1) {
+            throw new IllegalArgumentException("blockRows must be positive");
+        }
+        this.file = file;
+        this.blockRows = blockRows;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        this.stringColumns = new DictionaryColumn[]{
+                new DictionaryColumn(), new DictionaryColumn(), new DictionaryColumn()};
+        this.statusCodes = new int[blockRows];
+        this.longValues = new long[LONG_VALUES.size()][blockRows];
+        this.longPresent = new BitSet[LONG_VALUES.size()];
+        Arrays.setAll(longPresent, column -> new BitSet(blockRows));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void write(List<MetricsDto> batch) throws IOException {
+        for (MetricsDto metrics : batch) {
+            stringColumns[0].add(metrics.getLoadGeneratorId(), rows);
+            stringColumns[1].add(metrics.getQueryType(), rows);
+            stringColumns[2].add(metrics.getStage(), rows);
+            statusCodes[rows] = metrics.getHttpStatusCode();
+            for (int column = 0; column < LONG_VALUES.size(); column++) {
+                Number value = LONG_VALUES.get(column).apply(metrics);
+                if (value != null) {
+                    longValues[column][rows] = value.longValue();
+                    longPresent[column].set(rows);
+                }
+            }
+            if (++rows == blockRows) {
+                writeBlock();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rows > 0) {
+            writeBlock();
+        }
+        out.close();
+        log.info("Columnar results written to {} ({} rows in {} blocks)", file.toAbsolutePath(), totalRows, blocks);
+    }
+
+    private void writeBlock() throws IOException {
+        encoder.reset();
+        for (DictionaryColumn column : stringColumns) {
+            column.encode(encoder, rows);
+        }
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            encoder.zigzag(statusCodes[row] - previous);
+            previous = statusCodes[row];
+        }
+        for (int column = 0; column < LONG_VALUES.size(); column++) {
+            BitSet present = longPresent[column];
+            byte[] bitmap = Arrays.copyOf(present.toByteArray(), (rows + 7) / 8);
+            encoder.bytes(bitmap, bitmap.length);
+            previous = 0;
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                encoder.zigzag(longValues[column][row] - previous);
+                previous = longValues[column][row];
+            }
+            present.clear();
+        }
+
+        out.writeInt(rows);
+        out.writeInt(encoder.length);
+        out.write(encoder.buffer, 0, encoder.length);
+        blocks++;
+        totalRows += rows;
+        rows = 0;
+    }
+
+    // Distinct values of a string column within one block
+    private final class DictionaryColumn {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final int[] rowCodes = new int[blockRows];
+
+        void add(String value, int row) {
+            rowCodes[row] = value == null ? 0 : codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size();
+            });
+        }
+
+        void encode(BlockEncoder encoder, int rows) {
+            encoder.varint(values.size());
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                encoder.varint(bytes.length);
+                encoder.bytes(bytes, bytes.length);
+            }
+            for (int row = 0; row < rows; row++) {
+                encoder.varint(rowCodes[row]);
+            }
+            codes.clear();
+            values.clear();
+        }
+    }
+
+    private static final class BlockEncoder {
+        private byte[] buffer = new byte[64 * 1024];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes, int count) {
+            ensure(count);
+            System.arraycopy(bytes, 0, buffer, length, count);
+            length += count;
+        }
+
+        private void ensure(int additional) {
+            if (length + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the results as gzip-compressed NDJSON, one result per line, rotated into numbered files.
+ *
+ * <p>
+ * The first file is {@code <name>.ndjson.gz}, once it holds the configured amount of uncompressed NDJSON the next
+ * results go to {@code <name>.1.ndjson.gz}, {@code <name>.2.ndjson.gz} and so on. Every file is a complete gzip
+ * stream once rotated or closed.
+ * </p>
+ */
+@Slf4j
+final class CompressedNdjsonSink implements ResultSink {
+
+    static final String NAME = "ndjson-gz";
+    private static final String EXTENSION = ".ndjson.gz";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final String baseName;
+    private final long rotateBytes;
+    private final ObjectWriter writer;
+
+    private int fileIndex;
+    private CountingOutputStream counter;
+    private JsonGenerator generator;
+
+    /**
+     * Deletes the files of a previous run and creates the first file.
+     *
+     * @param rotateBytes uncompressed NDJSON bytes per file, 0 for a single file
+     */
+    CompressedNdjsonSink(Path directory, String baseName, long rotateBytes, ObjectWriter writer) throws IOException {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.rotateBytes = rotateBytes;
+        this.writer = writer;
+        try (DirectoryStream<Path> previous = Files.newDirectoryStream(directory, baseName + "{,.*}" + EXTENSION)) {
+            for (Path file : previous) {
+                Files.deleteIfExists(file);
+            }
+        }
+        open(file(0));
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void write(List<MetricsDto> batch) throws IOException {
+        for (MetricsDto metrics : batch) {
+            writer.writeValue(generator, metrics);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        if (rotateBytes > 0 && counter.count >= rotateBytes) {
+            closeFile();
+            fileIndex++;
+            open(file(fileIndex));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeFile();
+        log.info("Compressed NDJSON results written to {} file(s) {}{}", fileIndex + 1,
+                directory.resolve(baseName).toAbsolutePath(), EXTENSION);
+    }
+
+    Path file(int index) {
+        return directory.resolve(index == 0 ? baseName + EXTENSION : baseName + "." + index + EXTENSION);
+    }
+
+    private void open(Path file) throws IOException {
+        OutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_BYTES),
+                BUFFER_BYTES);
+        counter = new CountingOutputStream(gzip);
+        generator = ResultSinks.createLineGenerator(writer, counter);
+    }
+
+    private void closeFile() throws IOException {
+        generator.close();
+        counter.close();
+    }
+
+    // Counts the uncompressed bytes of the current file
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the results as CSV with a header row, one result per row. Columns are named like the NDJSON fields;
+ * missing values are left empty.
+ */
+@Slf4j
+final class CsvSink implements ResultSink {
+
+    static final String NAME = "csv";
+    static final String[] HEADER = {
+            "load_generator_id",
+            "query_type",
+            "stage",
+            "request_duration_millis",
+            "corrected_request_duration_millis",
+            "query_duration_millis",
+            "total_hits",
+            "http_status_code",
+            "request_bytes",
+            "response_bytes",
+            "time_to_first_byte_millis",
+            "transfer_time_millis",
+            "overhead_millis",
+            "start_time_epoch_millis"
+    };
+
+    private final Path file;
+    private final CSVPrinter printer;
+    private long rows;
+
+    /**
+     * Creates (or truncates) the CSV file and writes the header.
+     */
+    CsvSink(Path file) throws IOException {
+        this.file = file;
+        this.printer = new CSVPrinter(Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+                CSVFormat.DEFAULT.builder().setHeader(HEADER).setRecordSeparator('\n').build());
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void write(List<MetricsDto> batch) throws IOException {
+        for (MetricsDto metrics : batch) {
+            printer.printRecord(
+                    metrics.getLoadGeneratorId(),
+                    metrics.getQueryType(),
+                    metrics.getStage(),
+                    metrics.getRequestDurationMillis(),
+                    metrics.getCorrectedRequestDurationMillis(),
+                    metrics.getQueryDurationMillis(),
+                    metrics.getTotalHits(),
+                    metrics.getHttpStatusCode(),
+                    metrics.getRequestBytes(),
+                    metrics.getResponseBytes(),
+                    metrics.getTimeToFirstByteMillis(),
+                    metrics.getTransferTimeMillis(),
+                    metrics.getOverheadMillis(),
+                    metrics.getStartTimeEpochMillis());
+        }
+        rows += batch.size();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        printer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        printer.close(true);
+        log.info("CSV results written to {} ({} rows)", file.toAbsolutePath(), rows);
+    }
+}
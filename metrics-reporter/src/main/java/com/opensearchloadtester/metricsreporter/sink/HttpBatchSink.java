@@ -0,0 +1,121 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Base class of sinks that push results to an HTTP endpoint in batches of a fixed number of results.
+ *
+ * <p>
+ * A batch is sent once it is full and whenever the sink is flushed. A batch the endpoint does not accept is not
+ * retried; the failure is reported to the queue of the sink.
+ * </p>
+ */
+abstract class HttpBatchSink implements ResultSink {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int LOGGED_RESPONSE_CHARS = 500;
+
+    private final HttpClient client;
+    private final URI uri;
+    private final int batchSize;
+    private final String authorization;
+    private int buffered;
+
+    /**
+     * @param username user for basic authentication, or blank for none
+     */
+    HttpBatchSink(HttpClient client, URI uri, int batchSize, String username, String password) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.client = client;
+        this.uri = uri;
+        this.batchSize = batchSize;
+        this.authorization = username == null || username.isBlank() ? null : "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(List<MetricsDto> batch) throws IOException {
+        for (MetricsDto metrics : batch) {
+            append(metrics);
+            if (++buffered >= batchSize) {
+                send();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffered > 0) {
+            send();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Adds one result to the request body being built.
+     */
+    abstract void append(MetricsDto metrics) throws IOException;
+
+    /**
+     * Returns the request body for all results appended since the last {@link #reset()}.
+     */
+    abstract byte[] body() throws IOException;
+
+    abstract void reset();
+
+    abstract String contentType();
+
+    /**
+     * Checks a 2xx response for failures reported in its body.
+     */
+    void checkResponse(byte[] responseBody, int records) throws IOException {
+    }
+
+    private void send() throws IOException {
+        byte[] body = body();
+        int records = buffered;
+        // A rejected batch is dropped, so it cannot block the ones after it
+        reset();
+        buffered = 0;
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", contentType())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending " + records + " results to " + uri);
+        }
+        if (response.statusCode() / 100 != 2) {
+            String text = new String(response.body(), StandardCharsets.UTF_8);
+            throw new IOException(String.format("%s rejected %d results with HTTP %d: %s", uri, records,
+                    response.statusCode(), text.length() > LOGGED_RESPONSE_CHARS
+                            ? text.substring(0, LOGGED_RESPONSE_CHARS) + "..." : text));
+        }
+        checkResponse(response.body(), records);
+    }
+}
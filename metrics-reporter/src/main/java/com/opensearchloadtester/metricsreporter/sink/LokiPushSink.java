@@ -0,0 +1,97 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opensearchloadtester.common.dto.MetricsDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pushes the results to Loki as log lines with the NDJSON fields, timestamped with the time the request was sent.
+ *
+ * <p>
+ * Streams are labelled with the configured {@code job} and the {@code query_type} of the result, so the Grafana
+ * dashboard queries work unchanged. The push API is called with the results of several batches at once.
+ * </p>
+ */
+final class LokiPushSink extends HttpBatchSink {
+
+    static final String NAME = "loki";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String job;
+    private final ObjectWriter writer;
+    // Lines per query type (one Loki stream each) in the order they were appended
+    private final Map<String, List<Entry>> streams = new LinkedHashMap<>();
+
+    LokiPushSink(HttpClient client, String url, String job, int batchSize, ObjectWriter writer) {
+        super(client, URI.create(url), batchSize, null, null);
+        this.job = job;
+        this.writer = writer;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    void append(MetricsDto metrics) throws IOException {
+        long epochMillis = metrics.getStartTimeEpochMillis() != null
+                ? metrics.getStartTimeEpochMillis()
+                : System.currentTimeMillis();
+        streams.computeIfAbsent(metrics.getQueryType(), queryType -> new ArrayList<>())
+                .add(new Entry(epochMillis * 1_000_000, writer.writeValueAsString(metrics)));
+    }
+
+    @Override
+    byte[] body() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(body)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("streams");
+            for (Map.Entry<String, List<Entry>> stream : streams.entrySet()) {
+                json.writeStartObject();
+                json.writeObjectFieldStart("stream");
+                json.writeStringField("job", job);
+                if (stream.getKey() != null) {
+                    json.writeStringField("query_type", stream.getKey());
+                }
+                json.writeEndObject();
+                json.writeArrayFieldStart("values");
+                for (Entry entry : stream.getValue()) {
+                    json.writeStartArray();
+                    json.writeString(Long.toString(entry.epochNanos()));
+                    json.writeString(entry.line());
+                    json.writeEndArray();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        return body.toByteArray();
+    }
+
+    @Override
+    void reset() {
+        streams.clear();
+    }
+
+    @Override
+    String contentType() {
+        return "application/json";
+    }
+
+    private record Entry(long epochNanos, String line) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opensearchloadtester.common.dto.MetricsDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+
+/**
+ * Indexes the results into an OpenSearch index with the bulk API, one document per result with the NDJSON fields.
+ * The index is created by OpenSearch on the first request if it does not exist.
+ */
+final class OpenSearchBulkSink extends HttpBatchSink {
+
+    static final String NAME = "opensearch";
+    private static final String INDEX_ACTION = "{\"index\":{}}\n";
+    private static final ObjectMapper RESPONSE_MAPPER = new ObjectMapper();
+
+    private final ObjectWriter writer;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256 * 1024);
+    private final JsonGenerator generator;
+
+    OpenSearchBulkSink(HttpClient client, String url, String index, int bulkSize, String username, String password,
+                       ObjectWriter writer) throws IOException {
+        super(client, URI.create(stripTrailingSlash(url) + "/" + index + "/_bulk"), bulkSize, username, password);
+        this.writer = writer;
+        this.generator = ResultSinks.createLineGenerator(writer, body);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    void append(MetricsDto metrics) throws IOException {
+        generator.writeRaw(INDEX_ACTION);
+        writer.writeValue(generator, metrics);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    byte[] body() throws IOException {
+        generator.flush();
+        return body.toByteArray();
+    }
+
+    @Override
+    void reset() {
+        body.reset();
+    }
+
+    @Override
+    String contentType() {
+        return "application/x-ndjson";
+    }
+
+    @Override
+    void checkResponse(byte[] responseBody, int records) throws IOException {
+        JsonNode response = RESPONSE_MAPPER.readTree(responseBody);
+        if (!response.path("errors").asBoolean(false)) {
+            return;
+        }
+        int failed = 0;
+        String firstReason = null;
+        for (JsonNode item : response.path("items")) {
+            JsonNode error = item.path("index").path("error");
+            if (!error.isMissingNode()) {
+                failed++;
+                if (firstReason == null) {
+                    firstReason = error.path("reason").asText(error.toString());
+                }
+            }
+        }
+        throw new IOException(String.format("OpenSearch rejected %d of %d results: %s", failed, records, firstReason));
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
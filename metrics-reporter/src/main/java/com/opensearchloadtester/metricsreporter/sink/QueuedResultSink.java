@@ -0,0 +1,149 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.SinkStatusDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one {@link ResultSink} on its own thread behind a bounded queue of batches.
+ *
+ * <p>
+ * Offering a batch never blocks: when the queue is full because the sink cannot keep up, the batch is dropped for
+ * this sink and counted, so a slow or unreachable destination never stalls ingestion or the other sinks.
+ * </p>
+ */
+@Slf4j
+final class QueuedResultSink {
+
+    private static final long IDLE_POLL_MILLIS = 200;
+    private static final int LOGGED_DROPS = 10;
+    private static final List<MetricsDto> END_OF_STREAM = List.of();
+
+    private final ResultSink sink;
+    private final BlockingQueue<List<MetricsDto>> queue;
+    private final int capacity;
+    private final Thread thread;
+    private volatile boolean closing;
+    private volatile SinkStatusDto.State state = SinkStatusDto.State.RUNNING;
+    private volatile String lastError;
+
+    private final AtomicLong writtenRecords = new AtomicLong();
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicLong failedRecords = new AtomicLong();
+    private final AtomicLong droppedBatches = new AtomicLong();
+
+    QueuedResultSink(ResultSink sink, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.sink = sink;
+        this.capacity = capacity;
+        // One slot more for the end-of-stream marker, which must never be dropped
+        this.queue = new ArrayBlockingQueue<>(capacity + 1);
+        this.thread = Thread.ofPlatform().name("result-sink-" + sink.name()).daemon().start(this::run);
+    }
+
+    /**
+     * Queues the batch, or drops it if the queue is full or the sink is closing.
+     *
+     * @return whether the batch was queued
+     */
+    boolean offer(List<MetricsDto> batch) {
+        if (closing || queue.size() >= capacity || !queue.offer(batch)) {
+            droppedRecords.addAndGet(batch.size());
+            if (droppedBatches.incrementAndGet() <= LOGGED_DROPS) {
+                log.warn("Result sink '{}' cannot keep up; dropped a batch of {} results", sink.name(), batch.size());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lets the sink write everything queued so far, then closes it. Waits at most the given time; results still
+     * queued after that are dropped.
+     *
+     * @return whether the sink was drained and closed in time
+     */
+    boolean close(long timeoutMillis) throws InterruptedException {
+        if (!closing) {
+            closing = true;
+            queue.offer(END_OF_STREAM);
+        }
+        thread.join(Math.max(1, timeoutMillis));
+        if (thread.isAlive()) {
+            thread.interrupt();
+            log.warn("Result sink '{}' did not drain within {} ms", sink.name(), timeoutMillis);
+            return false;
+        }
+        return true;
+    }
+
+    SinkStatusDto status() {
+        return new SinkStatusDto(sink.name(), state, queue.size(), capacity, writtenRecords.get(),
+                droppedRecords.get(), failedRecords.get(), lastError);
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                List<MetricsDto> batch = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    flushQuietly();
+                } else if (batch == END_OF_STREAM) {
+                    break;
+                } else {
+                    write(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            List<MetricsDto> batch;
+            while ((batch = queue.poll()) != null) {
+                if (batch != END_OF_STREAM) {
+                    droppedRecords.addAndGet(batch.size());
+                }
+            }
+            try {
+                sink.close();
+                state = lastError == null ? SinkStatusDto.State.CLOSED : SinkStatusDto.State.CLOSED_WITH_ERRORS;
+            } catch (IOException | RuntimeException e) {
+                fail("close", e);
+                state = SinkStatusDto.State.CLOSED_WITH_ERRORS;
+            }
+        }
+    }
+
+    private void write(List<MetricsDto> batch) {
+        try {
+            sink.write(batch);
+            writtenRecords.addAndGet(batch.size());
+        } catch (IOException | RuntimeException e) {
+            failedRecords.addAndGet(batch.size());
+            fail("write " + batch.size() + " results to", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            sink.flush();
+        } catch (IOException | RuntimeException e) {
+            fail("flush", e);
+        }
+    }
+
+    private void fail(String action, Exception e) {
+        if (!e.toString().equals(lastError)) {
+            log.warn("Failed to {} result sink '{}': {}", action, sink.name(), e.toString());
+        }
+        lastError = e.toString();
+    }
+}
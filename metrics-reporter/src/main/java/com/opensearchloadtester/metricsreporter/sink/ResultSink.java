@@ -0,0 +1,41 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination the query results of a run are streamed to in addition to the NDJSON report.
+ *
+ * <p>
+ * Every sink is driven by its own thread behind a bounded queue (see {@link ResultSinks}), so implementations are
+ * only ever called from that thread and need not be thread-safe. A failed {@link #write(List)} loses that batch
+ * for this sink only; later batches are still passed on.
+ * </p>
+ */
+public interface ResultSink extends Closeable {
+
+    /**
+     * Name the sink is enabled with in {@code report.sinks}.
+     */
+    String name();
+
+    /**
+     * Writes or buffers one batch of query results.
+     */
+    void write(List<MetricsDto> batch) throws IOException;
+
+    /**
+     * Passes on buffered results. Called whenever the queue of the sink runs empty, so results reach their
+     * destination soon after ingestion slows down.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flushes remaining results and releases the destination.
+     */
+    @Override
+    void close() throws IOException;
+}
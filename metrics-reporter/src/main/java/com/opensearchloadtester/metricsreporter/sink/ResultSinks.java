@@ -0,0 +1,222 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.SinkStatusDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result sinks enabled via {@code report.sinks}, each running on its own thread behind a bounded queue.
+ *
+ * <p>
+ * Available sinks: {@code ndjson-gz} (rotating gzip-compressed NDJSON), {@code csv}, {@code columnar} (compact
+ * binary column blocks), {@code opensearch} (bulk indexing into a results index) and {@code loki} (push API). The
+ * NDJSON report written by the {@code ReportService} is not a sink and is always written.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ResultSinks {
+
+    // Comma-separated sink names, empty for none
+    @Value("${report.sinks:}")
+    private List<String> sinkNames = List.of();
+    @Value("${report.sinks.queue.capacity:256}")
+    private int queueCapacity = 256;
+    @Value("${report.sinks.close.timeout.seconds:60}")
+    private long closeTimeoutSeconds = 60;
+
+    @Value("${report.sink.ndjson-gz.filename:query_results}")
+    private String compressedNdjsonBaseName = "query_results";
+    @Value("${report.sink.ndjson-gz.rotate.mb:256}")
+    private long compressedNdjsonRotateMb = 256;
+    @Value("${report.sink.csv.filename:query_results.csv}")
+    private String csvFilename = "query_results.csv";
+    @Value("${report.sink.columnar.filename:query_results.columns}")
+    private String columnarFilename = "query_results.columns";
+    @Value("${report.sink.columnar.block.rows:65536}")
+    private int columnarBlockRows = 65536;
+    @Value("${report.sink.opensearch.url:http://localhost:9200}")
+    private String openSearchUrl = "http://localhost:9200";
+    @Value("${report.sink.opensearch.index:load-test-results}")
+    private String openSearchIndex = "load-test-results";
+    @Value("${report.sink.opensearch.username:}")
+    private String openSearchUsername = "";
+    @Value("${report.sink.opensearch.password:}")
+    private String openSearchPassword = "";
+    @Value("${report.sink.opensearch.bulk.size:1000}")
+    private int openSearchBulkSize = 1000;
+    @Value("${report.sink.loki.url:http://localhost:3100/loki/api/v1/push}")
+    private String lokiUrl = "http://localhost:3100/loki/api/v1/push";
+    @Value("${report.sink.loki.job:opensearch-load-tester}")
+    private String lokiJob = "opensearch-load-tester";
+    @Value("${report.sink.loki.batch.size:1000}")
+    private int lokiBatchSize = 1000;
+
+    private final ObjectWriter writer;
+    private volatile List<QueuedResultSink> sinks = List.of();
+    private CompletableFuture<Void> closed;
+
+    public ResultSinks() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        this.writer = objectMapper.writer();
+    }
+
+    /**
+     * Creates the enabled sinks, replacing the files of a previous run in the output directory, and starts their
+     * threads. Intended to run once at startup.
+     *
+     * @throws IllegalArgumentException if an unknown sink is enabled
+     */
+    public synchronized void start(Path outputDirectory) throws IOException {
+        if (!sinks.isEmpty()) {
+            throw new IllegalStateException("Result sinks already started");
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : sinkNames) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+
+        List<ResultSink> created = new ArrayList<>();
+        HttpClient httpClient = null;
+        try {
+            for (String name : names) {
+                if ((name.equals(OpenSearchBulkSink.NAME) || name.equals(LokiPushSink.NAME)) && httpClient == null) {
+                    httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+                }
+                created.add(create(name, outputDirectory, httpClient));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (ResultSink sink : created) {
+                try {
+                    sink.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+            }
+            throw e;
+        }
+
+        List<QueuedResultSink> queued = new ArrayList<>();
+        for (ResultSink sink : created) {
+            queued.add(new QueuedResultSink(sink, queueCapacity));
+        }
+        sinks = List.copyOf(queued);
+        closed = null;
+        if (!queued.isEmpty()) {
+            log.info("Result sinks enabled: {}", names);
+        }
+    }
+
+    private ResultSink create(String name, Path outputDirectory, HttpClient httpClient) throws IOException {
+        return switch (name) {
+            case CompressedNdjsonSink.NAME -> new CompressedNdjsonSink(outputDirectory, compressedNdjsonBaseName,
+                    compressedNdjsonRotateMb * 1024 * 1024, writer);
+            case CsvSink.NAME -> new CsvSink(outputDirectory.resolve(csvFilename));
+            case ColumnarSink.NAME -> new ColumnarSink(outputDirectory.resolve(columnarFilename), columnarBlockRows);
+            case OpenSearchBulkSink.NAME -> new OpenSearchBulkSink(httpClient, openSearchUrl, openSearchIndex,
+                    openSearchBulkSize, openSearchUsername, openSearchPassword, writer);
+            case LokiPushSink.NAME -> new LokiPushSink(httpClient, lokiUrl, lokiJob, lokiBatchSize, writer);
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unknown result sink '%s' in report.sinks, expected any of %s", name, List.of(
+                            CompressedNdjsonSink.NAME, CsvSink.NAME, ColumnarSink.NAME, OpenSearchBulkSink.NAME,
+                            LokiPushSink.NAME)));
+        };
+    }
+
+    public boolean isEnabled() {
+        return !sinks.isEmpty();
+    }
+
+    /**
+     * Queues the batch for every sink without blocking; a sink whose queue is full drops it. The batch must not be
+     * modified afterwards.
+     */
+    public void publish(List<MetricsDto> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (QueuedResultSink sink : sinks) {
+            sink.offer(batch);
+        }
+    }
+
+    /**
+     * Lets all sinks write what is queued and closes them in the background, waiting at most
+     * {@code report.sinks.close.timeout.seconds} in total. The returned future never fails: failures of single
+     * sinks are logged and show in {@link #getStatus()}.
+     */
+    public synchronized CompletableFuture<Void> closeAsync() {
+        if (closed != null) {
+            return closed;
+        }
+        List<QueuedResultSink> closing = sinks;
+        if (closing.isEmpty()) {
+            closed = CompletableFuture.completedFuture(null);
+            return closed;
+        }
+        closed = CompletableFuture.runAsync(() -> closeAll(closing),
+                job -> Thread.ofPlatform().name("result-sinks-close").start(job));
+        return closed;
+    }
+
+    public List<SinkStatusDto> getStatus() {
+        return sinks.stream().map(QueuedResultSink::status).toList();
+    }
+
+    @PreDestroy
+    void close() {
+        closeAsync().join();
+    }
+
+    private void closeAll(List<QueuedResultSink> closing) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(closeTimeoutSeconds);
+        try {
+            for (QueuedResultSink sink : closing) {
+                sink.close(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SinkStatusDto status : getStatus()) {
+            log.info("Result sink '{}' {}: {} results written, {} dropped, {} failed", status.getName(),
+                    status.getState(), status.getWrittenRecords(), status.getDroppedRecords(),
+                    status.getFailedRecords());
+        }
+    }
+
+    /**
+     * Creates a generator that writes one JSON value per line; the caller appends the line break.
+     */
+    static JsonGenerator createLineGenerator(ObjectWriter writer, OutputStream out) throws IOException {
+        JsonGenerator generator = writer.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+}
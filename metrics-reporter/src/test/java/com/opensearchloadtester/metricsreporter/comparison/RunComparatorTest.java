@@ -0,0 +1,154 @@
+package com.opensearchloadtester.metricsreporter.comparison;
+
+import com.opensearchloadtester.metricsreporter.dto.RunComparisonDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class RunComparatorTest {
+
+    private final RunComparator comparator = new RunComparator();
+
+    @Test
+    void compare_marksShiftedQueryTypesAndKeepsSameDistributionsUnchanged() {
+        Random random = new Random(1);
+        RunHistogramsDto baseline = run(Map.of(
+                "term", latencies(random, 20_000, 40, 1.0),
+                "regex", latencies(random, 20_000, 80, 1.0),
+                "range", latencies(random, 20_000, 30, 1.0)));
+        RunHistogramsDto candidate = run(Map.of(
+                "term", latencies(random, 20_000, 40, 1.0),
+                "regex", latencies(random, 20_000, 80, 1.3),
+                "prefix", latencies(random, 20_000, 30, 1.0)));
+
+        RunComparisonDto.CandidateComparison comparison =
+                comparator.compare(baseline, candidate, "candidate", comparator.settings());
+
+        assertThat(comparison.getVerdict()).isEqualTo(RunComparisonDto.Verdict.REGRESSED);
+        assertThat(comparison.getRegressed()).containsExactly("regex");
+        assertThat(comparison.getImproved()).isEmpty();
+        assertThat(comparison.getMissingQueryTypes()).containsExactly("range");
+        assertThat(comparison.getNewQueryTypes()).containsExactly("prefix");
+        assertThat(comparison.getQueryTypes()).containsOnlyKeys("regex", "term");
+
+        RunComparisonDto.GroupComparison term = comparison.getQueryTypes().get("term");
+        assertThat(term.getVerdict()).isEqualTo(RunComparisonDto.Verdict.UNCHANGED);
+        assertThat(term.getMannWhitney().getProbabilitySlower()).isCloseTo(0.5, within(0.02));
+        assertThat(term.getPercentiles().get("p99").getCiLow()).isLessThanOrEqualTo(0);
+        assertThat(term.getPercentiles().get("p99").getCiHigh()).isGreaterThanOrEqualTo(0);
+
+        RunComparisonDto.GroupComparison regex = comparison.getQueryTypes().get("regex");
+        assertThat(regex.getMannWhitney().getPValue()).isLessThan(1e-6);
+        assertThat(regex.getPercentiles()).containsOnlyKeys("p50", "p90", "p99", "p99.9");
+        RunComparisonDto.PercentileDelta p50 = regex.getPercentiles().get("p50");
+        assertThat(p50.getRelativeDelta()).isCloseTo(0.3, within(0.05));
+        assertThat(p50.getCiLow()).isPositive().isLessThanOrEqualTo(p50.getDelta());
+        assertThat(p50.getCiHigh()).isGreaterThanOrEqualTo(p50.getDelta());
+    }
+
+    @Test
+    void compare_marksFasterQueryTypeImproved_andTooSmallRunsInsufficient() {
+        Random random = new Random(2);
+        RunHistogramsDto baseline = run(Map.of(
+                "term", latencies(random, 10_000, 50, 1.0),
+                "rare", latencies(random, 5, 50, 1.0)));
+        RunHistogramsDto candidate = run(Map.of(
+                "term", latencies(random, 10_000, 50, 0.7),
+                "rare", latencies(random, 5, 50, 2.0)));
+
+        RunComparisonDto.CandidateComparison comparison =
+                comparator.compare(baseline, candidate, "candidate", comparator.settings());
+
+        assertThat(comparison.getVerdict()).isEqualTo(RunComparisonDto.Verdict.IMPROVED);
+        assertThat(comparison.getImproved()).containsExactly("term");
+        RunComparisonDto.GroupComparison rare = comparison.getQueryTypes().get("rare");
+        assertThat(rare.getVerdict()).isEqualTo(RunComparisonDto.Verdict.INSUFFICIENT_DATA);
+        assertThat(rare.getMannWhitney()).isNull();
+        assertThat(rare.getPercentiles().get("p50").getCandidate()).isPositive();
+    }
+
+    @Test
+    void compare_ignoresSignificantChangesBelowMinimumEffect() {
+        Random random = new Random(3);
+        RunHistogramsDto baseline = run(Map.of("term", latencies(random, 200_000, 100, 1.0)));
+        RunHistogramsDto candidate = run(Map.of("term", latencies(random, 200_000, 100, 1.02)));
+
+        RunComparisonDto.GroupComparison term = comparator.compare(baseline, candidate, "candidate",
+                comparator.settings()).getQueryTypes().get("term");
+
+        assertThat(term.getMannWhitney().getPValue()).isLessThan(0.01);
+        assertThat(term.getVerdict()).isEqualTo(RunComparisonDto.Verdict.UNCHANGED);
+    }
+
+    @Test
+    void mannWhitney_countsTiesHalf() {
+        RunComparator.Buckets baseline = new RunComparator.Buckets(new long[]{1, 2, 3}, new long[]{1, 1, 1}, 3);
+        RunComparator.Buckets candidate = new RunComparator.Buckets(new long[]{2, 4}, new long[]{1, 1}, 2);
+
+        RunComparisonDto.MannWhitney test = RunComparator.mannWhitney(baseline, candidate);
+
+        // Candidate 2 beats baseline 1 and ties with 2 (1.5), candidate 4 beats all three (3)
+        assertThat(test.getU()).isEqualTo(4.5);
+        assertThat(test.getProbabilitySlower()).isEqualTo(0.75);
+    }
+
+    @Test
+    void erfc_matchesNormalTailProbabilities() {
+        assertThat(RunComparator.erfc(0)).isCloseTo(1.0, within(1e-7));
+        assertThat(RunComparator.erfc(1.959964 / Math.sqrt(2))).isCloseTo(0.05, within(1e-6));
+        assertThat(RunComparator.erfc(-1.959964 / Math.sqrt(2))).isCloseTo(1.95, within(1e-6));
+    }
+
+    @Test
+    void settings_rejectOutOfRangeValues() {
+        assertThatThrownBy(() -> new RunComparator.Settings(RunComparator.Metric.REQUEST_DURATION,
+                new double[]{50}, 99, 1.5, 0.95, 0.05, 1000, 30, 42))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RunComparator.Metric.of("latency"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Log-normal durations in ms around the median, scaled by the factor
+    static byte[] latencies(Random random, int count, double median, double factor) {
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < count; i++) {
+            histogram.recordValue(Math.max(1, Math.round(median * factor * Math.exp(0.5 * random.nextGaussian()))));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    static RunHistogramsDto run(Map<String, byte[]> requestDurations) {
+        RunHistogramsDto run = new RunHistogramsDto();
+        Histogram overall = new Histogram(3);
+        Map<String, RunHistogramsDto.GroupHistograms> queryTypes = new TreeMap<>();
+        requestDurations.forEach((queryType, encoded) -> {
+            try {
+                Histogram histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+                overall.add(histogram);
+                queryTypes.put(queryType, new RunHistogramsDto.GroupHistograms(histogram.getTotalCount(), encoded,
+                        null, null));
+            } catch (DataFormatException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        ByteBuffer buffer = ByteBuffer.allocate(overall.getNeededByteBufferCapacity());
+        int length = overall.encodeIntoCompressedByteBuffer(buffer);
+        run.setOverall(new RunHistogramsDto.GroupHistograms(overall.getTotalCount(),
+                Arrays.copyOf(buffer.array(), length), null, null));
+        run.setQueryTypes(queryTypes);
+        return run;
+    }
+}
@@ -0,0 +1,75 @@
+package com.opensearchloadtester.metricsreporter.comparison;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunComparisonCliTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    void run_printsVerdictAndExitsWithRegressionCode() throws Exception {
+        Random random = new Random(4);
+        Path baseline = writeRun("nightly-1", Map.of("term", RunComparatorTest.latencies(random, 5_000, 40, 1.0)));
+        Path same = writeRun("nightly-2", Map.of("term", RunComparatorTest.latencies(random, 5_000, 40, 1.0)));
+        Path slower = writeRun("nightly-3", Map.of("term", RunComparatorTest.latencies(random, 5_000, 40, 1.5)));
+
+        int unchanged = run(baseline.toString(), same.resolve("histograms.json").toString(), "--bootstrap", "200");
+        assertThat(unchanged).isEqualTo(RunComparisonCli.EXIT_OK);
+        assertThat(json().get("verdict").asText()).isEqualTo("UNCHANGED");
+
+        out.reset();
+        int regressed = run("--gate-percentile=90", "--metric", "request_duration_ms", baseline.toString(),
+                same.toString(), slower.toString());
+        assertThat(regressed).isEqualTo(RunComparisonCli.EXIT_REGRESSED);
+        JsonNode comparison = json();
+        assertThat(comparison.get("verdict").asText()).isEqualTo("REGRESSED");
+        assertThat(comparison.get("settings").get("gate_percentile").asDouble()).isEqualTo(90);
+        assertThat(comparison.get("candidates")).hasSize(2);
+        assertThat(comparison.get("candidates").get(1).get("regressed").get(0).asText()).isEqualTo("term");
+        assertThat(err.toString(StandardCharsets.UTF_8)).contains("REGRESSED, regressed [term]");
+    }
+
+    @Test
+    void run_rejectsInvalidArgumentsAndMissingRuns() {
+        assertThat(run(tempDir.toString())).isEqualTo(RunComparisonCli.EXIT_ERROR);
+        assertThat(run("--alpha", "2", "a", "b")).isEqualTo(RunComparisonCli.EXIT_ERROR);
+        assertThat(run("--unknown", "1", "a", "b")).isEqualTo(RunComparisonCli.EXIT_ERROR);
+        assertThat(run(tempDir.resolve("a").toString(), tempDir.resolve("b").toString()))
+                .isEqualTo(RunComparisonCli.EXIT_ERROR);
+        assertThat(err.toString(StandardCharsets.UTF_8)).contains("No histograms found");
+    }
+
+    private int run(String... args) {
+        return RunComparisonCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private JsonNode json() throws Exception {
+        return objectMapper.readTree(out.toString(StandardCharsets.UTF_8));
+    }
+
+    private Path writeRun(String name, Map<String, byte[]> requestDurations) throws Exception {
+        Path run = Files.createDirectories(tempDir.resolve(name));
+        objectMapper.writeValue(run.resolve("histograms.json").toFile(), RunComparatorTest.run(requestDurations));
+        return run;
+    }
+}
@@ -0,0 +1,51 @@
+package com.opensearchloadtester.metricsreporter.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestionBackpressureInterceptorTest {
+
+    @Test
+    void preHandle_rejectsUploadsBeyondLimitWithRetryAfter() {
+        IngestionBackpressureInterceptor interceptor = new IngestionBackpressureInterceptor(1, 2);
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/metrics");
+        MockHttpServletRequest second = new MockHttpServletRequest("POST", "/api/metrics");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), new Object())).isTrue();
+        assertThat(interceptor.preHandle(second, rejected, new Object())).isFalse();
+
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Test
+    void afterCompletion_releasesPermitOfAcceptedUploadOnly() {
+        IngestionBackpressureInterceptor interceptor = new IngestionBackpressureInterceptor(1, 1);
+        MockHttpServletRequest accepted = new MockHttpServletRequest("POST", "/api/metrics");
+        MockHttpServletRequest rejected = new MockHttpServletRequest("POST", "/api/metrics");
+
+        interceptor.preHandle(accepted, new MockHttpServletResponse(), new Object());
+        interceptor.preHandle(rejected, new MockHttpServletResponse(), new Object());
+        // A rejected upload must not release the permit of the accepted one
+        interceptor.afterCompletion(rejected, new MockHttpServletResponse(), new Object(), null);
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                new Object())).isFalse();
+
+        interceptor.afterCompletion(accepted, new MockHttpServletResponse(), new Object(), null);
+        assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                new Object())).isTrue();
+    }
+
+    @Test
+    void constructor_rejectsInvalidLimit() {
+        assertThatThrownBy(() -> new IngestionBackpressureInterceptor(0, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,8 +1,12 @@
 package com.opensearchloadtester.metricsreporter.controller;
 
+import com.opensearchloadtester.common.codec.MetricsBatchCodec;
 import com.opensearchloadtester.common.dto.FinishLoadTestDto;
+import com.opensearchloadtester.common.dto.LatencyHistogramDto;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
 import com.opensearchloadtester.metricsreporter.config.ShutdownAfterResponseInterceptor;
+import com.opensearchloadtester.metricsreporter.dto.ResultSliceDto;
 import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
 import com.opensearchloadtester.metricsreporter.service.ReportService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,9 +20,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anySet;
@@ -53,6 +61,44 @@ class ReportControllerTest {
         verifyNoInteractions(reportService);
     }
 
+    @Test
+    void submitMetrics_returnsBadRequest_forStartTimeOutsideTheRunOrAbsurdDuration() {
+        MetricsDto epoch = new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 10L, 10L, 3, 200);
+        epoch.setStartTimeEpochMillis(0L);
+        MetricsDto future = new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 10L, 10L, 3, 200);
+        future.setStartTimeEpochMillis(System.currentTimeMillis() + 86_400_000L);
+        MetricsDto endless = new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", Long.MAX_VALUE, 10L, 3, 200);
+        endless.setStartTimeEpochMillis(System.currentTimeMillis());
+
+        assertThat(reportController.submitMetrics(List.of(epoch)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(reportController.submitMetrics(List.of(future)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(reportController.submitMetrics(List.of(endless)).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void submitMetrics_returnsBadRequest_forNegativeTimingOrSizeFields() {
+        List<Consumer<MetricsDto>> invalidFields = List.of(
+                metrics -> metrics.setCorrectedRequestDurationMillis(-1L),
+                metrics -> metrics.setTimeToFirstByteMillis(-1L),
+                metrics -> metrics.setTransferTimeMillis(-1L),
+                metrics -> metrics.setOverheadMillis(-1L),
+                metrics -> metrics.setRequestBytes(-1L),
+                metrics -> metrics.setResponseBytes(-1L),
+                metrics -> metrics.setCorrectedRequestDurationMillis(Long.MAX_VALUE)
+        );
+
+        for (Consumer<MetricsDto> invalidField : invalidFields) {
+            MetricsDto metrics = new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 10L, 10L, 3, 200);
+            invalidField.accept(metrics);
+
+            assertThat(reportController.submitMetrics(List.of(metrics)).getStatusCode())
+                    .isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+        verifyNoInteractions(reportService);
+    }
+
     @Test
     void submitMetrics_waitsUntilAllReplicasReport() throws Exception {
         ReflectionTestUtils.setField(reportController, "expectedLoadGenerators", 2);
@@ -66,6 +112,101 @@ class ReportControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
+    @Test
+    void submitMetricsStream_stagesEachEntryAndCommitsBatch() throws Exception {
+        ReportService.MetricsBatch batch = mock(ReportService.MetricsBatch.class);
+        when(reportService.beginMetricsBatch()).thenReturn(batch);
+        when(batch.size()).thenReturn(2);
+        String body = "[{\"loadGeneratorId\":\"lg-1\",\"queryType\":\"term\",\"requestDurationMillis\":120,"
+                + "\"httpStatusCode\":200,\"unknownField\":true},"
+                + "{\"loadGeneratorId\":\"lg-1\",\"queryType\":\"term\",\"requestDurationMillis\":90,"
+                + "\"httpStatusCode\":200}]";
+
+        ResponseEntity<String> response = reportController.submitMetricsStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(batch).add(argThat(metrics -> metrics.getRequestDurationMillis() == 120L));
+        verify(batch).add(argThat(metrics -> metrics.getRequestDurationMillis() == 90L));
+        verify(batch).commit();
+        verify(batch).close();
+    }
+
+    @Test
+    void submitMetricsStream_rejectsWholeBatch_whenLaterEntryIsInvalid() throws Exception {
+        ReportService.MetricsBatch batch = mock(ReportService.MetricsBatch.class);
+        when(reportService.beginMetricsBatch()).thenReturn(batch);
+        String body = "[{\"loadGeneratorId\":\"lg-1\",\"queryType\":\"term\",\"httpStatusCode\":200},"
+                + "{\"loadGeneratorId\":\"lg-2\",\"queryType\":\"term\",\"httpStatusCode\":200}]";
+
+        ResponseEntity<String> response = reportController.submitMetricsStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(batch, never()).commit();
+        verify(batch).close();
+    }
+
+    @Test
+    void submitMetricsStream_returnsBadRequest_forMalformedJson() throws Exception {
+        ReportService.MetricsBatch batch = mock(ReportService.MetricsBatch.class);
+        when(reportService.beginMetricsBatch()).thenReturn(batch);
+
+        ResponseEntity<String> response = reportController.submitMetricsStream(
+                new ByteArrayInputStream("[{\"loadGeneratorId\":".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(batch, never()).commit();
+    }
+
+    @Test
+    void submitMetricsBatch_decodesAndStoresMetrics() throws Exception {
+        List<MetricsDto> metrics = List.of(
+                new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 120L, 80L, 5, 200),
+                new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 90L, 60L, 2, 200)
+        );
+
+        ResponseEntity<String> response = reportController.submitMetricsBatch(MetricsBatchCodec.encode(metrics));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(reportService).processMetrics(argThat(stored -> stored.size() == 2
+                && stored.get(1).getRequestDurationMillis() == 90L
+                && LOAD_GENERATOR_ID.equals(stored.get(1).getLoadGeneratorId())));
+    }
+
+    @Test
+    void submitMetricsBatch_returnsBadRequest_forUndecodableBatch() {
+        ResponseEntity<String> response = reportController.submitMetricsBatch("[{}]".getBytes());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void submitHistograms_returnsBadRequest_forInvalidStatusClass() {
+        MetricsIntervalDto interval = new MetricsIntervalDto(LOAD_GENERATOR_ID, 0L, 10_000L, List.of(
+                new LatencyHistogramDto(null, "query_type_test", "200", 1, new byte[]{1}, null, null)
+        ));
+
+        ResponseEntity<String> response = reportController.submitHistograms(interval);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void submitHistograms_returnsBadRequest_whenHistogramsCannotBeDecoded() {
+        MetricsIntervalDto interval = new MetricsIntervalDto(LOAD_GENERATOR_ID, 0L, 10_000L, List.of(
+                new LatencyHistogramDto(null, "query_type_test", "2xx", 1, new byte[]{1}, null, null)
+        ));
+        doThrow(new IllegalArgumentException("Invalid histogram encoding"))
+                .when(reportService).processHistograms(interval);
+
+        ResponseEntity<String> response = reportController.submitHistograms(interval);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void finish_generatesReports_whenAllReplicasFinished() throws Exception {
         ReflectionTestUtils.setField(reportController, "expectedLoadGenerators", 1);
@@ -76,18 +217,20 @@ class ReportControllerTest {
                 new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 180L, 90L, 2, 500)
         );
 
-        StatisticsDto statistics = new StatisticsDto(
-                LocalDateTime.now(),
-                new StatisticsDto.DurationStats(140.0, 100L, 180L),
-                new StatisticsDto.DurationStats(70.0, 50L, 90L),
-                2,
-                1,
-                List.of(LOAD_GENERATOR_ID)
-        );
+        StatisticsDto statistics = new StatisticsDto();
+        statistics.setReportGeneratedAt(LocalDateTime.now());
+        statistics.setRequestDurationMs(new StatisticsDto.DurationStats(140.0, 100L, 180L, null));
+        statistics.setCorrectedRequestDurationMs(new StatisticsDto.DurationStats(150.0, 110L, 190L, null));
+        statistics.setQueryDurationMs(new StatisticsDto.DurationStats(70.0, 50L, 90L, null));
+        statistics.setTotalQueries(2);
+        statistics.setTotalErrors(1);
+        statistics.setLoadGeneratorInstances(List.of(LOAD_GENERATOR_ID));
 
         when(reportService.finalizeReports(anySet())).thenReturn(statistics);
         when(reportService.getResultsJsonPath()).thenReturn(Path.of("out/query_results.json"));
         when(reportService.getStatisticsReportPath()).thenReturn(Path.of("out/statistics.json"));
+        CompletableFuture<Void> export = new CompletableFuture<>();
+        when(reportService.getFinalizationJobs()).thenReturn(export);
 
         HttpServletRequest request = mock(HttpServletRequest.class);
         ResponseEntity<String> submitResponse = reportController.submitMetrics(metrics);
@@ -103,5 +246,28 @@ class ReportControllerTest {
                 eq(ShutdownAfterResponseInterceptor.SHUTDOWN_AFTER_RESPONSE),
                 eq(true)
         );
+        verify(request).setAttribute(ShutdownAfterResponseInterceptor.SHUTDOWN_AFTER_JOB, export);
+    }
+
+    @Test
+    void getResults_returnsBadRequest_forInvalidPageSizeOrFilter() throws Exception {
+        when(reportService.getResults(null, "5x", null, null, null, 100))
+                .thenThrow(new IllegalArgumentException("status must be a code like 503 or a class like 5xx"));
+
+        assertThat(reportController.getResults(null, null, null, null, null, 0).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(reportController.getResults(null, "5x", null, null, null, 100).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void getResults_returnsPageFromReportService() throws Exception {
+        ResultSliceDto slice = new ResultSliceDto(0, "0:4096", 1, 4096, List.of());
+        when(reportService.getResults("term", "5xx", 1L, 2L, null, 50)).thenReturn(slice);
+
+        ResponseEntity<ResultSliceDto> response = reportController.getResults("term", "5xx", 1L, 2L, null, 50);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(slice);
     }
 }
@@ -0,0 +1,61 @@
+package com.opensearchloadtester.metricsreporter.controller;
+
+import com.opensearchloadtester.metricsreporter.comparison.RunComparator;
+import com.opensearchloadtester.metricsreporter.dto.RunTrendDto;
+import com.opensearchloadtester.metricsreporter.history.RunHistoryStore;
+import com.opensearchloadtester.metricsreporter.service.ReportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RunHistoryControllerTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private RunHistoryStore runHistory;
+
+    @InjectMocks
+    private RunHistoryController runHistoryController;
+
+    @Test
+    void getTrend_returnsTrendOfRunHistory() throws Exception {
+        RunTrendDto trend = new RunTrendDto("DUO_COMPLEX", "request_duration_ms", "p99", null, null, List.of());
+        when(reportService.getRunHistory()).thenReturn(runHistory);
+        when(runHistory.trend("DUO_COMPLEX", RunComparator.Metric.REQUEST_DURATION, 99, null, "nightly", 30))
+                .thenReturn(trend);
+
+        ResponseEntity<RunTrendDto> response = runHistoryController.getTrend("DUO_COMPLEX", "request_duration_ms",
+                99, null, "nightly", 30);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(trend);
+    }
+
+    @Test
+    void getRun_mapsInvalidUnknownAndDisabledToErrorStatus() throws Exception {
+        when(reportService.getRunHistory()).thenReturn(runHistory);
+        when(runHistory.run("../x")).thenThrow(new IllegalArgumentException("Invalid run id '../x'"));
+        when(runHistory.run("20260301-020000")).thenThrow(new NoSuchFileException("20260301-020000"));
+
+        assertThat(runHistoryController.getRun("../x").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(runHistoryController.getRun("20260301-020000").getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(runHistoryController.getTrend(null, "unknown", 99, null, null, 30).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        when(reportService.getRunHistory()).thenReturn(null);
+        assertThat(runHistoryController.getRuns(null, null, 100).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
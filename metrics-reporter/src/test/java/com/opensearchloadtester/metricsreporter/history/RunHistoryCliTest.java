@@ -0,0 +1,87 @@
+package com.opensearchloadtester.metricsreporter.history;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunHistoryCliTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    void run_printsRunsTrendAndRunAsJson() throws Exception {
+        RunHistoryStore store = new RunHistoryStore(tempDir, 2, 100, 0);
+        for (int day = 0; day < 3; day++) {
+            store.record(new RunHistoryStore.Run(LocalDateTime.of(2026, 3, 1 + day, 2, 0), List.of("nightly"),
+                    List.of("lg-1"), new RunMetadataDto("lg-1", "ano-low", "queries: []\n", Map.of(), Map.of()),
+                    100, 0, histograms(40 + day * 10), List.of()));
+        }
+
+        assertThat(run(tempDir.toString(), "runs", "--last", "2")).isEqualTo(RunHistoryCli.EXIT_OK);
+        assertThat(json()).extracting(run -> run.get("run_id").asText())
+                .containsExactly("20260302-020000", "20260303-020000");
+
+        out.reset();
+        assertThat(run(tempDir.toString(), "trend", "--query-type=DUO_COMPLEX", "--percentile", "50",
+                "--label", "nightly")).isEqualTo(RunHistoryCli.EXIT_OK);
+        JsonNode trend = json();
+        assertThat(trend.get("percentile").asText()).isEqualTo("p50");
+        assertThat(trend.get("points")).extracting(point -> point.get("value").asLong())
+                .containsExactly(40L, 50L, 60L);
+
+        out.reset();
+        assertThat(run(tempDir.toString(), "show", "20260301-020000")).isEqualTo(RunHistoryCli.EXIT_OK);
+        assertThat(json().get("summary").get("scenario").asText()).isEqualTo("ano-low");
+    }
+
+    @Test
+    void run_rejectsInvalidArgumentsAndMissingHistory() {
+        assertThat(run(tempDir.toString())).isEqualTo(RunHistoryCli.EXIT_ERROR);
+        assertThat(run(tempDir.toString(), "plot")).isEqualTo(RunHistoryCli.EXIT_ERROR);
+        assertThat(run(tempDir.toString(), "runs", "--query-type", "x")).isEqualTo(RunHistoryCli.EXIT_ERROR);
+        assertThat(run(tempDir.toString(), "show")).isEqualTo(RunHistoryCli.EXIT_ERROR);
+        assertThat(run(tempDir.resolve("missing").toString(), "runs")).isEqualTo(RunHistoryCli.EXIT_ERROR);
+        assertThat(err.toString(StandardCharsets.UTF_8)).contains("No run history in");
+        assertThat(tempDir.resolve("missing")).doesNotExist();
+    }
+
+    private int run(String... args) {
+        return RunHistoryCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private JsonNode json() throws Exception {
+        return objectMapper.readTree(out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static RunHistogramsDto histograms(long latency) {
+        Histogram histogram = new Histogram(3);
+        histogram.recordValueWithCount(latency, 100);
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.rewind().get(bytes);
+        RunHistogramsDto.GroupHistograms group = new RunHistogramsDto.GroupHistograms(100, bytes, bytes, bytes);
+        return new RunHistogramsDto(null, group, Map.of("DUO_COMPLEX", group));
+    }
+}
@@ -0,0 +1,276 @@
+package com.opensearchloadtester.metricsreporter.history;
+
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.metricsreporter.comparison.RunComparator;
+import com.opensearchloadtester.metricsreporter.dto.HistoryRunDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import com.opensearchloadtester.metricsreporter.dto.RunSummaryDto;
+import com.opensearchloadtester.metricsreporter.dto.RunTrendDto;
+import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
+import com.opensearchloadtester.metricsreporter.dto.TimelineBucketDto;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+class RunHistoryStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 2, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void record_keepsScenarioHistogramsAndTimelineOfARun() throws Exception {
+        RunHistoryStore store = new RunHistoryStore(tempDir, 2, 100, 0);
+        Random random = new Random(1);
+        RunHistogramsDto histograms = histograms(random, List.of("DUO_COMPLEX", "ANO_SIMPLE"), 5_000, 40);
+        List<TimelineBucketDto> timeline = timeline(random, 120);
+        timeline.set(5, new TimelineBucketDto(timeline.get(5).getEpochMillis(), 0L, 0.0, 0L, 0.0, null, null));
+
+        RunSummaryDto summary = store.record(new RunHistoryStore.Run(START, List.of("nightly"), List.of("lg-1"),
+                metadata("ano-low", "2.19.1"), 10_000, 12, histograms, timeline));
+
+        assertThat(summary.getRunId()).isEqualTo("20260301-020000");
+        assertThat(summary.getSizeBytes()).isPositive();
+        HistoryRunDto run = store.run(summary.getRunId());
+        assertThat(run.getSummary()).isEqualTo(summary);
+        assertThat(run.getSummary().getScenario()).isEqualTo("ano-low");
+        assertThat(run.getSummary().getClusterVersion()).isEqualTo("2.19.1");
+        assertThat(run.getSummary().getDurationSeconds()).isEqualTo(120);
+        assertThat(run.getLoadGenerators()).containsExactly("lg-1");
+        assertThat(run.getQueryTypes()).containsExactly("DUO_COMPLEX", "ANO_SIMPLE");
+        assertThat(run.getScenarioConfig()).contains("query_type: ANO_SIMPLE");
+        assertThat(run.getIndexSettings()).containsEntry("index.number_of_shards", "1");
+
+        // Stored with two significant digits, so percentiles stay within 1 %
+        RunHistogramsDto stored = store.histograms(summary.getRunId());
+        assertThat(stored.getQueryTypes()).containsOnlyKeys("DUO_COMPLEX", "ANO_SIMPLE");
+        for (RunComparator.Metric metric : RunComparator.Metric.values()) {
+            Histogram original = decode(metric.histogram(histograms.getQueryTypes().get("DUO_COMPLEX")));
+            Histogram reduced = decode(metric.histogram(stored.getQueryTypes().get("DUO_COMPLEX")));
+            assertThat(reduced.getTotalCount()).isEqualTo(original.getTotalCount());
+            assertThat((double) reduced.getValueAtPercentile(99))
+                    .isCloseTo(original.getValueAtPercentile(99), within(original.getValueAtPercentile(99) * 0.01));
+        }
+        assertThat(stored.getOverall().getTotalQueries()).isEqualTo(10_000);
+
+        List<TimelineBucketDto> storedTimeline = store.timeline(summary.getRunId());
+        assertThat(storedTimeline).hasSize(120);
+        for (int i = 0; i < timeline.size(); i++) {
+            TimelineBucketDto expected = timeline.get(i);
+            TimelineBucketDto actual = storedTimeline.get(i);
+            assertThat(actual.getEpochMillis()).isEqualTo(expected.getEpochMillis());
+            assertThat(actual.getQueries()).isEqualTo(expected.getQueries());
+            assertThat(actual.getErrors()).isEqualTo(expected.getErrors());
+            assertThat(actual.getQps()).isEqualTo(expected.getQps());
+            assertThat(actual.getRequestDurationMs()).isEqualTo(expected.getRequestDurationMs());
+            if (expected.getInFlight() == null) {
+                assertThat(actual.getInFlight()).isNull();
+            } else {
+                assertThat(actual.getInFlight()).isCloseTo(expected.getInFlight(), within(0.001));
+            }
+        }
+    }
+
+    @Test
+    void trend_followsAQueryTypeAcrossFilteredRuns() throws Exception {
+        RunHistoryStore store = new RunHistoryStore(tempDir, 2, 100, 0);
+        Random random = new Random(2);
+        int[] medians = {40, 42, 38, 41, 60};
+        for (int i = 0; i < medians.length; i++) {
+            store.record(run(START.plusDays(i), List.of("nightly"), "ano-low",
+                    histograms(random, List.of("DUO_COMPLEX"), 5_000, medians[i])));
+        }
+        store.record(run(START.plusDays(2).plusHours(6), List.of("adhoc"), "ano-low",
+                histograms(random, List.of("DUO_COMPLEX"), 5_000, 200)));
+        store.record(run(START.plusDays(4).plusHours(6), List.of("nightly"), "duo-high",
+                histograms(random, List.of("ANO_SIMPLE"), 5_000, 10)));
+
+        RunTrendDto trend = store.trend("DUO_COMPLEX", RunComparator.Metric.REQUEST_DURATION, 99, "ano-low",
+                "nightly", 30);
+
+        assertThat(trend.getPercentile()).isEqualTo("p99");
+        assertThat(trend.getPoints()).extracting(RunTrendDto.Point::getRunId).containsExactly(
+                "20260301-020000", "20260302-020000", "20260303-020000", "20260304-020000", "20260305-020000");
+        assertThat(trend.getPoints()).allSatisfy(point -> assertThat(point.getSamples()).isEqualTo(5_000));
+        long[] values = trend.getPoints().stream().mapToLong(RunTrendDto.Point::getValue).toArray();
+        assertThat(values[4]).isGreaterThan(values[0] * 13 / 10);
+        assertThat(trend.getMedian()).isBetween(values[2], values[1]);
+        assertThat(trend.getLatestRelativeToMedian()).isGreaterThan(0.3);
+
+        assertThat(store.trend("DUO_COMPLEX", RunComparator.Metric.REQUEST_DURATION, 99, null, null, 2)
+                .getPoints()).extracting(RunTrendDto.Point::getValue, RunTrendDto.Point::getSamples)
+                .last().isEqualTo(tuple(null, 0L));
+        assertThat(store.trend(null, RunComparator.Metric.QUERY_DURATION, 50, null, "adhoc", 30).getPoints())
+                .singleElement().satisfies(point -> assertThat(point.getValue()).isPositive());
+        assertThat(store.runs(null, "nightly", 3)).extracting(RunSummaryDto::getRunId)
+                .containsExactly("20260304-020000", "20260305-020000", "20260305-080000");
+    }
+
+    @Test
+    void record_removesTheOldestRunsBeyondTheLimits() throws Exception {
+        Random random = new Random(3);
+        RunHistoryStore store = new RunHistoryStore(tempDir, 2, 3, 0);
+        for (int i = 0; i < 5; i++) {
+            store.record(run(START.plusDays(i), List.of(), "ano-low",
+                    histograms(random, List.of("DUO_COMPLEX"), 1_000, 40)));
+        }
+        assertThat(store.runs(null, null, 10)).extracting(RunSummaryDto::getRunId)
+                .containsExactly("20260303-020000", "20260304-020000", "20260305-020000");
+        assertThat(runFiles()).hasSize(3);
+
+        long runSize = store.runs(null, null, 1).getFirst().getSizeBytes();
+        RunHistoryStore bySize = new RunHistoryStore(tempDir, 2, 100, runSize * 3 / 2);
+        bySize.record(run(START.plusDays(5), List.of(), "ano-low",
+                histograms(random, List.of("DUO_COMPLEX"), 1_000, 40)));
+        assertThat(bySize.runs(null, null, 10)).extracting(RunSummaryDto::getRunId)
+                .containsExactly("20260306-020000");
+        assertThat(runFiles()).hasSize(1);
+    }
+
+    @Test
+    void open_skipsRunsLeftIncompleteByACrash() throws Exception {
+        Random random = new Random(4);
+        RunHistoryStore store = new RunHistoryStore(tempDir, 2, 100, 0);
+        store.record(run(START, List.of(), "ano-low", histograms(random, List.of("DUO_COMPLEX"), 1_000, 40)));
+        store.record(run(START.plusDays(1), List.of(), "ano-low",
+                histograms(random, List.of("DUO_COMPLEX"), 1_000, 40)));
+        Files.writeString(tempDir.resolve(RunHistoryStore.CATALOG_FILENAME), "{\"run_id\":\"20260303-0",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Path unlisted = tempDir.resolve(RunHistoryStore.RUNS_DIRECTORY).resolve("20260304-020000.run");
+        Files.write(unlisted, new byte[]{1, 2, 3});
+        Files.delete(tempDir.resolve(RunHistoryStore.RUNS_DIRECTORY).resolve("20260301-020000.run"));
+
+        assertThat(RunHistoryStore.openReadOnly(tempDir).runs(null, null, 10)).hasSize(2);
+        assertThat(unlisted).exists();
+
+        RunHistoryStore reopened = new RunHistoryStore(tempDir, 2, 100, 0);
+        assertThat(reopened.runs(null, null, 10)).extracting(RunSummaryDto::getRunId)
+                .containsExactly("20260302-020000");
+        assertThat(unlisted).doesNotExist();
+        assertThat(Files.readAllLines(tempDir.resolve(RunHistoryStore.CATALOG_FILENAME))).hasSize(1);
+        assertThat(reopened.record(run(START.plusDays(2), List.of(), "ano-low",
+                histograms(random, List.of("DUO_COMPLEX"), 1_000, 40))).getRunId()).isEqualTo("20260303-020000");
+        assertThat(new RunHistoryStore(tempDir, 2, 100, 0).runs(null, null, 10)).hasSize(2);
+    }
+
+    @Test
+    void run_rejectsInvalidAndUnknownRunIds() throws Exception {
+        RunHistoryStore store = new RunHistoryStore(tempDir, 2, 100, 0);
+
+        assertThatThrownBy(() -> store.run("../catalog")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.timeline("20260301-020000")).isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> RunHistoryStore.openReadOnly(tempDir.resolve("missing")))
+                .isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> RunHistoryStore.openReadOnly(tempDir).record(run(START, List.of(), null,
+                new RunHistogramsDto()))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void record_storesAnHourLongRunWithTwentyQueryTypesCompactly() throws Exception {
+        Random random = new Random(5);
+        List<String> queryTypes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            queryTypes.add("QUERY_TYPE_" + i);
+        }
+        RunHistoryStore store = new RunHistoryStore(tempDir, 2, 100, 0);
+
+        RunSummaryDto summary = store.record(new RunHistoryStore.Run(START, List.of(), List.of("lg-1"),
+                metadata("ano-low", "2.19.1"), 200_000, 0, histograms(random, queryTypes, 10_000, 40),
+                timeline(random, 3_600)));
+
+        // Thousands of such runs fit into a few hundred MB
+        assertThat(summary.getSizeBytes()).isLessThan(64 * 1024);
+        assertThat(store.timeline(summary.getRunId())).hasSize(3_600);
+    }
+
+    private List<Path> runFiles() throws IOException {
+        try (var files = Files.list(tempDir.resolve(RunHistoryStore.RUNS_DIRECTORY))) {
+            return files.toList();
+        }
+    }
+
+    private static RunHistoryStore.Run run(LocalDateTime finishedAt, List<String> labels, String scenario,
+                                           RunHistogramsDto histograms) {
+        return new RunHistoryStore.Run(finishedAt, labels, List.of("lg-1"),
+                scenario != null ? metadata(scenario, "2.19.1") : null, 1_000, 0, histograms, List.of());
+    }
+
+    private static RunMetadataDto metadata(String scenario, String version) {
+        return new RunMetadataDto("lg-1", scenario, "queries:\n  - query_type: ANO_SIMPLE\n",
+                Map.of("version", version, "cluster_name", "docker-cluster"),
+                Map.of("index.number_of_shards", "1"));
+    }
+
+    private static RunHistogramsDto histograms(Random random, List<String> queryTypes, int count, int median) {
+        Map<String, RunHistogramsDto.GroupHistograms> groups = new LinkedHashMap<>();
+        for (String queryType : queryTypes) {
+            groups.put(queryType, group(random, count, median));
+        }
+        return new RunHistogramsDto(START, group(random, count * queryTypes.size(), median), groups);
+    }
+
+    // Log-normal latencies in milliseconds, as the reporter records them with three significant digits
+    private static RunHistogramsDto.GroupHistograms group(Random random, int count, int median) {
+        Histogram request = new Histogram(3);
+        Histogram query = new Histogram(3);
+        for (int i = 0; i < count; i++) {
+            long latency = Math.max(1, Math.round(median * Math.exp(0.4 * random.nextGaussian())));
+            request.recordValue(latency);
+            query.recordValue(Math.max(1, latency - 2));
+        }
+        return new RunHistogramsDto.GroupHistograms(count, compress(request), compress(request), compress(query));
+    }
+
+    private static byte[] compress(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.rewind().get(bytes);
+        return bytes;
+    }
+
+    private static Histogram decode(byte[] compressed) throws DataFormatException {
+        return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(compressed), 0);
+    }
+
+    private static List<TimelineBucketDto> timeline(Random random, int seconds) {
+        long start = 1_772_330_400_000L;
+        List<TimelineBucketDto> timeline = new ArrayList<>();
+        for (int i = 0; i < seconds; i++) {
+            long queries = 50 + random.nextInt(10);
+            long errors = random.nextInt(20) == 0 ? 1 : 0;
+            long p50 = 35 + random.nextInt(10);
+            Map<String, Long> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", p50);
+            percentiles.put("p90", p50 * 2);
+            percentiles.put("p99", p50 * 3 + random.nextInt(20));
+            percentiles.put("p99.9", p50 * 4 + random.nextInt(40));
+            timeline.add(new TimelineBucketDto(start + i * 1000L, queries, (double) queries, errors,
+                    errors / (double) queries, i % 3 == 0 ? null : 10 + random.nextInt(5000) / 1000.0,
+                    new StatisticsDto.DurationStats(p50 + 0.25, p50 / 2, percentiles.get("p99.9") + 10,
+                            percentiles)));
+        }
+        return timeline;
+    }
+}
@@ -0,0 +1,103 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DurationAccumulatorTest {
+
+    private static final int SAMPLES = 10_000_000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+    // Three significant digits: the histogram bucket of a value is at most 1/1024 of the value wide
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 1024;
+
+    @Test
+    void percentiles_stayWithinErrorBound_onTenMillionSamples() {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] values = new long[SAMPLES];
+        DurationAccumulator accumulator = new DurationAccumulator(true);
+        for (int i = 0; i < SAMPLES; i++) {
+            // Log-normal latencies around 20 ms with a long tail, plus rare multi-second outliers
+            long value = Math.round(Math.exp(3.0 + 1.2 * gaussian(random)));
+            if (random.nextInt(10_000) == 0) {
+                value += 5_000 + random.nextInt(55_000);
+            }
+            values[i] = value;
+            accumulator.add(value);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : PERCENTILES) {
+            long exact = exactPercentile(values, percentile);
+            long estimated = accumulator.getValueAtPercentile(percentile);
+            assertThat((double) Math.abs(estimated - exact))
+                    .as("p%s: exact %d, estimated %d", percentile, exact, estimated)
+                    .isLessThanOrEqualTo(Math.max(1.0, exact * MAX_RELATIVE_ERROR));
+        }
+        assertThat(accumulator.getValueAtPercentile(100)).isEqualTo(values[SAMPLES - 1]);
+    }
+
+    @Test
+    void percentiles_ofMergedHistograms_equalThoseOfRecordedValues() {
+        DurationAccumulator recorded = new DurationAccumulator(true);
+        DurationAccumulator merged = new DurationAccumulator(true);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int interval = 0; interval < 10; interval++) {
+            Histogram histogram = new Histogram(DurationAccumulator.SIGNIFICANT_DIGITS);
+            for (int i = 0; i < 10_000; i++) {
+                long value = 1 + random.nextInt(interval == 9 ? 50_000 : 500);
+                histogram.recordValue(value);
+                recorded.add(value);
+            }
+            merged.add(histogram);
+        }
+
+        // The max of a histogram is only known to its precision, so p100 may differ
+        for (double percentile : new double[]{50, 90, 99, 99.9, 99.99}) {
+            assertThat(merged.getValueAtPercentile(percentile))
+                    .isEqualTo(recorded.getValueAtPercentile(percentile));
+        }
+    }
+
+    @Test
+    void toDurationStats_labelsConfiguredPercentiles() {
+        DurationAccumulator accumulator = new DurationAccumulator(true);
+        for (long value = 1; value <= 1_000; value++) {
+            accumulator.add(value);
+        }
+
+        StatisticsDto.DurationStats stats = accumulator.toDurationStats(new double[]{50, 99.9});
+
+        assertThat(stats.getPercentiles()).containsOnlyKeys("p50", "p99.9");
+        assertThat(stats.getPercentiles().get("p50")).isEqualTo(500L);
+        assertThat(stats.getPercentiles().get("p99.9")).isEqualTo(999L);
+        assertThat(stats.getMax()).isEqualTo(1_000L);
+    }
+
+    @Test
+    void toDurationStats_omitsPercentiles_whenNotTracked() {
+        DurationAccumulator accumulator = new DurationAccumulator();
+        accumulator.add(5);
+
+        assertThat(accumulator.toDurationStats(new double[]{50}).getPercentiles()).isNull();
+        assertThatThrownBy(() -> accumulator.getValueAtPercentile(50))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long exactPercentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    // Box-Muller transform
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
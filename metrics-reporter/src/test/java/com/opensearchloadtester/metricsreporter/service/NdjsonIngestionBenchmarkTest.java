@@ -0,0 +1,122 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the records per second the NDJSON report ingests with the former FileWriter per batch under the service
+ * lock and with the group-committing {@link NdjsonSegmentWriter}, for concurrent uploads.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=NdjsonIngestionBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NdjsonIngestionBenchmarkTest {
+
+    private static final int THREADS = 4;
+    private static final int BATCHES_PER_THREAD = 2_000;
+    private static final int BATCH_SIZE = 100;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectWriter writer = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE).writer();
+
+    @Test
+    void compareFileWriterPerBatchAndSegmentWriter() throws Exception {
+        List<MetricsDto> batch = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> new MetricsDto("lg-1", "query_type_" + (i % 27), 100L + i, 50L + i, 10, 200))
+                .toList();
+
+        double fileWriterRate = 0;
+        double neverRate = 0;
+        double intervalRate = 0;
+        double groupRate = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            Path legacy = tempDir.resolve("legacy-" + round + ".ndjson");
+            Object lock = new Object();
+            fileWriterRate = Math.max(fileWriterRate, recordsPerSecond(() -> {
+                synchronized (lock) {
+                    appendWithFileWriter(legacy, batch);
+                }
+            }));
+            assertThat(Files.lines(legacy).count()).isEqualTo((long) THREADS * BATCHES_PER_THREAD * BATCH_SIZE);
+
+            neverRate = Math.max(neverRate, segmentWriterRate(round, NdjsonSegmentWriter.FsyncPolicy.NEVER, batch));
+            intervalRate = Math.max(intervalRate,
+                    segmentWriterRate(round, NdjsonSegmentWriter.FsyncPolicy.INTERVAL, batch));
+            groupRate = Math.max(groupRate, segmentWriterRate(round, NdjsonSegmentWriter.FsyncPolicy.GROUP, batch));
+        }
+
+        System.out.printf("%n%-32s | %14s%n", "writer", "records/s");
+        System.out.printf("%-32s | %14.0f%n", "FileWriter per batch (before)", fileWriterRate);
+        System.out.printf("%-32s | %14.0f%n", "segment writer, fsync NEVER", neverRate);
+        System.out.printf("%-32s | %14.0f%n", "segment writer, fsync INTERVAL", intervalRate);
+        System.out.printf("%-32s | %14.0f%n", "segment writer, fsync GROUP", groupRate);
+    }
+
+    private double segmentWriterRate(int round, NdjsonSegmentWriter.FsyncPolicy fsyncPolicy, List<MetricsDto> batch)
+            throws Exception {
+        Path file = tempDir.resolve(fsyncPolicy + "-" + round + ".ndjson");
+        try (NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(file, 0, fsyncPolicy, 1000, 1024, writer)) {
+            return recordsPerSecond(() -> ndjson.write(batch));
+        }
+    }
+
+    private double recordsPerSecond(BatchWrite write) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < BATCHES_PER_THREAD; i++) {
+                        write.run();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return THREADS * BATCHES_PER_THREAD * BATCH_SIZE / seconds;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // The former ReportService.appendToNdjsonReport
+    private void appendWithFileWriter(Path path, List<MetricsDto> metricsList) throws IOException {
+        try (FileWriter fileWriter = new FileWriter(path.toFile(), true)) {
+            for (MetricsDto metrics : metricsList) {
+                fileWriter.write(writer.writeValueAsString(metrics));
+                fileWriter.write("\n");
+            }
+            fileWriter.flush();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchWrite {
+        void run() throws IOException;
+    }
+}
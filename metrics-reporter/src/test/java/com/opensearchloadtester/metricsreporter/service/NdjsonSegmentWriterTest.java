@@ -0,0 +1,123 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NdjsonSegmentWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    private final ObjectWriter writer = objectMapper.writer();
+
+    @Test
+    void write_appendsOneLinePerRecordAcrossBatches() throws Exception {
+        Path file = tempDir.resolve("results.ndjson");
+        try (NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(file, 0,
+                NdjsonSegmentWriter.FsyncPolicy.GROUP, 0, 16, writer)) {
+            ndjson.write(List.of(metrics("q1", 10), metrics("q2", 20)));
+            ndjson.write(List.of(metrics("q3", 30)));
+
+            List<String> lines = Files.readAllLines(file);
+            assertThat(lines).hasSize(3);
+            JsonNode first = objectMapper.readTree(lines.get(0));
+            assertThat(first.get("query_type").asText()).isEqualTo("q1");
+            assertThat(first.get("request_duration_millis").asLong()).isEqualTo(10);
+            assertThat(objectMapper.readTree(lines.get(2)).get("query_type").asText()).isEqualTo("q3");
+        }
+    }
+
+    @Test
+    void write_rotatesIntoNumberedSegments() throws Exception {
+        Path file = tempDir.resolve("results.ndjson");
+        try (NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(file, 1,
+                NdjsonSegmentWriter.FsyncPolicy.NEVER, 0, 16, writer)) {
+            ndjson.write(List.of(metrics("q1", 1), metrics("q2", 2)));
+            ndjson.write(List.of(metrics("q3", 3)));
+            ndjson.flush();
+
+            assertThat(ndjson.segments()).containsExactly(file,
+                    tempDir.resolve("results.1.ndjson"), tempDir.resolve("results.2.ndjson"));
+            assertThat(Files.readAllLines(file)).hasSize(2);
+            assertThat(Files.readAllLines(tempDir.resolve("results.1.ndjson"))).hasSize(1);
+            assertThat(tempDir.resolve("results.2.ndjson")).isEmptyFile();
+        }
+        assertThat(NdjsonSegmentWriter.existingSegments(file)).hasSize(3);
+    }
+
+    @Test
+    void write_fromConcurrentThreadsKeepsEveryLineIntact() throws Exception {
+        Path file = tempDir.resolve("results.ndjson");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(file, 0,
+                NdjsonSegmentWriter.FsyncPolicy.INTERVAL, 10, 4, writer)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int batch = 0; batch < 100; batch++) {
+                        int first = offset + batch * 10;
+                        ndjson.write(IntStream.range(first, first + 10)
+                                .mapToObj(i -> metrics("q", i)).toList());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Long> durations = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            durations.add(objectMapper.readTree(line).get("request_duration_millis").asLong());
+        }
+        assertThat(durations).hasSize(8000).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void write_afterCloseFails() throws Exception {
+        NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(tempDir.resolve("results.ndjson"), 0,
+                NdjsonSegmentWriter.FsyncPolicy.GROUP, 0, 16, writer);
+        ndjson.close();
+
+        assertThatThrownBy(() -> ndjson.write(List.of(metrics("q1", 1))))
+                .hasMessageContaining("closed");
+    }
+
+    @Test
+    void segmentPath_insertsIndexBeforeExtension() {
+        Path file = tempDir.resolve("tmp_query_results.ndjson");
+
+        assertThat(NdjsonSegmentWriter.segmentPath(file, 0)).isEqualTo(file);
+        assertThat(NdjsonSegmentWriter.segmentPath(file, 12))
+                .isEqualTo(tempDir.resolve("tmp_query_results.12.ndjson"));
+        assertThat(NdjsonSegmentWriter.segmentPath(tempDir.resolve("results"), 1))
+                .isEqualTo(tempDir.resolve("results.1"));
+    }
+
+    private static MetricsDto metrics(String queryType, long requestDurationMillis) {
+        return new MetricsDto("lg-1", queryType, requestDurationMillis, 5L, 1, 200);
+    }
+}
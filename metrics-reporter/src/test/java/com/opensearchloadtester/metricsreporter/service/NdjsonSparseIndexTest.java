@@ -0,0 +1,165 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NdjsonSparseIndexTest {
+
+    private static final long RUN_START = 1_767_225_600_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    private final ObjectWriter writer = objectMapper.writer();
+    private final ObjectReader reader = objectMapper.reader();
+
+    @Test
+    void read_returnsSameResultsAsFullScan_acrossSegmentsStagedBatchesAndPages() throws Exception {
+        Path file = tempDir.resolve("results.ndjson");
+        NdjsonSparseIndex index = new NdjsonSparseIndex(tempDir.resolve("results.index"), 2048, 10_000);
+        List<MetricsDto> written = new ArrayList<>();
+        Random random = new Random(7);
+        List<Path> segments;
+        try (NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(file, 64 * 1024,
+                NdjsonSegmentWriter.FsyncPolicy.NEVER, 0, 16, writer, index)) {
+            for (int batch = 0; batch < 200; batch++) {
+                List<MetricsDto> records = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    records.add(metrics(random, batch));
+                }
+                if (batch % 3 == 0) {
+                    // Small memory limit, so some staged batches spill
+                    try (StagedNdjson staged = ndjson.stage(tempDir, 512)) {
+                        for (MetricsDto record : records) {
+                            staged.add(record);
+                        }
+                        ndjson.write(staged);
+                    }
+                } else {
+                    ndjson.write(records);
+                }
+                written.addAll(records);
+            }
+            ndjson.flush();
+            segments = ndjson.segments();
+        }
+        assertThat(segments).hasSizeGreaterThan(1);
+        assertThat(Files.readAllLines(NdjsonSparseIndex.queryTypesFile(tempDir.resolve("results.index"))))
+                .containsExactlyInAnyOrder("q0", "q1", "q2");
+
+        List<NdjsonSparseIndex.Filter> filters = List.of(
+                NdjsonSparseIndex.Filter.of(null, null, null, null),
+                NdjsonSparseIndex.Filter.of("q1", "5xx", null, null),
+                NdjsonSparseIndex.Filter.of("q2", null, RUN_START + 120_000, RUN_START + 240_000),
+                NdjsonSparseIndex.Filter.of(null, "503", RUN_START + 12_345, null),
+                NdjsonSparseIndex.Filter.of("unknown", null, null, null));
+        for (NdjsonSparseIndex.Filter filter : filters) {
+            List<MetricsDto> expected = written.stream().filter(metrics -> matches(filter, metrics)).toList();
+
+            List<JsonNode> found = new ArrayList<>();
+            NdjsonSparseIndex.Cursor cursor = null;
+            do {
+                NdjsonSparseIndex.Slice slice = index.read(segments, filter, cursor, 37, reader);
+                assertThat(slice.results()).hasSizeLessThanOrEqualTo(37);
+                found.addAll(slice.results());
+                cursor = slice.next() != null ? NdjsonSparseIndex.Cursor.parse(slice.next().toString()) : null;
+            } while (cursor != null);
+
+            assertThat(found).as("%s", filter).hasSize(expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(found.get(i).get("request_duration_millis").asLong())
+                        .isEqualTo(expected.get(i).getRequestDurationMillis());
+            }
+        }
+    }
+
+    @Test
+    void read_scansOnlyBlocksOfMatchingEntries() throws Exception {
+        Path file = tempDir.resolve("results.ndjson");
+        NdjsonSparseIndex index = new NdjsonSparseIndex(tempDir.resolve("results.index"), 1024, 60_000);
+        List<Path> segments;
+        try (NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(file, 0,
+                NdjsonSegmentWriter.FsyncPolicy.NEVER, 0, 16, writer, index)) {
+            for (int minute = 0; minute < 20; minute++) {
+                List<MetricsDto> records = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    MetricsDto metrics = new MetricsDto("lg-1", "term", (long) i, 1L, 1, minute == 13 ? 500 : 200);
+                    metrics.setStartTimeEpochMillis(RUN_START + minute * 60_000L + i);
+                    records.add(metrics);
+                }
+                ndjson.write(records);
+            }
+            ndjson.flush();
+            segments = ndjson.segments();
+        }
+
+        NdjsonSparseIndex.Slice slice = index.read(segments, NdjsonSparseIndex.Filter.of("term", "5xx",
+                RUN_START + 12 * 60_000L, RUN_START + 14 * 60_000L), null, 100, reader);
+
+        assertThat(slice.results()).hasSize(50);
+        assertThat(slice.next()).isNull();
+        assertThat(slice.scannedBytes()).isLessThan(Files.size(file) / 5);
+    }
+
+    @Test
+    void read_withoutFlush_omitsBlockInProgressOnly() throws Exception {
+        Path file = tempDir.resolve("results.ndjson");
+        NdjsonSparseIndex index = new NdjsonSparseIndex(tempDir.resolve("results.index"), 1 << 20, 10_000);
+        try (NdjsonSegmentWriter ndjson = new NdjsonSegmentWriter(file, 0,
+                NdjsonSegmentWriter.FsyncPolicy.NEVER, 0, 16, writer, index)) {
+            ndjson.write(List.of(new MetricsDto("lg-1", "term", 1L, 1L, 1, 200)));
+            assertThat(index.read(ndjson.segments(), NdjsonSparseIndex.Filter.of(null, null, null, null), null,
+                    10, reader).results()).isEmpty();
+
+            ndjson.flush();
+            assertThat(index.read(ndjson.segments(), NdjsonSparseIndex.Filter.of(null, null, null, null), null,
+                    10, reader).results()).hasSize(1);
+        }
+    }
+
+    @Test
+    void filterAndCursor_rejectInvalidValues() {
+        assertThatThrownBy(() -> NdjsonSparseIndex.Filter.of(null, "5x", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NdjsonSparseIndex.Filter.of(null, null, 10L, 5L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NdjsonSparseIndex.Cursor.parse("1:-5"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(NdjsonSparseIndex.Cursor.parse("2:4096")).isEqualTo(new NdjsonSparseIndex.Cursor(2, 4096));
+    }
+
+    private static MetricsDto metrics(Random random, int batch) {
+        int[] statusCodes = {200, 200, 200, 404, 500, 503};
+        MetricsDto metrics = new MetricsDto("lg-1", "q" + random.nextInt(3), (long) random.nextInt(1_000_000),
+                1L, 1, statusCodes[random.nextInt(statusCodes.length)]);
+        // Mostly increasing start times, a few late ones
+        metrics.setStartTimeEpochMillis(RUN_START + batch * 1_500L + random.nextInt(random.nextInt(10) == 0
+                ? 60_000 : 1_000));
+        return metrics;
+    }
+
+    private static boolean matches(NdjsonSparseIndex.Filter filter, MetricsDto metrics) {
+        return (filter.queryType() == null || filter.queryType().equals(metrics.getQueryType()))
+                && (filter.statusCode() == null || filter.statusCode() == metrics.getHttpStatusCode())
+                && (filter.statusClass() == null || filter.statusClass() == metrics.getHttpStatusCode() / 100)
+                && (filter.fromMillis() == null || metrics.getStartTimeEpochMillis() >= filter.fromMillis())
+                && (filter.toMillis() == null || metrics.getStartTimeEpochMillis() < filter.toMillis());
+    }
+}
@@ -0,0 +1,70 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures appending to the {@link RawSampleStore} and computing exact percentiles over it, with the heap used.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=RawSampleStoreBenchmarkTest}; {@code -Dbenchmark.samples=N}
+ * changes the number of samples (24 bytes each on disk).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RawSampleStoreBenchmarkTest {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendAndComputeExactPercentiles() throws Exception {
+        long samples = Long.getLong("benchmark.samples", 50_000_000L);
+        List<MetricsDto> batch = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> new MetricsDto("lg-1", "query_type_" + (i % 27), (long) (i * 7919 % 30_000),
+                        (long) (i % 500), 10, 200))
+                .toList();
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (RawSampleStore store = new RawSampleStore(tempDir.resolve("raw"), 64L * 1024 * 1024)) {
+            long start = System.nanoTime();
+            for (long appended = 0; appended < samples; appended += BATCH_SIZE) {
+                store.append(batch);
+            }
+            double appendSeconds = (System.nanoTime() - start) / 1e9;
+
+            System.gc();
+            long heapBefore = usedHeap();
+            start = System.nanoTime();
+            Map<String, RawSampleStore.GroupPercentiles> result = store.exactPercentiles(PERCENTILES, executor);
+            double percentileSeconds = (System.nanoTime() - start) / 1e9;
+            long heapAfter = usedHeap();
+
+            assertThat(result).hasSize(28);
+            System.out.printf("%n%,d samples, %d threads%n", store.size(), threads);
+            System.out.printf("append              | %12.0f samples/s%n", store.size() / appendSeconds);
+            System.out.printf("exact percentiles   | %12.0f samples/s (%.1f s)%n",
+                    store.size() / percentileSeconds, percentileSeconds);
+            System.out.printf("heap after          | %12d MiB (before %d MiB)%n", heapAfter >> 20, heapBefore >> 20);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
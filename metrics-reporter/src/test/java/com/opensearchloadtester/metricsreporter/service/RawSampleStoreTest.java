@@ -0,0 +1,127 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawSampleStoreTest {
+
+    private static final double[] PERCENTILES = {0.1, 50, 90, 99, 99.9, 100};
+
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void exactPercentiles_matchSortedValuesOverallAndPerQueryType() throws Exception {
+        Random random = new Random(42);
+        List<MetricsDto> samples = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            String queryType = i % 17 == 0 ? null : "q" + random.nextInt(3);
+            // Long tail spanning all three radix digits, with duplicates
+            long duration = random.nextInt(10) == 0 ? random.nextInt(2_000_000_000) : random.nextInt(500);
+            MetricsDto metrics = new MetricsDto("lg-1", queryType, duration, random.nextBoolean()
+                    ? (long) random.nextInt(100) : null, 1, 200);
+            metrics.setCorrectedRequestDurationMillis(duration + random.nextInt(50));
+            samples.add(metrics);
+        }
+
+        Map<String, RawSampleStore.GroupPercentiles> result;
+        // Small regions, so the columns span many mappings
+        try (RawSampleStore store = new RawSampleStore(tempDir.resolve("raw"), 4096)) {
+            for (int from = 0; from < samples.size(); from += 1_000) {
+                store.append(samples.subList(from, from + 1_000));
+            }
+            assertThat(store.size()).isEqualTo(50_000);
+            result = store.exactPercentiles(PERCENTILES, executor);
+        }
+
+        assertThat(result.keySet()).containsExactlyInAnyOrder(null, "q0", "q1", "q2");
+        for (Map.Entry<String, RawSampleStore.GroupPercentiles> group : result.entrySet()) {
+            List<MetricsDto> members = samples.stream()
+                    .filter(metrics -> group.getKey() == null || group.getKey().equals(metrics.getQueryType()))
+                    .toList();
+            assertPercentiles(group.getValue(), RawSampleStore.Metric.REQUEST_DURATION,
+                    members.stream().map(MetricsDto::getRequestDurationMillis).toList());
+            assertPercentiles(group.getValue(), RawSampleStore.Metric.CORRECTED_REQUEST_DURATION,
+                    members.stream().map(MetricsDto::getCorrectedRequestDurationMillis).toList());
+            assertPercentiles(group.getValue(), RawSampleStore.Metric.QUERY_DURATION,
+                    members.stream().map(MetricsDto::getQueryDurationMillis).toList());
+        }
+    }
+
+    @Test
+    void exactPercentiles_leaveOutMetricsWithoutValues() throws Exception {
+        try (RawSampleStore store = new RawSampleStore(tempDir.resolve("raw"), 1 << 20)) {
+            store.append(List.of(new MetricsDto("lg-1", "q1", 7L, null, 1, 200)));
+
+            RawSampleStore.GroupPercentiles group = store.exactPercentiles(PERCENTILES, executor).get("q1");
+            assertThat(group.samples()).containsExactly(1L, 0L, 0L);
+            assertThat(group.values()).containsOnlyKeys(RawSampleStore.Metric.REQUEST_DURATION);
+            assertThat(group.values().get(RawSampleStore.Metric.REQUEST_DURATION)).containsEntry("p0.1", 7L)
+                    .containsEntry("p100", 7L);
+        }
+    }
+
+    @Test
+    void writeManifest_describesLittleEndianColumns() throws Exception {
+        Path directory = tempDir.resolve("raw");
+        try (RawSampleStore store = new RawSampleStore(directory, 4096)) {
+            MetricsDto metrics = new MetricsDto("lg-1", "q1", 123L, 45L, 1, 503);
+            metrics.setStartTimeEpochMillis(1_767_225_600_123L);
+            store.append(List.of(new MetricsDto("lg-1", "q0", 1L, 1L, 1, 200), metrics));
+            store.writeManifest();
+        }
+
+        JsonNode manifest = new ObjectMapper().readTree(directory.resolve(RawSampleStore.MANIFEST).toFile());
+        assertThat(manifest.get("samples").asLong()).isEqualTo(2);
+        assertThat(manifest.get("columns").get("request_duration_millis").asText()).isEqualTo("i32");
+        assertThat(manifest.get("query_types").get(1).asText()).isEqualTo("q1");
+
+        ByteBuffer requestDurations = ByteBuffer.wrap(Files.readAllBytes(
+                directory.resolve("request_duration_millis.i32"))).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer statusCodes = ByteBuffer.wrap(Files.readAllBytes(
+                directory.resolve("http_status_code.i16"))).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer startTimes = ByteBuffer.wrap(Files.readAllBytes(
+                directory.resolve("start_time_epoch_millis.i64"))).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(requestDurations.getInt(4)).isEqualTo(123);
+        assertThat(statusCodes.getShort(2)).isEqualTo((short) 503);
+        assertThat(startTimes.getLong(8)).isEqualTo(1_767_225_600_123L);
+    }
+
+    private static void assertPercentiles(RawSampleStore.GroupPercentiles group, RawSampleStore.Metric metric,
+                                          List<Long> values) {
+        long[] sorted = values.stream().filter(value -> value != null).mapToLong(Long::longValue).sorted()
+                .toArray();
+        assertThat(group.samples()[metric.ordinal()]).isEqualTo(sorted.length);
+        Map<String, Long> found = group.values().get(metric);
+        for (double percentile : PERCENTILES) {
+            int rank = (int) Math.max(1, Math.ceil(percentile / 100.0 * sorted.length));
+            assertThat(found.get(DurationAccumulator.label(percentile)))
+                    .as("%s %s", metric, percentile)
+                    .isEqualTo(sorted[rank - 1]);
+        }
+    }
+}
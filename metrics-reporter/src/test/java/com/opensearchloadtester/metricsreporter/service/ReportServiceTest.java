@@ -3,19 +3,39 @@ package com.opensearchloadtester.metricsreporter.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opensearchloadtester.common.dto.LatencyHistogramDto;
 import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.common.dto.MetricsIntervalDto;
+import com.opensearchloadtester.common.dto.RunMetadataDto;
+import com.opensearchloadtester.metricsreporter.comparison.RunComparator;
+import com.opensearchloadtester.metricsreporter.dto.ExportProgressDto;
+import com.opensearchloadtester.metricsreporter.dto.ResultSliceDto;
+import com.opensearchloadtester.metricsreporter.dto.RunHistogramsDto;
+import com.opensearchloadtester.metricsreporter.dto.RunTrendDto;
 import com.opensearchloadtester.metricsreporter.dto.StatisticsDto;
+import com.opensearchloadtester.metricsreporter.history.RunHistoryStore;
+import com.opensearchloadtester.metricsreporter.sink.ResultSinks;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ReportServiceTest {
 
@@ -30,21 +50,35 @@ class ReportServiceTest {
     @BeforeEach
     void setUp() {
         reportService = new ReportService();
-        ReflectionTestUtils.setField(reportService, "outputDirectory", tempDir.toString());
-        ReflectionTestUtils.setField(reportService, "statsFilename", "statistics.json");
-        ReflectionTestUtils.setField(reportService, "ndjsonFilename", "tmp_query_results.ndjson");
-        ReflectionTestUtils.setField(reportService, "resultsJsonFilename", "query_results.json");
+        setUp(reportService);
 
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
     }
 
+    @AfterEach
+    void awaitFinalizationJobs() throws Exception {
+        // The results JSON export writes into the temporary directory in the background
+        if (reportService.getFinalizationJobs() != null) {
+            reportService.getFinalizationJobs().get();
+        }
+    }
+
+    private void setUp(ReportService service) {
+        ReflectionTestUtils.setField(service, "outputDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(service, "statsFilename", "statistics.json");
+        ReflectionTestUtils.setField(service, "ndjsonFilename", "tmp_query_results.ndjson");
+        ReflectionTestUtils.setField(service, "resultsJsonFilename", "query_results.json");
+    }
+
     @Test
     void processMetrics_and_finalizeReports_writeOutputsAndStats() throws Exception {
         List<MetricsDto> metrics = List.of(
                 new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 100L, 50L, 10, 200),
                 new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 300L, 150L, 5, 500)
         );
+        metrics.get(0).setCorrectedRequestDurationMillis(120L);
+        metrics.get(1).setCorrectedRequestDurationMillis(400L);
 
         reportService.processMetrics(metrics);
 
@@ -61,8 +95,11 @@ class ReportServiceTest {
         Path statsPath = tempDir.resolve("statistics.json");
         Path resultsJsonPath = tempDir.resolve("query_results.json");
 
+        reportService.getResultsJsonExport().get();
         assertThat(Files.exists(statsPath)).isTrue();
         assertThat(Files.exists(resultsJsonPath)).isTrue();
+        assertThat(reportService.getResultsJsonExportProgress().getState()).isEqualTo(ExportProgressDto.State.DONE);
+        assertThat(reportService.getResultsJsonExportProgress().getRecords()).isEqualTo(2);
 //        assertThat(Files.exists(ndjsonPath)).isFalse();
 
         StatisticsDto writtenStats = objectMapper.readValue(statsPath.toFile(), StatisticsDto.class);
@@ -74,6 +111,10 @@ class ReportServiceTest {
         assertThat(writtenStats.getRequestDurationMs().getMin()).isEqualTo(100L);
         assertThat(writtenStats.getRequestDurationMs().getMax()).isEqualTo(300L);
 
+        assertThat(writtenStats.getCorrectedRequestDurationMs().getAverage()).isEqualTo(260.0);
+        assertThat(writtenStats.getCorrectedRequestDurationMs().getMin()).isEqualTo(120L);
+        assertThat(writtenStats.getCorrectedRequestDurationMs().getMax()).isEqualTo(400L);
+
         assertThat(writtenStats.getQueryDurationMs().getAverage()).isEqualTo(100.0);
         assertThat(writtenStats.getQueryDurationMs().getMin()).isEqualTo(50L);
         assertThat(writtenStats.getQueryDurationMs().getMax()).isEqualTo(150L);
@@ -85,4 +126,443 @@ class ReportServiceTest {
         assertThat(resultsJson.isArray()).isTrue();
         assertThat(resultsJson.size()).isEqualTo(2);
     }
+
+    @Test
+    void finalizeReports_writesStatisticsPerStage() throws Exception {
+        MetricsDto rampFast = new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 10L, 5L, 1, 200);
+        rampFast.setStage("1-ramp");
+        MetricsDto rampSlow = new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 30L, 15L, 1, 200);
+        rampSlow.setStage("1-ramp");
+        MetricsDto spike = new MetricsDto(LOAD_GENERATOR_ID, "query_type_test", 500L, 400L, 1, 503);
+        spike.setStage("2-spike");
+
+        reportService.processMetrics(List.of(rampFast, rampSlow, spike));
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+
+        StatisticsDto writtenStats = objectMapper.readValue(
+                tempDir.resolve("statistics.json").toFile(), StatisticsDto.class);
+
+        assertThat(writtenStats.getTotalQueries()).isEqualTo(3);
+        assertThat(writtenStats.getStages()).containsOnlyKeys("1-ramp", "2-spike");
+
+        StatisticsDto.GroupStatistics ramp = writtenStats.getStages().get("1-ramp");
+        assertThat(ramp.getTotalQueries()).isEqualTo(2);
+        assertThat(ramp.getTotalErrors()).isZero();
+        assertThat(ramp.getRequestDurationMs().getAverage()).isEqualTo(20.0);
+
+        StatisticsDto.GroupStatistics spikeStats = writtenStats.getStages().get("2-spike");
+        assertThat(spikeStats.getTotalQueries()).isEqualTo(1);
+        assertThat(spikeStats.getTotalErrors()).isEqualTo(1);
+        assertThat(spikeStats.getRequestDurationMs().getMax()).isEqualTo(500L);
+    }
+
+    @Test
+    void finalizeReports_writesPayloadAndLatencyBreakdownPerQueryType() throws Exception {
+        MetricsDto small = new MetricsDto(LOAD_GENERATOR_ID, "term", 20L, 5L, 1, 200);
+        small.setRequestBytes(100L);
+        small.setResponseBytes(1_000L);
+        small.setTimeToFirstByteMillis(18L);
+        small.setTransferTimeMillis(2L);
+        small.setOverheadMillis(15L);
+        MetricsDto large = new MetricsDto(LOAD_GENERATOR_ID, "term", 60L, 5L, 1, 200);
+        large.setRequestBytes(100L);
+        large.setResponseBytes(9_000L);
+        large.setTimeToFirstByteMillis(20L);
+        large.setTransferTimeMillis(40L);
+        large.setOverheadMillis(55L);
+        MetricsDto aggregation = new MetricsDto(LOAD_GENERATOR_ID, "aggregation", 80L, 70L, 1, 200);
+        aggregation.setOverheadMillis(10L);
+
+        reportService.processMetrics(List.of(small, large, aggregation));
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+
+        StatisticsDto writtenStats = objectMapper.readValue(
+                tempDir.resolve("statistics.json").toFile(), StatisticsDto.class);
+
+        assertThat(writtenStats.getQueryTypes()).containsOnlyKeys("term", "aggregation");
+
+        StatisticsDto.GroupStatistics term = writtenStats.getQueryTypes().get("term");
+        assertThat(term.getTotalQueries()).isEqualTo(2);
+        assertThat(term.getRequestBytes().getTotal()).isEqualTo(200L);
+        assertThat(term.getResponseBytes().getAverage()).isEqualTo(5_000.0);
+        assertThat(term.getResponseBytes().getMax()).isEqualTo(9_000L);
+        assertThat(term.getTimeToFirstByteMs().getAverage()).isEqualTo(19.0);
+        assertThat(term.getTransferTimeMs().getMax()).isEqualTo(40L);
+        assertThat(term.getOverheadMs().getAverage()).isEqualTo(35.0);
+
+        StatisticsDto.GroupStatistics aggregationStats = writtenStats.getQueryTypes().get("aggregation");
+        assertThat(aggregationStats.getOverheadMs().getMin()).isEqualTo(10L);
+        assertThat(aggregationStats.getResponseBytes().getTotal()).isZero();
+    }
+
+    @Test
+    void processHistograms_mergesIntervalsOfAllLoadGenerators() throws Exception {
+        reportService.processHistograms(new MetricsIntervalDto("lg-1", 0L, 10_000L, List.of(
+                new LatencyHistogramDto("1-ramp", "term", "2xx", 2,
+                        encode(10, 30), encode(12, 40), encode(5, 15)),
+                new LatencyHistogramDto("1-ramp", "term", "5xx", 1,
+                        encode(500), encode(500), null)
+        )));
+        reportService.processHistograms(new MetricsIntervalDto("lg-2", 0L, 10_000L, List.of(
+                new LatencyHistogramDto("1-ramp", "aggregation", "2xx", 1,
+                        encode(80), encode(90), encode(70))
+        )));
+        reportService.finalizeReports(Set.of("lg-1", "lg-2"));
+
+        StatisticsDto writtenStats = objectMapper.readValue(
+                tempDir.resolve("statistics.json").toFile(), StatisticsDto.class);
+
+        assertThat(writtenStats.getTotalQueries()).isEqualTo(4);
+        assertThat(writtenStats.getTotalErrors()).isEqualTo(1);
+        assertThat(writtenStats.getRequestDurationMs().getMin()).isEqualTo(10L);
+        assertThat(writtenStats.getRequestDurationMs().getMax()).isEqualTo(500L);
+        assertThat(writtenStats.getRequestDurationMs().getAverage()).isEqualTo(155.0);
+        assertThat(writtenStats.getQueryDurationMs().getAverage()).isEqualTo(30.0);
+        assertThat(writtenStats.getStages().get("1-ramp").getTotalQueries()).isEqualTo(4);
+
+        StatisticsDto.GroupStatistics term = writtenStats.getQueryTypes().get("term");
+        assertThat(term.getTotalQueries()).isEqualTo(3);
+        assertThat(term.getTotalErrors()).isEqualTo(1);
+        assertThat(term.getCorrectedRequestDurationMs().getMax()).isEqualTo(500L);
+        assertThat(writtenStats.getQueryTypes().get("aggregation").getRequestDurationMs().getAverage())
+                .isEqualTo(80.0);
+
+        assertThat(writtenStats.getStatusClasses()).containsOnlyKeys("2xx", "5xx");
+        assertThat(writtenStats.getStatusClasses().get("2xx").getTotalQueries()).isEqualTo(3);
+        assertThat(term.getStatusClasses().get("5xx").getRequestDurationMs().getMin()).isEqualTo(500L);
+        assertThat(writtenStats.getLoadGenerators()).containsOnlyKeys("lg-1", "lg-2");
+        assertThat(writtenStats.getLoadGenerators().get("lg-1").getTotalQueries()).isEqualTo(3);
+
+        // The 10 s interval is spread over its seconds in the timeline
+        List<String> timeline = Files.readAllLines(tempDir.resolve("timeline.ndjson"));
+        assertThat(timeline).hasSize(10);
+        long timelineQueries = 0;
+        for (String line : timeline) {
+            timelineQueries += objectMapper.readTree(line).get("queries").asLong();
+        }
+        assertThat(timelineQueries).isEqualTo(4);
+        assertThat(objectMapper.readTree(timeline.getFirst()).at("/request_duration_ms/max").asLong())
+                .isEqualTo(500L);
+    }
+
+    @Test
+    void finalizeReports_writesBreakdownPerStatusClassAndLoadGenerator() throws Exception {
+        reportService.processMetrics(List.of(
+                new MetricsDto("lg-1", "term", 10L, 5L, 1, 200),
+                new MetricsDto("lg-1", "regex", 900L, 850L, 1, 200),
+                new MetricsDto("lg-1", "regex", 2_000L, null, null, 504)
+        ));
+        reportService.processMetrics(List.of(
+                new MetricsDto("lg-2", "term", 30L, 5L, 1, 201),
+                new MetricsDto("lg-2", "term", 40L, null, null, 429)
+        ));
+        reportService.finalizeReports(Set.of("lg-1", "lg-2"));
+
+        StatisticsDto writtenStats = objectMapper.readValue(
+                tempDir.resolve("statistics.json").toFile(), StatisticsDto.class);
+
+        assertThat(writtenStats.getStatusClasses()).containsOnlyKeys("2xx", "4xx", "5xx");
+        assertThat(writtenStats.getStatusClasses().get("2xx").getTotalQueries()).isEqualTo(3);
+        assertThat(writtenStats.getStatusClasses().get("5xx").getTotalErrors()).isEqualTo(1);
+
+        StatisticsDto.GroupStatistics regex = writtenStats.getQueryTypes().get("regex");
+        assertThat(regex.getStatusClasses()).containsOnlyKeys("2xx", "5xx");
+        assertThat(regex.getStatusClasses().get("2xx").getRequestDurationMs().getMax()).isEqualTo(900L);
+        assertThat(regex.getStatusClasses().get("5xx").getRequestDurationMs().getMax()).isEqualTo(2_000L);
+        assertThat(writtenStats.getQueryTypes().get("term").getStatusClasses()).containsOnlyKeys("2xx", "4xx");
+
+        assertThat(writtenStats.getLoadGenerators()).containsOnlyKeys("lg-1", "lg-2");
+        assertThat(writtenStats.getLoadGenerators().get("lg-1").getTotalQueries()).isEqualTo(3);
+        assertThat(writtenStats.getLoadGenerators().get("lg-2").getRequestDurationMs().getAverage()).isEqualTo(35.0);
+        // Only query types are broken down per status class
+        assertThat(writtenStats.getLoadGenerators().get("lg-2").getStatusClasses()).isNullOrEmpty();
+    }
+
+    @Test
+    void finalizeReports_writesConfiguredPercentilesGloballyAndPerQueryType() throws Exception {
+        ReflectionTestUtils.setField(reportService, "percentiles", new double[]{50, 99});
+        List<MetricsDto> metrics = new ArrayList<>();
+        for (long duration = 1; duration <= 100; duration++) {
+            String queryType = duration <= 50 ? "term" : "regex";
+            metrics.add(new MetricsDto(LOAD_GENERATOR_ID, queryType, duration, duration, 1, 200));
+        }
+        reportService.processMetrics(metrics);
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+
+        JsonNode root = objectMapper.readTree(tempDir.resolve("statistics.json").toFile());
+        assertThat(root.at("/request_duration_ms/percentiles/p50").asLong()).isEqualTo(50L);
+        assertThat(root.at("/request_duration_ms/percentiles/p99").asLong()).isEqualTo(99L);
+        assertThat(root.at("/query_duration_ms/percentiles/p99").asLong()).isEqualTo(99L);
+        assertThat(root.at("/query_types/regex/request_duration_ms/percentiles/p50").asLong()).isEqualTo(75L);
+        // Payload sizes and the latency breakdown have no percentiles
+        assertThat(root.at("/query_types/regex/overhead_ms/percentiles").isMissingNode()).isTrue();
+    }
+
+    @Test
+    void finalizeReports_writesTimelineAsNdjson() throws Exception {
+        MetricsDto first = new MetricsDto(LOAD_GENERATOR_ID, "term", 40L, 10L, 1, 200);
+        first.setStartTimeEpochMillis(1_767_225_600_200L);
+        MetricsDto second = new MetricsDto(LOAD_GENERATOR_ID, "term", 60L, null, null, 500);
+        second.setStartTimeEpochMillis(1_767_225_601_200L);
+        reportService.processMetrics(List.of(first, second));
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("timeline.ndjson"));
+        assertThat(lines).hasSize(2);
+        JsonNode bucket = objectMapper.readTree(lines.get(1));
+        assertThat(bucket.get("epoch_millis").asLong()).isEqualTo(1_767_225_601_000L);
+        assertThat(bucket.get("qps").asDouble()).isEqualTo(1.0);
+        assertThat(bucket.get("error_rate").asDouble()).isEqualTo(1.0);
+        assertThat(bucket.at("/request_duration_ms/percentiles/p99").asLong()).isEqualTo(60L);
+    }
+
+    @Test
+    void processMetrics_fromConcurrentUploads_mergesStripesExactly() throws Exception {
+        ReflectionTestUtils.setField(reportService, "statsStripeCount", 3);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> uploads = new ArrayList<>();
+        for (int loadGenerator = 0; loadGenerator < 8; loadGenerator++) {
+            String loadGeneratorId = "lg-" + loadGenerator;
+            uploads.add(executor.submit(() -> {
+                for (int batch = 0; batch < 50; batch++) {
+                    List<MetricsDto> metrics = new ArrayList<>();
+                    for (long duration = 1; duration <= 100; duration++) {
+                        MetricsDto entry = new MetricsDto(loadGeneratorId, duration % 2 == 0 ? "term" : "regex",
+                                duration, duration, 1, duration == 100 ? 500 : 200);
+                        entry.setStage(batch < 25 ? "1-ramp" : "2-steady");
+                        metrics.add(entry);
+                    }
+                    reportService.processMetrics(metrics);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> upload : uploads) {
+            upload.get();
+        }
+        executor.shutdown();
+
+        StatisticsDto statistics = reportService.finalizeReports(Set.of("lg-0"));
+
+        assertThat(statistics.getTotalQueries()).isEqualTo(40_000);
+        assertThat(statistics.getTotalErrors()).isEqualTo(400);
+        assertThat(statistics.getRequestDurationMs().getAverage()).isEqualTo(50.5);
+        assertThat(statistics.getRequestDurationMs().getPercentiles()).containsEntry("p50", 50L);
+        assertThat(statistics.getStages()).containsOnlyKeys("1-ramp", "2-steady");
+        assertThat(statistics.getStages().keySet()).containsExactly("1-ramp", "2-steady");
+        assertThat(statistics.getQueryTypes().get("term").getTotalQueries()).isEqualTo(20_000);
+        assertThat(statistics.getStatusClasses().get("5xx").getTotalQueries()).isEqualTo(400);
+        assertThat(statistics.getLoadGenerators()).hasSize(8)
+                .allSatisfy((id, group) -> assertThat(group.getTotalQueries()).isEqualTo(5_000));
+        assertThat(Files.readAllLines(tempDir.resolve("tmp_query_results.ndjson"))).hasSize(40_000);
+    }
+
+    @Test
+    void metricsBatch_commit_appendsSpilledLinesAndMergesStatistics() throws Exception {
+        ReflectionTestUtils.setField(reportService, "batchMemoryKb", 1L);
+        reportService.processMetrics(List.of(new MetricsDto(LOAD_GENERATOR_ID, "term", 5L, 1L, 1, 200)));
+
+        try (ReportService.MetricsBatch batch = reportService.beginMetricsBatch()) {
+            for (long duration = 1; duration <= 1_000; duration++) {
+                MetricsDto metrics = new MetricsDto(LOAD_GENERATOR_ID, "regex", duration, duration, 1, 200);
+                metrics.setStartTimeEpochMillis(1_767_225_600_000L + duration);
+                batch.add(metrics);
+            }
+            assertThat(batch.size()).isEqualTo(1_000);
+            batch.commit();
+        }
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("tmp_query_results.ndjson"));
+        assertThat(lines).hasSize(1_001);
+        assertThat(objectMapper.readTree(lines.get(1_000)).get("request_duration_millis").asLong()).isEqualTo(1_000L);
+        assertThat(tempDir).isDirectoryNotContaining("glob:**.tmp");
+
+        StatisticsDto statistics = reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+        assertThat(statistics.getTotalQueries()).isEqualTo(1_001);
+        assertThat(statistics.getQueryTypes().get("regex").getRequestDurationMs().getAverage()).isEqualTo(500.5);
+        assertThat(Files.readAllLines(tempDir.resolve("timeline.ndjson"))).hasSize(2);
+    }
+
+    @Test
+    void metricsBatch_closedWithoutCommit_leavesReportsUnchanged() throws Exception {
+        ReflectionTestUtils.setField(reportService, "batchMemoryKb", 1L);
+
+        try (ReportService.MetricsBatch batch = reportService.beginMetricsBatch()) {
+            for (long duration = 1; duration <= 1_000; duration++) {
+                batch.add(new MetricsDto(LOAD_GENERATOR_ID, "regex", duration, duration, 1, 200));
+            }
+        }
+
+        assertThat(tempDir.resolve("tmp_query_results.ndjson")).isEmptyFile();
+        assertThat(tempDir).isDirectoryNotContaining("glob:**.tmp");
+        assertThat(reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID)).getTotalQueries()).isZero();
+    }
+
+    @Test
+    void resultSinks_receiveProcessedAndCommittedMetricsOnly() throws Exception {
+        ResultSinks resultSinks = new ResultSinks();
+        ReflectionTestUtils.setField(resultSinks, "sinkNames", List.of("csv"));
+        reportService = new ReportService(resultSinks);
+        setUp(reportService);
+        ReflectionTestUtils.invokeMethod(reportService, "initializeReportFiles");
+
+        reportService.processMetrics(List.of(new MetricsDto(LOAD_GENERATOR_ID, "term", 5L, 1L, 1, 200)));
+        try (ReportService.MetricsBatch batch = reportService.beginMetricsBatch()) {
+            batch.add(new MetricsDto(LOAD_GENERATOR_ID, "discarded", 6L, 1L, 1, 200));
+        }
+        try (ReportService.MetricsBatch batch = reportService.beginMetricsBatch()) {
+            batch.add(new MetricsDto(LOAD_GENERATOR_ID, "regex", 7L, 1L, 1, 200));
+            batch.commit();
+        }
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+        reportService.getFinalizationJobs().get();
+
+        List<String> csv = Files.readAllLines(tempDir.resolve("query_results.csv"));
+        assertThat(csv).hasSize(3);
+        assertThat(csv.get(1)).startsWith("lg-1,term,");
+        assertThat(csv.get(2)).startsWith("lg-1,regex,");
+        assertThat(reportService.getResultSinkStatus()).singleElement()
+                .satisfies(status -> assertThat(status.getWrittenRecords()).isEqualTo(2));
+    }
+
+    @Test
+    void rawSamples_writeExactPercentilesAfterFinalization() throws Exception {
+        ReflectionTestUtils.setField(reportService, "rawSamplesEnabled", true);
+        ReflectionTestUtils.setField(reportService, "rawSamplesRegionMb", 1L);
+        ReflectionTestUtils.invokeMethod(reportService, "initializeReportFiles");
+
+        List<MetricsDto> metrics = new ArrayList<>();
+        for (long duration = 1; duration <= 1000; duration++) {
+            metrics.add(new MetricsDto(LOAD_GENERATOR_ID, duration % 2 == 0 ? "term" : "regex", duration, null,
+                    1, 200));
+        }
+        reportService.processMetrics(metrics);
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+        reportService.getFinalizationJobs().get();
+
+        JsonNode exact = objectMapper.readTree(reportService.getExactPercentilesPath().toFile());
+        assertThat(exact.get("total_samples").asLong()).isEqualTo(1000);
+        assertThat(exact.get("overall").get("request_duration_ms").get("p99").asLong()).isEqualTo(990);
+        assertThat(exact.get("query_types").get("term").get("samples").asLong()).isEqualTo(500);
+        assertThat(exact.get("query_types").get("term").get("request_duration_ms").get("p50").asLong())
+                .isEqualTo(500);
+        assertThat(exact.get("query_types").get("regex").has("query_duration_ms")).isFalse();
+        assertThat(tempDir.resolve("raw_samples").resolve("manifest.json")).exists();
+    }
+
+    @Test
+    void finalizeReports_writesComparableHistogramsPerQueryType() throws Exception {
+        List<MetricsDto> metrics = new ArrayList<>();
+        for (long duration = 1; duration <= 100; duration++) {
+            metrics.add(new MetricsDto(LOAD_GENERATOR_ID, duration % 4 == 0 ? "regex" : "term", duration,
+                    duration % 4 == 0 ? null : duration / 2, 1, 200));
+        }
+        reportService.processMetrics(metrics);
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+
+        RunHistogramsDto histograms = objectMapper.readValue(reportService.getHistogramsPath().toFile(),
+                RunHistogramsDto.class);
+        assertThat(histograms.getOverall().getTotalQueries()).isEqualTo(100);
+        assertThat(histograms.getQueryTypes()).containsOnlyKeys("regex", "term");
+        assertThat(histograms.getQueryTypes().get("regex").getQueryDurationMs()).isNull();
+        Histogram term = Histogram.decodeFromCompressedByteBuffer(
+                ByteBuffer.wrap(histograms.getQueryTypes().get("term").getRequestDurationMs()), 0);
+        assertThat(term.getTotalCount()).isEqualTo(75);
+        assertThat(term.getMaxValue()).isEqualTo(99);
+    }
+
+    @Test
+    void finalizeReports_recordsRunWithReportedScenarioInRunHistory() throws Exception {
+        ReflectionTestUtils.setField(reportService, "historyLabels", List.of("nightly"));
+        reportService.recordRunMetadata(new RunMetadataDto(LOAD_GENERATOR_ID, "ano-low", "queries: []\n",
+                Map.of("version", "2.19.1"), Map.of("index.number_of_shards", "1")));
+        List<MetricsDto> metrics = new ArrayList<>();
+        for (long duration = 1; duration <= 100; duration++) {
+            metrics.add(new MetricsDto(LOAD_GENERATOR_ID, duration % 2 == 0 ? "regex" : "term", duration,
+                    duration / 2, 1, 200));
+        }
+        reportService.processMetrics(metrics);
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+
+        RunHistoryStore history = RunHistoryStore.openReadOnly(tempDir.resolve("history"));
+        assertThat(history.runs(null, null, 10)).singleElement().satisfies(run -> {
+            assertThat(run.getScenario()).isEqualTo("ano-low");
+            assertThat(run.getClusterVersion()).isEqualTo("2.19.1");
+            assertThat(run.getLabels()).containsExactly("nightly");
+            assertThat(run.getTotalQueries()).isEqualTo(100);
+        });
+        RunTrendDto trend = history.trend("regex", RunComparator.Metric.REQUEST_DURATION, 100, "ano-low",
+                "nightly", 30);
+        assertThat(trend.getPoints()).singleElement().satisfies(point -> {
+            assertThat(point.getSamples()).isEqualTo(50);
+            assertThat(point.getValue()).isEqualTo(100);
+        });
+
+        // A new run keeps the history of the previous one; it deletes leftovers of unfinished exports at startup
+        reportService.getFinalizationJobs().get();
+        ReportService nextRun = new ReportService();
+        setUp(nextRun);
+        ReflectionTestUtils.invokeMethod(nextRun, "initializeReportFiles");
+        nextRun.processMetrics(metrics);
+        nextRun.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+        nextRun.getFinalizationJobs().get();
+        assertThat(nextRun.getRunHistory().runs(null, null, 10)).hasSize(2)
+                .last().satisfies(run -> assertThat(run.getScenario()).isNull());
+    }
+
+    @Test
+    void getResults_servesFilteredPagesOfProcessedAndCommittedMetrics() throws Exception {
+        ReflectionTestUtils.invokeMethod(reportService, "initializeReportFiles");
+        reportService.processMetrics(List.of(
+                new MetricsDto(LOAD_GENERATOR_ID, "term", 1L, 1L, 1, 200),
+                new MetricsDto(LOAD_GENERATOR_ID, "term", 2L, 1L, 1, 503)));
+        try (ReportService.MetricsBatch batch = reportService.beginMetricsBatch()) {
+            batch.add(new MetricsDto(LOAD_GENERATOR_ID, "term", 3L, 1L, 1, 500));
+            batch.add(new MetricsDto(LOAD_GENERATOR_ID, "regex", 4L, 1L, 1, 500));
+            batch.commit();
+        }
+        reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID));
+
+        ResultSliceDto first = reportService.getResults("term", "5xx", null, null, null, 1);
+        ResultSliceDto second = reportService.getResults("term", "5xx", null, null, first.getNextCursor(), 1);
+
+        assertThat(first.getResults()).singleElement()
+                .satisfies(result -> assertThat(result.get("request_duration_millis").asLong()).isEqualTo(2));
+        assertThat(second.getResults()).singleElement()
+                .satisfies(result -> assertThat(result.get("request_duration_millis").asLong()).isEqualTo(3));
+        assertThat(reportService.getResults("term", "5xx", null, null, second.getNextCursor(), 1).getResults())
+                .isEmpty();
+        assertThat(tempDir.resolve("query_results.index")).isNotEmptyFile();
+    }
+
+    @Test
+    void validatePercentiles_rejectsValuesOutsideRange() {
+        ReflectionTestUtils.setField(reportService, "percentiles", new double[]{50, 101});
+
+        assertThatThrownBy(() -> reportService.validatePercentiles())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void processHistograms_rejectsInvalidEncoding_withoutMergingAnyHistogram() throws Exception {
+        MetricsIntervalDto interval = new MetricsIntervalDto(LOAD_GENERATOR_ID, 0L, 10_000L, List.of(
+                new LatencyHistogramDto(null, "term", "2xx", 1, encode(10), null, null),
+                new LatencyHistogramDto(null, "term", "2xx", 1, new byte[]{1, 2, 3}, null, null)
+        ));
+
+        assertThatThrownBy(() -> reportService.processHistograms(interval))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(reportService.finalizeReports(Set.of(LOAD_GENERATOR_ID)).getTotalQueries()).isZero();
+    }
+
+    private static byte[] encode(long... valuesMillis) {
+        Histogram histogram = new Histogram(3);
+        for (long value : valuesMillis) {
+            histogram.recordValue(value);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
 }
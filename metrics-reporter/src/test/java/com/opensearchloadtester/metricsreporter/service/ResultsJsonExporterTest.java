@@ -0,0 +1,124 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResultsJsonExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void export_convertsChunksInParallelAndKeepsOrder() throws Exception {
+        Path first = writeSegment("results.ndjson", IntStream.range(0, 500));
+        Path second = writeSegment("results.1.ndjson", IntStream.range(500, 800));
+        Path target = tempDir.resolve("query_results.json");
+
+        ResultsJsonExporter exporter = new ResultsJsonExporter(List.of(first, second), target, 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            exporter.export(executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        JsonNode results = objectMapper.readTree(target.toFile());
+        List<Integer> ids = new ArrayList<>();
+        results.forEach(node -> ids.add(node.get("id").asInt()));
+        assertThat(ids).isEqualTo(IntStream.range(0, 800).boxed().toList());
+        assertThat(exporter.getChunks()).isGreaterThan(4);
+        assertThat(exporter.getCompletedChunks()).isEqualTo(exporter.getChunks());
+        assertThat(exporter.getRecords()).isEqualTo(800);
+        assertThat(exporter.getProcessedBytes()).isEqualTo(exporter.getTotalBytes());
+        assertThat(leftoverTempFiles()).isEmpty();
+    }
+
+    @Test
+    void export_skipsInvalidAndBlankLines() throws Exception {
+        Path segment = tempDir.resolve("results.ndjson");
+        Files.writeString(segment, "{\"id\":0,\"tags\":[1,{\"a\":\"}\"}]}\n"
+                + "\n"
+                + "[1,2]\n"
+                + "{\"id\":1}{\"id\":2}\n"
+                + "{\"id\":3}\r\n"
+                + "{\"id\":4,\"cut\":\"off");
+        Path target = tempDir.resolve("query_results.json");
+
+        ResultsJsonExporter exporter = new ResultsJsonExporter(List.of(segment), target, 1 << 20);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            exporter.export(executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        JsonNode results = objectMapper.readTree(target.toFile());
+        assertThat(results.size()).isEqualTo(2);
+        assertThat(results.get(0).get("tags").get(1).get("a").asText()).isEqualTo("}");
+        assertThat(results.get(1).get("id").asInt()).isEqualTo(3);
+        assertThat(exporter.getSkippedLines()).isEqualTo(3);
+    }
+
+    @Test
+    void export_ofEmptySegmentWritesEmptyArray() throws Exception {
+        Path segment = Files.createFile(tempDir.resolve("results.ndjson"));
+        Path target = tempDir.resolve("query_results.json");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new ResultsJsonExporter(List.of(segment), target, 1024).export(executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(objectMapper.readTree(target.toFile()).isArray()).isTrue();
+        assertThat(objectMapper.readTree(target.toFile()).size()).isZero();
+    }
+
+    @Test
+    void export_withMissingSegmentLeavesNoTarget() {
+        Path target = tempDir.resolve("query_results.json");
+        ResultsJsonExporter exporter =
+                new ResultsJsonExporter(List.of(tempDir.resolve("missing.ndjson")), target, 1024);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThatThrownBy(() -> exporter.export(executor)).isInstanceOf(NoSuchFileException.class);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(target).doesNotExist();
+    }
+
+    private Path writeSegment(String name, IntStream ids) throws Exception {
+        Path segment = tempDir.resolve(name);
+        Files.writeString(segment, ids
+                .mapToObj(id -> "{\"id\":" + id + ",\"query_type\":\"q" + (id % 7) + "\",\"padding\":\"xxxxxxxx\"}")
+                .collect(Collectors.joining("\n", "", "\n")));
+        return segment;
+    }
+
+    private List<Path> leftoverTempFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".tmp")).toList();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.opensearchloadtester.metricsreporter.service;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.TimelineBucketDto;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimelineAccumulatorTest {
+
+    private static final long T0 = 1_767_225_600_000L;
+    private static final double[] PERCENTILES = {50, 99};
+
+    @Test
+    void toTimeline_countsQueriesErrorsAndLatencyPerSecond_includingEmptySeconds() {
+        TimelineAccumulator timeline = new TimelineAccumulator(60, PERCENTILES);
+        timeline.add(sample(T0 + 100, 10, 200));
+        timeline.add(sample(T0 + 900, 30, 503));
+        timeline.add(sample(T0 + 2_500, 20, 200));
+
+        List<TimelineBucketDto> buckets = timeline.toTimeline(PERCENTILES);
+
+        assertThat(buckets).extracting(TimelineBucketDto::getEpochMillis)
+                .containsExactly(T0, T0 + 1_000, T0 + 2_000);
+        TimelineBucketDto first = buckets.getFirst();
+        assertThat(first.getQueries()).isEqualTo(2L);
+        assertThat(first.getQps()).isEqualTo(2.0);
+        assertThat(first.getErrors()).isEqualTo(1L);
+        assertThat(first.getErrorRate()).isEqualTo(0.5);
+        assertThat(first.getRequestDurationMs().getMax()).isEqualTo(30L);
+        assertThat(first.getRequestDurationMs().getPercentiles()).containsEntry("p50", 10L);
+        assertThat(buckets.get(1).getQueries()).isZero();
+        assertThat(buckets.get(1).getErrorRate()).isZero();
+    }
+
+    @Test
+    void toTimeline_leavesOutLongGapsInsteadOfFillingEverySecond() {
+        TimelineAccumulator timeline = new TimelineAccumulator(60, PERCENTILES);
+        timeline.add(sample(T0, 10, 200));
+        timeline.add(sample(T0 + 2_000, 10, 200));
+        // A sample of a load generator whose clock is ten days ahead
+        timeline.add(sample(T0 + 10L * 24 * 3_600_000, 10, 200));
+
+        List<TimelineBucketDto> buckets = timeline.toTimeline(PERCENTILES);
+
+        assertThat(buckets).extracting(TimelineBucketDto::getEpochMillis)
+                .containsExactly(T0, T0 + 1_000, T0 + 2_000, T0 + 10L * 24 * 3_600_000);
+    }
+
+    @Test
+    void toTimeline_spreadsInFlightTimeOverTheSecondsARequestSpans() {
+        TimelineAccumulator timeline = new TimelineAccumulator(60, PERCENTILES);
+        // 500 ms in the first second, a full second, 250 ms in the third
+        timeline.add(sample(T0 + 500, 1_750, 200));
+        // Two requests of 250 ms each in the first second
+        timeline.add(sample(T0, 250, 200));
+        timeline.add(sample(T0 + 250, 250, 200));
+
+        List<TimelineBucketDto> buckets = timeline.toTimeline(PERCENTILES);
+
+        assertThat(buckets).extracting(TimelineBucketDto::getInFlight).containsExactly(1.0, 1.0, 0.25);
+        // Queries count in the second they were sent only
+        assertThat(buckets).extracting(TimelineBucketDto::getQueries).containsExactly(3L, 0L, 0L);
+    }
+
+    @Test
+    void merge_addsCountsInFlightTimeAndLatencyOfTheOtherTimeline() {
+        TimelineAccumulator timeline = new TimelineAccumulator(60, PERCENTILES);
+        timeline.add(sample(T0 + 100, 10, 200));
+        TimelineAccumulator batch = new TimelineAccumulator(60, PERCENTILES);
+        batch.add(sample(T0 + 200, 30, 500));
+        batch.add(sample(T0 + 1_500, 1_000, 200));
+
+        timeline.merge(batch);
+
+        List<TimelineBucketDto> buckets = timeline.toTimeline(PERCENTILES);
+        assertThat(buckets).extracting(TimelineBucketDto::getQueries).containsExactly(2L, 1L, 0L);
+        assertThat(buckets.getFirst().getErrors()).isEqualTo(1L);
+        assertThat(buckets.getFirst().getRequestDurationMs().getMax()).isEqualTo(30L);
+        assertThat(buckets).extracting(TimelineBucketDto::getInFlight).containsExactly(0.04, 0.5, 0.5);
+    }
+
+    @Test
+    void add_keepsCountingLateSamples_butNotTheirLatency_onceTheSecondIsSealed() {
+        TimelineAccumulator timeline = new TimelineAccumulator(2, PERCENTILES);
+        timeline.add(sample(T0, 10, 200));
+        timeline.add(sample(T0 + 5_000, 10, 200));
+        // Replayed late: its second is more than 2 s behind the newest sample
+        timeline.add(sample(T0 + 10, 900, 500));
+
+        TimelineBucketDto first = timeline.toTimeline(PERCENTILES).getFirst();
+
+        assertThat(first.getQueries()).isEqualTo(2L);
+        assertThat(first.getErrors()).isEqualTo(1L);
+        assertThat(first.getRequestDurationMs().getMax()).isEqualTo(10L);
+    }
+
+    @Test
+    void addInterval_spreadsQueriesErrorsAndInFlightTimeOverTheSecondsOfTheInterval() {
+        TimelineAccumulator timeline = new TimelineAccumulator(60, PERCENTILES);
+        Histogram requestDuration = new Histogram(3);
+        for (int i = 0; i < 10; i++) {
+            requestDuration.recordValue(i < 5 ? 100 : 500);
+        }
+
+        timeline.addInterval(T0, T0 + 3_000, 10, false, requestDuration);
+        timeline.addInterval(T0, T0 + 3_000, 3, true, requestDuration);
+
+        List<TimelineBucketDto> buckets = timeline.toTimeline(PERCENTILES);
+        assertThat(buckets).extracting(TimelineBucketDto::getQueries).containsExactly(4L, 4L, 5L);
+        assertThat(buckets).extracting(TimelineBucketDto::getErrors).containsExactly(1L, 1L, 1L);
+        // 13 requests of 300 ms on average over 3 seconds
+        assertThat(buckets).extracting(TimelineBucketDto::getInFlight).containsExactly(1.3, 1.3, 1.3);
+        assertThat(buckets).allSatisfy(bucket -> {
+            assertThat(bucket.getRequestDurationMs().getPercentiles()).containsEntry("p50", 100L);
+            assertThat(bucket.getRequestDurationMs().getMax()).isEqualTo(500L);
+        });
+    }
+
+    @Test
+    void add_ignoresSamplesWithoutStartTime() {
+        TimelineAccumulator timeline = new TimelineAccumulator(60, PERCENTILES);
+        timeline.add(new MetricsDto("lg-1", "term", 10L, 5L, 1, 200));
+
+        assertThat(timeline.toTimeline(PERCENTILES)).isEmpty();
+    }
+
+    private static MetricsDto sample(long startMillis, long durationMillis, int status) {
+        MetricsDto metrics = new MetricsDto("lg-1", "term", durationMillis, null, null, status);
+        metrics.setStartTimeEpochMillis(startMillis);
+        return metrics;
+    }
+}
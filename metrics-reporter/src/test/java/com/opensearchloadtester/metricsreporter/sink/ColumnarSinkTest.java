@@ -0,0 +1,142 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_roundTripsAllColumnsAcrossBlocks() throws Exception {
+        Path file = tempDir.resolve("query_results.columns");
+        List<MetricsDto> written = IntStream.range(0, 2500)
+                .mapToObj(i -> new MetricsDto("lg-" + (i % 3), i % 10 == 0 ? null : "q" + (i % 4),
+                        i % 2 == 0 ? "ramp" : null, 100L + i % 17, i % 5 == 0 ? null : 120L + i, 50L - i,
+                        i % 7, i % 13 == 0 ? 503 : 200, 400L, 10_000L + i * 3, 70L, 30L, 40L,
+                        1_700_000_000_000L + i * 2))
+                .toList();
+
+        try (ColumnarSink sink = new ColumnarSink(file, 1000)) {
+            sink.write(written.subList(0, 700));
+            sink.write(written.subList(700, 2500));
+        }
+
+        List<MetricsDto> read = read(file);
+        assertThat(read).hasSize(2500);
+        assertThat(read).usingRecursiveFieldByFieldElementComparator().isEqualTo(written);
+    }
+
+    @Test
+    void write_encodesSmallDeltasCompactly() throws Exception {
+        Path file = tempDir.resolve("query_results.columns");
+        try (ColumnarSink sink = new ColumnarSink(file, 65536)) {
+            sink.write(IntStream.range(0, 10_000)
+                    .mapToObj(i -> new MetricsDto("lg-1", "q" + (i % 5), null, 100L + i % 50, 110L + i % 50,
+                            40L + i % 30, 10, 200, 512L, 4096L, 60L, 40L, 60L, 1_700_000_000_000L + i))
+                    .toList());
+        }
+
+        // About one byte per value, where the NDJSON line of a row takes about 400 bytes
+        assertThat(Files.size(file)).isLessThan(160_000);
+    }
+
+    /**
+     * Decodes a file written by {@link ColumnarSink}.
+     */
+    static List<MetricsDto> read(Path file) throws Exception {
+        List<MetricsDto> rows = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            assertThat(in.readInt()).isEqualTo(ColumnarSink.MAGIC);
+            assertThat(in.readInt()).isEqualTo(ColumnarSink.VERSION);
+            while (true) {
+                int rowCount;
+                try {
+                    rowCount = in.readInt();
+                } catch (EOFException e) {
+                    return rows;
+                }
+                byte[] block = new byte[in.readInt()];
+                in.readFully(block);
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+
+                String[][] strings = new String[3][];
+                for (int column = 0; column < 3; column++) {
+                    strings[column] = readDictionaryColumn(buffer, rowCount);
+                }
+                int[] statusCodes = new int[rowCount];
+                long previous = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    previous += zigzag(buffer);
+                    statusCodes[row] = (int) previous;
+                }
+                Long[][] longs = new Long[ColumnarSink.LONG_COLUMNS.size()][rowCount];
+                for (Long[] column : longs) {
+                    byte[] bitmap = new byte[(rowCount + 7) / 8];
+                    buffer.get(bitmap);
+                    previous = 0;
+                    for (int row = 0; row < rowCount; row++) {
+                        if ((bitmap[row / 8] & (1 << (row % 8))) != 0) {
+                            previous += zigzag(buffer);
+                            column[row] = previous;
+                        }
+                    }
+                }
+                assertThat(buffer.hasRemaining()).isFalse();
+
+                for (int row = 0; row < rowCount; row++) {
+                    rows.add(new MetricsDto(strings[0][row], strings[1][row], strings[2][row], longs[0][row],
+                            longs[1][row], longs[2][row], longs[3][row] == null ? null : longs[3][row].intValue(),
+                            statusCodes[row], longs[4][row], longs[5][row], longs[6][row], longs[7][row],
+                            longs[8][row], longs[9][row]));
+                }
+            }
+        }
+    }
+
+    private static String[] readDictionaryColumn(ByteBuffer buffer, int rowCount) {
+        String[] dictionary = new String[(int) varint(buffer)];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[(int) varint(buffer)];
+            buffer.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        String[] values = new String[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            int code = (int) varint(buffer);
+            values[row] = code == 0 ? null : dictionary[code - 1];
+        }
+        return values;
+    }
+
+    private static long zigzag(ByteBuffer buffer) {
+        long value = varint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long varint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
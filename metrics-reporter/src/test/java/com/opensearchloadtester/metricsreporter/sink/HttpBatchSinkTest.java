@@ -0,0 +1,140 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpBatchSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter writer = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE).writer();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private volatile int status = 200;
+    private volatile String responseBody = "{\"errors\":false,\"items\":[]}";
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(new Request(exchange.getRequestURI().getPath(),
+                    exchange.getRequestHeaders().getFirst("Content-Type"),
+                    exchange.getRequestHeaders().getFirst("Authorization"),
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void openSearchBulk_sendsFullBulksAndRemainderOnFlush() throws Exception {
+        OpenSearchBulkSink sink = new OpenSearchBulkSink(client, baseUrl() + "/", "results", 2, "admin", "secret",
+                writer);
+
+        sink.write(List.of(metrics("q1", 1), metrics("q2", 2), metrics("q3", 3)));
+        assertThat(requests).hasSize(1);
+        sink.flush();
+        sink.flush();
+
+        assertThat(requests).hasSize(2);
+        Request first = requests.getFirst();
+        assertThat(first.path()).isEqualTo("/results/_bulk");
+        assertThat(first.contentType()).isEqualTo("application/x-ndjson");
+        assertThat(first.authorization()).isEqualTo("Basic YWRtaW46c2VjcmV0");
+        List<String> lines = first.body().lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).isEqualTo("{\"index\":{}}");
+        assertThat(objectMapper.readTree(lines.get(1)).get("query_type").asText()).isEqualTo("q1");
+        assertThat(objectMapper.readTree(lines.get(3)).get("request_duration_millis").asLong()).isEqualTo(2);
+        assertThat(requests.get(1).body().lines().toList()).hasSize(2);
+    }
+
+    @Test
+    void openSearchBulk_reportsRejectedItems() throws Exception {
+        responseBody = "{\"errors\":true,\"items\":[{\"index\":{\"status\":201}},"
+                + "{\"index\":{\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\","
+                + "\"reason\":\"failed to parse field [total_hits]\"}}}]}";
+        OpenSearchBulkSink sink = new OpenSearchBulkSink(client, baseUrl(), "results", 2, "", "", writer);
+
+        assertThatThrownBy(() -> sink.write(List.of(metrics("q1", 1), metrics("q2", 2))))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("1 of 2")
+                .hasMessageContaining("failed to parse field [total_hits]");
+        assertThat(requests.getFirst().authorization()).isNull();
+    }
+
+    @Test
+    void loki_pushesOneStreamPerQueryTypeWithRequestTimestamps() throws Exception {
+        LokiPushSink sink = new LokiPushSink(client, baseUrl() + "/loki/api/v1/push", "load-test", 100, writer);
+
+        sink.write(List.of(metrics("q1", 1), metrics("q2", 2), metrics("q1", 3)));
+        assertThat(requests).isEmpty();
+        sink.close();
+
+        assertThat(requests).hasSize(1);
+        assertThat(requests.getFirst().path()).isEqualTo("/loki/api/v1/push");
+        JsonNode streams = objectMapper.readTree(requests.getFirst().body()).get("streams");
+        assertThat(streams).hasSize(2);
+        assertThat(streams.get(0).get("stream").get("job").asText()).isEqualTo("load-test");
+        assertThat(streams.get(0).get("stream").get("query_type").asText()).isEqualTo("q1");
+        JsonNode values = streams.get(0).get("values");
+        assertThat(values).hasSize(2);
+        assertThat(values.get(0).get(0).asText()).isEqualTo("1700000000001000000");
+        assertThat(objectMapper.readTree(values.get(1).get(1).asText()).get("request_duration_millis").asLong())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void rejectedBatch_failsAndIsNotResent() throws Exception {
+        status = 500;
+        responseBody = "ingester unavailable";
+        LokiPushSink sink = new LokiPushSink(client, baseUrl() + "/loki/api/v1/push", "load-test", 100, writer);
+        sink.write(List.of(metrics("q1", 1)));
+
+        assertThatThrownBy(sink::flush)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("HTTP 500")
+                .hasMessageContaining("ingester unavailable");
+        sink.flush();
+        assertThat(requests).hasSize(1);
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static MetricsDto metrics(String queryType, long requestDurationMillis) {
+        MetricsDto metrics = new MetricsDto("lg-1", queryType, requestDurationMillis, 5L, 1, 200);
+        metrics.setStartTimeEpochMillis(1_700_000_000_000L + requestDurationMillis);
+        return metrics;
+    }
+
+    private record Request(String path, String contentType, String authorization, String body) {
+    }
+}
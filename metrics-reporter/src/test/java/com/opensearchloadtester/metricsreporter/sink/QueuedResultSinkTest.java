@@ -0,0 +1,117 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.SinkStatusDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueuedResultSinkTest {
+
+    @Test
+    void offer_dropsBatchesWithoutBlockingWhileSinkIsSlow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink(release, false);
+        QueuedResultSink queued = new QueuedResultSink(sink, 2);
+
+        long start = System.nanoTime();
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (queued.offer(batch(10))) {
+                accepted++;
+            }
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        // At most one batch taken by the sink thread plus a full queue
+        assertThat(accepted).isBetween(2, 3);
+
+        release.countDown();
+        assertThat(queued.close(5000)).isTrue();
+
+        SinkStatusDto status = queued.status();
+        assertThat(status.getState()).isEqualTo(SinkStatusDto.State.CLOSED);
+        assertThat(status.getWrittenRecords()).isEqualTo(accepted * 10L);
+        assertThat(status.getDroppedRecords()).isEqualTo((20 - accepted) * 10L);
+        assertThat(sink.records.get()).isEqualTo(accepted * 10);
+        assertThat(sink.closed).isTrue();
+    }
+
+    @Test
+    void failingWrites_areCountedAndLaterBatchesStillWritten() throws Exception {
+        RecordingSink sink = new RecordingSink(new CountDownLatch(0), true);
+        QueuedResultSink queued = new QueuedResultSink(sink, 16);
+
+        queued.offer(batch(3));
+        queued.offer(batch(4));
+        assertThat(queued.close(5000)).isTrue();
+
+        SinkStatusDto status = queued.status();
+        assertThat(status.getState()).isEqualTo(SinkStatusDto.State.CLOSED_WITH_ERRORS);
+        assertThat(status.getFailedRecords()).isEqualTo(3);
+        assertThat(status.getWrittenRecords()).isEqualTo(4);
+        assertThat(status.getLastError()).contains("unreachable");
+    }
+
+    @Test
+    void offer_afterCloseIsDropped() throws Exception {
+        QueuedResultSink queued = new QueuedResultSink(new RecordingSink(new CountDownLatch(0), false), 4);
+        queued.close(5000);
+
+        assertThat(queued.offer(batch(5))).isFalse();
+        assertThat(queued.status().getDroppedRecords()).isEqualTo(5);
+    }
+
+    private static List<MetricsDto> batch(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> new MetricsDto("lg-1", "q1", 10L + i, 5L, 1, 200))
+                .toList();
+    }
+
+    private static final class RecordingSink implements ResultSink {
+        private final CountDownLatch release;
+        private final boolean failFirstWrite;
+        private final AtomicInteger records = new AtomicInteger();
+        private final AtomicInteger writes = new AtomicInteger();
+        private volatile boolean closed;
+
+        RecordingSink(CountDownLatch release, boolean failFirstWrite) {
+            this.release = release;
+            this.failFirstWrite = failFirstWrite;
+        }
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void write(List<MetricsDto> batch) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (failFirstWrite && writes.getAndIncrement() == 0) {
+                throw new IOException("destination unreachable");
+            }
+            records.addAndGet(batch.size());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
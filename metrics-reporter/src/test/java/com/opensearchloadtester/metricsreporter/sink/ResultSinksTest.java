@@ -0,0 +1,134 @@
+package com.opensearchloadtester.metricsreporter.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensearchloadtester.common.dto.MetricsDto;
+import com.opensearchloadtester.metricsreporter.dto.SinkStatusDto;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResultSinksTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void fileSinks_writeAllPublishedResults() throws Exception {
+        Files.writeString(tempDir.resolve("query_results.3.ndjson.gz"), "left over from a previous run");
+        ResultSinks resultSinks = new ResultSinks();
+        ReflectionTestUtils.setField(resultSinks, "sinkNames", List.of("csv", " ndjson-gz", "columnar"));
+        ReflectionTestUtils.setField(resultSinks, "compressedNdjsonRotateMb", 0L);
+        resultSinks.start(tempDir);
+
+        List<MetricsDto> first = List.of(
+                new MetricsDto("lg-1", "q1", "ramp", 100L, 120L, 50L, 3, 200, 10L, 2000L, 80L, 20L, 50L,
+                        1_700_000_000_000L),
+                new MetricsDto("lg-1", "q2, \"quoted\"", 200L, null, 0, 500));
+        resultSinks.publish(first);
+        resultSinks.publish(List.of(new MetricsDto("lg-2", "q1", 300L, 150L, 7, 200)));
+        resultSinks.closeAsync().get();
+
+        assertThat(resultSinks.getStatus()).extracting(SinkStatusDto::getName)
+                .containsExactly("csv", "ndjson-gz", "columnar");
+        assertThat(resultSinks.getStatus()).allSatisfy(status -> {
+            assertThat(status.getState()).isEqualTo(SinkStatusDto.State.CLOSED);
+            assertThat(status.getWrittenRecords()).isEqualTo(3);
+        });
+
+        try (Reader reader = Files.newBufferedReader(tempDir.resolve("query_results.csv"))) {
+            List<CSVRecord> rows = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build()
+                    .parse(reader).getRecords();
+            assertThat(rows).hasSize(3);
+            assertThat(rows.get(0).get("stage")).isEqualTo("ramp");
+            assertThat(rows.get(0).get("time_to_first_byte_millis")).isEqualTo("80");
+            assertThat(rows.get(1).get("query_type")).isEqualTo("q2, \"quoted\"");
+            assertThat(rows.get(1).get("query_duration_millis")).isEmpty();
+            assertThat(rows.get(2).get("load_generator_id")).isEqualTo("lg-2");
+        }
+
+        List<String> lines = gunzipLines(tempDir.resolve("query_results.ndjson.gz"));
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines.get(0)).get("start_time_epoch_millis").asLong())
+                .isEqualTo(1_700_000_000_000L);
+        assertThat(tempDir.resolve("query_results.3.ndjson.gz")).doesNotExist();
+
+        assertThat(ColumnarSinkTest.read(tempDir.resolve("query_results.columns"))).hasSize(3);
+    }
+
+    @Test
+    void compressedNdjson_rotatesIntoNumberedFiles() throws Exception {
+        ResultSinks resultSinks = new ResultSinks();
+        ReflectionTestUtils.setField(resultSinks, "sinkNames", List.of("ndjson-gz"));
+        ReflectionTestUtils.setField(resultSinks, "compressedNdjsonRotateMb", 1L);
+        resultSinks.start(tempDir);
+
+        // About 300 bytes per line, so every batch of 6000 exceeds 1 MiB
+        for (int batch = 0; batch < 4; batch++) {
+            int offset = batch * 6000;
+            resultSinks.publish(IntStream.range(offset, offset + 6000)
+                    .mapToObj(i -> new MetricsDto("lg-1", "q1", (long) i, 5L, 1, 200))
+                    .toList());
+        }
+        resultSinks.closeAsync().get();
+
+        List<Long> durations = new ArrayList<>();
+        int files = 0;
+        for (Path file = tempDir.resolve("query_results.ndjson.gz"); Files.exists(file);
+             file = tempDir.resolve("query_results." + ++files + ".ndjson.gz")) {
+            for (String line : gunzipLines(file)) {
+                durations.add(objectMapper.readTree(line).get("request_duration_millis").asLong());
+            }
+        }
+        assertThat(files).isGreaterThan(1);
+        assertThat(durations).isEqualTo(LongStream.range(0, 24_000).boxed().toList());
+    }
+
+    @Test
+    void start_withUnknownSinkFails() {
+        ResultSinks resultSinks = new ResultSinks();
+        ReflectionTestUtils.setField(resultSinks, "sinkNames", List.of("csv", "kafka"));
+
+        assertThatThrownBy(() -> resultSinks.start(tempDir))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("kafka");
+        assertThat(resultSinks.isEnabled()).isFalse();
+    }
+
+    @Test
+    void withoutSinks_publishAndCloseDoNothing() throws Exception {
+        ResultSinks resultSinks = new ResultSinks();
+        resultSinks.start(tempDir);
+
+        resultSinks.publish(List.of(new MetricsDto("lg-1", "q1", 1L, 1L, 1, 200)));
+
+        assertThat(resultSinks.isEnabled()).isFalse();
+        assertThat(resultSinks.closeAsync()).isCompleted();
+        assertThat(resultSinks.getStatus()).isEmpty();
+    }
+
+    private static List<String> gunzipLines(Path file) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}